@@ -0,0 +1,44 @@
+package com.rex.benchmark;
+
+import com.rex.RexPlatformApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.stream.Stream;
+
+/**
+ * Boots the application against the embedded H2 database for benchmarks,
+ * with SQL and debug logging switched off so they don't dominate the measurements.
+ * Settings are passed as command-line arguments so they take precedence over
+ * {@code application.properties}.
+ */
+final class BenchmarkContext {
+
+    private static final String[] QUIET = {
+            "spring.jpa.show-sql=false",
+            "spring.jpa.properties.hibernate.format_sql=false",
+            "spring.jpa.properties.hibernate.use_sql_comments=false",
+            "logging.level.root=WARN",
+            "logging.level.com.rex=WARN",
+            "logging.level.org.hibernate.SQL=WARN",
+            "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+            "logging.level.web=WARN",
+            "logging.level.org.springframework.web=WARN"
+    };
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Start the application; {@code overrides} are extra {@code key=value} properties.
+     */
+    static ConfigurableApplicationContext start(String... overrides) {
+        String[] args = Stream.concat(Stream.of(QUIET), Stream.of(overrides))
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(RexPlatformApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+    }
+}
@@ -0,0 +1,67 @@
+package com.rex.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Entry point of the {@code benchmark} profile. Accepts the regular JMH command line
+ * and runs the selected benchmarks once per thread count in {@code rex.benchmark.threads}
+ * (comma-separated, default {@code 1,4}), with the GC profiler attached so allocation
+ * rate per operation is reported next to throughput and latency.
+ * <p>
+ * Each run writes JSON results to {@code <rex.benchmark.results>/threads-N.json}
+ * (default {@code target/jmh}), which can be diffed between commits or loaded into
+ * a JMH visualizer. A thread count given explicitly with {@code -t} disables the sweep.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Path results = Paths.get(System.getProperty("rex.benchmark.results", "target/jmh"));
+        Files.createDirectories(results);
+
+        int[] threadCounts = commandLine.getThreads().hasValue()
+                ? new int[]{commandLine.getThreads().get()}
+                : Arrays.stream(System.getProperty("rex.benchmark.threads", "1,4").split(","))
+                        .map(String::trim)
+                        .mapToInt(Integer::parseInt)
+                        .toArray();
+
+        for (int threads : threadCounts) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Benchmark thread count must be positive: " + threads);
+            }
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    .result(results.resolve("threads-" + threads + ".json").toString())
+                    .resultFormat(ResultFormatType.JSON);
+            if (!hasGcProfiler(commandLine)) {
+                options.addProfiler(GCProfiler.class);
+            }
+            new Runner(options.build()).run();
+        }
+    }
+
+    private static boolean hasGcProfiler(CommandLineOptions commandLine) {
+        return commandLine.getProfilers().stream()
+                .map(ProfilerConfig::getKlass)
+                .anyMatch(profiler -> profiler.equals("gc") || profiler.equals(GCProfiler.class.getName()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.rex.benchmark;
+
+import com.rex.service.bucketing.BucketingStrategy;
+import com.rex.service.bucketing.LegacyBucketingStrategy;
+import com.rex.service.bucketing.Murmur3BucketingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the bucketing helpers behind flag rollouts and experiment allocation:
+ * hashing a user ID, and turning a (user, salt) pair into a hash or a rollout bucket,
+ * for each {@link BucketingStrategy}. No Spring context; the strategies are pure functions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketingBenchmark {
+
+    @Param({"legacy", "murmur3"})
+    public String strategy;
+
+    private BucketingStrategy bucketing;
+    private long saltKey;
+    private int rolloutBuckets;
+
+    private String[] userIds;
+    private int[] userHashes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bucketing = "legacy".equals(strategy) ? new LegacyBucketingStrategy() : new Murmur3BucketingStrategy();
+        saltKey = bucketing.saltKey("premium_features");
+        rolloutBuckets = BucketingStrategy.bucketsForPercentage(25);
+
+        userIds = new String[1024];
+        userHashes = new int[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = "user_" + i;
+            userHashes[i] = bucketing.hashUser(userIds[i]);
+        }
+    }
+
+    @Benchmark
+    public int hashUser() {
+        return bucketing.hashUser(userIds[next++ & (userIds.length - 1)]);
+    }
+
+    @Benchmark
+    public int hash() {
+        return bucketing.hash(userHashes[next++ & (userHashes.length - 1)], saltKey);
+    }
+
+    @Benchmark
+    public boolean inRollout() {
+        return bucketing.bucket(userHashes[next++ & (userHashes.length - 1)], saltKey) < rolloutBuckets;
+    }
+
+    @Benchmark
+    public boolean hashAndBucketUser() {
+        int userHash = bucketing.hashUser(userIds[next++ & (userIds.length - 1)]);
+        return bucketing.bucket(userHash, saltKey) < rolloutBuckets;
+    }
+}
@@ -0,0 +1,80 @@
+package com.rex.benchmark;
+
+import com.rex.model.UserCohort;
+import com.rex.service.ExperimentService;
+import com.rex.service.assignment.AssignmentWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code assignUserToExperiment} for returning users (answered from the assignment
+ * cache) and for first-time users (bucketed, cached and queued for the assignment
+ * writer), against the seeded {@code homepage_cta_test} experiment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExperimentAssignmentBenchmark {
+
+    private static final Long EXPERIMENT_ID = 1L;
+
+    private ConfigurableApplicationContext context;
+    private ExperimentService experimentService;
+    private AssignmentWriter assignmentWriter;
+
+    private String[] returningUsers;
+    private final AtomicLong newUsers = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        experimentService = context.getBean(ExperimentService.class);
+        assignmentWriter = context.getBean(AssignmentWriter.class);
+
+        returningUsers = new String[1024];
+        for (int i = 0; i < returningUsers.length; i++) {
+            returningUsers[i] = "returning_user_" + i;
+            experimentService.assignUserToExperiment(returningUsers[i], EXPERIMENT_ID, "session_" + i);
+        }
+        assignmentWriter.awaitDrained(Duration.ofMinutes(1));
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() {
+        assignmentWriter.awaitDrained(Duration.ofMinutes(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserCohort returningUser(UserCursor users) {
+        return experimentService.assignUserToExperiment(users.next(returningUsers), EXPERIMENT_ID, null);
+    }
+
+    @Benchmark
+    public UserCohort newUser() {
+        return experimentService.assignUserToExperiment("new_user_" + newUsers.incrementAndGet(),
+                EXPERIMENT_ID, null);
+    }
+}
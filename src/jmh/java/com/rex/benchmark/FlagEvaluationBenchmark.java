@@ -0,0 +1,112 @@
+package com.rex.benchmark;
+
+import com.rex.model.FeatureFlag;
+import com.rex.repository.FeatureFlagRepository;
+import com.rex.service.FeatureFlagService;
+import com.rex.service.bucketing.BucketingStrategy;
+import com.rex.service.flag.CompiledFlag;
+import com.rex.service.flag.FlagSnapshotHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares flag evaluation through the in-memory snapshot with the previous
+ * repository-backed path (transaction + findByName + entity hydration).
+ * {@code snapshotHolderEvaluation} measures the snapshot without the transactional service proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlagEvaluationBenchmark {
+
+    private static final String FLAG = "premium_features";
+    private static final String ENVIRONMENT = "production";
+    private static final String[] PRODUCTION_FLAGS = {"dark_mode", "premium_features"};
+
+    private ConfigurableApplicationContext context;
+    private FeatureFlagService featureFlagService;
+    private FlagSnapshotHolder flagSnapshots;
+    private FeatureFlagRepository featureFlagRepository;
+    private BucketingStrategy bucketing;
+    private TransactionTemplate readOnlyTransaction;
+
+    private String[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        featureFlagService = context.getBean(FeatureFlagService.class);
+        flagSnapshots = context.getBean(FlagSnapshotHolder.class);
+        featureFlagRepository = context.getBean(FeatureFlagRepository.class);
+        bucketing = context.getBean(BucketingStrategy.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        userIds = new String[1024];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = "user_" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean snapshotEvaluation(UserCursor users) {
+        return featureFlagService.isFlagEnabledForUser(FLAG, users.next(userIds), ENVIRONMENT);
+    }
+
+    @Benchmark
+    public boolean snapshotHolderEvaluation(UserCursor users) {
+        return flagSnapshots.isEnabled(FLAG, users.next(userIds), ENVIRONMENT);
+    }
+
+    @Benchmark
+    public int perFlagEvaluationOfEnvironment(UserCursor users) {
+        String userId = users.next(userIds);
+        int enabled = 0;
+        for (String flag : PRODUCTION_FLAGS) {
+            if (flagSnapshots.isEnabled(flag, userId, ENVIRONMENT)) {
+                enabled++;
+            }
+        }
+        return enabled;
+    }
+
+    @Benchmark
+    public int batchEvaluationOfEnvironment(UserCursor users) {
+        return flagSnapshots.evaluateAll(users.next(userIds), ENVIRONMENT).enabledCount();
+    }
+
+    @Benchmark
+    public boolean repositoryEvaluation(UserCursor users) {
+        String userId = users.next(userIds);
+        return Boolean.TRUE.equals(readOnlyTransaction.execute(status -> {
+            Optional<FeatureFlag> flag = featureFlagRepository.findByName(FLAG);
+            return flag.isPresent()
+                    && ENVIRONMENT.equals(flag.get().getEnvironment())
+                    && CompiledFlag.from(flag.get(), bucketing).isEnabledFor(userId);
+        }));
+    }
+}
@@ -0,0 +1,106 @@
+package com.rex.benchmark;
+
+import com.rex.model.Experiment;
+import com.rex.model.Metrics;
+import com.rex.repository.ExperimentRepository;
+import com.rex.service.MetricsService;
+import com.rex.service.metrics.AsyncMetricsSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained event ingestion rate (events/second) of {@code trackPageView},
+ * {@code trackConversion} and {@code saveMetricsBatch} with synchronous inserts
+ * versus the asynchronous ring buffer + batch writer.
+ * The async run uses the {@code block} policy with a small buffer, so once the
+ * buffer fills the measured rate is the writer's sustained rate, not the enqueue rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class MetricsIngestionBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private MetricsService metricsService;
+    private Experiment experiment;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "rex.metrics.ingestion.mode=" + mode,
+                "rex.metrics.ingestion.backpressure=block",
+                "rex.metrics.ingestion.buffer-capacity=8192");
+        metricsService = context.getBean(MetricsService.class);
+        experiment = context.getBean(ExperimentRepository.class).findById(1L)
+                .orElseThrow(() -> new IllegalStateException("Seeded experiment 1 not found"));
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() {
+        if ("async".equals(mode)) {
+            context.getBean(AsyncMetricsSink.class).awaitDrained(Duration.ofMinutes(1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object trackPageView() {
+        String userId = "user_" + ThreadLocalRandom.current().nextInt(100_000);
+        return metricsService.trackPageView(userId, "/pricing", "session_" + userId,
+                "production", "Mozilla/5.0", "/home");
+    }
+
+    @Benchmark
+    public Object trackConversion() {
+        String userId = "user_" + ThreadLocalRandom.current().nextInt(100_000);
+        return metricsService.trackConversion(userId, experiment, experiment.getTestVariantName(), 1.0,
+                "session_" + userId, "production");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object saveMetricsBatch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Metrics> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Metrics click = new Metrics("user_" + random.nextInt(100_000), experiment, Metrics.EventType.CLICK,
+                    experiment.getControlVariantName());
+            click.setEnvironment("production");
+            batch.add(click);
+        }
+        return metricsService.saveMetricsBatch(batch);
+    }
+}
@@ -0,0 +1,31 @@
+package com.rex.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-thread position in a benchmark's user IDs, so benchmarks sharing a
+ * {@link Scope#Benchmark} fixture do not race on (and false-share) one counter.
+ */
+@State(Scope.Thread)
+public class UserCursor {
+
+    private int next;
+
+    // Threads start at different users instead of walking the same ones in lockstep
+    @Setup(Level.Trial)
+    public void setUp() {
+        next = ThreadLocalRandom.current().nextInt();
+    }
+
+    /**
+     * The next of the given IDs, cycling; the array length must be a power of two.
+     */
+    public String next(String[] userIds) {
+        return userIds[next++ & (userIds.length - 1)];
+    }
+}
@@ -0,0 +1,67 @@
+package com.rex.controller;
+
+import com.rex.service.bulk.BulkAssignmentProgress;
+import com.rex.service.bulk.BulkAssignmentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bulk assignment of offline cohorts to a running experiment.
+ * <p>
+ * {@code POST /api/experiments/{id}/assignments/bulk} takes user IDs, one per line, as a
+ * plain-text body or an uploaded {@code file}, and streams them through
+ * {@link BulkAssignmentService} on the request thread. Passing {@code jobId} names a new
+ * job or resumes an interrupted one with the same input;
+ * {@code GET .../bulk/{jobId}} reports its progress meanwhile.
+ */
+@RestController
+@RequestMapping("/api/experiments/{experimentId}/assignments/bulk")
+public class BulkAssignmentController {
+
+    private final BulkAssignmentService bulkAssignmentService;
+
+    @Autowired
+    public BulkAssignmentController(BulkAssignmentService bulkAssignmentService) {
+        this.bulkAssignmentService = bulkAssignmentService;
+    }
+
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+    public BulkAssignmentProgress assign(@PathVariable Long experimentId,
+                                         @RequestParam(required = false) String jobId,
+                                         InputStream body) throws IOException {
+        try (Reader users = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+            return bulkAssignmentService.assign(experimentId, jobId, users);
+        }
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public BulkAssignmentProgress assignFile(@PathVariable Long experimentId,
+                                             @RequestParam(required = false) String jobId,
+                                             @RequestParam MultipartFile file) throws IOException {
+        try (Reader users = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return bulkAssignmentService.assign(experimentId, jobId, users);
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public BulkAssignmentProgress progress(@PathVariable Long experimentId, @PathVariable String jobId) {
+        BulkAssignmentProgress progress = bulkAssignmentService.getProgress(jobId);
+        if (!progress.experimentId().equals(experimentId)) {
+            throw new IllegalArgumentException("Bulk assignment job not found: " + jobId);
+        }
+        return progress;
+    }
+}
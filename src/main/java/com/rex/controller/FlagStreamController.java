@@ -0,0 +1,223 @@
+package com.rex.controller;
+
+import com.rex.service.flag.CompiledFlag;
+import com.rex.service.flag.FlagChangeBus;
+import com.rex.service.flag.FlagChangeEvent;
+import com.rex.service.flag.FlagSnapshot;
+import com.rex.service.flag.FlagSnapshotHolder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Push-based flag propagation for SDKs and edge nodes.
+ * <p>
+ * Clients bootstrap from {@code GET /api/flags/snapshot} (or the first
+ * {@code snapshot} event of the stream), then subscribe to
+ * {@code GET /api/flags/stream?since=<version>} and apply {@code change}
+ * events in order. Reconnecting with the last seen version (or the standard
+ * {@code Last-Event-ID} header) resumes without re-fetching every flag; a full
+ * snapshot is sent only when the requested version can no longer be replayed.
+ * <p>
+ * A stream filtered by environment receives a {@code remove} event (carrying the
+ * flag's new state) when a flag moves to another environment, so the client can
+ * drop it. Each client has a bounded queue drained by a small shared pool; a
+ * client that falls further behind than the queue holds is disconnected and
+ * catches up by reconnecting with its last version.
+ */
+@RestController
+@RequestMapping("/api/flags")
+public class FlagStreamController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlagStreamController.class);
+
+    private final FlagSnapshotHolder flagSnapshots;
+    private final FlagChangeBus changeBus;
+    private final long streamTimeoutMs;
+    private final int queueCapacity;
+
+    // Fan-out runs off the publishing thread so slow clients never delay a flag mutation
+    private final ExecutorService fanOut;
+
+    @Autowired
+    public FlagStreamController(FlagSnapshotHolder flagSnapshots,
+                                FlagChangeBus changeBus,
+                                @Value("${rex.flags.stream-timeout-ms:1800000}") long streamTimeoutMs,
+                                @Value("${rex.flags.stream-queue-capacity:256}") int queueCapacity,
+                                @Value("${rex.flags.stream-fanout-threads:4}") int fanOutThreads) {
+        if (queueCapacity < 1 || fanOutThreads < 1) {
+            throw new IllegalArgumentException("Flag stream queue capacity and fan-out threads must be positive");
+        }
+        this.flagSnapshots = flagSnapshots;
+        this.changeBus = changeBus;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.queueCapacity = queueCapacity;
+        this.fanOut = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "flag-stream-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Full snapshot of all flags (optionally for one environment) with its version.
+     */
+    @GetMapping("/snapshot")
+    public SnapshotResponse snapshot(@RequestParam(required = false) String environment) {
+        return toResponse(flagSnapshots.current(), environment);
+    }
+
+    /**
+     * Stream flag changes newer than {@code since} as server-sent events.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) Long since,
+                             @RequestParam(required = false) String environment,
+                             @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        long fromVersion = since != null ? since : (lastEventId != null ? lastEventId : -1L);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        StreamClient client = new StreamClient(emitter);
+
+        if (!changeBus.canReplayFrom(fromVersion)) {
+            FlagSnapshot snapshot = flagSnapshots.current();
+            SnapshotResponse response = toResponse(snapshot, environment);
+            client.enqueue(SseEmitter.event()
+                    .name("snapshot")
+                    .id(Long.toString(response.version()))
+                    .data(response, MediaType.APPLICATION_JSON));
+            fromVersion = response.version();
+        }
+
+        FlagChangeBus.Subscription subscription = changeBus.subscribe(fromVersion, change -> {
+            String name = eventName(change, environment);
+            if (name != null) {
+                client.enqueue(SseEmitter.event()
+                        .name(name)
+                        .id(Long.toString(change.version()))
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+        });
+
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+
+        logger.debug("Flag stream subscribed from version {} (environment: {})", fromVersion, environment);
+        return emitter;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOut.shutdownNow();
+    }
+
+    /**
+     * SSE event name for a change as seen by a stream of one environment, or null when
+     * the change does not concern that environment.
+     */
+    static String eventName(FlagChangeEvent change, String environment) {
+        if (environment == null || environment.equals(change.environment())) {
+            return "change";
+        }
+        return change.leaves(environment) ? "remove" : null;
+    }
+
+    private SnapshotResponse toResponse(FlagSnapshot snapshot, String environment) {
+        List<FlagChangeEvent> flags = snapshot.flags().stream()
+                .filter(flag -> environment == null || environment.equals(flag.getEnvironment()))
+                .sorted(Comparator.comparing(CompiledFlag::getName))
+                .map(flag -> flag.toChangeEvent(snapshot.getVersion()))
+                .toList();
+        return new SnapshotResponse(snapshot.getVersion(), flags);
+    }
+
+    /**
+     * One connected client: events are queued in order and sent by at most one fan-out
+     * thread at a time, so a slow client only ever occupies a single pool thread.
+     */
+    private final class StreamClient {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        StreamClient(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                drop(new IllegalStateException("Flag stream client fell more than " + queueCapacity
+                        + " events behind"));
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    fanOut.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    drop(e);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+            } finally {
+                draining.set(false);
+            }
+            // An event may have been queued after the last poll but before the flag was reset
+            if (!closed) {
+                scheduleDrain();
+            }
+        }
+
+        private void drop(Exception cause) {
+            if (!closed) {
+                closed = true;
+                pending.clear();
+                logger.debug("Dropping flag stream client: {}", cause.getMessage());
+                emitter.completeWithError(cause);
+            }
+        }
+    }
+
+    /**
+     * Flag snapshot payload: the config version and the state of every flag at that version.
+     */
+    public record SnapshotResponse(long version, List<FlagChangeEvent> flags) {
+    }
+}
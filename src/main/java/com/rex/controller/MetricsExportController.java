@@ -0,0 +1,91 @@
+package com.rex.controller;
+
+import com.rex.model.Metrics;
+import com.rex.service.MetricsService;
+import com.rex.service.export.MetricsExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Streaming metrics export for analysts.
+ * <p>
+ * {@code GET /api/metrics/export?format=ndjson|csv} streams every event, or only those
+ * of one {@code experimentId}, one {@code eventType}, or the range {@code from}..{@code to}
+ * (ISO date-times). At most one filter may be given. Rows are written to the response as
+ * they are read, so the export never materializes the result.
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsExportController.class);
+
+    private final MetricsService metricsService;
+
+    @Autowired
+    public MetricsExportController(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long experimentId,
+            @RequestParam(required = false) Metrics.EventType eventType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        MetricsExporter.Format exportFormat = parseFormat(format);
+        int filters = (experimentId != null ? 1 : 0) + (eventType != null ? 1 : 0)
+                + (from != null || to != null ? 1 : 0);
+        if (filters > 1) {
+            throw new IllegalArgumentException("Export by at most one of experimentId, eventType or from/to");
+        }
+        if ((from == null) != (to == null)) {
+            throw new IllegalArgumentException("Export by date range needs both from and to");
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            long rows;
+            if (experimentId != null) {
+                rows = metricsService.exportMetricsByExperiment(experimentId, exportFormat, out);
+            } else if (eventType != null) {
+                rows = metricsService.exportMetricsByEventType(eventType, exportFormat, out);
+            } else if (from != null) {
+                rows = metricsService.exportMetricsByDateRange(from, to, exportFormat, out);
+            } else {
+                rows = metricsService.exportAllMetrics(exportFormat, out);
+            }
+            logger.debug("Exported {} metrics as {}", rows, exportFormat);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"metrics." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    private static MetricsExporter.Format parseFormat(String format) {
+        return switch (format.trim().toLowerCase()) {
+            case "ndjson", "json" -> MetricsExporter.Format.NDJSON;
+            case "csv" -> MetricsExporter.Format.CSV;
+            default -> throw new IllegalArgumentException("Unknown export format: " + format);
+        };
+    }
+}
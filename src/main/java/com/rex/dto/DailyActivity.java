@@ -0,0 +1,25 @@
+package com.rex.dto;
+
+import com.rex.model.Metrics;
+
+/**
+ * Events, distinct users and average event value of one event type on one day ({@code yyyy-MM-dd}).
+ */
+public record DailyActivity(
+        String day,
+        Metrics.EventType eventType,
+        long eventCount,
+        long uniqueUsers,
+        Double avgValue) {
+
+    /**
+     * Projection constructor for the count-only query; unique users are filled in later.
+     */
+    public DailyActivity(String day, Metrics.EventType eventType, long eventCount, Double avgValue) {
+        this(day, eventType, eventCount, 0L, avgValue);
+    }
+
+    public DailyActivity withUniqueUsers(long users) {
+        return new DailyActivity(day, eventType, eventCount, users, avgValue);
+    }
+}
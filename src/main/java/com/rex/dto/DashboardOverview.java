@@ -0,0 +1,21 @@
+package com.rex.dto;
+
+import java.util.List;
+
+/**
+ * Dashboard headline numbers of an environment: the last 24 hours' events, users and
+ * errors, the best converting variants, and the last week's platform distribution.
+ */
+public record DashboardOverview(
+        long totalEvents24h,
+        long uniqueUsers24h,
+        long errorCount24h,
+        List<VariantConversion> topPerformingVariants,
+        List<PlatformUsage> platformDistribution) {
+
+    public DashboardOverview {
+        // Shared between callers by the analytics cache
+        topPerformingVariants = List.copyOf(topPerformingVariants);
+        platformDistribution = List.copyOf(platformDistribution);
+    }
+}
@@ -0,0 +1,22 @@
+package com.rex.dto;
+
+/**
+ * Occurrences and affected users of one error in one environment.
+ */
+public record ErrorSummary(
+        String eventName,
+        long errorCount,
+        long affectedUsers,
+        String environment) {
+
+    /**
+     * Projection constructor for the count-only query; affected users are filled in later.
+     */
+    public ErrorSummary(String eventName, long errorCount, String environment) {
+        this(eventName, errorCount, 0L, environment);
+    }
+
+    public ErrorSummary withAffectedUsers(long users) {
+        return new ErrorSummary(eventName, errorCount, users, environment);
+    }
+}
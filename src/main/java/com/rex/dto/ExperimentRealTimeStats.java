@@ -0,0 +1,12 @@
+package com.rex.dto;
+
+import java.util.List;
+
+/**
+ * Live view of an experiment: its events, per-variant performance and the last day's production activity.
+ */
+public record ExperimentRealTimeStats(
+        long totalExposures,
+        List<VariantPerformance> variants,
+        List<HourlyActivity> recentActivity) {
+}
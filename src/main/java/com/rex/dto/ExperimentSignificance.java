@@ -0,0 +1,18 @@
+package com.rex.dto;
+
+import java.util.List;
+
+/**
+ * Significance of every variant of an experiment against its control variant, at the
+ * experiment's confidence level (in percent).
+ */
+public record ExperimentSignificance(
+        Long experimentId,
+        String controlVariant,
+        double confidenceLevel,
+        long controlExposures,
+        long controlConversions,
+        double controlConversionRate,
+        double controlMeanValue,
+        List<VariantComparison> variants) {
+}
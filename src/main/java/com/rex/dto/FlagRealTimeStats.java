@@ -0,0 +1,12 @@
+package com.rex.dto;
+
+import java.util.List;
+
+/**
+ * Live view of a feature flag: its events, usage and the last day's errors.
+ */
+public record FlagRealTimeStats(
+        long totalExposures,
+        FlagUsage usage,
+        List<ErrorSummary> recentErrors) {
+}
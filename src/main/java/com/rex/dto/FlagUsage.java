@@ -0,0 +1,27 @@
+package com.rex.dto;
+
+/**
+ * Usage of one feature flag: exposures, distinct users, and enable/disable events.
+ */
+public record FlagUsage(
+        Long flagId,
+        long totalExposures,
+        long uniqueUsers,
+        long enabledEvents,
+        long disabledEvents) {
+
+    /**
+     * Projection constructor for the count-only query; unique users are filled in later.
+     */
+    public FlagUsage(Long flagId, long totalExposures, long enabledEvents, long disabledEvents) {
+        this(flagId, totalExposures, 0L, enabledEvents, disabledEvents);
+    }
+
+    public static FlagUsage none(Long flagId) {
+        return new FlagUsage(flagId, 0L, 0L, 0L, 0L);
+    }
+
+    public FlagUsage withUniqueUsers(long users) {
+        return new FlagUsage(flagId, totalExposures, users, enabledEvents, disabledEvents);
+    }
+}
@@ -0,0 +1,12 @@
+package com.rex.dto;
+
+import com.rex.model.Metrics;
+
+/**
+ * Event count of one funnel step (exposure, click or conversion) of one variant.
+ */
+public record FunnelStep(
+        Metrics.EventType eventType,
+        String variantName,
+        long eventCount) {
+}
@@ -0,0 +1,21 @@
+package com.rex.dto;
+
+/**
+ * Events and distinct users of one hour ({@code yyyy-MM-dd HH}).
+ */
+public record HourlyActivity(
+        String hour,
+        long eventCount,
+        long uniqueUsers) {
+
+    /**
+     * Projection constructor for the count-only query; unique users are filled in later.
+     */
+    public HourlyActivity(String hour, long eventCount) {
+        this(hour, eventCount, 0L);
+    }
+
+    public HourlyActivity withUniqueUsers(long users) {
+        return new HourlyActivity(hour, eventCount, users);
+    }
+}
@@ -0,0 +1,22 @@
+package com.rex.dto;
+
+import com.rex.model.Metrics;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a {@link Metrics} event that list reads show, selected with a JPQL
+ * constructor expression instead of hydrating the whole entity.
+ */
+public record MetricsEventRow(
+        Long id,
+        String userId,
+        Long experimentId,
+        Long featureFlagId,
+        Metrics.EventType eventType,
+        String eventName,
+        Double eventValue,
+        String variantName,
+        LocalDateTime timestamp,
+        String environment) {
+}
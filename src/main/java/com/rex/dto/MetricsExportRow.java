@@ -0,0 +1,36 @@
+package com.rex.dto;
+
+import com.rex.model.Metrics;
+
+import java.time.LocalDateTime;
+
+/**
+ * One exported {@link Metrics} event, selected column by column with a JPQL constructor
+ * expression. Associations are reduced to their IDs, so streaming these rows never
+ * hydrates entities or triggers lazy loads.
+ */
+public record MetricsExportRow(
+        Long id,
+        String userId,
+        Long featureFlagId,
+        Long experimentId,
+        Metrics.EventType eventType,
+        String eventName,
+        Double eventValue,
+        String variantName,
+        LocalDateTime timestamp,
+        String sessionId,
+        String userAgent,
+        String ipAddress,
+        String pageUrl,
+        String referrerUrl,
+        String environment,
+        String properties,
+        Double conversionValue,
+        Double revenue,
+        Integer countValue,
+        Long durationMs,
+        String errorMessage,
+        String deviceType,
+        String platform) {
+}
@@ -0,0 +1,22 @@
+package com.rex.dto;
+
+/**
+ * Events and distinct users of one platform and device type.
+ */
+public record PlatformUsage(
+        String platform,
+        String deviceType,
+        long eventCount,
+        long uniqueUsers) {
+
+    /**
+     * Projection constructor for the count-only query; unique users are filled in later.
+     */
+    public PlatformUsage(String platform, String deviceType, long eventCount) {
+        this(platform, deviceType, eventCount, 0L);
+    }
+
+    public PlatformUsage withUniqueUsers(long users) {
+        return new PlatformUsage(platform, deviceType, eventCount, users);
+    }
+}
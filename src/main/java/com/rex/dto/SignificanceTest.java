@@ -0,0 +1,23 @@
+package com.rex.dto;
+
+/**
+ * Outcome of comparing a variant with the control: the estimated difference
+ * (variant minus control), its confidence interval, the test statistic and the
+ * two-sided p-value. Degrees of freedom are infinite for z-tests. Fields that are
+ * undefined for the data (e.g. no variance yet) are NaN.
+ */
+public record SignificanceTest(
+        double difference,
+        double lower,
+        double upper,
+        double statistic,
+        double degreesOfFreedom,
+        double pValue) {
+
+    public static final SignificanceTest UNDEFINED =
+            new SignificanceTest(Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+
+    public boolean isDefined() {
+        return !Double.isNaN(pValue);
+    }
+}
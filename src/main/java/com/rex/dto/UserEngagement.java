@@ -0,0 +1,14 @@
+package com.rex.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Activity of one user: events, experiments and flags seen, and the latest event time.
+ */
+public record UserEngagement(
+        String userId,
+        long totalEvents,
+        long experimentsParticipated,
+        long flagsExposed,
+        LocalDateTime lastActivity) {
+}
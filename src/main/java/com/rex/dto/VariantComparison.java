@@ -0,0 +1,25 @@
+package com.rex.dto;
+
+/**
+ * One variant against the control: distinct exposed and converted users and the rate
+ * (converted per exposed user) with their two-proportion z-test, conversion-value moments
+ * with their Welch t-test, and the state of the sequential test of the conversion z-score:
+ * the information fraction reached (NaN without a minimum sample size) and the boundary of
+ * the last look taken (infinite before the first). {@code significant} means a look crossed
+ * its boundary; {@code stopEarly} means it did so before the planned sample size was reached.
+ */
+public record VariantComparison(
+        String variantName,
+        long exposures,
+        long conversions,
+        double conversionRate,
+        long valueCount,
+        double meanValue,
+        double valueStdDev,
+        SignificanceTest conversion,
+        SignificanceTest value,
+        double informationFraction,
+        double boundary,
+        boolean significant,
+        boolean stopEarly) {
+}
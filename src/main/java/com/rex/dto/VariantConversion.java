@@ -0,0 +1,12 @@
+package com.rex.dto;
+
+/**
+ * Conversions per exposure of one experiment variant, the rate in percent.
+ */
+public record VariantConversion(
+        Long experimentId,
+        String variantName,
+        long conversions,
+        long exposures,
+        double conversionRate) {
+}
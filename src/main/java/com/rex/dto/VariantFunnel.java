@@ -0,0 +1,11 @@
+package com.rex.dto;
+
+/**
+ * The conversion funnel of one variant, one column per step.
+ */
+public record VariantFunnel(
+        String variantName,
+        long exposures,
+        long clicks,
+        long conversions) {
+}
@@ -0,0 +1,24 @@
+package com.rex.dto;
+
+/**
+ * Performance of one experiment variant over all of its events. The conversion rate
+ * (conversions per event, in percent) is derived from the counts.
+ */
+public record VariantPerformance(
+        String variantName,
+        long totalEvents,
+        long conversions,
+        long uniqueUsers,
+        double conversionRate,
+        Double avgEventValue,
+        Double totalRevenue) {
+
+    /**
+     * Projection constructor: the rate is computed, not selected.
+     */
+    public VariantPerformance(String variantName, long totalEvents, long conversions, long uniqueUsers,
+                              Double avgEventValue, Double totalRevenue) {
+        this(variantName, totalEvents, conversions, uniqueUsers,
+                totalEvents > 0 ? (double) conversions / totalEvents * 100 : 0.0, avgEventValue, totalRevenue);
+    }
+}
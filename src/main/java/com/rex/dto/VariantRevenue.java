@@ -0,0 +1,12 @@
+package com.rex.dto;
+
+/**
+ * Positive revenue of one experiment variant (null experiment ID for events outside experiments).
+ */
+public record VariantRevenue(
+        Long experimentId,
+        String variantName,
+        double totalRevenue,
+        double avgRevenue,
+        long revenueEvents) {
+}
@@ -0,0 +1,204 @@
+package com.rex.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Checkpoint of a bulk assignment import. Advanced in the same transaction as each
+ * written chunk of users, so a job re-submitted with the same input resumes after
+ * the last committed chunk.
+ */
+@Entity
+@Table(name = "bulk_assignment_jobs")
+public class BulkAssignmentJob {
+
+    @Id
+    @Column(name = "job_id", length = 100)
+    private String jobId;
+
+    @Column(name = "experiment_id", nullable = false)
+    @NotNull(message = "Experiment ID cannot be null")
+    private Long experimentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @NotNull(message = "Status cannot be null")
+    private Status status;
+
+    // Input lines consumed so far; a resumed job skips this many lines
+    @Column(name = "next_line", nullable = false)
+    private Long nextLine = 0L;
+
+    @Column(name = "assigned_users", nullable = false)
+    private Long assignedUsers = 0L;
+
+    @Column(name = "skipped_users", nullable = false)
+    private Long skippedUsers = 0L;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Enum for job status
+    public enum Status {
+        RUNNING,
+        FAILED,
+        COMPLETED
+    }
+
+    // Default constructor
+    public BulkAssignmentJob() {}
+
+    // Constructor for a new job
+    public BulkAssignmentJob(String jobId, Long experimentId) {
+        this.jobId = jobId;
+        this.experimentId = experimentId;
+        this.status = Status.RUNNING;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    // Business logic methods
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+
+    public void advance(long lines, long assigned, long skipped) {
+        this.status = Status.RUNNING;
+        this.errorMessage = null;
+        this.nextLine += lines;
+        this.assignedUsers += assigned;
+        this.skippedUsers += skipped;
+    }
+
+    public void complete() {
+        this.status = Status.COMPLETED;
+        this.completedAt = LocalDateTime.now();
+    }
+
+    public void fail(String errorMessage) {
+        this.status = Status.FAILED;
+        this.errorMessage = errorMessage != null && errorMessage.length() > 1000
+                ? errorMessage.substring(0, 1000) : errorMessage;
+    }
+
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public Long getExperimentId() {
+        return experimentId;
+    }
+
+    public void setExperimentId(Long experimentId) {
+        this.experimentId = experimentId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getNextLine() {
+        return nextLine;
+    }
+
+    public void setNextLine(Long nextLine) {
+        this.nextLine = nextLine;
+    }
+
+    public Long getAssignedUsers() {
+        return assignedUsers;
+    }
+
+    public void setAssignedUsers(Long assignedUsers) {
+        this.assignedUsers = assignedUsers;
+    }
+
+    public Long getSkippedUsers() {
+        return skippedUsers;
+    }
+
+    public void setSkippedUsers(Long skippedUsers) {
+        this.skippedUsers = skippedUsers;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // equals and hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkAssignmentJob that = (BulkAssignmentJob) o;
+        return Objects.equals(jobId, that.jobId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(jobId);
+    }
+
+    // toString
+    @Override
+    public String toString() {
+        return "BulkAssignmentJob{" +
+                "jobId='" + jobId + '\'' +
+                ", experimentId=" + experimentId +
+                ", status=" + status +
+                ", nextLine=" + nextLine +
+                ", assignedUsers=" + assignedUsers +
+                ", skippedUsers=" + skippedUsers +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+package com.rex.model;
+
+/**
+ * Maps the values of dictionary-encoded columns to their {@link DictionaryEntry} IDs.
+ * Implemented by the service layer; entities only depend on this interface.
+ */
+public interface DictionaryCodec {
+
+    /**
+     * Code bound for a value that is not in the dictionary. No entry has it, so an
+     * equality filter on an unknown value matches nothing.
+     */
+    int UNKNOWN_CODE = -1;
+
+    /**
+     * Code of a value, interning it when it is new. Null stays null.
+     */
+    Integer encode(String value);
+
+    /**
+     * Code of a value already in the dictionary, or null when it is not (or is null).
+     * Never adds an entry.
+     */
+    Integer lookup(String value);
+
+    /**
+     * Value of a code. Null stays null.
+     */
+    String decode(Integer code);
+}
@@ -0,0 +1,39 @@
+package com.rex.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores a low-cardinality string attribute as its dictionary code. Hibernate applies
+ * it to query parameters as well, so equality filters on such attributes compare
+ * integers. Conversion only looks values up: a query for a value that was never stored
+ * binds {@link DictionaryCodec#UNKNOWN_CODE} and matches nothing instead of adding an
+ * entry, and entities intern their values before they are written through
+ * {@link DictionaryEncodingListener}. Sorting by the attribute sorts by code; queries
+ * that need alphabetical order join the value from {@code DictionaryEntry}.
+ */
+@Component
+@Converter
+public class DictionaryConverter implements AttributeConverter<String, Integer> {
+
+    private final DictionaryCodec dictionary;
+
+    public DictionaryConverter(DictionaryCodec dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer code = dictionary.lookup(value);
+        return code != null ? code : DictionaryCodec.UNKNOWN_CODE;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer code) {
+        return dictionary.decode(code);
+    }
+}
@@ -0,0 +1,53 @@
+package com.rex.model;
+
+import jakarta.persistence.Convert;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interns the values of an entity's {@link DictionaryConverter} attributes before the
+ * entity is inserted or updated, so the converter finds a code for every value it writes.
+ */
+@Component
+public class DictionaryEncodingListener {
+
+    private static final ClassValue<List<Field>> ENCODED_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    Convert convert = field.getAnnotation(Convert.class);
+                    if (convert != null && convert.converter() == DictionaryConverter.class) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return List.copyOf(fields);
+        }
+    };
+
+    private final DictionaryCodec dictionary;
+
+    public DictionaryEncodingListener(DictionaryCodec dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void intern(Object entity) {
+        for (Field field : ENCODED_FIELDS.get(entity.getClass())) {
+            try {
+                dictionary.encode((String) field.get(entity));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot read dictionary-encoded field " + field.getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.rex.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.Objects;
+
+/**
+ * One interned string of the shared dictionary. Low-cardinality string columns
+ * (environment, variant, platform, ...) store the entry ID instead of the text.
+ * IDs below {@link #FIRST_ALLOCATED_ID} are reserved for entries seeded by data.sql.
+ */
+@Entity
+@Table(name = "string_dictionary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_string_dictionary_value", columnNames = "string_value"))
+public class DictionaryEntry {
+
+    public static final int FIRST_ALLOCATED_ID = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "string_dictionary_seq")
+    @SequenceGenerator(name = "string_dictionary_seq", sequenceName = "string_dictionary_seq",
+            initialValue = FIRST_ALLOCATED_ID, allocationSize = 1)
+    private Integer id;
+
+    @Column(name = "string_value", nullable = false, length = 255)
+    @NotNull(message = "Value cannot be null")
+    @Size(max = 255, message = "Value cannot exceed 255 characters")
+    private String value;
+
+    // Default constructor
+    public DictionaryEntry() {}
+
+    public DictionaryEntry(Integer id, String value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    // equals and hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DictionaryEntry that = (DictionaryEntry) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // toString
+    @Override
+    public String toString() {
+        return "DictionaryEntry{" +
+                "id=" + id +
+                ", value='" + value + '\'' +
+                '}';
+    }
+}
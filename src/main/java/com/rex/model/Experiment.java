@@ -1,11 +1,16 @@
 package com.rex.model;
 
 import jakarta.persistence.*;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 @Entity
@@ -42,6 +47,27 @@ public class Experiment {
     @NotBlank(message = "Test variant name cannot be blank")
     private String testVariantName = "test";
 
+    // Weighted variants of an A/B/n experiment, control first. Empty for classic
+    // A/B experiments, which split 50/50 between the control and test variant.
+    @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
+    @CollectionTable(name = "experiment_variants", joinColumns = @JoinColumn(name = "experiment_id"))
+    @OrderColumn(name = "position")
+    @Valid
+    private List<ExperimentVariant> variants = new ArrayList<>();
+
+    // Mutually exclusive layer: the experiment owns buckets [layerBucketStart, layerBucketEnd)
+    // of the layer, so a user is in at most one experiment per layer
+    @Column(name = "layer_name", length = 100)
+    @Size(max = 100, message = "Layer name cannot exceed 100 characters")
+    private String layerName;
+
+    @Column(name = "layer_bucket_start")
+    private Integer layerBucketStart;
+
+    @Column(name = "layer_bucket_end")
+    private Integer layerBucketEnd;
+
     @Column(name = "start_date")
     private LocalDateTime startDate;
 
@@ -79,7 +105,8 @@ public class Experiment {
     @Column(name = "minimum_sample_size")
     private Integer minimumSampleSize;
 
-    @Column(name = "current_sample_size")
+    // Only changed by SampleSizeCounters' batched UPDATE, so saving a stale entity cannot lose increments
+    @Column(name = "current_sample_size", updatable = false)
     private Integer currentSampleSize = 0;
 
     // Enum for Experiment Status
@@ -173,6 +200,38 @@ public class Experiment {
         this.testVariantName = testVariantName;
     }
 
+    public List<ExperimentVariant> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(List<ExperimentVariant> variants) {
+        this.variants = variants;
+    }
+
+    public String getLayerName() {
+        return layerName;
+    }
+
+    public void setLayerName(String layerName) {
+        this.layerName = layerName;
+    }
+
+    public Integer getLayerBucketStart() {
+        return layerBucketStart;
+    }
+
+    public void setLayerBucketStart(Integer layerBucketStart) {
+        this.layerBucketStart = layerBucketStart;
+    }
+
+    public Integer getLayerBucketEnd() {
+        return layerBucketEnd;
+    }
+
+    public void setLayerBucketEnd(Integer layerBucketEnd) {
+        this.layerBucketEnd = layerBucketEnd;
+    }
+
     public LocalDateTime getStartDate() {
         return startDate;
     }
@@ -311,6 +370,14 @@ public class Experiment {
         }
     }
 
+    public boolean isMultiVariant() {
+        return variants != null && !variants.isEmpty();
+    }
+
+    public boolean isLayered() {
+        return layerName != null;
+    }
+
     public boolean isRunning() {
         return this.status == ExperimentStatus.RUNNING;
     }
@@ -328,10 +395,14 @@ public class Experiment {
     }
 
     public Double getCompletionPercentage() {
+        return getCompletionPercentage(currentSampleSize);
+    }
+
+    public Double getCompletionPercentage(long sampleSize) {
         if (minimumSampleSize == null || minimumSampleSize == 0) {
             return 0.0;
         }
-        return Math.min(100.0, (currentSampleSize.doubleValue() / minimumSampleSize.doubleValue()) * 100.0);
+        return Math.min(100.0, ((double) sampleSize / minimumSampleSize.doubleValue()) * 100.0);
     }
 
     // equals and hashCode
@@ -0,0 +1,72 @@
+package com.rex.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.Objects;
+
+/**
+ * One variant of a multi-variant experiment with its relative allocation weight.
+ * A variant's share of the experiment's traffic is its weight over the sum of all
+ * weights; the first variant is the control.
+ */
+@Embeddable
+public class ExperimentVariant {
+
+    @Column(name = "variant_name", nullable = false, length = 100)
+    @NotBlank(message = "Variant name cannot be blank")
+    @Size(max = 100, message = "Variant name cannot exceed 100 characters")
+    private String name;
+
+    @Column(name = "weight", nullable = false)
+    @Min(value = 1, message = "Variant weight must be at least 1")
+    private Integer weight;
+
+    // Default constructor
+    public ExperimentVariant() {}
+
+    public ExperimentVariant(String name, Integer weight) {
+        this.name = name;
+        this.weight = weight;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Integer weight) {
+        this.weight = weight;
+    }
+
+    // equals and hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ExperimentVariant that = (ExperimentVariant) o;
+        return Objects.equals(name, that.name) && Objects.equals(weight, that.weight);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, weight);
+    }
+
+    // toString
+    @Override
+    public String toString() {
+        return "ExperimentVariant{name='" + name + "', weight=" + weight + '}';
+    }
+}
@@ -0,0 +1,262 @@
+package com.rex.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Pre-aggregated experiment metrics for one (experiment, variant, event type, time bucket).
+ * Counters and sums are additive; {@code userSketch} is a serialized HyperLogLog of the
+ * user IDs seen in the bucket, so unique users of several buckets are obtained by merging.
+ */
+@Entity
+@Table(name = "metric_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rollup_cell",
+                columnNames = {"experiment_id", "variant_name", "event_type", "granularity", "bucket_start"}),
+        indexes = {
+                @Index(name = "idx_rollup_experiment_bucket", columnList = "experiment_id, granularity, bucket_start"),
+                @Index(name = "idx_rollup_granularity", columnList = "granularity")
+        })
+public class MetricRollup {
+
+    /** Bucket start used for {@link Granularity#TOTAL} rows. */
+    public static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "experiment_id", nullable = false)
+    @NotNull(message = "Experiment ID cannot be null")
+    private Long experimentId;
+
+    @Column(name = "variant_name")
+    @Size(max = 100, message = "Variant name cannot exceed 100 characters")
+    private String variantName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    @NotNull(message = "Event type cannot be null")
+    private Metrics.EventType eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false)
+    @NotNull(message = "Granularity cannot be null")
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    @NotNull(message = "Bucket start cannot be null")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount = 0L;
+
+    @Column(name = "value_sum", nullable = false)
+    private Double valueSum = 0.0;
+
+    @Column(name = "value_count", nullable = false)
+    private Long valueCount = 0L;
+
+    @Column(name = "value_square_sum", nullable = false)
+    private Double valueSquareSum = 0.0;
+
+    @Column(name = "revenue_sum", nullable = false)
+    private Double revenueSum = 0.0;
+
+    @Column(name = "revenue_count", nullable = false)
+    private Long revenueCount = 0L;
+
+    @Column(name = "positive_revenue_sum", nullable = false)
+    private Double positiveRevenueSum = 0.0;
+
+    @Column(name = "positive_revenue_count", nullable = false)
+    private Long positiveRevenueCount = 0L;
+
+    @Column(name = "user_sketch", length = 4098)
+    private byte[] userSketch;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Enum for rollup bucket size
+    public enum Granularity {
+        MINUTE,
+        HOUR,
+        TOTAL
+    }
+
+    // Default constructor
+    public MetricRollup() {}
+
+    // Constructor for a new, empty rollup cell
+    public MetricRollup(Long experimentId, String variantName, Metrics.EventType eventType,
+                        Granularity granularity, LocalDateTime bucketStart) {
+        this.experimentId = experimentId;
+        this.variantName = variantName;
+        this.eventType = eventType;
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getExperimentId() {
+        return experimentId;
+    }
+
+    public void setExperimentId(Long experimentId) {
+        this.experimentId = experimentId;
+    }
+
+    public String getVariantName() {
+        return variantName;
+    }
+
+    public void setVariantName(String variantName) {
+        this.variantName = variantName;
+    }
+
+    public Metrics.EventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(Metrics.EventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Long getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(Long eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public Double getValueSum() {
+        return valueSum;
+    }
+
+    public void setValueSum(Double valueSum) {
+        this.valueSum = valueSum;
+    }
+
+    public Long getValueCount() {
+        return valueCount;
+    }
+
+    public void setValueCount(Long valueCount) {
+        this.valueCount = valueCount;
+    }
+
+    public Double getValueSquareSum() {
+        return valueSquareSum;
+    }
+
+    public void setValueSquareSum(Double valueSquareSum) {
+        this.valueSquareSum = valueSquareSum;
+    }
+
+    public Double getRevenueSum() {
+        return revenueSum;
+    }
+
+    public void setRevenueSum(Double revenueSum) {
+        this.revenueSum = revenueSum;
+    }
+
+    public Long getRevenueCount() {
+        return revenueCount;
+    }
+
+    public void setRevenueCount(Long revenueCount) {
+        this.revenueCount = revenueCount;
+    }
+
+    public Double getPositiveRevenueSum() {
+        return positiveRevenueSum;
+    }
+
+    public void setPositiveRevenueSum(Double positiveRevenueSum) {
+        this.positiveRevenueSum = positiveRevenueSum;
+    }
+
+    public Long getPositiveRevenueCount() {
+        return positiveRevenueCount;
+    }
+
+    public void setPositiveRevenueCount(Long positiveRevenueCount) {
+        this.positiveRevenueCount = positiveRevenueCount;
+    }
+
+    public byte[] getUserSketch() {
+        return userSketch;
+    }
+
+    public void setUserSketch(byte[] userSketch) {
+        this.userSketch = userSketch;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // equals and hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MetricRollup that = (MetricRollup) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // toString
+    @Override
+    public String toString() {
+        return "MetricRollup{" +
+                "id=" + id +
+                ", experimentId=" + experimentId +
+                ", variantName='" + variantName + '\'' +
+                ", eventType=" + eventType +
+                ", granularity=" + granularity +
+                ", bucketStart=" + bucketStart +
+                ", eventCount=" + eventCount +
+                '}';
+    }
+}
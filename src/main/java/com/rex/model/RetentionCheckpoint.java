@@ -0,0 +1,199 @@
+package com.rex.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Progress of a chunked retention purge. Updated in the same transaction as each
+ * deleted chunk, so an interrupted purge resumes exactly after the last committed chunk.
+ */
+@Entity
+@Table(name = "retention_checkpoints")
+public class RetentionCheckpoint {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @NotNull(message = "Status cannot be null")
+    private Status status;
+
+    @Column(name = "cutoff", nullable = false)
+    @NotNull(message = "Cutoff cannot be null")
+    private LocalDateTime cutoff;
+
+    @Column(name = "first_id", nullable = false)
+    private Long firstId;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(name = "next_id", nullable = false)
+    private Long nextId;
+
+    @Column(name = "deleted_rows", nullable = false)
+    private Long deletedRows = 0L;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Enum for purge status
+    public enum Status {
+        RUNNING,
+        COMPLETED
+    }
+
+    // Default constructor
+    public RetentionCheckpoint() {}
+
+    // Constructor for a new purge over the key range [firstId, lastId]
+    public RetentionCheckpoint(String jobName, LocalDateTime cutoff, Long firstId, Long lastId) {
+        this.jobName = jobName;
+        this.status = Status.RUNNING;
+        this.cutoff = cutoff;
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.nextId = firstId;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    // Business logic methods
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    public void advance(long nextId, long deleted) {
+        this.nextId = nextId;
+        this.deletedRows += deleted;
+        if (nextId > lastId) {
+            this.status = Status.COMPLETED;
+            this.completedAt = LocalDateTime.now();
+        }
+    }
+
+    public double getProgressPercentage() {
+        long span = lastId - firstId + 1;
+        return span <= 0 ? 100.0 : Math.min(100.0, (nextId - firstId) * 100.0 / span);
+    }
+
+    // Getters and Setters
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCutoff() {
+        return cutoff;
+    }
+
+    public void setCutoff(LocalDateTime cutoff) {
+        this.cutoff = cutoff;
+    }
+
+    public Long getFirstId() {
+        return firstId;
+    }
+
+    public void setFirstId(Long firstId) {
+        this.firstId = firstId;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(Long lastId) {
+        this.lastId = lastId;
+    }
+
+    public Long getNextId() {
+        return nextId;
+    }
+
+    public void setNextId(Long nextId) {
+        this.nextId = nextId;
+    }
+
+    public Long getDeletedRows() {
+        return deletedRows;
+    }
+
+    public void setDeletedRows(Long deletedRows) {
+        this.deletedRows = deletedRows;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // equals and hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RetentionCheckpoint that = (RetentionCheckpoint) o;
+        return Objects.equals(jobName, that.jobName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(jobName);
+    }
+
+    // toString
+    @Override
+    public String toString() {
+        return "RetentionCheckpoint{" +
+                "jobName='" + jobName + '\'' +
+                ", status=" + status +
+                ", cutoff=" + cutoff +
+                ", nextId=" + nextId +
+                ", lastId=" + lastId +
+                ", deletedRows=" + deletedRows +
+                '}';
+    }
+}
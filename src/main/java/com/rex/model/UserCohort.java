@@ -16,6 +16,7 @@ import java.util.Objects;
                 @Index(name = "idx_experiment_id", columnList = "experiment_id"),
                 @Index(name = "idx_user_experiment", columnList = "user_id, experiment_id")
         })
+@EntityListeners(DictionaryEncodingListener.class)
 public class UserCohort {
 
     @Id
@@ -36,8 +37,11 @@ public class UserCohort {
     @Column(name = "cohort_type", nullable = false)
     private CohortType cohortType;
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(name = "variant_name", nullable = false)
+    // Control/test name of an A/B experiment, or any variant of a multi-variant one
     @NotBlank(message = "Variant name cannot be blank")
+    @Size(max = 100, message = "Variant name cannot exceed 100 characters")
     private String variantName;
 
     @Enumerated(EnumType.STRING)
@@ -67,6 +71,7 @@ public class UserCohort {
     @Column(name = "user_attributes", length = 1000)
     private String userAttributes; // JSON string for storing user attributes
 
+    @Convert(converter = DictionaryConverter.class)
     @Column(name = "environment")
     private String environment = "development";
 
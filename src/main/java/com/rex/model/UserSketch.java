@@ -0,0 +1,170 @@
+package com.rex.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Serialized HyperLogLog of the users seen for one dimension value in one time bucket,
+ * e.g. all users of environment "production" between 14:00 and 15:00.
+ * Sketches of the same dimension value merge into any coarser bucket.
+ */
+@Entity
+@Table(name = "user_sketches",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_sketch_slot",
+                columnNames = {"dimension", "dimension_value", "granularity", "bucket_start"}),
+        indexes = {
+                @Index(name = "idx_user_sketch_bucket", columnList = "granularity, bucket_start")
+        })
+public class UserSketch {
+
+    /** Bucket start used for {@link Granularity#TOTAL} sketches. */
+    public static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", nullable = false)
+    @NotNull(message = "Dimension cannot be null")
+    private Dimension dimension;
+
+    @Column(name = "dimension_value", nullable = false)
+    @NotNull(message = "Dimension value cannot be null")
+    @Size(max = 255, message = "Dimension value cannot exceed 255 characters")
+    private String dimensionValue;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false)
+    @NotNull(message = "Granularity cannot be null")
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    @NotNull(message = "Bucket start cannot be null")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "sketch", length = 4098)
+    private byte[] sketch;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Enum for the attribute a sketch is kept for
+    public enum Dimension {
+        ENVIRONMENT,
+        EVENT_TYPE,
+        FEATURE_FLAG,
+        ERROR,
+        PLATFORM,
+        // All-time users per experiment cohort and variant, kept by stateless assignment
+        EXPERIMENT_COHORT
+    }
+
+    // Enum for sketch bucket size
+    public enum Granularity {
+        HOUR,
+        DAY,
+        WEEK,
+        TOTAL
+    }
+
+    // Default constructor
+    public UserSketch() {}
+
+    // Constructor for a new, empty sketch slot
+    public UserSketch(Dimension dimension, String dimensionValue, Granularity granularity, LocalDateTime bucketStart) {
+        this.dimension = dimension;
+        this.dimensionValue = dimensionValue;
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(Dimension dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getDimensionValue() {
+        return dimensionValue;
+    }
+
+    public void setDimensionValue(String dimensionValue) {
+        this.dimensionValue = dimensionValue;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public byte[] getSketch() {
+        return sketch;
+    }
+
+    public void setSketch(byte[] sketch) {
+        this.sketch = sketch;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // equals and hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserSketch that = (UserSketch) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // toString
+    @Override
+    public String toString() {
+        return "UserSketch{" +
+                "id=" + id +
+                ", dimension=" + dimension +
+                ", dimensionValue='" + dimensionValue + '\'' +
+                ", granularity=" + granularity +
+                ", bucketStart=" + bucketStart +
+                '}';
+    }
+}
@@ -0,0 +1,12 @@
+package com.rex.repository;
+
+import com.rex.model.BulkAssignmentJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for BulkAssignmentJob entity operations.
+ */
+@Repository
+public interface BulkAssignmentJobRepository extends JpaRepository<BulkAssignmentJob, String> {
+}
@@ -28,6 +28,18 @@ public interface ExperimentRepository extends JpaRepository<Experiment, Long> {
      */
     List<Experiment> findByStatus(Experiment.ExperimentStatus status);
 
+    /**
+     * Find the experiments of a layer that still hold their bucket range
+     * (not completed, archived or cancelled), by range start.
+     */
+    @Query("""
+        SELECT e FROM Experiment e
+        WHERE e.layerName = :layerName
+        AND e.status NOT IN ('COMPLETED', 'ARCHIVED', 'CANCELLED')
+        ORDER BY e.layerBucketStart
+        """)
+    List<Experiment> findLayerMembers(@Param("layerName") String layerName);
+
     /**
      * Find experiments by environment.
      */
@@ -76,6 +88,18 @@ public interface ExperimentRepository extends JpaRepository<Experiment, Long> {
         """)
     List<Experiment> findActiveExperiments();
 
+    /**
+     * Find currently active experiments in an environment.
+     */
+    @Query("""
+        SELECT e FROM Experiment e 
+        WHERE e.status = 'RUNNING' 
+        AND e.environment = :environment
+        AND (e.endDate IS NULL OR e.endDate > CURRENT_TIMESTAMP)
+        ORDER BY e.startDate DESC
+        """)
+    List<Experiment> findActiveExperimentsByEnvironment(@Param("environment") String environment);
+
     /**
      * Find experiments ready to start.
      */
@@ -165,4 +189,4 @@ public interface ExperimentRepository extends JpaRepository<Experiment, Long> {
             @Param("environment") String environment,
             @Param("userTrafficPercentile") Integer userTrafficPercentile
     );
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.rex.repository;
+
+import com.rex.model.MetricRollup;
+import com.rex.model.Metrics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for MetricRollup entity operations.
+ * Rollup rows are written by the rollup flusher; readers use them for time series.
+ */
+@Repository
+public interface MetricRollupRepository extends JpaRepository<MetricRollup, Long> {
+
+    /**
+     * Find the rollup cell for a key (a null variant matches rows without a variant).
+     */
+    @Query("""
+        SELECT r FROM MetricRollup r
+        WHERE r.experimentId = :experimentId
+        AND (r.variantName = :variantName OR (r.variantName IS NULL AND :variantName IS NULL))
+        AND r.eventType = :eventType
+        AND r.granularity = :granularity
+        AND r.bucketStart = :bucketStart
+        """)
+    Optional<MetricRollup> findCell(@Param("experimentId") Long experimentId,
+                                    @Param("variantName") String variantName,
+                                    @Param("eventType") Metrics.EventType eventType,
+                                    @Param("granularity") MetricRollup.Granularity granularity,
+                                    @Param("bucketStart") LocalDateTime bucketStart);
+
+    /**
+     * Find all rollups of a granularity.
+     */
+    List<MetricRollup> findByGranularity(MetricRollup.Granularity granularity);
+
+    /**
+     * Get an experiment's rollups of one granularity since a point in time, oldest first.
+     */
+    @Query("""
+        SELECT r FROM MetricRollup r
+        WHERE r.experimentId = :experimentId
+        AND r.granularity = :granularity
+        AND r.bucketStart >= :since
+        ORDER BY r.bucketStart, r.variantName, r.eventType
+        """)
+    List<MetricRollup> findSeries(@Param("experimentId") Long experimentId,
+                                  @Param("granularity") MetricRollup.Granularity granularity,
+                                  @Param("since") LocalDateTime since);
+}
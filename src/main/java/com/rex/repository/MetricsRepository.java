@@ -1,13 +1,32 @@
 package com.rex.repository;
 
+import com.rex.dto.DailyActivity;
+import com.rex.dto.ErrorSummary;
+import com.rex.dto.FlagUsage;
+import com.rex.dto.FunnelStep;
+import com.rex.dto.HourlyActivity;
+import com.rex.dto.MetricsEventRow;
+import com.rex.dto.MetricsExportRow;
+import com.rex.dto.PlatformUsage;
+import com.rex.dto.UserEngagement;
+import com.rex.dto.VariantConversion;
+import com.rex.dto.VariantPerformance;
+import com.rex.dto.VariantRevenue;
 import com.rex.model.Metrics;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Metrics entity operations.
@@ -17,6 +36,9 @@ import java.util.List;
 @Repository
 public interface MetricsRepository extends JpaRepository<Metrics, Long> {
 
+    /** Rows fetched per round trip by the export streams. */
+    String EXPORT_FETCH_SIZE = "1000";
+
     /**
      * Find metrics by user ID.
      */
@@ -52,10 +74,191 @@ public interface MetricsRepository extends JpaRepository<Metrics, Long> {
      */
     List<Metrics> findByVariantName(String variantName);
 
+    // ============================================
+    // LIST READS (narrow projections)
+    // ============================================
+
+    /**
+     * Every event as list rows.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        """)
+    List<MetricsEventRow> findAllRows();
+
+    /**
+     * A user's events as list rows.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE m.userId = :userId
+        """)
+    List<MetricsEventRow> findRowsByUserId(@Param("userId") String userId);
+
+    /**
+     * The events of one type as list rows.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE m.eventType = :eventType
+        """)
+    List<MetricsEventRow> findRowsByEventType(@Param("eventType") Metrics.EventType eventType);
+
+    /**
+     * The events of an experiment as list rows.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE e.id = :experimentId
+        """)
+    List<MetricsEventRow> findRowsByExperimentId(@Param("experimentId") Long experimentId);
+
+    /**
+     * The events of a feature flag as list rows.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE f.id = :flagId
+        """)
+    List<MetricsEventRow> findRowsByFeatureFlagId(@Param("flagId") Long flagId);
+
+    /**
+     * The events within a date range as list rows, newest first.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE m.timestamp >= :startDate AND m.timestamp <= :endDate
+        AND m.partitionDay BETWEEN :#{#startDate.toLocalDate()} AND :#{#endDate.toLocalDate()}
+        ORDER BY m.timestamp DESC
+        """)
+    List<MetricsEventRow> findRowsByTimestampBetween(@Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Recent high-value events as list rows, highest value first.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE m.eventValue >= :minValue
+        AND m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
+        ORDER BY m.eventValue DESC, m.timestamp DESC
+        """)
+    List<MetricsEventRow> findHighValueEventRows(@Param("minValue") Double minValue,
+                                                 @Param("sinceDate") LocalDateTime sinceDate);
+
+    // ============================================
+    // KEYSET PAGES
+    // ============================================
+
+    /**
+     * Page of a user's events as list rows, newest first, seeking past the (timestamp, id)
+     * of the previous page's last row.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE m.userId = :userId
+        AND (m.timestamp < :timestamp OR (m.timestamp = :timestamp AND m.id < :id))
+        ORDER BY m.timestamp DESC, m.id DESC
+        """)
+    List<MetricsEventRow> findPageByUserId(@Param("userId") String userId, @Param("timestamp") LocalDateTime timestamp,
+                                           @Param("id") Long id, Limit limit);
+
+    /**
+     * Page of the events of one event type, newest first, seeking past the (timestamp, id)
+     * of the previous page's last row.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE m.eventType = :eventType
+        AND (m.timestamp < :timestamp OR (m.timestamp = :timestamp AND m.id < :id))
+        ORDER BY m.timestamp DESC, m.id DESC
+        """)
+    List<MetricsEventRow> findPageByEventType(@Param("eventType") Metrics.EventType eventType,
+                                              @Param("timestamp") LocalDateTime timestamp,
+                                              @Param("id") Long id, Limit limit);
+
+    /**
+     * Page of the events of one environment, newest first, seeking past the (timestamp, id)
+     * of the previous page's last row.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE m.environment = :environment
+        AND (m.timestamp < :timestamp OR (m.timestamp = :timestamp AND m.id < :id))
+        ORDER BY m.timestamp DESC, m.id DESC
+        """)
+    List<MetricsEventRow> findPageByEnvironment(@Param("environment") String environment,
+                                                @Param("timestamp") LocalDateTime timestamp,
+                                                @Param("id") Long id, Limit limit);
+
+    /**
+     * Page of the events of one variant, newest first, seeking past the (timestamp, id)
+     * of the previous page's last row.
+     */
+    @Query("""
+        SELECT new com.rex.dto.MetricsEventRow(m.id, m.userId, e.id, f.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.environment)
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        LEFT JOIN m.featureFlag f
+        WHERE m.variantName = :variantName
+        AND (m.timestamp < :timestamp OR (m.timestamp = :timestamp AND m.id < :id))
+        ORDER BY m.timestamp DESC, m.id DESC
+        """)
+    List<MetricsEventRow> findPageByVariantName(@Param("variantName") String variantName,
+                                                @Param("timestamp") LocalDateTime timestamp,
+                                                @Param("id") Long id, Limit limit);
+
     /**
      * Find metrics within date range.
      */
-    @Query("SELECT m FROM Metrics m WHERE m.timestamp >= :startDate AND m.timestamp <= :endDate ORDER BY m.timestamp DESC")
+    @Query("""
+        SELECT m FROM Metrics m
+        WHERE m.timestamp >= :startDate AND m.timestamp <= :endDate
+        AND m.partitionDay BETWEEN :#{#startDate.toLocalDate()} AND :#{#endDate.toLocalDate()}
+        ORDER BY m.timestamp DESC
+        """)
     List<Metrics> findByTimestampBetween(@Param("startDate") LocalDateTime startDate,
                                          @Param("endDate") LocalDateTime endDate);
 
@@ -78,100 +281,183 @@ public interface MetricsRepository extends JpaRepository<Metrics, Long> {
      * Get experiment performance metrics.
      */
     @Query("""
-        SELECT m.variantName,
-               COUNT(*) as totalEvents,
-               COUNT(CASE WHEN m.eventType = 'CONVERSION' THEN 1 END) as conversions,
-               COUNT(DISTINCT m.userId) as uniqueUsers,
-               AVG(m.eventValue) as avgEventValue,
-               SUM(m.revenue) as totalRevenue
+        SELECT new com.rex.dto.VariantPerformance(m.variantName,
+               COUNT(*),
+               COUNT(CASE WHEN m.eventType = 'CONVERSION' THEN 1 END),
+               COUNT(DISTINCT m.userId),
+               AVG(m.eventValue),
+               SUM(m.revenue))
         FROM Metrics m 
         WHERE m.experiment.id = :experimentId
         GROUP BY m.variantName
-        ORDER BY m.variantName
+        ORDER BY (SELECT d.value FROM DictionaryEntry d WHERE d.id = CAST(m.variantName AS Integer))
         """)
-    List<Object[]> getExperimentPerformance(@Param("experimentId") Long experimentId);
+    List<VariantPerformance> getExperimentPerformance(@Param("experimentId") Long experimentId);
 
     /**
      * Get feature flag usage statistics.
      */
     @Query("""
-        SELECT m.featureFlag.id,
-               COUNT(*) as totalExposures,
-               COUNT(DISTINCT m.userId) as uniqueUsers,
-               COUNT(CASE WHEN m.eventType = 'FLAG_ENABLED' THEN 1 END) as enabledEvents,
-               COUNT(CASE WHEN m.eventType = 'FLAG_DISABLED' THEN 1 END) as disabledEvents
+        SELECT new com.rex.dto.FlagUsage(m.featureFlag.id,
+               COUNT(*),
+               COUNT(DISTINCT m.userId),
+               COUNT(CASE WHEN m.eventType = 'FLAG_ENABLED' THEN 1 END),
+               COUNT(CASE WHEN m.eventType = 'FLAG_DISABLED' THEN 1 END))
+        FROM Metrics m 
+        WHERE m.featureFlag.id = :flagId
+        GROUP BY m.featureFlag.id
+        """)
+    List<FlagUsage> getFeatureFlagUsage(@Param("flagId") Long flagId);
+
+    /**
+     * Get feature flag event counts without distinct users.
+     */
+    @Query("""
+        SELECT new com.rex.dto.FlagUsage(m.featureFlag.id,
+               COUNT(*),
+               COUNT(CASE WHEN m.eventType = 'FLAG_ENABLED' THEN 1 END),
+               COUNT(CASE WHEN m.eventType = 'FLAG_DISABLED' THEN 1 END))
         FROM Metrics m 
         WHERE m.featureFlag.id = :flagId
         GROUP BY m.featureFlag.id
         """)
-    List<Object[]> getFeatureFlagUsage(@Param("flagId") Long flagId);
+    List<FlagUsage> getFeatureFlagEventCounts(@Param("flagId") Long flagId);
 
     /**
      * Get conversion funnel for experiment.
      */
     @Query("""
-        SELECT m.eventType, m.variantName, COUNT(*) as eventCount
+        SELECT new com.rex.dto.FunnelStep(m.eventType, m.variantName, COUNT(*))
         FROM Metrics m 
         WHERE m.experiment.id = :experimentId 
         AND m.eventType IN ('EXPERIMENT_EXPOSURE', 'CLICK', 'CONVERSION')
         GROUP BY m.eventType, m.variantName
-        ORDER BY m.variantName, 
+        ORDER BY (SELECT d.value FROM DictionaryEntry d WHERE d.id = CAST(m.variantName AS Integer)),
                  CASE m.eventType 
                      WHEN 'EXPERIMENT_EXPOSURE' THEN 1 
                      WHEN 'CLICK' THEN 2 
                      WHEN 'CONVERSION' THEN 3 
                  END
         """)
-    List<Object[]> getConversionFunnel(@Param("experimentId") Long experimentId);
+    List<FunnelStep> getConversionFunnel(@Param("experimentId") Long experimentId);
+
+    /**
+     * Get conversion funnel for experiment over events since a point in time.
+     */
+    @Query("""
+        SELECT new com.rex.dto.FunnelStep(m.eventType, m.variantName, COUNT(*))
+        FROM Metrics m 
+        WHERE m.experiment.id = :experimentId 
+        AND m.eventType IN ('EXPERIMENT_EXPOSURE', 'CLICK', 'CONVERSION')
+        AND m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
+        GROUP BY m.eventType, m.variantName
+        ORDER BY (SELECT d.value FROM DictionaryEntry d WHERE d.id = CAST(m.variantName AS Integer)),
+                 CASE m.eventType 
+                     WHEN 'EXPERIMENT_EXPOSURE' THEN 1 
+                     WHEN 'CLICK' THEN 2 
+                     WHEN 'CONVERSION' THEN 3 
+                 END
+        """)
+    List<FunnelStep> getConversionFunnelSince(@Param("experimentId") Long experimentId,
+                                              @Param("sinceDate") LocalDateTime sinceDate);
 
     /**
      * Get hourly metrics for dashboard charts.
      * H2-compatible version using FORMATDATETIME function.
      */
     @Query("""
-        SELECT FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH') as hour,
-               COUNT(*) as eventCount,
-               COUNT(DISTINCT m.userId) as uniqueUsers
+        SELECT new com.rex.dto.HourlyActivity(CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH') AS String),
+               COUNT(*),
+               COUNT(DISTINCT m.userId))
+        FROM Metrics m 
+        WHERE m.timestamp >= :startDate 
+        AND m.partitionDay >= :#{#startDate.toLocalDate()}
+        AND m.environment = :environment
+        GROUP BY CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH') AS String)
+        ORDER BY CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH') AS String) DESC
+        """)
+    List<HourlyActivity> getHourlyMetrics(@Param("startDate") LocalDateTime startDate,
+                                          @Param("environment") String environment);
+
+    /**
+     * Get hourly event counts without distinct users,
+     * which approximate-distinct mode reads from sketches.
+     */
+    @Query("""
+        SELECT new com.rex.dto.HourlyActivity(CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH') AS String),
+               COUNT(*))
         FROM Metrics m 
         WHERE m.timestamp >= :startDate 
+        AND m.partitionDay >= :#{#startDate.toLocalDate()}
         AND m.environment = :environment
-        GROUP BY FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH')
-        ORDER BY FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH') DESC
+        GROUP BY CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH') AS String)
+        ORDER BY CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd HH') AS String) DESC
         """)
-    List<Object[]> getHourlyMetrics(@Param("startDate") LocalDateTime startDate,
-                                    @Param("environment") String environment);
+    List<HourlyActivity> getHourlyEventCounts(@Param("startDate") LocalDateTime startDate,
+                                              @Param("environment") String environment);
+
+    /**
+     * Count distinct users in an environment since a point in time.
+     */
+    @Query("""
+        SELECT COUNT(DISTINCT m.userId)
+        FROM Metrics m 
+        WHERE m.timestamp >= :sinceDate 
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
+        AND m.environment = :environment
+        """)
+    long countDistinctUsersSince(@Param("sinceDate") LocalDateTime sinceDate,
+                                 @Param("environment") String environment);
 
     /**
      * Get daily metrics aggregation.
      * H2-compatible version using FORMATDATETIME function.
      */
     @Query("""
-        SELECT FORMATDATETIME(m.timestamp, 'yyyy-MM-dd') as day,
+        SELECT new com.rex.dto.DailyActivity(CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd') AS String),
+               m.eventType,
+               COUNT(*),
+               COUNT(DISTINCT m.userId),
+               AVG(m.eventValue))
+        FROM Metrics m 
+        WHERE m.timestamp >= :startDate
+        AND m.partitionDay >= :#{#startDate.toLocalDate()}
+        GROUP BY CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd') AS String), m.eventType
+        ORDER BY CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd') AS String) DESC, m.eventType
+        """)
+    List<DailyActivity> getDailyMetrics(@Param("startDate") LocalDateTime startDate);
+
+    /**
+     * Get daily event counts without distinct users.
+     */
+    @Query("""
+        SELECT new com.rex.dto.DailyActivity(CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd') AS String),
                m.eventType,
-               COUNT(*) as eventCount,
-               COUNT(DISTINCT m.userId) as uniqueUsers,
-               AVG(m.eventValue) as avgValue
+               COUNT(*),
+               AVG(m.eventValue))
         FROM Metrics m 
         WHERE m.timestamp >= :startDate
-        GROUP BY FORMATDATETIME(m.timestamp, 'yyyy-MM-dd'), m.eventType
-        ORDER BY FORMATDATETIME(m.timestamp, 'yyyy-MM-dd') DESC, m.eventType
+        AND m.partitionDay >= :#{#startDate.toLocalDate()}
+        GROUP BY CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd') AS String), m.eventType
+        ORDER BY CAST(FORMATDATETIME(m.timestamp, 'yyyy-MM-dd') AS String) DESC, m.eventType
         """)
-    List<Object[]> getDailyMetrics(@Param("startDate") LocalDateTime startDate);
+    List<DailyActivity> getDailyEventCounts(@Param("startDate") LocalDateTime startDate);
 
     /**
      * Get top performing variants across all experiments.
      * H2-compatible version with explicit ORDER BY calculation.
      */
     @Query("""
-        SELECT m.experiment.id, m.variantName,
-               COUNT(CASE WHEN m.eventType = 'CONVERSION' THEN 1 END) as conversions,
-               COUNT(CASE WHEN m.eventType = 'EXPERIMENT_EXPOSURE' THEN 1 END) as exposures,
+        SELECT new com.rex.dto.VariantConversion(m.experiment.id, m.variantName,
+               COUNT(CASE WHEN m.eventType = 'CONVERSION' THEN 1 END),
+               COUNT(CASE WHEN m.eventType = 'EXPERIMENT_EXPOSURE' THEN 1 END),
                CASE 
                    WHEN COUNT(CASE WHEN m.eventType = 'EXPERIMENT_EXPOSURE' THEN 1 END) > 0 
                    THEN CAST(COUNT(CASE WHEN m.eventType = 'CONVERSION' THEN 1 END) AS DOUBLE) / 
                         COUNT(CASE WHEN m.eventType = 'EXPERIMENT_EXPOSURE' THEN 1 END) * 100
-                   ELSE 0 
-               END as conversionRate
+                   ELSE 0.0 
+               END)
         FROM Metrics m 
         WHERE m.experiment IS NOT NULL
         GROUP BY m.experiment.id, m.variantName
@@ -183,70 +469,121 @@ public interface MetricsRepository extends JpaRepository<Metrics, Long> {
                      ELSE 0 
                  END DESC
         """)
-    List<Object[]> getTopPerformingVariants(@Param("minExposures") Long minExposures);
+    List<VariantConversion> getTopPerformingVariants(@Param("minExposures") Long minExposures);
 
     /**
      * Get error metrics for monitoring.
      */
     @Query("""
-        SELECT m.eventName,
-               COUNT(*) as errorCount,
-               COUNT(DISTINCT m.userId) as affectedUsers,
-               m.environment
+        SELECT new com.rex.dto.ErrorSummary(m.eventName,
+               COUNT(*),
+               COUNT(DISTINCT m.userId),
+               m.environment)
+        FROM Metrics m 
+        WHERE m.eventType = 'ERROR' 
+        AND m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
+        GROUP BY m.eventName, m.environment
+        ORDER BY COUNT(*) DESC
+        """)
+    List<ErrorSummary> getErrorMetrics(@Param("sinceDate") LocalDateTime sinceDate);
+
+    /**
+     * Get error counts without affected users.
+     */
+    @Query("""
+        SELECT new com.rex.dto.ErrorSummary(m.eventName,
+               COUNT(*),
+               m.environment)
         FROM Metrics m 
         WHERE m.eventType = 'ERROR' 
         AND m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
         GROUP BY m.eventName, m.environment
-        ORDER BY errorCount DESC
+        ORDER BY COUNT(*) DESC
         """)
-    List<Object[]> getErrorMetrics(@Param("sinceDate") LocalDateTime sinceDate);
+    List<ErrorSummary> getErrorCounts(@Param("sinceDate") LocalDateTime sinceDate);
 
     /**
      * Get user engagement metrics.
      */
     @Query("""
-        SELECT m.userId,
-               COUNT(*) as totalEvents,
-               COUNT(DISTINCT m.experiment.id) as experimentsParticipated,
-               COUNT(DISTINCT m.featureFlag.id) as flagsExposed,
-               MAX(m.timestamp) as lastActivity
+        SELECT new com.rex.dto.UserEngagement(m.userId,
+               COUNT(*),
+               COUNT(DISTINCT m.experiment.id),
+               COUNT(DISTINCT m.featureFlag.id),
+               MAX(m.timestamp))
         FROM Metrics m 
         WHERE m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
         GROUP BY m.userId
         HAVING COUNT(*) >= :minEvents
-        ORDER BY totalEvents DESC
+        ORDER BY COUNT(*) DESC
         """)
-    List<Object[]> getUserEngagement(@Param("sinceDate") LocalDateTime sinceDate,
-                                     @Param("minEvents") Long minEvents);
+    List<UserEngagement> getUserEngagement(@Param("sinceDate") LocalDateTime sinceDate,
+                                           @Param("minEvents") Long minEvents);
 
     /**
      * Get platform/device distribution.
      */
     @Query("""
-        SELECT m.platform, m.deviceType,
-               COUNT(*) as eventCount,
-               COUNT(DISTINCT m.userId) as uniqueUsers
+        SELECT new com.rex.dto.PlatformUsage(m.platform, m.deviceType,
+               COUNT(*),
+               COUNT(DISTINCT m.userId))
         FROM Metrics m 
         WHERE m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
         GROUP BY m.platform, m.deviceType
-        ORDER BY eventCount DESC
+        ORDER BY COUNT(*) DESC
         """)
-    List<Object[]> getPlatformDistribution(@Param("sinceDate") LocalDateTime sinceDate);
+    List<PlatformUsage> getPlatformDistribution(@Param("sinceDate") LocalDateTime sinceDate);
+
+    /**
+     * Get platform/device event counts without distinct users.
+     */
+    @Query("""
+        SELECT new com.rex.dto.PlatformUsage(m.platform, m.deviceType,
+               COUNT(*))
+        FROM Metrics m 
+        WHERE m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
+        GROUP BY m.platform, m.deviceType
+        ORDER BY COUNT(*) DESC
+        """)
+    List<PlatformUsage> getPlatformCounts(@Param("sinceDate") LocalDateTime sinceDate);
 
     /**
      * Get revenue metrics by experiment variant.
      */
     @Query("""
-        SELECT m.experiment.id, m.variantName,
-               SUM(m.revenue) as totalRevenue,
-               AVG(m.revenue) as avgRevenue,
-               COUNT(CASE WHEN m.revenue > 0 THEN 1 END) as revenueEvents
+        SELECT new com.rex.dto.VariantRevenue(m.experiment.id, m.variantName,
+               SUM(m.revenue),
+               AVG(m.revenue),
+               COUNT(CASE WHEN m.revenue > 0 THEN 1 END))
         FROM Metrics m 
         WHERE m.revenue IS NOT NULL AND m.revenue > 0
         GROUP BY m.experiment.id, m.variantName
-        ORDER BY totalRevenue DESC
+        ORDER BY SUM(m.revenue) DESC
         """)
-    List<Object[]> getRevenueMetrics();
+    List<VariantRevenue> getRevenueMetrics();
+
+    /**
+     * Get revenue metrics by experiment variant over events since a point in time.
+     */
+    @Query("""
+        SELECT new com.rex.dto.VariantRevenue(e.id, m.variantName,
+               SUM(m.revenue),
+               AVG(m.revenue),
+               COUNT(*))
+        FROM Metrics m 
+        LEFT JOIN m.experiment e
+        WHERE m.revenue IS NOT NULL AND m.revenue > 0
+        AND m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
+        GROUP BY e.id, m.variantName
+        ORDER BY SUM(m.revenue) DESC
+        """)
+    List<VariantRevenue> getRevenueMetricsSince(@Param("sinceDate") LocalDateTime sinceDate);
 
     /**
      * Find recent high-value events.
@@ -255,8 +592,155 @@ public interface MetricsRepository extends JpaRepository<Metrics, Long> {
         SELECT m FROM Metrics m 
         WHERE m.eventValue >= :minValue 
         AND m.timestamp >= :sinceDate
+        AND m.partitionDay >= :#{#sinceDate.toLocalDate()}
         ORDER BY m.eventValue DESC, m.timestamp DESC
         """)
     List<Metrics> findHighValueEvents(@Param("minValue") Double minValue,
                                       @Param("sinceDate") LocalDateTime sinceDate);
-}
\ No newline at end of file
+
+    /**
+     * Stream the fields rollups aggregate for every experiment event
+     * (experiment ID, variant, event type, timestamp, user ID, event value, revenue).
+     * Must be consumed inside a transaction.
+     */
+    @Query("""
+        SELECT m.experiment.id, m.variantName, m.eventType, m.timestamp, m.userId, m.eventValue, m.revenue
+        FROM Metrics m
+        WHERE m.experiment IS NOT NULL
+        """)
+    Stream<Object[]> streamExperimentEvents();
+
+    /**
+     * Stream the fields unique-user sketches are kept for, for every event
+     * (timestamp, user ID, environment, event type, flag ID, event name, platform, device type).
+     * Must be consumed inside a transaction.
+     */
+    @Query("""
+        SELECT m.timestamp, m.userId, m.environment, m.eventType, f.id, m.eventName, m.platform, m.deviceType
+        FROM Metrics m
+        LEFT JOIN m.featureFlag f
+        """)
+    Stream<Object[]> streamUserSketchEvents();
+
+    /**
+     * Stream the columns the event log keeps, for every event in ID order
+     * (timestamp, event type, experiment ID, variant, environment, platform, device type,
+     * event value, revenue). Must be consumed inside a transaction.
+     */
+    @Query("""
+        SELECT m.timestamp, m.eventType, e.id, m.variantName, m.environment, m.platform, m.deviceType,
+               m.eventValue, m.revenue
+        FROM Metrics m
+        LEFT JOIN m.experiment e
+        ORDER BY m.id
+        """)
+    Stream<Object[]> streamEventLogEvents();
+
+    // ============================================
+    // STREAMING EXPORT (DTO projections, ID order)
+    // ============================================
+
+    /**
+     * Stream every event as an export row. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+        SELECT new com.rex.dto.MetricsExportRow(m.id, m.userId, f.id, e.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.sessionId, m.userAgent, m.ipAddress, m.pageUrl,
+               m.referrerUrl, m.environment, m.properties, m.conversionValue, m.revenue, m.countValue,
+               m.durationMs, m.errorMessage, m.deviceType, m.platform)
+        FROM Metrics m
+        LEFT JOIN m.featureFlag f
+        LEFT JOIN m.experiment e
+        ORDER BY m.id
+        """)
+    Stream<MetricsExportRow> streamExportRows();
+
+    /**
+     * Stream the events of an experiment as export rows. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+        SELECT new com.rex.dto.MetricsExportRow(m.id, m.userId, f.id, e.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.sessionId, m.userAgent, m.ipAddress, m.pageUrl,
+               m.referrerUrl, m.environment, m.properties, m.conversionValue, m.revenue, m.countValue,
+               m.durationMs, m.errorMessage, m.deviceType, m.platform)
+        FROM Metrics m
+        LEFT JOIN m.featureFlag f
+        LEFT JOIN m.experiment e
+        WHERE e.id = :experimentId
+        ORDER BY m.id
+        """)
+    Stream<MetricsExportRow> streamExportRowsByExperiment(@Param("experimentId") Long experimentId);
+
+    /**
+     * Stream the events of one type as export rows. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+        SELECT new com.rex.dto.MetricsExportRow(m.id, m.userId, f.id, e.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.sessionId, m.userAgent, m.ipAddress, m.pageUrl,
+               m.referrerUrl, m.environment, m.properties, m.conversionValue, m.revenue, m.countValue,
+               m.durationMs, m.errorMessage, m.deviceType, m.platform)
+        FROM Metrics m
+        LEFT JOIN m.featureFlag f
+        LEFT JOIN m.experiment e
+        WHERE m.eventType = :eventType
+        ORDER BY m.id
+        """)
+    Stream<MetricsExportRow> streamExportRowsByEventType(@Param("eventType") Metrics.EventType eventType);
+
+    /**
+     * Stream the events in a time range as export rows. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+        SELECT new com.rex.dto.MetricsExportRow(m.id, m.userId, f.id, e.id, m.eventType, m.eventName,
+               m.eventValue, m.variantName, m.timestamp, m.sessionId, m.userAgent, m.ipAddress, m.pageUrl,
+               m.referrerUrl, m.environment, m.properties, m.conversionValue, m.revenue, m.countValue,
+               m.durationMs, m.errorMessage, m.deviceType, m.platform)
+        FROM Metrics m
+        LEFT JOIN m.featureFlag f
+        LEFT JOIN m.experiment e
+        WHERE m.timestamp >= :startDate AND m.timestamp <= :endDate
+        AND m.partitionDay BETWEEN :#{#startDate.toLocalDate()} AND :#{#endDate.toLocalDate()}
+        ORDER BY m.id
+        """)
+    Stream<MetricsExportRow> streamExportRowsByTimestampBetween(@Param("startDate") LocalDateTime startDate,
+                                                                @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Lowest and highest ID of metrics older than a cutoff (both null when there are none).
+     */
+    @Query("""
+        SELECT MIN(m.id), MAX(m.id) FROM Metrics m
+        WHERE m.timestamp < :cutoff
+        AND m.partitionDay <= :#{#cutoff.toLocalDate()}
+        """)
+    List<Object[]> findIdRangeBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Bulk-delete metrics older than a cutoff within the key range [fromId, toId).
+     */
+    @Modifying
+    @Query("""
+        DELETE FROM Metrics m
+        WHERE m.id >= :fromId AND m.id < :toId
+        AND m.timestamp < :cutoff
+        AND m.partitionDay <= :#{#cutoff.toLocalDate()}
+        """)
+    int deleteChunkBefore(@Param("fromId") Long fromId, @Param("toId") Long toId,
+                          @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Day partitions holding metrics before the given day, oldest first.
+     */
+    @Query("SELECT DISTINCT m.partitionDay FROM Metrics m WHERE m.partitionDay < :day ORDER BY m.partitionDay")
+    List<LocalDate> findPartitionDaysBefore(@Param("day") LocalDate day);
+
+    /**
+     * Lowest and highest ID of the metrics in one day partition (both null when it is empty).
+     */
+    @Query("SELECT MIN(m.id), MAX(m.id) FROM Metrics m WHERE m.partitionDay = :day")
+    List<Object[]> findIdRangeOfPartition(@Param("day") LocalDate day);
+}
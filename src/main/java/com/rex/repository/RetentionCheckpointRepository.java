@@ -0,0 +1,12 @@
+package com.rex.repository;
+
+import com.rex.model.RetentionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for RetentionCheckpoint entity operations.
+ */
+@Repository
+public interface RetentionCheckpointRepository extends JpaRepository<RetentionCheckpoint, String> {
+}
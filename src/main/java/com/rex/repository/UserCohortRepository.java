@@ -1,12 +1,14 @@
 package com.rex.repository;
 
 import com.rex.model.UserCohort;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +26,13 @@ public interface UserCohortRepository extends JpaRepository<UserCohort, Long> {
     @Query("SELECT uc FROM UserCohort uc WHERE uc.userId = :userId AND uc.experiment.id = :experimentId")
     Optional<UserCohort> findByUserIdAndExperimentId(@Param("userId") String userId, @Param("experimentId") Long experimentId);
 
+    /**
+     * Find which (experiment ID, user ID) pairs among the given IDs are already assigned.
+     */
+    @Query("SELECT uc.experiment.id, uc.userId FROM UserCohort uc WHERE uc.experiment.id IN :experimentIds AND uc.userId IN :userIds")
+    List<Object[]> findAssignmentKeys(@Param("experimentIds") Collection<Long> experimentIds,
+                                      @Param("userIds") Collection<String> userIds);
+
     /**
      * Find all assignments for a user.
      */
@@ -44,6 +53,17 @@ public interface UserCohortRepository extends JpaRepository<UserCohort, Long> {
      */
     List<UserCohort> findByExperiment_Id(Long experimentId);
 
+    /**
+     * Page of an experiment's assignments in ID order, after the previous page's last ID.
+     */
+    @Query("""
+        SELECT uc FROM UserCohort uc
+        WHERE uc.experiment.id = :experimentId AND uc.id > :afterId
+        ORDER BY uc.id
+        """)
+    List<UserCohort> findPageByExperimentId(@Param("experimentId") Long experimentId, @Param("afterId") Long afterId,
+                                            Limit limit);
+
     /**
      * Find assignments by experiment and cohort type.
      */
@@ -90,6 +110,31 @@ public interface UserCohortRepository extends JpaRepository<UserCohort, Long> {
     @Query("SELECT uc FROM UserCohort uc WHERE uc.exposureCount >= :minExposure ORDER BY uc.exposureCount DESC")
     List<UserCohort> findHighlyEngagedUsers(@Param("minExposure") Integer minExposure);
 
+    /**
+     * Page of highly engaged assignments, most exposures first, seeking past the
+     * (exposure count, id) of the previous page's last row.
+     */
+    @Query("""
+        SELECT uc FROM UserCohort uc
+        WHERE uc.exposureCount >= :minExposure
+        AND (uc.exposureCount < :exposureCount OR (uc.exposureCount = :exposureCount AND uc.id < :id))
+        ORDER BY uc.exposureCount DESC, uc.id DESC
+        """)
+    List<UserCohort> findPageOfHighlyEngagedUsers(@Param("minExposure") Integer minExposure,
+                                                  @Param("exposureCount") Integer exposureCount,
+                                                  @Param("id") Long id, Limit limit);
+
+    /**
+     * Get included (non-excluded) users per experiment variant: experiment ID, variant name, count.
+     */
+    @Query("""
+        SELECT uc.experiment.id, uc.variantName, COUNT(*) as count
+        FROM UserCohort uc 
+        WHERE uc.cohortType <> 'EXCLUDED'
+        GROUP BY uc.experiment.id, uc.variantName
+        """)
+    List<Object[]> getVariantSampleSizes();
+
     /**
      * Get cohort distribution for an experiment.
      */
@@ -140,6 +185,19 @@ public interface UserCohortRepository extends JpaRepository<UserCohort, Long> {
         """)
     List<UserCohort> findStaleAssignments(@Param("cutoffDate") LocalDateTime cutoffDate);
 
+    /**
+     * Page of stale assignments in ID order, after the previous page's last ID.
+     */
+    @Query("""
+        SELECT uc FROM UserCohort uc
+        WHERE uc.isActive = true
+        AND (uc.lastExposureAt IS NULL OR uc.lastExposureAt < :cutoffDate)
+        AND uc.id > :afterId
+        ORDER BY uc.id
+        """)
+    List<UserCohort> findPageOfStaleAssignments(@Param("cutoffDate") LocalDateTime cutoffDate,
+                                                @Param("afterId") Long afterId, Limit limit);
+
     /**
      * Find assignments by session ID (useful for session-based experiments).
      */
@@ -0,0 +1,33 @@
+package com.rex.repository;
+
+import com.rex.model.UserSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository interface for UserSketch entity operations.
+ */
+@Repository
+public interface UserSketchRepository extends JpaRepository<UserSketch, Long> {
+
+    /**
+     * Find the sketch stored for a slot.
+     */
+    Optional<UserSketch> findByDimensionAndDimensionValueAndGranularityAndBucketStart(
+            UserSketch.Dimension dimension, String dimensionValue,
+            UserSketch.Granularity granularity, LocalDateTime bucketStart);
+
+    /**
+     * Delete sketches of a granularity older than a cutoff (after they were compacted).
+     */
+    @Modifying
+    @Query("DELETE FROM UserSketch s WHERE s.granularity = :granularity AND s.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("granularity") UserSketch.Granularity granularity,
+                        @Param("cutoff") LocalDateTime cutoff);
+}
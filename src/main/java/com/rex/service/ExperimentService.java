@@ -1,18 +1,44 @@
 package com.rex.service;
 
+import com.rex.dto.ExperimentSignificance;
 import com.rex.model.Experiment;
+import com.rex.model.ExperimentVariant;
 import com.rex.model.UserCohort;
 import com.rex.repository.ExperimentRepository;
 import com.rex.repository.UserCohortRepository;
+import com.rex.service.assignment.Assignment;
+import com.rex.service.assignment.AssignmentCache;
+import com.rex.service.assignment.AssignmentWriter;
+import com.rex.service.assignment.ExposureAccumulator;
+import com.rex.service.assignment.RunningExperimentRegistry;
+import com.rex.service.assignment.SampleSizeCounters;
+import com.rex.service.assignment.VariantAllocation;
+import com.rex.service.bucketing.BucketingStrategy;
+import com.rex.service.instrumentation.HotPathMetrics;
+import com.rex.service.paging.ContinuationToken;
+import com.rex.service.paging.KeysetPage;
+import com.rex.service.sketch.UniqueUserSketchService;
+import com.rex.service.stats.ExperimentStatisticsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service class for A/B Testing Experiment management operations.
@@ -25,6 +51,18 @@ import java.util.Optional;
  * - Real-time experiment performance tracking
  * - Statistical significance monitoring
  * - Multi-variant experiment support
+ *
+ * Hash-based assignment is served from memory: running experiments come from the
+ * {@link RunningExperimentRegistry}, known assignments from the {@link AssignmentCache},
+ * and new assignments are persisted in the background by the {@link AssignmentWriter}.
+ * Sample sizes are counted in {@link SampleSizeCounters} and read live from there;
+ * exposures are coalesced in the {@link ExposureAccumulator} and written in batches.
+ *
+ * With {@code rex.experiments.assignment.stateless=true} hash-based assignments are not
+ * stored at all: the cohort is recomputed on every call (it is a pure function of user and
+ * experiment) and counted into per-cohort HyperLogLog sketches, from which sample sizes
+ * and cohort distributions are estimated. Only forced (manual) assignments get rows, and
+ * exposures are logged as {@code EXPERIMENT_EXPOSURE} events instead of cohort counters.
  */
 @Service
 @Transactional
@@ -34,12 +72,45 @@ public class ExperimentService {
 
     private final ExperimentRepository experimentRepository;
     private final UserCohortRepository userCohortRepository;
+    private final BucketingStrategy bucketing;
+    private final RunningExperimentRegistry runningExperiments;
+    private final AssignmentCache assignmentCache;
+    private final AssignmentWriter assignmentWriter;
+    private final SampleSizeCounters sampleSizes;
+    private final ExposureAccumulator exposures;
+    private final HotPathMetrics hotPathMetrics;
+    private final UniqueUserSketchService userSketches;
+    private final ExperimentStatisticsService statistics;
+    private final MetricsService metricsService;
+    private final boolean stateless;
 
     @Autowired
     public ExperimentService(ExperimentRepository experimentRepository,
-                             UserCohortRepository userCohortRepository) {
+                             UserCohortRepository userCohortRepository,
+                             BucketingStrategy bucketing,
+                             RunningExperimentRegistry runningExperiments,
+                             AssignmentCache assignmentCache,
+                             AssignmentWriter assignmentWriter,
+                             SampleSizeCounters sampleSizes,
+                             ExposureAccumulator exposures,
+                             HotPathMetrics hotPathMetrics,
+                             UniqueUserSketchService userSketches,
+                             ExperimentStatisticsService statistics,
+                             MetricsService metricsService,
+                             @Value("${rex.experiments.assignment.stateless:false}") boolean stateless) {
         this.experimentRepository = experimentRepository;
         this.userCohortRepository = userCohortRepository;
+        this.bucketing = bucketing;
+        this.runningExperiments = runningExperiments;
+        this.assignmentCache = assignmentCache;
+        this.assignmentWriter = assignmentWriter;
+        this.sampleSizes = sampleSizes;
+        this.exposures = exposures;
+        this.hotPathMetrics = hotPathMetrics;
+        this.userSketches = userSketches;
+        this.statistics = statistics;
+        this.metricsService = metricsService;
+        this.stateless = stateless;
     }
 
     // ============================================
@@ -80,6 +151,37 @@ public class ExperimentService {
         return savedExperiment;
     }
 
+    /**
+     * Create an A/B/n experiment with weighted variants; the first variant is the control.
+     */
+    public Experiment createMultiVariantExperiment(String name, String description, String hypothesis,
+                                                   List<ExperimentVariant> variants, Integer trafficPercentage,
+                                                   String environment, String createdBy) {
+        logger.info("Creating multi-variant experiment: {} with {} variants in environment: {}",
+                name, variants != null ? variants.size() : 0, environment);
+
+        validateExperimentName(name);
+        validateTrafficPercentage(trafficPercentage);
+        validateVariants(variants);
+        validateEnvironment(environment);
+
+        if (experimentRepository.existsByName(name)) {
+            throw new IllegalArgumentException("Experiment with name '" + name + "' already exists");
+        }
+
+        Experiment experiment = new Experiment(name, description, trafficPercentage,
+                variants.get(0).getName(), variants.get(1).getName(), createdBy);
+        experiment.setVariants(copyVariants(variants));
+        experiment.setHypothesis(hypothesis);
+        experiment.setEnvironment(environment);
+        experiment.setStatus(Experiment.ExperimentStatus.DRAFT);
+        experiment.setConfidenceLevel(95.0);
+
+        Experiment savedExperiment = experimentRepository.save(experiment);
+        logger.info("Successfully created experiment: {} with ID: {}", name, savedExperiment.getId());
+        return savedExperiment;
+    }
+
     /**
      * Create experiment with comprehensive configuration.
      */
@@ -197,9 +299,89 @@ public class ExperimentService {
         experiment.setName(name);
         experiment.setDescription(description);
         experiment.setHypothesis(hypothesis);
+        boolean resize = experiment.isLayered() && !trafficPercentage.equals(experiment.getTrafficPercentage());
         experiment.setTrafficPercentage(trafficPercentage);
         experiment.setSuccessMetric(successMetric);
+        if (resize) {
+            allocateLayerRange(experiment, experiment.getLayerName());
+        }
+
+        return experimentRepository.save(experiment);
+    }
+
+    /**
+     * Change the weights of a multi-variant experiment's variants. Variants not named
+     * keep their weight. Users already assigned keep their variant; a running
+     * experiment allocates new users with the rebuilt table once this commits.
+     */
+    public Experiment updateVariantWeights(Long id, Map<String, Integer> weights) {
+        logger.info("Updating variant weights of experiment ID: {} to {}", id, weights);
+
+        Experiment experiment = experimentRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Experiment not found with ID: " + id));
+
+        if (!experiment.isMultiVariant()) {
+            throw new IllegalStateException("Experiment has no weighted variants");
+        }
+        if (experiment.getStatus() == Experiment.ExperimentStatus.COMPLETED
+                || experiment.getStatus() == Experiment.ExperimentStatus.ARCHIVED
+                || experiment.getStatus() == Experiment.ExperimentStatus.CANCELLED) {
+            throw new IllegalStateException("Cannot change variant weights of a " + experiment.getStatus() + " experiment");
+        }
+        for (String variantName : weights.keySet()) {
+            if (experiment.getVariants().stream().noneMatch(variant -> variant.getName().equals(variantName))) {
+                throw new IllegalArgumentException("Unknown variant '" + variantName + "'");
+            }
+        }
+
+        List<ExperimentVariant> updated = experiment.getVariants().stream()
+                .map(variant -> new ExperimentVariant(variant.getName(),
+                        weights.getOrDefault(variant.getName(), variant.getWeight())))
+                .toList();
+        validateVariants(updated);
+        experiment.getVariants().clear();
+        experiment.getVariants().addAll(updated);
+
+        Experiment savedExperiment = experimentRepository.save(experiment);
+        runningExperiments.publish(savedExperiment);
+        return savedExperiment;
+    }
+
+    /**
+     * Put an experiment into a mutually exclusive layer. The experiment takes the first
+     * free bucket range of the layer that fits its traffic percentage, which from then on
+     * is its share of the layer rather than of all users.
+     */
+    public Experiment assignExperimentToLayer(Long id, String layerName) {
+        logger.info("Assigning experiment ID: {} to layer '{}'", id, layerName);
+
+        if (layerName == null || layerName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Layer name cannot be null or empty");
+        }
+        Experiment experiment = experimentRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Experiment not found with ID: " + id));
+        if (experiment.getStatus() != Experiment.ExperimentStatus.DRAFT
+                && experiment.getStatus() != Experiment.ExperimentStatus.READY) {
+            throw new IllegalStateException("Can only change the layer of DRAFT or READY experiments");
+        }
+
+        allocateLayerRange(experiment, layerName);
+        return experimentRepository.save(experiment);
+    }
 
+    /**
+     * Take a DRAFT or READY experiment out of its layer, releasing its bucket range.
+     */
+    public Experiment removeExperimentFromLayer(Long id) {
+        Experiment experiment = experimentRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Experiment not found with ID: " + id));
+        if (experiment.getStatus() != Experiment.ExperimentStatus.DRAFT
+                && experiment.getStatus() != Experiment.ExperimentStatus.READY) {
+            throw new IllegalStateException("Can only change the layer of DRAFT or READY experiments");
+        }
+        experiment.setLayerName(null);
+        experiment.setLayerBucketStart(null);
+        experiment.setLayerBucketEnd(null);
         return experimentRepository.save(experiment);
     }
 
@@ -214,6 +396,7 @@ public class ExperimentService {
 
         experiment.cancel(); // Soft delete - sets status to CANCELLED
         experimentRepository.save(experiment);
+        runningExperiments.publish(experiment);
 
         logger.info("Successfully cancelled experiment: {}", experiment.getName());
     }
@@ -260,6 +443,7 @@ public class ExperimentService {
 
         experiment.start();
         Experiment savedExperiment = experimentRepository.save(experiment);
+        runningExperiments.publish(savedExperiment);
 
         logger.info("Successfully started experiment: {}", experiment.getName());
         return savedExperiment;
@@ -280,6 +464,7 @@ public class ExperimentService {
 
         experiment.pause();
         Experiment savedExperiment = experimentRepository.save(experiment);
+        runningExperiments.publish(savedExperiment);
 
         logger.info("Successfully paused experiment: {}", experiment.getName());
         return savedExperiment;
@@ -300,6 +485,7 @@ public class ExperimentService {
 
         experiment.stop();
         Experiment savedExperiment = experimentRepository.save(experiment);
+        runningExperiments.publish(savedExperiment);
 
         logger.info("Successfully stopped experiment: {}", experiment.getName());
         return savedExperiment;
@@ -321,6 +507,7 @@ public class ExperimentService {
 
         experiment.archive();
         Experiment savedExperiment = experimentRepository.save(experiment);
+        runningExperiments.publish(savedExperiment);
 
         logger.info("Successfully archived experiment: {}", experiment.getName());
         return savedExperiment;
@@ -333,54 +520,112 @@ public class ExperimentService {
     /**
      * Assign user to experiment cohort using hash-based algorithm.
      * This ensures consistent assignment - same user always gets same variant.
+     * Multi-variant experiments pick the variant from their precomputed allocation
+     * table (the cohort's assignment hash is then the user's bucket); classic A/B
+     * experiments keep the 50/50 hash split.
+     * Repeat assignments are answered from the assignment cache without a database
+     * round trip; the returned cohort then carries no exposure counters (see
+     * {@link #getUserAssignment}). New assignments are persisted asynchronously, and the
+     * cohort ID is null until then.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public UserCohort assignUserToExperiment(String userId, Long experimentId, String sessionId) {
+        long startNanos = System.nanoTime();
+        try {
+            return assign(userId, experimentId, sessionId);
+        } finally {
+            hotPathMetrics.assigned(startNanos);
+        }
+    }
+
+    private UserCohort assign(String userId, Long experimentId, String sessionId) {
         logger.debug("Assigning user '{}' to experiment ID: {}", userId, experimentId);
 
-        Experiment experiment = experimentRepository.findById(experimentId)
-                .orElseThrow(() -> new IllegalArgumentException("Experiment not found with ID: " + experimentId));
+        RunningExperimentRegistry.RunningExperiment running = findRunningExperiment(experimentId);
+        Experiment experiment = running.experiment();
 
-        // Check if experiment is running
-        if (experiment.getStatus() != Experiment.ExperimentStatus.RUNNING) {
-            throw new IllegalStateException("Cannot assign users to non-running experiment");
+        // Check if user is already assigned
+        Assignment cached = assignmentCache.get(experimentId, userId);
+        if (cached != null) {
+            hotPathMetrics.assignmentCacheHit();
+            return cached.toCohort(experiment);
+        }
+        hotPathMetrics.assignmentCacheMiss();
+
+        if (stateless) {
+            // Nothing is stored: the cohort is recomputed on every call and only counted
+            UserCohort cohort = computeCohort(userId, sessionId, running);
+            userSketches.recordExperimentCohort(experimentId, cohort.getCohortType(), cohort.getVariantName(), userId);
+            return cohort;
         }
 
-        // Check if user is already assigned
         Optional<UserCohort> existingAssignment = userCohortRepository
                 .findByUserIdAndExperimentId(userId, experimentId);
 
         if (existingAssignment.isPresent()) {
+            hotPathMetrics.assignmentDatabaseFallback();
             logger.debug("User '{}' already assigned to experiment '{}'", userId, experiment.getName());
+            assignmentCache.put(Assignment.from(existingAssignment.get()));
             return existingAssignment.get();
         }
 
-        // Determine if user should be included based on traffic percentage
-        if (!shouldUserBeIncluded(userId, experiment)) {
+        UserCohort cohort = computeCohort(userId, sessionId, running);
+
+        // Concurrent first requests compute the same assignment; only the one cached first is persisted
+        Assignment assignment = Assignment.from(cohort);
+        Assignment winner = assignmentCache.putIfAbsent(assignment);
+        if (winner != null) {
+            return winner.toCohort(experiment);
+        }
+        assignmentWriter.enqueue(assignment);
+        return cohort;
+    }
+
+    /**
+     * Hash-based cohort of a user in a running experiment: a pure function of the user ID
+     * and the experiment's salts, traffic range and variants.
+     */
+    private UserCohort computeCohort(String userId, String sessionId,
+                                     RunningExperimentRegistry.RunningExperiment running) {
+        int userHash = bucketing.hashUser(userId);
+        Experiment experiment = running.experiment();
+        UserCohort cohort;
+
+        // Determine if user should be included based on layer range or traffic percentage
+        if (!running.includes(userHash, bucketing)) {
             logger.debug("User '{}' excluded from experiment '{}' due to traffic percentage",
                     userId, experiment.getName());
-            return createExcludedCohort(userId, experiment, sessionId);
+            hotPathMetrics.assignmentExcluded();
+            cohort = new UserCohort(userId, sessionId, experiment, UserCohort.CohortType.EXCLUDED, "excluded");
+        } else {
+            VariantAllocation allocation = running.allocation();
+            UserCohort.CohortType cohortType;
+            String variantName;
+            int hash;
+            if (allocation != null) {
+                // Weighted variants: the user's bucket indexes the allocation table
+                hash = bucketing.bucket(userHash, running.saltKey());
+                int variant = allocation.variantIndex(hash);
+                cohortType = variant == 0 ? UserCohort.CohortType.CONTROL : UserCohort.CohortType.TREATMENT;
+                variantName = allocation.variantName(variant);
+            } else {
+                // Assign to control or treatment based on hash
+                hash = bucketing.hash(userHash, running.saltKey());
+                cohortType = cohortTypeForHash(hash);
+                variantName = cohortType == UserCohort.CohortType.CONTROL ?
+                        experiment.getControlVariantName() : experiment.getTestVariantName();
+            }
+
+            cohort = new UserCohort(userId, sessionId, experiment, cohortType, variantName);
+            cohort.setAssignmentHash(hash);
+
+            logger.debug("Assigned user '{}' to experiment '{}' as {} ({})",
+                    userId, experiment.getName(), cohortType, variantName);
         }
-
-        // Assign to control or treatment based on hash
-        UserCohort.CohortType cohortType = determineCohortType(userId, experiment);
-        String variantName = cohortType == UserCohort.CohortType.CONTROL ?
-                experiment.getControlVariantName() : experiment.getTestVariantName();
-
-        UserCohort cohort = new UserCohort(userId, sessionId, experiment, cohortType, variantName);
         cohort.setAssignmentMethod(UserCohort.AssignmentMethod.HASH_BASED);
-        cohort.setAssignmentHash(calculateUserHash(userId, experiment.getName()));
         cohort.setEnvironment(experiment.getEnvironment());
-
-        UserCohort savedCohort = userCohortRepository.save(cohort);
-
-        // Increment experiment sample size
-        experiment.incrementSampleSize();
-        experimentRepository.save(experiment);
-
-        logger.info("Successfully assigned user '{}' to experiment '{}' as {} ({})",
-                userId, experiment.getName(), cohortType, variantName);
-
-        return savedCohort;
+        cohort.setAssignedAt(LocalDateTime.now());
+        return cohort;
     }
 
     /**
@@ -399,7 +644,7 @@ public class ExperimentService {
         Optional<UserCohort> existingAssignment = userCohortRepository
                 .findByUserIdAndExperimentId(userId, experimentId);
 
-        if (existingAssignment.isPresent()) {
+        if (existingAssignment.isPresent() || assignmentCache.get(experimentId, userId) != null) {
             throw new IllegalStateException("User is already assigned to this experiment");
         }
 
@@ -410,22 +655,49 @@ public class ExperimentService {
         cohort.setEnvironment(experiment.getEnvironment());
 
         UserCohort savedCohort = userCohortRepository.save(cohort);
+        if (stateless) {
+            // Stateless assignment never reads user_cohorts: forced cohorts are served from the cache
+            assignmentCache.put(Assignment.from(savedCohort));
+        }
 
         // Increment experiment sample size if not excluded
         if (forcedCohortType != UserCohort.CohortType.EXCLUDED) {
-            experiment.incrementSampleSize();
-            experimentRepository.save(experiment);
+            sampleSizes.increment(experimentId, variantName);
         }
 
         return savedCohort;
     }
 
     /**
-     * Get user's assignment for an experiment.
+     * Hash-based cohorts of many users in a running experiment, computed in parallel on
+     * the common fork-join pool. Nothing is read, cached or stored; the cohorts carry a
+     * reference to the experiment but no ID. Used by bulk assignment.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<UserCohort> computeAssignments(List<String> userIds, Long experimentId) {
+        RunningExperimentRegistry.RunningExperiment running = findRunningExperiment(experimentId);
+        return userIds.parallelStream()
+                .map(userId -> computeCohort(userId, null, running))
+                .toList();
+    }
+
+    /**
+     * Get user's assignment for an experiment, with its exposure counters up to date.
+     * In stateless mode a user without a stored (manual) assignment gets the cohort
+     * computed for them while the experiment is running, without counting it.
      */
     @Transactional(readOnly = true)
     public Optional<UserCohort> getUserAssignment(String userId, Long experimentId) {
-        return userCohortRepository.findByUserIdAndExperimentId(userId, experimentId);
+        awaitPendingAssignment(userId, experimentId);
+        if (exposures.getPendingCount() > 0) {
+            exposures.flush();
+        }
+        Optional<UserCohort> stored = userCohortRepository.findByUserIdAndExperimentId(userId, experimentId);
+        if (stored.isPresent() || !stateless) {
+            return stored;
+        }
+        RunningExperimentRegistry.RunningExperiment running = runningExperiments.find(experimentId);
+        return running != null ? Optional.of(computeCohort(userId, null, running)) : Optional.empty();
     }
 
     /**
@@ -433,7 +705,8 @@ public class ExperimentService {
      */
     @Transactional(readOnly = true)
     public boolean isUserAssignedToExperiment(String userId, Long experimentId) {
-        return userCohortRepository.existsByUserIdAndExperimentId(userId, experimentId);
+        return assignmentCache.get(experimentId, userId) != null
+                || userCohortRepository.existsByUserIdAndExperimentId(userId, experimentId);
     }
 
     /**
@@ -453,17 +726,107 @@ public class ExperimentService {
     }
 
     /**
-     * Record user exposure to experiment.
+     * Record user exposure to experiment. The exposure is coalesced in the
+     * {@link ExposureAccumulator} and written with others in the next batch; a cached
+     * assignment spares the cohort lookup. The returned cohort carries no exposure
+     * counters (see {@link #getUserAssignment}).
+     * <p>
+     * In stateless mode there is no cohort row to count on: the user's cohort is resolved
+     * as by {@link #assignUserToExperiment(String, Long, String)} (so the exposure also
+     * counts the user into the sample size) and, unless the user is excluded, logged as an
+     * {@code EXPERIMENT_EXPOSURE} event.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public UserCohort recordUserExposure(String userId, Long experimentId) {
         logger.debug("Recording exposure for user '{}' to experiment ID: {}", userId, experimentId);
 
-        UserCohort cohort = userCohortRepository.findByUserIdAndExperimentId(userId, experimentId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "User is not assigned to this experiment. Cannot record exposure."));
+        if (stateless) {
+            UserCohort cohort = assign(userId, experimentId, null);
+            if (cohort.getCohortType() != UserCohort.CohortType.EXCLUDED) {
+                Experiment experiment = cohort.getExperiment();
+                metricsService.trackExperimentExposure(userId, experiment, cohort.getVariantName(),
+                        null, experiment.getEnvironment(), null, null);
+            }
+            return cohort;
+        }
+
+        awaitPendingAssignment(userId, experimentId);
+        Assignment assignment = assignmentCache.get(experimentId, userId);
+        Experiment experiment;
+        if (assignment != null && assignment.isPersisted()) {
+            RunningExperimentRegistry.RunningExperiment running = runningExperiments.find(experimentId);
+            experiment = running != null ? running.experiment() : experimentRepository.getReferenceById(experimentId);
+        } else {
+            UserCohort stored = userCohortRepository.findByUserIdAndExperimentId(userId, experimentId)
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "User is not assigned to this experiment. Cannot record exposure."));
+            assignment = Assignment.from(stored);
+            assignmentCache.put(assignment);
+            experiment = stored.getExperiment();
+        }
+
+        exposures.record(assignment.cohortId(), LocalDateTime.now());
+        return assignment.toCohort(experiment);
+    }
+
+    /**
+     * Page of an experiment's assignments in ID order. Pass the previous page's
+     * {@code nextToken} (null for the first page).
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<UserCohort> getAssignmentsPageByExperiment(Long experimentId, String token, int pageSize) {
+        long afterId = token != null ? ContinuationToken.decode(token).id() : 0L;
+        List<UserCohort> rows = userCohortRepository.findPageByExperimentId(experimentId, afterId,
+                Limit.of(KeysetPage.checkPageSize(pageSize) + 1));
+        return KeysetPage.of(rows, pageSize, cohort -> ContinuationToken.of(cohort.getId()));
+    }
+
+    /**
+     * Page of assignments with at least {@code minExposure} exposures, most exposures first.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<UserCohort> getHighlyEngagedUsersPage(Integer minExposure, String token, int pageSize) {
+        ContinuationToken after = token != null
+                ? ContinuationToken.decode(token)
+                : ContinuationToken.of(Integer.MAX_VALUE, Long.MAX_VALUE);
+        List<UserCohort> rows = userCohortRepository.findPageOfHighlyEngagedUsers(minExposure,
+                Math.toIntExact(after.longKey()), after.id(), Limit.of(KeysetPage.checkPageSize(pageSize) + 1));
+        return KeysetPage.of(rows, pageSize, cohort -> ContinuationToken.of(cohort.getExposureCount(), cohort.getId()));
+    }
+
+    /**
+     * Page of active assignments not exposed since the cutoff, in ID order.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<UserCohort> getStaleAssignmentsPage(LocalDateTime cutoffDate, String token, int pageSize) {
+        long afterId = token != null ? ContinuationToken.decode(token).id() : 0L;
+        List<UserCohort> rows = userCohortRepository.findPageOfStaleAssignments(cutoffDate, afterId,
+                Limit.of(KeysetPage.checkPageSize(pageSize) + 1));
+        return KeysetPage.of(rows, pageSize, cohort -> ContinuationToken.of(cohort.getId()));
+    }
+
+    /**
+     * All assignments of an experiment, fetched page by page as the iterator advances.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Iterator<UserCohort> iterateAssignmentsByExperiment(Long experimentId, int pageSize) {
+        return KeysetPage.iterate(token -> getAssignmentsPageByExperiment(experimentId, token, pageSize));
+    }
+
+    /**
+     * All highly engaged assignments, most exposures first, fetched page by page.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Iterator<UserCohort> iterateHighlyEngagedUsers(Integer minExposure, int pageSize) {
+        return KeysetPage.iterate(token -> getHighlyEngagedUsersPage(minExposure, token, pageSize));
+    }
 
-        cohort.recordExposure();
-        return userCohortRepository.save(cohort);
+    /**
+     * All stale assignments, fetched page by page.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Iterator<UserCohort> iterateStaleAssignments(LocalDateTime cutoffDate, int pageSize) {
+        return KeysetPage.iterate(token -> getStaleAssignmentsPage(cutoffDate, token, pageSize));
     }
 
     // ============================================
@@ -480,12 +843,41 @@ public class ExperimentService {
     }
 
     /**
-     * Get cohort distribution for experiment.
+     * Get cohort distribution for experiment as (cohort type, variant name, users) rows.
+     * In stateless mode the counts are distinct-user estimates of hash-based assignments
+     * plus the stored (manual) assignments.
      */
     @Transactional(readOnly = true)
     public List<Object[]> getCohortDistribution(Long experimentId) {
         logger.debug("Retrieving cohort distribution for experiment ID: {}", experimentId);
-        return userCohortRepository.getCohortDistribution(experimentId);
+        List<Object[]> stored = userCohortRepository.getCohortDistribution(experimentId);
+        if (!stateless) {
+            return stored;
+        }
+        Map<List<Object>, Long> counts = new LinkedHashMap<>();
+        for (List<Object[]> rows : List.of(userSketches.experimentCohortUniques(experimentId), stored)) {
+            for (Object[] row : rows) {
+                counts.merge(Arrays.asList(row[0], row[1]), (Long) row[2], Long::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<List<Object>, Long>comparingByValue().reversed())
+                .map(entry -> new Object[]{entry.getKey().get(0), entry.getKey().get(1), entry.getValue()})
+                .toList();
+    }
+
+    /**
+     * Significance of each variant against the control, from the online statistics
+     * (no metrics scan), at the experiment's confidence level. A variant is significant
+     * once its conversion z-score crosses the sequential boundary for the share of the
+     * minimum sample size reached, so this may be polled at any time.
+     */
+    @Transactional(readOnly = true)
+    public ExperimentSignificance getExperimentSignificance(Long experimentId) {
+        Experiment experiment = experimentRepository.findById(experimentId)
+                .orElseThrow(() -> new IllegalArgumentException("Experiment not found with ID: " + experimentId));
+
+        return statistics.analyze(experiment);
     }
 
     /**
@@ -496,7 +888,7 @@ public class ExperimentService {
         Experiment experiment = experimentRepository.findById(experimentId)
                 .orElseThrow(() -> new IllegalArgumentException("Experiment not found with ID: " + experimentId));
 
-        return experiment.getCompletionPercentage();
+        return experiment.getCompletionPercentage(liveSampleSize(experiment));
     }
 
     /**
@@ -511,15 +903,48 @@ public class ExperimentService {
             return true; // No minimum requirement
         }
 
-        return experiment.getCurrentSampleSize() >= experiment.getMinimumSampleSize();
+        return liveSampleSize(experiment) >= experiment.getMinimumSampleSize();
+    }
+
+    /**
+     * Get live sample size of an experiment.
+     */
+    @Transactional(readOnly = true)
+    public long getLiveSampleSize(Long experimentId) {
+        Experiment experiment = experimentRepository.findById(experimentId)
+                .orElseThrow(() -> new IllegalArgumentException("Experiment not found with ID: " + experimentId));
+
+        return liveSampleSize(experiment);
+    }
+
+    /**
+     * Get live sample size per variant of an experiment.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Long> getVariantSampleSizes(Long experimentId) {
+        if (!stateless) {
+            return sampleSizes.variantSampleSizes(experimentId);
+        }
+        Map<String, Long> sizes = new LinkedHashMap<>(sampleSizes.variantSampleSizes(experimentId));
+        for (Object[] row : userSketches.experimentCohortUniques(experimentId)) {
+            if (row[0] != UserCohort.CohortType.EXCLUDED) {
+                sizes.merge((String) row[1], (Long) row[2], Long::sum);
+            }
+        }
+        return sizes;
     }
 
     /**
-     * Get experiments needing more traffic.
+     * Get experiments needing more traffic, least complete first.
      */
     @Transactional(readOnly = true)
     public List<Experiment> getExperimentsNeedingMoreTraffic() {
-        return experimentRepository.findExperimentsNeedingMoreTraffic();
+        return experimentRepository.findByStatus(Experiment.ExperimentStatus.RUNNING).stream()
+                .filter(experiment -> experiment.getMinimumSampleSize() != null
+                        && liveSampleSize(experiment) < experiment.getMinimumSampleSize())
+                .sorted(Comparator.comparingDouble(experiment ->
+                        (double) liveSampleSize(experiment) / experiment.getMinimumSampleSize()))
+                .toList();
     }
 
     /**
@@ -535,12 +960,13 @@ public class ExperimentService {
     // ============================================
 
     /**
-     * Get experiments eligible for a user.
+     * Get experiments eligible for a user: at most one per layer, plus the unlayered
+     * experiments whose traffic includes the user. Resolved from the in-memory running
+     * experiment registry; the returned entities are detached and must not be modified.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Experiment> getEligibleExperimentsForUser(String userId, String environment) {
-        int userTrafficPercentile = calculateUserPercentile(userId);
-        return experimentRepository.findEligibleExperimentsForUser(environment, userTrafficPercentile);
+        return runningExperiments.eligibleExperiments(bucketing.hashUser(userId), environment);
     }
 
     /**
@@ -572,47 +998,57 @@ public class ExperimentService {
     // ============================================
 
     /**
-     * Determine if user should be included in experiment based on traffic percentage.
+     * Running experiment from the registry. Falls back to the database only to tell
+     * a missing experiment from a non-running one, or to pick up an experiment started
+     * elsewhere.
      */
-    private boolean shouldUserBeIncluded(String userId, Experiment experiment) {
-        int userPercentile = calculateUserPercentile(userId);
-        return userPercentile <= experiment.getTrafficPercentage();
-    }
+    private RunningExperimentRegistry.RunningExperiment findRunningExperiment(Long experimentId) {
+        RunningExperimentRegistry.RunningExperiment running = runningExperiments.find(experimentId);
+        if (running != null) {
+            return running;
+        }
+        Experiment experiment = experimentRepository.findById(experimentId)
+                .orElseThrow(() -> new IllegalArgumentException("Experiment not found with ID: " + experimentId));
 
-    /**
-     * Determine cohort type (control vs treatment) for user.
-     */
-    private UserCohort.CohortType determineCohortType(String userId, Experiment experiment) {
-        int hash = calculateUserHash(userId, experiment.getName());
-        // 50/50 split between control and treatment
-        return (hash % 2 == 0) ? UserCohort.CohortType.CONTROL : UserCohort.CohortType.TREATMENT;
+        // Check if experiment is running
+        if (experiment.getStatus() != Experiment.ExperimentStatus.RUNNING) {
+            throw new IllegalStateException("Cannot assign users to non-running experiment");
+        }
+        return runningExperiments.register(experiment);
     }
 
     /**
-     * Create excluded cohort for user not included in traffic.
+     * Users counted into an experiment: the persisted and in-memory sample-size counters,
+     * plus in stateless mode the distinct-user estimate of included hash-based assignments.
      */
-    private UserCohort createExcludedCohort(String userId, Experiment experiment, String sessionId) {
-        UserCohort cohort = new UserCohort(userId, sessionId, experiment,
-                UserCohort.CohortType.EXCLUDED, "excluded");
-        cohort.setAssignmentMethod(UserCohort.AssignmentMethod.HASH_BASED);
-        cohort.setEnvironment(experiment.getEnvironment());
-        return userCohortRepository.save(cohort);
+    private long liveSampleSize(Experiment experiment) {
+        long counted = sampleSizes.liveSampleSize(experiment);
+        if (stateless) {
+            for (Object[] row : userSketches.experimentCohortUniques(experiment.getId())) {
+                if (row[0] != UserCohort.CohortType.EXCLUDED) {
+                    counted += (Long) row[2];
+                }
+            }
+        }
+        return counted;
     }
 
     /**
-     * Calculate user percentile for traffic allocation (1-100).
+     * Make sure a cached assignment that is still queued for persistence is written.
      */
-    private int calculateUserPercentile(String userId) {
-        int hash = Math.abs(userId.hashCode());
-        return hash % 100 + 1;
+    private void awaitPendingAssignment(String userId, Long experimentId) {
+        Assignment cached = assignmentCache.get(experimentId, userId);
+        if (cached != null && !cached.isPersisted()) {
+            assignmentWriter.flush();
+        }
     }
 
     /**
-     * Calculate user hash for consistent assignment.
+     * Determine cohort type (control vs treatment) from the user's assignment hash.
      */
-    private int calculateUserHash(String userId, String context) {
-        String combined = userId + ":" + context;
-        return Math.abs(combined.hashCode());
+    private UserCohort.CohortType cohortTypeForHash(int hash) {
+        // 50/50 split between control and treatment
+        return (hash % 2 == 0) ? UserCohort.CohortType.CONTROL : UserCohort.CohortType.TREATMENT;
     }
 
     /**
@@ -625,6 +1061,13 @@ public class ExperimentService {
         if (experiment.getControlVariantName() == null || experiment.getTestVariantName() == null) {
             throw new IllegalStateException("Both control and test variant names are required");
         }
+        if (experiment.isMultiVariant()) {
+            try {
+                validateVariants(experiment.getVariants());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
         if (experiment.getTrafficPercentage() == null || experiment.getTrafficPercentage() <= 0) {
             throw new IllegalStateException("Valid traffic percentage is required");
         }
@@ -673,6 +1116,66 @@ public class ExperimentService {
         }
     }
 
+    /**
+     * First-fit a bucket range the size of the experiment's traffic percentage among the
+     * ranges held by the layer's other experiments.
+     */
+    private void allocateLayerRange(Experiment experiment, String layerName) {
+        int size = BucketingStrategy.bucketsForPercentage(experiment.getTrafficPercentage());
+        int start = 0;
+        for (Experiment member : experimentRepository.findLayerMembers(layerName)) {
+            if (member.getId().equals(experiment.getId())) {
+                continue;
+            }
+            if (member.getLayerBucketStart() - start >= size) {
+                break;
+            }
+            start = Math.max(start, member.getLayerBucketEnd());
+        }
+        if (BucketingStrategy.BUCKETS - start < size) {
+            throw new IllegalStateException(String.format(
+                    "Layer '%s' has no free range for %d%% of its traffic", layerName, experiment.getTrafficPercentage()));
+        }
+        experiment.setLayerName(layerName);
+        experiment.setLayerBucketStart(start);
+        experiment.setLayerBucketEnd(start + size);
+        logger.info("Experiment '{}' owns buckets [{}, {}) of layer '{}'", experiment.getName(), start, start + size,
+                layerName);
+    }
+
+    /**
+     * Validate the weighted variants of a multi-variant experiment.
+     */
+    private void validateVariants(List<ExperimentVariant> variants) {
+        if (variants == null || variants.size() < 2) {
+            throw new IllegalArgumentException("A multi-variant experiment needs at least 2 variants");
+        }
+        if (variants.size() > VariantAllocation.MAX_VARIANTS) {
+            throw new IllegalArgumentException("An experiment cannot have more than "
+                    + VariantAllocation.MAX_VARIANTS + " variants");
+        }
+        Set<String> names = new HashSet<>();
+        for (ExperimentVariant variant : variants) {
+            if (variant.getName() == null || variant.getName().trim().isEmpty()) {
+                throw new IllegalArgumentException("Variant name cannot be null or empty");
+            }
+            if (!names.add(variant.getName())) {
+                throw new IllegalArgumentException("Duplicate variant name '" + variant.getName() + "'");
+            }
+            if (variant.getWeight() == null || variant.getWeight() < 1) {
+                throw new IllegalArgumentException("Weight of variant '" + variant.getName() + "' must be at least 1");
+            }
+        }
+    }
+
+    private static List<ExperimentVariant> copyVariants(List<ExperimentVariant> variants) {
+        List<ExperimentVariant> copy = new ArrayList<>(variants.size());
+        for (ExperimentVariant variant : variants) {
+            copy.add(new ExperimentVariant(variant.getName(), variant.getWeight()));
+        }
+        return copy;
+    }
+
     /**
      * Validate environment.
      */
@@ -2,10 +2,17 @@ package com.rex.service;
 
 import com.rex.model.FeatureFlag;
 import com.rex.repository.FeatureFlagRepository;
+import com.rex.service.bucketing.BucketingStrategy;
+import com.rex.service.flag.FlagEvaluation;
+import com.rex.service.flag.FlagSnapshotHolder;
+import com.rex.service.instrumentation.HotPathMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -23,6 +30,7 @@ import java.util.Optional;
  * - Environment-specific flag handling
  * - Validation and error handling
  * - Audit trail support
+ * - In-memory flag snapshot for database-free evaluation
  */
 @Service
 @Transactional
@@ -30,11 +38,44 @@ public class FeatureFlagService {
 
     private static final Logger logger = LoggerFactory.getLogger(FeatureFlagService.class);
 
+    private static final String GLOBAL_SALT = "global";
+
     private final FeatureFlagRepository featureFlagRepository;
+    private final FlagSnapshotHolder flagSnapshots;
+    private final BucketingStrategy bucketing;
+    private final HotPathMetrics hotPathMetrics;
 
     @Autowired
-    public FeatureFlagService(FeatureFlagRepository featureFlagRepository) {
+    public FeatureFlagService(FeatureFlagRepository featureFlagRepository,
+                              FlagSnapshotHolder flagSnapshots,
+                              BucketingStrategy bucketing,
+                              HotPathMetrics hotPathMetrics) {
         this.featureFlagRepository = featureFlagRepository;
+        this.flagSnapshots = flagSnapshots;
+        this.bucketing = bucketing;
+        this.hotPathMetrics = hotPathMetrics;
+    }
+
+    // ============================================
+    // FLAG SNAPSHOT
+    // ============================================
+
+    /**
+     * Load the in-memory flag snapshot once the application (and seed data) is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadFlagSnapshot() {
+        flagSnapshots.reload(featureFlagRepository::findAll);
+    }
+
+    /**
+     * Rebuild the in-memory flag snapshot from the database.
+     */
+    @Transactional(readOnly = true)
+    public void refreshFlagSnapshot() {
+        logger.info("Refreshing feature flag snapshot from database");
+        flagSnapshots.reload(featureFlagRepository::findAll);
     }
 
     // ============================================
@@ -65,7 +106,7 @@ public class FeatureFlagService {
         flag.setStatus(FeatureFlag.FlagStatus.INACTIVE);
         flag.setRolloutPercentage(0); // Start with 0% rollout
 
-        FeatureFlag savedFlag = featureFlagRepository.save(flag);
+        FeatureFlag savedFlag = saveAndPublish(flag);
         logger.info("Successfully created feature flag: {} with ID: {}", name, savedFlag.getId());
 
         return savedFlag;
@@ -93,7 +134,7 @@ public class FeatureFlagService {
         flag.setEnvironment(environment);
         flag.setRolloutPercentage(rolloutPercentage);
 
-        return featureFlagRepository.save(flag);
+        return saveAndPublish(flag);
     }
 
     /**
@@ -179,7 +220,7 @@ public class FeatureFlagService {
         flag.setDescription(description);
         flag.setEnvironment(environment);
 
-        return featureFlagRepository.save(flag);
+        return saveAndPublish(flag);
     }
 
     /**
@@ -192,7 +233,7 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("Feature flag not found with ID: " + id));
 
         flag.archive(); // Soft delete - sets status to ARCHIVED and disabled
-        featureFlagRepository.save(flag);
+        saveAndPublish(flag);
 
         logger.info("Successfully archived feature flag: {}", flag.getName());
     }
@@ -214,7 +255,7 @@ public class FeatureFlagService {
         boolean wasEnabled = flag.getEnabled();
         flag.toggle();
 
-        FeatureFlag savedFlag = featureFlagRepository.save(flag);
+        FeatureFlag savedFlag = saveAndPublish(flag);
 
         logger.info("Successfully toggled feature flag '{}' from {} to {}",
                 flag.getName(), wasEnabled, savedFlag.getEnabled());
@@ -232,7 +273,7 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("Feature flag not found with ID: " + id));
 
         flag.activate();
-        FeatureFlag savedFlag = featureFlagRepository.save(flag);
+        FeatureFlag savedFlag = saveAndPublish(flag);
 
         logger.info("Successfully enabled feature flag: {}", flag.getName());
         return savedFlag;
@@ -248,7 +289,7 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("Feature flag not found with ID: " + id));
 
         flag.deactivate();
-        FeatureFlag savedFlag = featureFlagRepository.save(flag);
+        FeatureFlag savedFlag = saveAndPublish(flag);
 
         logger.info("Successfully disabled feature flag: {}", flag.getName());
         return savedFlag;
@@ -264,7 +305,7 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("Feature flag not found with name: " + name));
 
         flag.activate();
-        return featureFlagRepository.save(flag);
+        return saveAndPublish(flag);
     }
 
     /**
@@ -277,7 +318,7 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("Feature flag not found with name: " + name));
 
         flag.deactivate();
-        return featureFlagRepository.save(flag);
+        return saveAndPublish(flag);
     }
 
     // ============================================
@@ -296,7 +337,7 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("Feature flag not found with ID: " + id));
 
         flag.setRolloutPercentage(percentage);
-        FeatureFlag savedFlag = featureFlagRepository.save(flag);
+        FeatureFlag savedFlag = saveAndPublish(flag);
 
         logger.info("Successfully updated rollout percentage for '{}' to {}%", flag.getName(), percentage);
         return savedFlag;
@@ -315,7 +356,7 @@ public class FeatureFlagService {
         int newRollout = Math.min(100, currentRollout + incrementPercentage);
 
         flag.setRolloutPercentage(newRollout);
-        return featureFlagRepository.save(flag);
+        return saveAndPublish(flag);
     }
 
     /**
@@ -333,51 +374,38 @@ public class FeatureFlagService {
     /**
      * Evaluate if a flag should be enabled for a specific user.
      * Considers rollout percentage and user hash for consistent assignment.
+     * Served entirely from the in-memory flag snapshot: no database access,
+     * no locks and no allocation. Latency is recorded by the
+     * {@code rex.flag.evaluation} timer. Callers that want to skip the
+     * transactional proxy as well can use {@link FlagSnapshotHolder#isEnabled}.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isFlagEnabledForUser(String flagName, String userId, String environment) {
-        logger.debug("Evaluating flag '{}' for user '{}' in environment '{}'", flagName, userId, environment);
-
-        Optional<FeatureFlag> flagOpt = featureFlagRepository.findByName(flagName);
-        if (flagOpt.isEmpty()) {
-            logger.debug("Flag '{}' not found", flagName);
-            return false;
-        }
-
-        FeatureFlag flag = flagOpt.get();
-
-        // Check if flag is active and enabled
-        if (!flag.isActive()) {
-            logger.debug("Flag '{}' is not active", flagName);
-            return false;
-        }
-
-        // Check environment match
-        if (!flag.getEnvironment().equals(environment)) {
-            logger.debug("Flag '{}' environment mismatch. Expected: {}, Got: {}",
-                    flagName, flag.getEnvironment(), environment);
-            return false;
-        }
-
-        // Check rollout percentage
-        Integer rolloutPercentage = flag.getRolloutPercentage();
-        if (rolloutPercentage == null || rolloutPercentage == 0) {
-            logger.debug("Flag '{}' has 0% rollout", flagName);
-            return false;
+        long startNanos = System.nanoTime();
+        boolean enabled = flagSnapshots.isEnabled(flagName, userId, environment);
+        hotPathMetrics.flagEvaluated(startNanos);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Flag '{}' for user '{}' in environment '{}': enabled={}",
+                    flagName, userId, environment, enabled);
         }
+        return enabled;
+    }
 
-        if (rolloutPercentage >= 100) {
-            logger.debug("Flag '{}' has 100% rollout - enabled for all users", flagName);
-            return true;
+    /**
+     * Evaluate every active flag in an environment for a user in one call.
+     * The user ID is hashed once and each flag keeps its own bucketing, so the
+     * result matches calling {@link #isFlagEnabledForUser} per flag.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public FlagEvaluation evaluateAllForUser(String userId, String environment) {
+        long startNanos = System.nanoTime();
+        FlagEvaluation evaluation = flagSnapshots.evaluateAll(userId, environment);
+        hotPathMetrics.flagsEvaluated(startNanos);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Evaluated {} flags for user '{}' in environment '{}': {} enabled",
+                    evaluation.size(), userId, environment, evaluation.enabledCount());
         }
-
-        // Calculate user percentile based on user ID hash for consistent assignment
-        int userPercentile = calculateUserPercentile(userId, flagName);
-        boolean enabled = userPercentile <= rolloutPercentage;
-
-        logger.debug("Flag '{}' for user '{}': percentile={}, rollout={}%, enabled={}",
-                flagName, userId, userPercentile, rolloutPercentage, enabled);
-
-        return enabled;
+        return evaluation;
     }
 
     /**
@@ -385,7 +413,7 @@ public class FeatureFlagService {
      */
     @Transactional(readOnly = true)
     public List<FeatureFlag> getAvailableFlagsForUser(String userId, String environment) {
-        int userPercentile = calculateUserPercentile(userId, "global");
+        int userPercentile = calculateUserPercentile(userId, GLOBAL_SALT);
         return featureFlagRepository.findAvailableFlagsForUser(environment, userPercentile);
     }
 
@@ -515,6 +543,15 @@ public class FeatureFlagService {
         }
     }
 
+    /**
+     * Persist a flag and publish its new state to the in-memory snapshot.
+     */
+    private FeatureFlag saveAndPublish(FeatureFlag flag) {
+        FeatureFlag savedFlag = featureFlagRepository.save(flag);
+        flagSnapshots.publish(savedFlag);
+        return savedFlag;
+    }
+
     /**
      * Check if flag exists by name and environment.
      */
@@ -526,12 +563,11 @@ public class FeatureFlagService {
 
     /**
      * Calculate user percentile for consistent flag assignment.
-     * Uses hash-based algorithm to ensure same user always gets same result.
+     * Uses the configured bucketing strategy to ensure same user always gets same result.
      */
     private int calculateUserPercentile(String userId, String context) {
-        String combined = userId + ":" + context;
-        int hash = Math.abs(combined.hashCode());
-        return hash % 100 + 1; // Return 1-100
+        int bucket = bucketing.bucket(bucketing.hashUser(userId), bucketing.saltKey(context));
+        return bucket / (BucketingStrategy.BUCKETS / 100) + 1; // Return 1-100
     }
 
     // ============================================
@@ -1,20 +1,60 @@
 package com.rex.service;
 
+import com.rex.dto.DailyActivity;
+import com.rex.dto.DashboardOverview;
+import com.rex.dto.ErrorSummary;
+import com.rex.dto.ExperimentRealTimeStats;
+import com.rex.dto.FlagRealTimeStats;
+import com.rex.dto.FlagUsage;
+import com.rex.dto.FunnelStep;
+import com.rex.dto.HourlyActivity;
+import com.rex.dto.MetricsEventRow;
+import com.rex.dto.MetricsExportRow;
+import com.rex.dto.PlatformUsage;
+import com.rex.dto.UserEngagement;
+import com.rex.dto.VariantConversion;
+import com.rex.dto.VariantFunnel;
+import com.rex.dto.VariantPerformance;
+import com.rex.dto.VariantRevenue;
 import com.rex.model.Experiment;
 import com.rex.model.FeatureFlag;
+import com.rex.model.MetricRollup;
 import com.rex.model.Metrics;
+import com.rex.model.UserSketch;
 import com.rex.repository.MetricsRepository;
+import com.rex.service.cache.AnalyticsResultCache;
+import com.rex.service.eventlog.ColumnarEventLog;
+import com.rex.service.export.MetricsExporter;
+import com.rex.service.instrumentation.HotPathMetrics;
+import com.rex.service.metrics.MetricsSink;
+import com.rex.service.paging.ContinuationToken;
+import com.rex.service.paging.KeysetPage;
+import com.rex.service.retention.MetricsRetentionService;
+import com.rex.service.retention.RetentionProgress;
+import com.rex.service.rollup.ExperimentRollupService;
+import com.rex.service.sketch.UniqueUserSketchService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Writer;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service class for Metrics and Analytics operations.
@@ -27,6 +67,17 @@ import java.util.Optional;
  * - Performance metrics monitoring
  * - Dashboard data preparation
  * - Conversion tracking and funnel analysis
+ *
+ * Tracked events are handed to a {@link MetricsSink}; in async ingestion mode they
+ * are written in background batches and show up in queries shortly after.
+ * Tracking joins a caller's transaction but does not open one of its own: the
+ * sync sink's repository call is transactional by itself, the async sink needs none.
+ *
+ * With {@code rex.metrics.distinct-mode=approximate} the dashboard queries count events
+ * in SQL but take distinct users from HyperLogLog sketches ({@link UniqueUserSketchService}),
+ * avoiding COUNT(DISTINCT) over raw events; {@code exact} keeps the original queries.
+ * This also applies to experiment performance, otherwise answered from the rollups'
+ * sketches. Stored minute and hour rollups always carry approximate user sketches.
  */
 @Service
 @Transactional
@@ -35,10 +86,49 @@ public class MetricsService {
     private static final Logger logger = LoggerFactory.getLogger(MetricsService.class);
 
     private final MetricsRepository metricsRepository;
+    private final MetricsSink metricsSink;
+    private final ExperimentRollupService experimentRollups;
+    private final UniqueUserSketchService userSketches;
+    private final MetricsRetentionService retentionService;
+    private final ColumnarEventLog eventLog;
+    private final HotPathMetrics hotPathMetrics;
+    private final MetricsExporter metricsExporter;
+    private final AnalyticsResultCache analyticsCache;
+    private final boolean approximateDistinct;
+
+    private static final DateTimeFormatter HOUR_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH")
+            .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+            .toFormatter();
 
     @Autowired
-    public MetricsService(MetricsRepository metricsRepository) {
+    public MetricsService(MetricsRepository metricsRepository, MetricsSink metricsSink,
+                          ExperimentRollupService experimentRollups, UniqueUserSketchService userSketches,
+                          MetricsRetentionService retentionService, ObjectProvider<ColumnarEventLog> eventLog,
+                          HotPathMetrics hotPathMetrics, MetricsExporter metricsExporter,
+                          AnalyticsResultCache analyticsCache,
+                          @Value("${rex.metrics.distinct-mode:approximate}") String distinctMode) {
         this.metricsRepository = metricsRepository;
+        this.metricsSink = metricsSink;
+        this.experimentRollups = experimentRollups;
+        this.userSketches = userSketches;
+        this.retentionService = retentionService;
+        this.eventLog = eventLog.getIfAvailable();
+        this.hotPathMetrics = hotPathMetrics;
+        this.metricsExporter = metricsExporter;
+        this.analyticsCache = analyticsCache;
+        this.approximateDistinct = switch (distinctMode.trim().toLowerCase()) {
+            case "approximate" -> true;
+            case "exact" -> false;
+            default -> throw new IllegalArgumentException("Unknown distinct mode: " + distinctMode);
+        };
+    }
+
+    private Metrics record(Metrics metrics) {
+        long startNanos = System.nanoTime();
+        Metrics recorded = metricsSink.record(metrics);
+        hotPathMetrics.eventTracked(startNanos);
+        return recorded;
     }
 
     // ============================================
@@ -48,6 +138,7 @@ public class MetricsService {
     /**
      * Track feature flag exposure event.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackFlagExposure(String userId, FeatureFlag featureFlag, String sessionId,
                                      String environment, String userAgent, String pageUrl) {
         logger.debug("Tracking flag exposure: {} for user: {}", featureFlag.getName(), userId);
@@ -59,12 +150,13 @@ public class MetricsService {
         metrics.setPageUrl(pageUrl);
         metrics.setEventName("flag_exposure_" + featureFlag.getName());
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     /**
      * Track feature flag toggle event.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackFlagToggle(String userId, FeatureFlag featureFlag, boolean newState,
                                    String environment, String triggeredBy) {
         logger.info("Tracking flag toggle: {} -> {} by user: {}",
@@ -78,12 +170,13 @@ public class MetricsService {
         metrics.setEventValue(newState ? 1.0 : 0.0);
         metrics.setProperties(String.format("{\"triggered_by\":\"%s\",\"new_state\":%b}", triggeredBy, newState));
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     /**
      * Track feature flag usage with context.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackFlagUsage(String userId, FeatureFlag featureFlag, String context,
                                   String sessionId, String environment) {
         logger.debug("Tracking flag usage: {} in context: {}", featureFlag.getName(), context);
@@ -94,7 +187,7 @@ public class MetricsService {
         metrics.setEventName("flag_usage_" + featureFlag.getName());
         metrics.setProperties(String.format("{\"context\":\"%s\"}", context));
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     // ============================================
@@ -104,6 +197,7 @@ public class MetricsService {
     /**
      * Track experiment exposure event.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackExperimentExposure(String userId, Experiment experiment, String variantName,
                                            String sessionId, String environment, String userAgent, String pageUrl) {
         logger.debug("Tracking experiment exposure: {} variant: {} for user: {}",
@@ -116,12 +210,13 @@ public class MetricsService {
         metrics.setPageUrl(pageUrl);
         metrics.setEventName("experiment_exposure_" + experiment.getName());
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     /**
      * Track experiment assignment event.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackExperimentAssignment(String userId, Experiment experiment, String variantName,
                                              String assignmentMethod, String environment) {
         logger.info("Tracking experiment assignment: {} variant: {} for user: {} via: {}",
@@ -132,12 +227,13 @@ public class MetricsService {
         metrics.setEventName("experiment_assignment_" + experiment.getName());
         metrics.setProperties(String.format("{\"assignment_method\":\"%s\"}", assignmentMethod));
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     /**
      * Track conversion event for experiment.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackConversion(String userId, Experiment experiment, String variantName,
                                    Double conversionValue, String sessionId, String environment) {
         logger.info("Tracking conversion: {} variant: {} value: {} for user: {}",
@@ -149,12 +245,13 @@ public class MetricsService {
         metrics.setEnvironment(environment);
         metrics.setEventName("conversion_" + experiment.getName());
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     /**
      * Track purchase conversion with revenue.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackPurchase(String userId, Experiment experiment, String variantName,
                                  Double revenue, String sessionId, String environment) {
         logger.info("Tracking purchase: {} variant: {} revenue: {} for user: {}",
@@ -167,7 +264,7 @@ public class MetricsService {
         metrics.setConversionValue(revenue);
         metrics.setEventName("purchase_" + experiment.getName());
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     // ============================================
@@ -177,6 +274,7 @@ public class MetricsService {
     /**
      * Track page view event.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackPageView(String userId, String pageUrl, String sessionId,
                                  String environment, String userAgent, String referrerUrl) {
         logger.debug("Tracking page view: {} for user: {}", pageUrl, userId);
@@ -188,12 +286,13 @@ public class MetricsService {
         metrics.setPageUrl(pageUrl);
         metrics.setReferrerUrl(referrerUrl);
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     /**
      * Track click event.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackClick(String userId, String element, String pageUrl, String sessionId,
                               String environment, Experiment experiment, String variantName) {
         logger.debug("Tracking click: {} on {} for user: {}", element, pageUrl, userId);
@@ -205,12 +304,13 @@ public class MetricsService {
         metrics.setExperiment(experiment);
         metrics.setVariantName(variantName);
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     /**
      * Track error event.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackError(String userId, String errorMessage, String pageUrl, String sessionId,
                               String environment, FeatureFlag relatedFlag) {
         logger.warn("Tracking error: {} on {} for user: {}", errorMessage, pageUrl, userId);
@@ -222,12 +322,13 @@ public class MetricsService {
         metrics.setErrorMessage(errorMessage);
         metrics.setFeatureFlag(relatedFlag);
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     /**
      * Track performance metric.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Metrics trackPerformance(String userId, String metricName, Double value, Long durationMs,
                                     String environment, String pageUrl) {
         logger.debug("Tracking performance: {} = {} ({}ms) for user: {}", metricName, value, durationMs, userId);
@@ -240,7 +341,7 @@ public class MetricsService {
         metrics.setPageUrl(pageUrl);
         metrics.setDurationMs(durationMs);
 
-        return metricsRepository.save(metrics);
+        return record(metrics);
     }
 
     // ============================================
@@ -248,110 +349,99 @@ public class MetricsService {
     // ============================================
 
     /**
-     * Get experiment performance metrics.
+     * Get experiment performance metrics. Served from the in-memory rollups, or from
+     * raw events when exact distinct users are configured.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getExperimentPerformance(Long experimentId) {
+    public List<VariantPerformance> getExperimentPerformance(Long experimentId) {
         logger.debug("Calculating experiment performance for ID: {}", experimentId);
-        return metricsRepository.getExperimentPerformance(experimentId);
+        if (!approximateDistinct) {
+            return metricsRepository.getExperimentPerformance(experimentId);
+        }
+        return experimentRollups.getExperimentPerformance(experimentId);
     }
 
     /**
-     * Get experiment performance summary.
+     * Get experiment performance summary, one flat row per variant in variant order.
      */
     @Transactional(readOnly = true)
-    public Map<String, Object> getExperimentPerformanceSummary(Long experimentId) {
-        logger.debug("Calculating experiment performance summary for ID: {}", experimentId);
-
-        List<Object[]> rawData = metricsRepository.getExperimentPerformance(experimentId);
-        Map<String, Object> summary = new HashMap<>();
-
-        for (Object[] row : rawData) {
-            String variantName = (String) row[0];
-            Long totalEvents = (Long) row[1];
-            Long conversions = (Long) row[2];
-            Long uniqueUsers = (Long) row[3];
-            Double avgEventValue = (Double) row[4];
-            Double totalRevenue = (Double) row[5];
-
-            double conversionRate = totalEvents > 0 ? (conversions.doubleValue() / totalEvents.doubleValue()) * 100 : 0;
-
-            Map<String, Object> variantData = new HashMap<>();
-            variantData.put("totalEvents", totalEvents);
-            variantData.put("conversions", conversions);
-            variantData.put("uniqueUsers", uniqueUsers);
-            variantData.put("conversionRate", conversionRate);
-            variantData.put("avgEventValue", avgEventValue);
-            variantData.put("totalRevenue", totalRevenue);
-
-            summary.put(variantName, variantData);
-        }
-
-        return summary;
+    public List<VariantPerformance> getExperimentPerformanceSummary(Long experimentId) {
+        return getExperimentPerformance(experimentId);
     }
 
     /**
      * Get feature flag usage statistics.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getFeatureFlagUsage(Long flagId) {
+    public List<FlagUsage> getFeatureFlagUsage(Long flagId) {
         logger.debug("Calculating feature flag usage for ID: {}", flagId);
-        return metricsRepository.getFeatureFlagUsage(flagId);
+        if (!approximateDistinct) {
+            return metricsRepository.getFeatureFlagUsage(flagId);
+        }
+        return metricsRepository.getFeatureFlagEventCounts(flagId).stream()
+                .map(usage -> usage.withUniqueUsers(userSketches.flagUniques(flagId)))
+                .toList();
     }
 
     /**
-     * Get feature flag usage summary.
+     * Get feature flag usage summary (all zero when the flag has no events).
      */
     @Transactional(readOnly = true)
-    public Map<String, Object> getFeatureFlagUsageSummary(Long flagId) {
+    public FlagUsage getFeatureFlagUsageSummary(Long flagId) {
         logger.debug("Calculating feature flag usage summary for ID: {}", flagId);
-
-        List<Object[]> rawData = metricsRepository.getFeatureFlagUsage(flagId);
-
-        if (rawData.isEmpty()) {
-            return Map.of("totalExposures", 0L, "uniqueUsers", 0L,
-                    "enabledEvents", 0L, "disabledEvents", 0L);
-        }
-
-        Object[] data = rawData.get(0);
-        return Map.of(
-                "flagId", data[0],
-                "totalExposures", data[1],
-                "uniqueUsers", data[2],
-                "enabledEvents", data[3],
-                "disabledEvents", data[4]
-        );
+        List<FlagUsage> usage = getFeatureFlagUsage(flagId);
+        return usage.isEmpty() ? FlagUsage.none(flagId) : usage.get(0);
     }
 
     /**
      * Get conversion funnel for experiment.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getConversionFunnel(Long experimentId) {
+    public List<FunnelStep> getConversionFunnel(Long experimentId) {
         logger.debug("Calculating conversion funnel for experiment ID: {}", experimentId);
-        return metricsRepository.getConversionFunnel(experimentId);
+        return experimentRollups.getConversionFunnel(experimentId);
     }
 
     /**
-     * Get conversion funnel summary.
+     * Get conversion funnel for experiment over events since a point in time,
+     * scanned from the columnar event log when it is enabled.
      */
     @Transactional(readOnly = true)
-    public Map<String, Map<String, Long>> getConversionFunnelSummary(Long experimentId) {
-        logger.debug("Calculating conversion funnel summary for experiment ID: {}", experimentId);
-
-        List<Object[]> rawData = metricsRepository.getConversionFunnel(experimentId);
-        Map<String, Map<String, Long>> funnelData = new HashMap<>();
+    public List<FunnelStep> getConversionFunnel(Long experimentId, LocalDateTime sinceDate) {
+        logger.debug("Calculating conversion funnel for experiment ID: {} since {}", experimentId, sinceDate);
+        return eventLog != null
+                ? eventLog.conversionFunnel(experimentId, sinceDate)
+                : metricsRepository.getConversionFunnelSince(experimentId, sinceDate);
+    }
 
-        for (Object[] row : rawData) {
-            String eventType = ((Metrics.EventType) row[0]).toString();
-            String variantName = (String) row[1];
-            Long eventCount = (Long) row[2];
+    /**
+     * Get conversion funnel summary, one flat row of step counts per variant in variant order.
+     */
+    @Transactional(readOnly = true)
+    public List<VariantFunnel> getConversionFunnelSummary(Long experimentId) {
+        logger.debug("Calculating conversion funnel summary for experiment ID: {}", experimentId);
 
-            funnelData.computeIfAbsent(variantName, k -> new HashMap<>())
-                    .put(eventType, eventCount);
+        // Steps arrive grouped by variant, in funnel order
+        List<FunnelStep> steps = experimentRollups.getConversionFunnel(experimentId);
+        List<VariantFunnel> funnels = new ArrayList<>();
+        int i = 0;
+        while (i < steps.size()) {
+            String variantName = steps.get(i).variantName();
+            long exposures = 0;
+            long clicks = 0;
+            long conversions = 0;
+            for (; i < steps.size() && Objects.equals(steps.get(i).variantName(), variantName); i++) {
+                FunnelStep step = steps.get(i);
+                switch (step.eventType()) {
+                    case EXPERIMENT_EXPOSURE -> exposures = step.eventCount();
+                    case CLICK -> clicks = step.eventCount();
+                    case CONVERSION -> conversions = step.eventCount();
+                    default -> { }
+                }
+            }
+            funnels.add(new VariantFunnel(variantName, exposures, clicks, conversions));
         }
-
-        return funnelData;
+        return funnels;
     }
 
     // ============================================
@@ -362,43 +452,62 @@ public class MetricsService {
      * Get hourly metrics for dashboard.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getHourlyMetrics(LocalDateTime startDate, String environment) {
+    public List<HourlyActivity> getHourlyMetrics(LocalDateTime startDate, String environment) {
         logger.debug("Retrieving hourly metrics since: {} for environment: {}", startDate, environment);
-        return metricsRepository.getHourlyMetrics(startDate, environment);
+        if (!approximateDistinct) {
+            return metricsRepository.getHourlyMetrics(startDate, environment);
+        }
+        return metricsRepository.getHourlyEventCounts(startDate, environment).stream()
+                .map(row -> row.withUniqueUsers(userSketches.hourlyUniques(UserSketch.Dimension.ENVIRONMENT,
+                        environment, LocalDateTime.parse(row.hour(), HOUR_FORMAT))))
+                .toList();
     }
 
     /**
      * Get daily metrics aggregation.
+     * In approximate mode unique users always cover the whole day.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getDailyMetrics(LocalDateTime startDate) {
+    public List<DailyActivity> getDailyMetrics(LocalDateTime startDate) {
         logger.debug("Retrieving daily metrics since: {}", startDate);
-        return metricsRepository.getDailyMetrics(startDate);
+        if (!approximateDistinct) {
+            return metricsRepository.getDailyMetrics(startDate);
+        }
+        return metricsRepository.getDailyEventCounts(startDate).stream()
+                .map(row -> row.withUniqueUsers(userSketches.dailyUniques(UserSketch.Dimension.EVENT_TYPE,
+                        row.eventType().name(), LocalDate.parse(row.day()))))
+                .toList();
     }
 
     /**
      * Get top performing variants.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getTopPerformingVariants(Long minExposures) {
+    public List<VariantConversion> getTopPerformingVariants(Long minExposures) {
         logger.debug("Retrieving top performing variants with min exposures: {}", minExposures);
-        return metricsRepository.getTopPerformingVariants(minExposures);
+        return experimentRollups.getTopPerformingVariants(minExposures);
     }
 
     /**
      * Get error metrics for monitoring.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getErrorMetrics(LocalDateTime sinceDate) {
+    public List<ErrorSummary> getErrorMetrics(LocalDateTime sinceDate) {
         logger.debug("Retrieving error metrics since: {}", sinceDate);
-        return metricsRepository.getErrorMetrics(sinceDate);
+        if (!approximateDistinct) {
+            return metricsRepository.getErrorMetrics(sinceDate);
+        }
+        return metricsRepository.getErrorCounts(sinceDate).stream()
+                .map(row -> row.withAffectedUsers(userSketches.estimateSince(UserSketch.Dimension.ERROR,
+                        UniqueUserSketchService.errorValue(row.eventName(), row.environment()), sinceDate)))
+                .toList();
     }
 
     /**
      * Get user engagement metrics.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getUserEngagement(LocalDateTime sinceDate, Long minEvents) {
+    public List<UserEngagement> getUserEngagement(LocalDateTime sinceDate, Long minEvents) {
         logger.debug("Retrieving user engagement since: {} with min events: {}", sinceDate, minEvents);
         return metricsRepository.getUserEngagement(sinceDate, minEvents);
     }
@@ -407,18 +516,46 @@ public class MetricsService {
      * Get platform distribution.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getPlatformDistribution(LocalDateTime sinceDate) {
+    public List<PlatformUsage> getPlatformDistribution(LocalDateTime sinceDate) {
         logger.debug("Retrieving platform distribution since: {}", sinceDate);
-        return metricsRepository.getPlatformDistribution(sinceDate);
+        if (!approximateDistinct) {
+            return metricsRepository.getPlatformDistribution(sinceDate);
+        }
+        return metricsRepository.getPlatformCounts(sinceDate).stream()
+                .map(row -> row.withUniqueUsers(userSketches.estimateSince(UserSketch.Dimension.PLATFORM,
+                        UniqueUserSketchService.platformValue(row.platform(), row.deviceType()), sinceDate)))
+                .toList();
     }
 
     /**
      * Get revenue metrics by experiment.
      */
     @Transactional(readOnly = true)
-    public List<Object[]> getRevenueMetrics() {
+    public List<VariantRevenue> getRevenueMetrics() {
         logger.debug("Retrieving revenue metrics by experiment");
-        return metricsRepository.getRevenueMetrics();
+        return experimentRollups.getRevenueMetrics();
+    }
+
+    /**
+     * Get revenue metrics by experiment over events since a point in time,
+     * scanned from the columnar event log when it is enabled.
+     */
+    @Transactional(readOnly = true)
+    public List<VariantRevenue> getRevenueMetrics(LocalDateTime sinceDate) {
+        logger.debug("Retrieving revenue metrics by experiment since {}", sinceDate);
+        return eventLog != null
+                ? eventLog.revenueByVariant(sinceDate)
+                : metricsRepository.getRevenueMetricsSince(sinceDate);
+    }
+
+    /**
+     * Get minute or hourly rollups of an experiment for charts.
+     */
+    @Transactional(readOnly = true)
+    public List<MetricRollup> getExperimentRollups(Long experimentId, MetricRollup.Granularity granularity,
+                                                   LocalDateTime since) {
+        logger.debug("Retrieving {} rollups for experiment ID: {} since: {}", granularity, experimentId, since);
+        return experimentRollups.getExperimentSeries(experimentId, granularity, since);
     }
 
     // ============================================
@@ -429,92 +566,66 @@ public class MetricsService {
      * Get real-time experiment stats.
      */
     @Transactional(readOnly = true)
-    public Map<String, Object> getRealTimeExperimentStats(Long experimentId) {
+    public ExperimentRealTimeStats getRealTimeExperimentStats(Long experimentId) {
         logger.debug("Calculating real-time stats for experiment ID: {}", experimentId);
 
-        Map<String, Object> stats = new HashMap<>();
-
-        // Get basic counts
-        long totalExposures = metricsRepository.countByExperiment_Id(experimentId);
-        stats.put("totalExposures", totalExposures);
-
-        // Get conversion data
-        List<Object[]> performanceData = getExperimentPerformance(experimentId);
-        stats.put("variants", performanceData);
-
-        // Get recent activity (last 24 hours)
+        // Recent activity covers the last 24 hours
         LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
-        List<Object[]> recentActivity = metricsRepository.getHourlyMetrics(yesterday, "production");
-        stats.put("recentActivity", recentActivity);
-
-        return stats;
+        return new ExperimentRealTimeStats(
+                metricsRepository.countByExperiment_Id(experimentId),
+                getExperimentPerformance(experimentId),
+                getHourlyMetrics(yesterday, "production"));
     }
 
     /**
      * Get real-time flag stats.
      */
     @Transactional(readOnly = true)
-    public Map<String, Object> getRealTimeFlagStats(Long flagId) {
+    public FlagRealTimeStats getRealTimeFlagStats(Long flagId) {
         logger.debug("Calculating real-time stats for flag ID: {}", flagId);
 
-        Map<String, Object> stats = new HashMap<>();
-
-        // Get basic counts
-        long totalExposures = metricsRepository.countByFeatureFlag_Id(flagId);
-        stats.put("totalExposures", totalExposures);
-
-        // Get usage data
-        Map<String, Object> usageData = getFeatureFlagUsageSummary(flagId);
-        stats.put("usage", usageData);
-
-        // Get recent errors
+        // Recent errors cover the last 24 hours
         LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
-        List<Object[]> errorData = getErrorMetrics(yesterday);
-        stats.put("recentErrors", errorData);
-
-        return stats;
+        return new FlagRealTimeStats(
+                metricsRepository.countByFeatureFlag_Id(flagId),
+                getFeatureFlagUsageSummary(flagId),
+                getErrorMetrics(yesterday));
     }
 
     /**
-     * Get dashboard overview metrics.
+     * Get dashboard overview metrics. Served from {@link AnalyticsResultCache} until new
+     * events are ingested; concurrent calls for one environment share one computation.
      */
     @Transactional(readOnly = true)
-    public Map<String, Object> getDashboardOverview(String environment) {
+    public DashboardOverview getDashboardOverview(String environment) {
+        return analyticsCache.get("dashboard-overview", () -> computeDashboardOverview(environment), environment);
+    }
+
+    private DashboardOverview computeDashboardOverview(String environment) {
         logger.debug("Calculating dashboard overview for environment: {}", environment);
 
-        Map<String, Object> overview = new HashMap<>();
         LocalDateTime last24Hours = LocalDateTime.now().minusDays(1);
         LocalDateTime lastWeek = LocalDateTime.now().minusDays(7);
 
         // Total events in last 24 hours
-        List<Object[]> hourlyData = getHourlyMetrics(last24Hours, environment);
-        long totalEvents24h = hourlyData.stream()
-                .mapToLong(row -> (Long) row[1])
-                .sum();
-        overview.put("totalEvents24h", totalEvents24h);
-
-        // Unique users in last 24 hours
-        long uniqueUsers24h = hourlyData.stream()
-                .mapToLong(row -> (Long) row[2])
-                .sum();
-        overview.put("uniqueUsers24h", uniqueUsers24h);
-
-        // Error count in last 24 hours
-        List<Object[]> errorData = getErrorMetrics(last24Hours);
-        long errorCount24h = errorData.stream()
-                .mapToLong(row -> (Long) row[1])
-                .sum();
-        overview.put("errorCount24h", errorCount24h);
+        long totalEvents24h = 0;
+        for (HourlyActivity hour : getHourlyMetrics(last24Hours, environment)) {
+            totalEvents24h += hour.eventCount();
+        }
 
-        // Top performing variants
-        List<Object[]> topVariants = getTopPerformingVariants(100L);
-        overview.put("topPerformingVariants", topVariants);
+        // Unique users in last 24 hours (users active in several hours count once)
+        long uniqueUsers24h = approximateDistinct
+                ? userSketches.estimateSince(UserSketch.Dimension.ENVIRONMENT, environment, last24Hours)
+                : metricsRepository.countDistinctUsersSince(last24Hours, environment);
 
-        // Platform distribution
-        List<Object[]> platformData = getPlatformDistribution(lastWeek);
-        overview.put("platformDistribution", platformData);
+        // Error count in last 24 hours
+        long errorCount24h = 0;
+        for (ErrorSummary error : getErrorMetrics(last24Hours)) {
+            errorCount24h += error.errorCount();
+        }
 
-        return overview;
+        return new DashboardOverview(totalEvents24h, uniqueUsers24h, errorCount24h,
+                getTopPerformingVariants(100L), getPlatformDistribution(lastWeek));
     }
 
     // ============================================
@@ -525,48 +636,135 @@ public class MetricsService {
      * Get metrics by user ID.
      */
     @Transactional(readOnly = true)
-    public List<Metrics> getMetricsByUserId(String userId) {
-        return metricsRepository.findByUserId(userId);
+    public List<MetricsEventRow> getMetricsByUserId(String userId) {
+        return metricsRepository.findRowsByUserId(userId);
     }
 
     /**
      * Get metrics by event type.
      */
     @Transactional(readOnly = true)
-    public List<Metrics> getMetricsByEventType(Metrics.EventType eventType) {
-        return metricsRepository.findByEventType(eventType);
+    public List<MetricsEventRow> getMetricsByEventType(Metrics.EventType eventType) {
+        return metricsRepository.findRowsByEventType(eventType);
     }
 
     /**
      * Get metrics by date range.
      */
     @Transactional(readOnly = true)
-    public List<Metrics> getMetricsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return metricsRepository.findByTimestampBetween(startDate, endDate);
+    public List<MetricsEventRow> getMetricsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return metricsRepository.findRowsByTimestampBetween(startDate, endDate);
     }
 
     /**
      * Get metrics by experiment.
      */
     @Transactional(readOnly = true)
-    public List<Metrics> getMetricsByExperiment(Long experimentId) {
-        return metricsRepository.findByExperiment_Id(experimentId);
+    public List<MetricsEventRow> getMetricsByExperiment(Long experimentId) {
+        return metricsRepository.findRowsByExperimentId(experimentId);
     }
 
     /**
      * Get metrics by feature flag.
      */
     @Transactional(readOnly = true)
-    public List<Metrics> getMetricsByFeatureFlag(Long flagId) {
-        return metricsRepository.findByFeatureFlag_Id(flagId);
+    public List<MetricsEventRow> getMetricsByFeatureFlag(Long flagId) {
+        return metricsRepository.findRowsByFeatureFlagId(flagId);
     }
 
     /**
      * Get high-value events.
      */
     @Transactional(readOnly = true)
-    public List<Metrics> getHighValueEvents(Double minValue, LocalDateTime sinceDate) {
-        return metricsRepository.findHighValueEvents(minValue, sinceDate);
+    public List<MetricsEventRow> getHighValueEvents(Double minValue, LocalDateTime sinceDate) {
+        return metricsRepository.findHighValueEventRows(minValue, sinceDate);
+    }
+
+    // ============================================
+    // KEYSET PAGINATION
+    // ============================================
+
+    /**
+     * Page of a user's metrics, newest first. Pass the previous page's {@code nextToken}
+     * (null for the first page); every page is an index seek, however deep.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<MetricsEventRow> getMetricsPageByUserId(String userId, String token, int pageSize) {
+        return newestFirst(token, pageSize,
+                (timestamp, id, limit) -> metricsRepository.findPageByUserId(userId, timestamp, id, limit));
+    }
+
+    /**
+     * Page of the metrics of an event type, newest first.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<MetricsEventRow> getMetricsPageByEventType(Metrics.EventType eventType, String token,
+                                                                 int pageSize) {
+        return newestFirst(token, pageSize,
+                (timestamp, id, limit) -> metricsRepository.findPageByEventType(eventType, timestamp, id, limit));
+    }
+
+    /**
+     * Page of the metrics of an environment, newest first.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<MetricsEventRow> getMetricsPageByEnvironment(String environment, String token, int pageSize) {
+        return newestFirst(token, pageSize,
+                (timestamp, id, limit) -> metricsRepository.findPageByEnvironment(environment, timestamp, id, limit));
+    }
+
+    /**
+     * Page of the metrics of a variant, newest first.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<MetricsEventRow> getMetricsPageByVariantName(String variantName, String token, int pageSize) {
+        return newestFirst(token, pageSize,
+                (timestamp, id, limit) -> metricsRepository.findPageByVariantName(variantName, timestamp, id, limit));
+    }
+
+    /**
+     * All of a user's metrics, newest first, fetched page by page as the iterator advances.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Iterator<MetricsEventRow> iterateMetricsByUserId(String userId, int pageSize) {
+        return KeysetPage.iterate(token -> getMetricsPageByUserId(userId, token, pageSize));
+    }
+
+    /**
+     * All metrics of an event type, newest first, fetched page by page.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Iterator<MetricsEventRow> iterateMetricsByEventType(Metrics.EventType eventType, int pageSize) {
+        return KeysetPage.iterate(token -> getMetricsPageByEventType(eventType, token, pageSize));
+    }
+
+    /**
+     * All metrics of an environment, newest first, fetched page by page.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Iterator<MetricsEventRow> iterateMetricsByEnvironment(String environment, int pageSize) {
+        return KeysetPage.iterate(token -> getMetricsPageByEnvironment(environment, token, pageSize));
+    }
+
+    /**
+     * All metrics of a variant, newest first, fetched page by page.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Iterator<MetricsEventRow> iterateMetricsByVariantName(String variantName, int pageSize) {
+        return KeysetPage.iterate(token -> getMetricsPageByVariantName(variantName, token, pageSize));
+    }
+
+    private interface MetricsPageQuery {
+        List<MetricsEventRow> find(LocalDateTime timestamp, Long id, Limit limit);
+    }
+
+    private KeysetPage<MetricsEventRow> newestFirst(String token, int pageSize, MetricsPageQuery query) {
+        ContinuationToken after = token != null
+                ? ContinuationToken.decode(token)
+                : ContinuationToken.of(ContinuationToken.MAX_TIMESTAMP, Long.MAX_VALUE);
+        List<MetricsEventRow> rows = query.find(after.timestamp(), after.id(),
+                Limit.of(KeysetPage.checkPageSize(pageSize) + 1));
+        return KeysetPage.of(rows, pageSize, row -> ContinuationToken.of(row.timestamp(), row.id()));
     }
 
     // ============================================
@@ -609,8 +807,54 @@ public class MetricsService {
      * Get all metrics.
      */
     @Transactional(readOnly = true)
-    public List<Metrics> getAllMetrics() {
-        return metricsRepository.findAll();
+    public List<MetricsEventRow> getAllMetrics() {
+        return metricsRepository.findAllRows();
+    }
+
+    // ============================================
+    // STREAMING EXPORT
+    // ============================================
+
+    /**
+     * Export all metrics as NDJSON or CSV, streamed from the database row by row in
+     * constant memory (see {@link MetricsExporter}). Returns the number of rows written.
+     */
+    @Transactional(readOnly = true)
+    public long exportAllMetrics(MetricsExporter.Format format, Writer out) {
+        try (Stream<MetricsExportRow> rows = metricsRepository.streamExportRows()) {
+            return metricsExporter.write(rows, format, out);
+        }
+    }
+
+    /**
+     * Export the metrics of an experiment; streaming counterpart of {@link #getMetricsByExperiment}.
+     */
+    @Transactional(readOnly = true)
+    public long exportMetricsByExperiment(Long experimentId, MetricsExporter.Format format, Writer out) {
+        try (Stream<MetricsExportRow> rows = metricsRepository.streamExportRowsByExperiment(experimentId)) {
+            return metricsExporter.write(rows, format, out);
+        }
+    }
+
+    /**
+     * Export the metrics of an event type; streaming counterpart of {@link #getMetricsByEventType}.
+     */
+    @Transactional(readOnly = true)
+    public long exportMetricsByEventType(Metrics.EventType eventType, MetricsExporter.Format format, Writer out) {
+        try (Stream<MetricsExportRow> rows = metricsRepository.streamExportRowsByEventType(eventType)) {
+            return metricsExporter.write(rows, format, out);
+        }
+    }
+
+    /**
+     * Export the metrics in a date range; streaming counterpart of {@link #getMetricsByDateRange}.
+     */
+    @Transactional(readOnly = true)
+    public long exportMetricsByDateRange(LocalDateTime startDate, LocalDateTime endDate,
+                                         MetricsExporter.Format format, Writer out) {
+        try (Stream<MetricsExportRow> rows = metricsRepository.streamExportRowsByTimestampBetween(startDate, endDate)) {
+            return metricsExporter.write(rows, format, out);
+        }
     }
 
     // ============================================
@@ -620,23 +864,23 @@ public class MetricsService {
     /**
      * Save multiple metrics in batch.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Metrics> saveMetricsBatch(List<Metrics> metricsList) {
         logger.info("Saving metrics batch of size: {}", metricsList.size());
-        return metricsRepository.saveAll(metricsList);
+        long startNanos = System.nanoTime();
+        List<Metrics> recorded = metricsSink.recordAll(metricsList);
+        hotPathMetrics.batchTracked(startNanos);
+        return recorded;
     }
 
     /**
-     * Delete metrics older than specified date.
+     * Delete metrics older than specified date, in throttled key-range chunks that
+     * each commit separately (see {@link MetricsRetentionService}).
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void cleanupOldMetrics(LocalDateTime cutoffDate) {
         logger.info("Cleaning up metrics older than: {}", cutoffDate);
-
-        List<Metrics> oldMetrics = metricsRepository.findByTimestampBetween(
-                LocalDateTime.of(2020, 1, 1, 0, 0), cutoffDate);
-
-        if (!oldMetrics.isEmpty()) {
-            metricsRepository.deleteAll(oldMetrics);
-            logger.info("Deleted {} old metrics records", oldMetrics.size());
-        }
+        RetentionProgress progress = retentionService.purge(cutoffDate);
+        logger.info("Metrics purge {}: {} old metrics records deleted", progress.status(), progress.deletedRows());
     }
-}
\ No newline at end of file
+}
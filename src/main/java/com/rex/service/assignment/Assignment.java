@@ -0,0 +1,54 @@
+package com.rex.service.assignment;
+
+import com.rex.model.Experiment;
+import com.rex.model.UserCohort;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable cached view of a user's experiment assignment. {@code cohortId} is null
+ * until the assignment has been persisted. Exposure counters are not part of it.
+ */
+public record Assignment(long experimentId,
+                         String userId,
+                         String sessionId,
+                         UserCohort.CohortType cohortType,
+                         String variantName,
+                         UserCohort.AssignmentMethod assignmentMethod,
+                         Integer assignmentHash,
+                         String environment,
+                         LocalDateTime assignedAt,
+                         Long cohortId) {
+
+    public static Assignment from(UserCohort cohort) {
+        return new Assignment(cohort.getExperiment().getId(), cohort.getUserId(), cohort.getSessionId(),
+                cohort.getCohortType(), cohort.getVariantName(), cohort.getAssignmentMethod(),
+                cohort.getAssignmentHash(), cohort.getEnvironment(), cohort.getAssignedAt(), cohort.getId());
+    }
+
+    public boolean matches(long experimentId, String userId) {
+        return this.experimentId == experimentId && this.userId.equals(userId);
+    }
+
+    public boolean isPersisted() {
+        return cohortId != null;
+    }
+
+    public Assignment withCohortId(Long cohortId) {
+        return new Assignment(experimentId, userId, sessionId, cohortType, variantName, assignmentMethod,
+                assignmentHash, environment, assignedAt, cohortId);
+    }
+
+    /**
+     * A new (detached) cohort carrying this assignment.
+     */
+    public UserCohort toCohort(Experiment experiment) {
+        UserCohort cohort = new UserCohort(userId, sessionId, experiment, cohortType, variantName);
+        cohort.setId(cohortId);
+        cohort.setAssignmentMethod(assignmentMethod);
+        cohort.setAssignmentHash(assignmentHash);
+        cohort.setEnvironment(environment);
+        cohort.setAssignedAt(assignedAt);
+        return cohort;
+    }
+}
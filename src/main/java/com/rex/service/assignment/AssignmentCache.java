@@ -0,0 +1,160 @@
+package com.rex.service.assignment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free cache of assignments keyed by (experiment ID, user ID).
+ * <p>
+ * The cache is a fixed array split into 4-way sets; a key can only live in the set
+ * its hash selects. Lookups scan one set, inserts claim a free way with a CAS or
+ * evict a random way of the set. Memory is bounded by {@code capacity} entries and
+ * nothing is ever resized or locked; the price is that a hot set can evict an entry
+ * before the least recently used one globally, which only costs a database read.
+ */
+@Component
+public class AssignmentCache {
+
+    private static final int WAYS = 4;
+
+    private final AtomicReferenceArray<Assignment> slots;
+    private final int setMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AssignmentCache(@Value("${rex.experiments.assignment.cache-capacity:100000}") int capacity) {
+        if (capacity < WAYS) {
+            throw new IllegalArgumentException("Assignment cache capacity must be at least " + WAYS + ": " + capacity);
+        }
+        int sets = Integer.highestOneBit(capacity / WAYS);
+        this.slots = new AtomicReferenceArray<>(sets * WAYS);
+        this.setMask = sets - 1;
+    }
+
+    /**
+     * Cached assignment, or null.
+     */
+    public Assignment get(long experimentId, String userId) {
+        int base = setOf(experimentId, userId);
+        for (int way = 0; way < WAYS; way++) {
+            Assignment entry = slots.get(base + way);
+            if (entry != null && entry.matches(experimentId, userId)) {
+                hits.increment();
+                return entry;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache an assignment unless one for the same key is cached already.
+     * Returns the cached assignment, or null when {@code assignment} was inserted.
+     */
+    public Assignment putIfAbsent(Assignment assignment) {
+        return insert(assignment, false);
+    }
+
+    /**
+     * Cache an assignment, replacing one for the same key.
+     */
+    public void put(Assignment assignment) {
+        insert(assignment, true);
+    }
+
+    /**
+     * Replace {@code expected} with {@code replacement} if it is still cached.
+     */
+    public boolean replace(Assignment expected, Assignment replacement) {
+        int base = setOf(expected.experimentId(), expected.userId());
+        for (int way = 0; way < WAYS; way++) {
+            if (slots.compareAndSet(base + way, expected, replacement)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop the cached assignment of a user, if any.
+     */
+    public void invalidate(long experimentId, String userId) {
+        int base = setOf(experimentId, userId);
+        for (int way = 0; way < WAYS; way++) {
+            Assignment entry = slots.get(base + way);
+            if (entry != null && entry.matches(experimentId, userId)) {
+                slots.compareAndSet(base + way, entry, null);
+            }
+        }
+    }
+
+    private Assignment insert(Assignment assignment, boolean replaceExisting) {
+        int base = setOf(assignment.experimentId(), assignment.userId());
+        while (true) {
+            int free = -1;
+            for (int way = 0; way < WAYS; way++) {
+                Assignment entry = slots.get(base + way);
+                if (entry == null) {
+                    if (free < 0) {
+                        free = way;
+                    }
+                } else if (entry.matches(assignment.experimentId(), assignment.userId())) {
+                    if (!replaceExisting) {
+                        return entry;
+                    }
+                    if (slots.compareAndSet(base + way, entry, assignment)) {
+                        return null;
+                    }
+                    free = -2; // raced with another writer of the same slot: rescan
+                    break;
+                }
+            }
+            if (free >= 0) {
+                if (slots.compareAndSet(base + free, null, assignment)) {
+                    return null;
+                }
+            } else if (free == -1) {
+                int victim = base + ThreadLocalRandom.current().nextInt(WAYS);
+                Assignment evicted = slots.get(victim);
+                if (evicted != null && slots.compareAndSet(victim, evicted, assignment)) {
+                    evictions.increment();
+                    return null;
+                }
+            }
+        }
+    }
+
+    private int setOf(long experimentId, String userId) {
+        long h = experimentId * 0x9E3779B97F4A7C15L ^ userId.hashCode();
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return ((int) h & setMask) * WAYS;
+    }
+
+    // ============================================
+    // STATISTICS
+    // ============================================
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,233 @@
+package com.rex.service.assignment;
+
+import com.rex.model.UserCohort;
+import com.rex.repository.ExperimentRepository;
+import com.rex.repository.UserCohortRepository;
+import com.rex.service.metrics.RingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Persists new hash-based assignments in the background.
+ * <p>
+ * Assignments are enqueued into a bounded {@link RingBuffer} and written by a single
+ * thread in batches: one query finds assignments that already exist (another instance,
+ * or a repeat after cache eviction), the rest are inserted and counted into the
+ * {@link SampleSizeCounters}. Persisted assignments replace their cached entry so it
+ * carries the cohort ID. When the buffer is full, or the writer is not running, the
+ * caller writes its assignment itself.
+ */
+@Component
+public class AssignmentWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentWriter.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final RingBuffer<Assignment> buffer;
+    private final UserCohortRepository userCohortRepository;
+    private final ExperimentRepository experimentRepository;
+    private final AssignmentCache cache;
+    private final SampleSizeCounters sampleSizes;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @Autowired
+    public AssignmentWriter(UserCohortRepository userCohortRepository,
+                            ExperimentRepository experimentRepository,
+                            AssignmentCache cache,
+                            SampleSizeCounters sampleSizes,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${rex.experiments.assignment.write-buffer-capacity:16384}") int bufferCapacity,
+                            @Value("${rex.experiments.assignment.write-batch-size:200}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Assignment batch size must be positive: " + batchSize);
+        }
+        this.buffer = new RingBuffer<>(bufferCapacity);
+        this.userCohortRepository = userCohortRepository;
+        this.experimentRepository = experimentRepository;
+        this.cache = cache;
+        this.sampleSizes = sampleSizes;
+        // Writes commit on their own, also when flushed from a (read-only) service transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Queue a new assignment for persistence.
+     */
+    public void enqueue(Assignment assignment) {
+        accepted.incrementAndGet();
+        if (!running || !buffer.offer(assignment)) {
+            write(List.of(assignment));
+        }
+    }
+
+    /**
+     * Write everything queued so far, helping the background writer from the calling thread.
+     */
+    public void flush() {
+        List<Assignment> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        // A batch the background writer drained may still be in flight
+        if (!awaitDrained(Duration.ofSeconds(30))) {
+            logger.warn("Timed out waiting for {} queued experiment assignments", accepted.get() - written.get() - failed.get());
+        }
+    }
+
+    /**
+     * Wait until every assignment accepted so far has been written (or failed).
+     * Returns false on timeout.
+     */
+    public boolean awaitDrained(Duration timeout) {
+        long target = accepted.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (written.get() + failed.get() < target) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return true;
+    }
+
+    // Serialized so the background thread and callers flushing never insert the same batch twice
+    private synchronized void write(List<Assignment> batch) {
+        Map<String, Assignment> unique = new LinkedHashMap<>();
+        for (Assignment assignment : batch) {
+            unique.putIfAbsent(assignment.experimentId() + ":" + assignment.userId(), assignment);
+        }
+        try {
+            List<UserCohort> saved = transactionTemplate.execute(status -> insertMissing(unique));
+            for (UserCohort cohort : saved) {
+                Assignment assignment = unique.get(cohort.getExperiment().getId() + ":" + cohort.getUserId());
+                cache.replace(assignment, assignment.withCohortId(cohort.getId()));
+            }
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            // Dropping the cached entries makes the next request re-assign (deterministically) and retry
+            unique.values().forEach(assignment -> cache.invalidate(assignment.experimentId(), assignment.userId()));
+            failed.addAndGet(batch.size());
+            logger.error("Persisting {} experiment assignments failed: {}", unique.size(), e.getMessage());
+        }
+    }
+
+    private List<UserCohort> insertMissing(Map<String, Assignment> batch) {
+        Set<String> userIds = new HashSet<>();
+        Set<Long> experimentIds = new HashSet<>();
+        batch.values().forEach(assignment -> {
+            userIds.add(assignment.userId());
+            experimentIds.add(assignment.experimentId());
+        });
+        for (Object[] existing : userCohortRepository.findAssignmentKeys(experimentIds, userIds)) {
+            batch.remove(existing[0] + ":" + existing[1]);
+        }
+
+        List<UserCohort> cohorts = new ArrayList<>(batch.size());
+        for (Assignment assignment : batch.values()) {
+            cohorts.add(assignment.toCohort(experimentRepository.getReferenceById(assignment.experimentId())));
+            if (assignment.cohortType() != UserCohort.CohortType.EXCLUDED) {
+                sampleSizes.increment(assignment.experimentId(), assignment.variantName());
+            }
+        }
+        return userCohortRepository.saveAll(cohorts);
+    }
+
+    private void runWriter() {
+        List<Assignment> batch = new ArrayList<>(batchSize);
+        while (true) {
+            if (buffer.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            } else if (!running) {
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "assignment-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = writerThread;
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Assignment> remaining = new ArrayList<>(batchSize);
+        while (buffer.drainTo(remaining, batchSize) > 0) {
+            write(remaining);
+            remaining.clear();
+        }
+        logger.info("Assignment writer stopped (written: {}, failed: {})", written.get(), failed.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+}
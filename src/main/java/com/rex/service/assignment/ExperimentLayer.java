@@ -0,0 +1,78 @@
+package com.rex.service.assignment;
+
+import com.rex.service.bucketing.BucketingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable bucket table of one mutually exclusive experiment layer.
+ * <p>
+ * Each running experiment of the layer owns a range of the layer's
+ * {@link BucketingStrategy#BUCKETS} buckets; slot {@code b} holds the experiment owning
+ * bucket {@code b}, or null when it is free. A user's layer bucket is hashed once with the
+ * layer's salt, so resolving the user's experiment in this layer is one array read.
+ */
+public final class ExperimentLayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExperimentLayer.class);
+
+    private final String name;
+    private final long saltKey;
+    private final RunningExperimentRegistry.RunningExperiment[] table;
+
+    private ExperimentLayer(String name, long saltKey, RunningExperimentRegistry.RunningExperiment[] table) {
+        this.name = name;
+        this.saltKey = saltKey;
+        this.table = table;
+    }
+
+    /**
+     * Build the table of a layer from its running experiments. Should ranges overlap,
+     * the experiment started first keeps the contested buckets.
+     */
+    static ExperimentLayer of(String name, long saltKey, List<RunningExperimentRegistry.RunningExperiment> members) {
+        RunningExperimentRegistry.RunningExperiment[] table =
+                new RunningExperimentRegistry.RunningExperiment[BucketingStrategy.BUCKETS];
+        List<RunningExperimentRegistry.RunningExperiment> ordered = members.stream()
+                .sorted(Comparator.comparing((RunningExperimentRegistry.RunningExperiment member) ->
+                                member.experiment().getStartDate(), Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(member -> member.experiment().getId()))
+                .toList();
+        for (RunningExperimentRegistry.RunningExperiment member : ordered) {
+            int contested = 0;
+            for (int bucket = member.layerBucketStart(); bucket < member.layerBucketEnd(); bucket++) {
+                if (table[bucket] == null) {
+                    table[bucket] = member;
+                } else {
+                    contested++;
+                }
+            }
+            if (contested > 0) {
+                logger.warn("Experiment '{}' overlaps {} buckets already owned in layer '{}'",
+                        member.experiment().getName(), contested, name);
+            }
+        }
+        return new ExperimentLayer(name, saltKey, table);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Pre-hashed salt of the layer's user buckets.
+     */
+    public long saltKey() {
+        return saltKey;
+    }
+
+    /**
+     * The experiment owning a layer bucket, or null.
+     */
+    public RunningExperimentRegistry.RunningExperiment experimentAt(int bucket) {
+        return table[bucket];
+    }
+}
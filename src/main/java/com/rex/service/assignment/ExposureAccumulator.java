@@ -0,0 +1,114 @@
+package com.rex.service.assignment;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces cohort exposures in memory and writes them in batches.
+ * <p>
+ * Each exposure is merged into a per-cohort entry of (count, first seen, last seen).
+ * Entries are flushed periodically as one JDBC batch of UPDATEs that add the count to
+ * {@code exposure_count} and widen the exposure window with LEAST/GREATEST, so no
+ * cohort row is read first and concurrent exposures never lose increments. A failed
+ * flush merges its entries back for the next attempt.
+ */
+@Component
+public class ExposureAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExposureAccumulator.class);
+
+    private static final String UPDATE_SQL = """
+            UPDATE user_cohorts
+            SET exposure_count = COALESCE(exposure_count, 0) + ?,
+                first_exposure_at = LEAST(COALESCE(first_exposure_at, ?), ?),
+                last_exposure_at = GREATEST(COALESCE(last_exposure_at, ?), ?)
+            WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, Exposure> pending = new ConcurrentHashMap<>();
+
+    private record Exposure(long count, LocalDateTime firstSeen, LocalDateTime lastSeen) {
+
+        Exposure merge(Exposure other) {
+            return new Exposure(count + other.count,
+                    firstSeen.isBefore(other.firstSeen) ? firstSeen : other.firstSeen,
+                    lastSeen.isAfter(other.lastSeen) ? lastSeen : other.lastSeen);
+        }
+    }
+
+    public ExposureAccumulator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Flushes commit on their own, also when called from a (read-only) service transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Count one exposure of a persisted cohort.
+     */
+    public void record(long cohortId, LocalDateTime exposedAt) {
+        pending.merge(cohortId, new Exposure(1, exposedAt, exposedAt), Exposure::merge);
+    }
+
+    /**
+     * Number of cohorts with exposures not yet written.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write all pending exposures in one batch.
+     */
+    @Scheduled(fixedDelayString = "${rex.experiments.exposure.flush-interval-ms:1000}",
+            initialDelayString = "${rex.experiments.exposure.flush-interval-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Long> cohortIds = new ArrayList<>();
+        List<Exposure> exposures = new ArrayList<>();
+        for (Long cohortId : pending.keySet()) {
+            Exposure exposure = pending.remove(cohortId);
+            if (exposure != null) {
+                cohortIds.add(cohortId);
+                exposures.add(exposure);
+            }
+        }
+        if (cohortIds.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(cohortIds.size());
+        for (int i = 0; i < cohortIds.size(); i++) {
+            Exposure exposure = exposures.get(i);
+            Timestamp first = Timestamp.valueOf(exposure.firstSeen());
+            Timestamp last = Timestamp.valueOf(exposure.lastSeen());
+            args.add(new Object[]{exposure.count(), first, first, last, last, cohortIds.get(i)});
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, args));
+        } catch (RuntimeException e) {
+            for (int i = 0; i < cohortIds.size(); i++) {
+                pending.merge(cohortIds.get(i), exposures.get(i), Exposure::merge);
+            }
+            logger.warn("Flushing exposures of {} cohorts failed, will retry: {}", cohortIds.size(), e.getMessage());
+            return;
+        }
+        logger.debug("Flushed exposures of {} cohorts", cohortIds.size());
+    }
+}
@@ -0,0 +1,233 @@
+package com.rex.service.assignment;
+
+import com.rex.model.Experiment;
+import com.rex.repository.ExperimentRepository;
+import com.rex.service.bucketing.BucketingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory registry of RUNNING experiments with their bucketing salts pre-hashed
+ * and, for multi-variant experiments, their {@link VariantAllocation} table built.
+ * Running experiments that belong to a layer are also indexed in that layer's
+ * {@link ExperimentLayer} table, which is what makes layers mutually exclusive.
+ * Readers get the current state with a single volatile read; lifecycle changes swap
+ * in a copy after their transaction commits, like the flag snapshot. A re-published
+ * experiment keeps its allocation table unless its variants or weights changed.
+ */
+@Component
+public class RunningExperimentRegistry implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunningExperimentRegistry.class);
+
+    private final ExperimentRepository experimentRepository;
+    private final BucketingStrategy bucketing;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.EMPTY);
+
+    /**
+     * A running experiment. The experiment entity is detached and must not be modified.
+     * {@code allocation} is null for classic two-variant experiments. Layered experiments
+     * include the users whose layer bucket (salted with {@code layerSaltKey}) falls in
+     * their layer range; the others include the traffic percentage's share of buckets.
+     */
+    public record RunningExperiment(Experiment experiment, int trafficBuckets, long trafficSaltKey, long saltKey,
+                                    VariantAllocation allocation,
+                                    long layerSaltKey, int layerBucketStart, int layerBucketEnd) {
+
+        public boolean isLayered() {
+            return experiment.isLayered();
+        }
+
+        /**
+         * Whether a user (by user hash) takes part in the experiment at all.
+         */
+        public boolean includes(int userHash, BucketingStrategy bucketing) {
+            if (isLayered()) {
+                int bucket = bucketing.bucket(userHash, layerSaltKey);
+                return bucket >= layerBucketStart && bucket < layerBucketEnd;
+            }
+            return bucketing.bucket(userHash, trafficSaltKey) < trafficBuckets;
+        }
+    }
+
+    /**
+     * Running experiments by ID, plus the layer tables and unlayered experiments derived from them.
+     */
+    private record State(Map<Long, RunningExperiment> experiments, List<ExperimentLayer> layers,
+                         List<RunningExperiment> unlayered) {
+
+        static final State EMPTY = new State(Map.of(), List.of(), List.of());
+    }
+
+    public RunningExperimentRegistry(ExperimentRepository experimentRepository, BucketingStrategy bucketing,
+                                     PlatformTransactionManager transactionManager) {
+        this.experimentRepository = experimentRepository;
+        this.bucketing = bucketing;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Experiment> experiments = transactionTemplate.execute(status ->
+                experimentRepository.findByStatus(Experiment.ExperimentStatus.RUNNING));
+        Map<Long, RunningExperiment> loaded = new HashMap<>();
+        for (Experiment experiment : experiments) {
+            loaded.put(experiment.getId(), compile(experiment));
+        }
+        State loadedState = index(loaded);
+        state.set(loadedState);
+        logger.info("Loaded {} running experiments in {} layers", loaded.size(), loadedState.layers().size());
+    }
+
+    /**
+     * The running experiment with this ID, or null.
+     */
+    public RunningExperiment find(Long experimentId) {
+        return state.get().experiments().get(experimentId);
+    }
+
+    /**
+     * Running experiments of an environment that include this user (by user hash): at most
+     * one per layer, found with one bucket hash per layer, plus the unlayered experiments
+     * the user's traffic bucket falls into. Experiments past their end date are left out.
+     * Most recently started first.
+     */
+    public List<Experiment> eligibleExperiments(int userHash, String environment) {
+        State current = state.get();
+        LocalDateTime now = LocalDateTime.now();
+        List<Experiment> eligible = new ArrayList<>();
+        for (ExperimentLayer layer : current.layers()) {
+            RunningExperiment member = layer.experimentAt(bucketing.bucket(userHash, layer.saltKey()));
+            if (member != null && isActiveIn(member.experiment(), environment, now)) {
+                eligible.add(member.experiment());
+            }
+        }
+        for (RunningExperiment candidate : current.unlayered()) {
+            if (isActiveIn(candidate.experiment(), environment, now) && candidate.includes(userHash, bucketing)) {
+                eligible.add(candidate.experiment());
+            }
+        }
+        eligible.sort(Comparator.comparing(Experiment::getStartDate,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return eligible;
+    }
+
+    private static boolean isActiveIn(Experiment experiment, String environment, LocalDateTime now) {
+        return Objects.equals(experiment.getEnvironment(), environment)
+                && (experiment.getEndDate() == null || experiment.getEndDate().isAfter(now));
+    }
+
+    /**
+     * Publish an experiment's current state: running experiments are (re)registered,
+     * all others removed. Inside a transaction this takes effect after commit.
+     */
+    public void publish(Experiment experiment) {
+        RunningExperiment compiled = experiment.getStatus() == Experiment.ExperimentStatus.RUNNING
+                ? compile(experiment)
+                : null;
+        Long experimentId = experiment.getId();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(experimentId, compiled);
+                }
+            });
+        } else {
+            apply(experimentId, compiled);
+        }
+    }
+
+    /**
+     * Register a running experiment found in the database but missing here
+     * (e.g. started by another instance). Returns the registered entry.
+     */
+    public RunningExperiment register(Experiment experiment) {
+        RunningExperiment compiled = compile(experiment);
+        apply(experiment.getId(), compiled);
+        return compiled;
+    }
+
+    public int size() {
+        return state.get().experiments().size();
+    }
+
+    private void apply(Long experimentId, RunningExperiment compiled) {
+        state.updateAndGet(current -> {
+            Map<Long, RunningExperiment> next = new HashMap<>(current.experiments());
+            if (compiled != null) {
+                next.put(experimentId, compiled);
+            } else {
+                next.remove(experimentId);
+            }
+            return index(next);
+        });
+        logger.debug("Experiment {} is {}", experimentId, compiled != null ? "running" : "not running");
+    }
+
+    /**
+     * Group running experiments into layer tables and the unlayered rest.
+     */
+    private State index(Map<Long, RunningExperiment> experiments) {
+        Map<String, List<RunningExperiment>> byLayer = new TreeMap<>();
+        List<RunningExperiment> unlayered = new ArrayList<>();
+        for (RunningExperiment experiment : experiments.values()) {
+            if (experiment.isLayered()) {
+                byLayer.computeIfAbsent(experiment.experiment().getLayerName(), name -> new ArrayList<>()).add(experiment);
+            } else {
+                unlayered.add(experiment);
+            }
+        }
+        List<ExperimentLayer> layers = new ArrayList<>(byLayer.size());
+        byLayer.forEach((name, members) -> layers.add(ExperimentLayer.of(name, layerSaltKey(name), members)));
+        return new State(Map.copyOf(experiments), List.copyOf(layers), List.copyOf(unlayered));
+    }
+
+    private long layerSaltKey(String layerName) {
+        return bucketing.saltKey("layer:" + layerName);
+    }
+
+    private RunningExperiment compile(Experiment experiment) {
+        boolean layered = experiment.isLayered();
+        return new RunningExperiment(experiment,
+                BucketingStrategy.bucketsForPercentage(experiment.getTrafficPercentage()),
+                bucketing.trafficSaltKey(experiment.getName()),
+                bucketing.saltKey(experiment.getName()),
+                allocation(experiment),
+                layered ? layerSaltKey(experiment.getLayerName()) : 0L,
+                layered ? experiment.getLayerBucketStart() : 0,
+                layered ? experiment.getLayerBucketEnd() : 0);
+    }
+
+    private VariantAllocation allocation(Experiment experiment) {
+        if (!experiment.isMultiVariant()) {
+            return null;
+        }
+        RunningExperiment current = experiment.getId() != null ? state.get().experiments().get(experiment.getId()) : null;
+        if (current != null && current.allocation() != null
+                && current.allocation().hasVariants(experiment.getVariants())) {
+            return current.allocation();
+        }
+        logger.debug("Building variant allocation table for experiment '{}'", experiment.getName());
+        return VariantAllocation.of(experiment.getVariants());
+    }
+}
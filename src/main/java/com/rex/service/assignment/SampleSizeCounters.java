@@ -0,0 +1,172 @@
+package com.rex.service.assignment;
+
+import com.rex.model.Experiment;
+import com.rex.repository.UserCohortRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped in-memory sample-size counters per experiment and variant.
+ * <p>
+ * Assignments increment a {@link LongAdder}, so concurrent assignments to one hot
+ * experiment never contend on its row. The experiment totals not yet written are
+ * added to {@code experiments.current_sample_size} periodically with a single UPDATE
+ * covering every changed experiment. Live sample size is the persisted value plus
+ * the unflushed part. Variant counts are seeded from {@code user_cohorts} on startup
+ * and then kept in memory only.
+ */
+@Component
+public class SampleSizeCounters implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SampleSizeCounters.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCohortRepository userCohortRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    private static final class Counter {
+        final LongAdder total = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> variants = new ConcurrentHashMap<>();
+        // Part of total already added to current_sample_size; only touched by flush()
+        volatile long flushed;
+
+        long pending() {
+            return total.sum() - flushed;
+        }
+    }
+
+    public SampleSizeCounters(JdbcTemplate jdbcTemplate, UserCohortRepository userCohortRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userCohortRepository = userCohortRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Object[]> variants = transactionTemplate.execute(status -> userCohortRepository.getVariantSampleSizes());
+        for (Object[] row : variants) {
+            counter((Long) row[0]).variants.computeIfAbsent((String) row[1], k -> new LongAdder()).add((Long) row[2]);
+        }
+        logger.info("Seeded sample-size counters for {} experiment variants", variants.size());
+    }
+
+    /**
+     * Count one user into an experiment variant. Inside a transaction the count
+     * is applied after commit, so rolled-back assignments are never counted.
+     */
+    public void increment(Long experimentId, String variantName) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(experimentId, variantName, 1);
+                }
+            });
+        } else {
+            add(experimentId, variantName, 1);
+        }
+    }
+
+    /**
+     * Count already committed users into an experiment variant at once.
+     */
+    public void add(Long experimentId, String variantName, long users) {
+        Counter counter = counter(experimentId);
+        counter.total.add(users);
+        LongAdder variant = counter.variants.get(variantName);
+        if (variant == null) {
+            variant = counter.variants.computeIfAbsent(variantName, k -> new LongAdder());
+        }
+        variant.add(users);
+    }
+
+    private Counter counter(Long experimentId) {
+        Counter counter = counters.get(experimentId);
+        return counter != null ? counter : counters.computeIfAbsent(experimentId, id -> new Counter());
+    }
+
+    /**
+     * Current sample size: the experiment's persisted value plus counts not yet flushed.
+     */
+    public long liveSampleSize(Experiment experiment) {
+        Counter counter = counters.get(experiment.getId());
+        long persisted = experiment.getCurrentSampleSize() != null ? experiment.getCurrentSampleSize() : 0L;
+        return counter != null ? persisted + counter.pending() : persisted;
+    }
+
+    /**
+     * Users counted per variant, by variant name.
+     */
+    public Map<String, Long> variantSampleSizes(Long experimentId) {
+        Counter counter = counters.get(experimentId);
+        if (counter == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        counter.variants.forEach((variantName, count) -> sizes.put(variantName, count.sum()));
+        return sizes;
+    }
+
+    /**
+     * Add unflushed counts to {@code current_sample_size} in one statement.
+     */
+    @Scheduled(fixedDelayString = "${rex.experiments.sample-size.flush-interval-ms:1000}",
+            initialDelayString = "${rex.experiments.sample-size.flush-interval-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Long> experimentIds = new ArrayList<>();
+        List<Long> totals = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        StringJoiner cases = new StringJoiner(" ", "CASE id ", " END");
+        StringJoiner ids = new StringJoiner(", ", "(", ")");
+        counters.forEach((experimentId, counter) -> {
+            long total = counter.total.sum();
+            long delta = total - counter.flushed;
+            if (delta > 0) {
+                experimentIds.add(experimentId);
+                totals.add(total);
+                cases.add("WHEN ? THEN ?");
+                args.add(experimentId);
+                args.add(delta);
+                ids.add("?");
+            }
+        });
+        if (experimentIds.isEmpty()) {
+            return;
+        }
+        args.addAll(experimentIds);
+
+        String sql = "UPDATE experiments SET current_sample_size = current_sample_size + " + cases + " WHERE id IN " + ids;
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(sql, args.toArray()));
+        } catch (RuntimeException e) {
+            logger.warn("Flushing sample sizes of {} experiments failed, will retry: {}", experimentIds.size(), e.getMessage());
+            return;
+        }
+        for (int i = 0; i < experimentIds.size(); i++) {
+            counters.get(experimentIds.get(i)).flushed = totals.get(i);
+        }
+        logger.debug("Flushed sample sizes of {} experiments", experimentIds.size());
+    }
+}
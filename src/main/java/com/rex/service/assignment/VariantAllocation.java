@@ -0,0 +1,103 @@
+package com.rex.service.assignment;
+
+import com.rex.model.ExperimentVariant;
+import com.rex.service.bucketing.BucketingStrategy;
+
+import java.util.List;
+
+/**
+ * Immutable bucket-to-variant lookup table of a weighted multi-variant experiment.
+ * <p>
+ * The {@link BucketingStrategy#BUCKETS} buckets are apportioned to the variants in
+ * proportion to their weights (largest remainder, so shares add up exactly) and laid
+ * out as contiguous ranges in variant order. Assigning a user is then one bucket hash
+ * and one array read. Tables are built when an experiment is registered as running
+ * and reused as long as its variants and weights are unchanged.
+ */
+public final class VariantAllocation {
+
+    /** Variant indexes are stored as bytes. */
+    public static final int MAX_VARIANTS = 100;
+
+    private final List<ExperimentVariant> variants;
+    private final String[] names;
+    private final byte[] table;
+
+    private VariantAllocation(List<ExperimentVariant> variants) {
+        this.variants = variants;
+        this.names = new String[variants.size()];
+        long totalWeight = 0;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = variants.get(i).getName();
+            totalWeight += variants.get(i).getWeight();
+        }
+
+        // Whole shares first, then the leftover buckets to the largest remainders
+        int[] shares = new int[names.length];
+        long[] remainders = new long[names.length];
+        int allocated = 0;
+        for (int i = 0; i < names.length; i++) {
+            long scaled = (long) variants.get(i).getWeight() * BucketingStrategy.BUCKETS;
+            shares[i] = (int) (scaled / totalWeight);
+            remainders[i] = scaled % totalWeight;
+            allocated += shares[i];
+        }
+        for (; allocated < BucketingStrategy.BUCKETS; allocated++) {
+            int largest = 0;
+            for (int i = 1; i < names.length; i++) {
+                if (remainders[i] > remainders[largest]) {
+                    largest = i;
+                }
+            }
+            shares[largest]++;
+            remainders[largest] = -1;
+        }
+
+        this.table = new byte[BucketingStrategy.BUCKETS];
+        int bucket = 0;
+        for (int i = 0; i < names.length; i++) {
+            for (int end = bucket + shares[i]; bucket < end; bucket++) {
+                table[bucket] = (byte) i;
+            }
+        }
+    }
+
+    /**
+     * Build the table for these variants (control first). Weights must be positive.
+     */
+    public static VariantAllocation of(List<ExperimentVariant> variants) {
+        if (variants == null || variants.size() < 2 || variants.size() > MAX_VARIANTS) {
+            throw new IllegalArgumentException("An experiment needs between 2 and " + MAX_VARIANTS + " variants");
+        }
+        for (ExperimentVariant variant : variants) {
+            if (variant.getName() == null || variant.getWeight() == null || variant.getWeight() < 1) {
+                throw new IllegalArgumentException("Invalid experiment variant: " + variant);
+            }
+        }
+        return new VariantAllocation(variants.stream()
+                .map(variant -> new ExperimentVariant(variant.getName(), variant.getWeight()))
+                .toList());
+    }
+
+    /**
+     * Whether this table was built for exactly these variants and weights.
+     */
+    public boolean hasVariants(List<ExperimentVariant> variants) {
+        return this.variants.equals(variants);
+    }
+
+    /**
+     * Index of the variant owning a bucket; 0 is the control.
+     */
+    public int variantIndex(int bucket) {
+        return table[bucket];
+    }
+
+    public String variantName(int index) {
+        return names[index];
+    }
+
+    public int size() {
+        return names.length;
+    }
+}
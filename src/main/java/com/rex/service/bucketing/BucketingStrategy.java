@@ -0,0 +1,56 @@
+package com.rex.service.bucketing;
+
+/**
+ * Maps users to stable buckets for flag rollouts and experiment allocation.
+ * <p>
+ * Hashing is split in two so callers can hash a user once and reuse the result:
+ * {@link #hashUser} hashes the user ID, {@link #saltKey} pre-hashes a per-flag or
+ * per-experiment salt (typically once, when the flag/experiment is compiled), and
+ * {@link #bucket}/{@link #hash} combine the two. None of these allocate.
+ * <p>
+ * The active implementation is selected with {@code rex.bucketing.strategy}.
+ */
+public interface BucketingStrategy {
+
+    /**
+     * Number of buckets; a rollout of N% covers buckets {@code [0, N * BUCKETS / 100)}.
+     */
+    int BUCKETS = 10_000;
+
+    /**
+     * Hash a user ID.
+     */
+    int hashUser(String userId);
+
+    /**
+     * Pre-hash a salt (flag or experiment name). A {@code null} salt means "unsalted".
+     */
+    long saltKey(String salt);
+
+    /**
+     * Salt key used for experiment traffic inclusion.
+     */
+    long trafficSaltKey(String experimentName);
+
+    /**
+     * Non-negative 31-bit hash of a (user, salt) pair.
+     */
+    int hash(int userHash, long saltKey);
+
+    /**
+     * Bucket in {@code [0, BUCKETS)} of a (user, salt) pair.
+     */
+    int bucket(int userHash, long saltKey);
+
+    /**
+     * Strategy name as used in configuration.
+     */
+    String name();
+
+    /**
+     * Convert a whole-number percentage (0-100) into a bucket threshold.
+     */
+    static int bucketsForPercentage(int percentage) {
+        return percentage * (BUCKETS / 100);
+    }
+}
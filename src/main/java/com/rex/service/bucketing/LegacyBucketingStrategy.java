@@ -0,0 +1,67 @@
+package com.rex.service.bucketing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migration strategy that reproduces the original {@code String.hashCode()}
+ * assignment, so existing users keep their rollout and experiment buckets.
+ * <p>
+ * The original code hashed {@code userId + ":" + salt}; because
+ * {@code String.hashCode()} is polynomial, that hash is rebuilt from the
+ * user hash and a precomputed (31^length, hash) pair of {@code ":" + salt}
+ * without concatenating. Resolution is 100 buckets (each legacy percentile
+ * maps to the first of its 100 fine-grained buckets). The one behaviour that
+ * is deliberately not reproduced is {@code Math.abs(Integer.MIN_VALUE)} going
+ * negative; that value is clamped to bucket 0, which yields the same decisions.
+ */
+@Component
+@ConditionalOnProperty(name = "rex.bucketing.strategy", havingValue = "legacy", matchIfMissing = true)
+public class LegacyBucketingStrategy implements BucketingStrategy {
+
+    /** Multiplier 1, hash 0: the user hash passes through unchanged. */
+    private static final long UNSALTED = 1L << 32;
+
+    @Override
+    public int hashUser(String userId) {
+        return String.valueOf(userId).hashCode();
+    }
+
+    @Override
+    public long saltKey(String salt) {
+        if (salt == null) {
+            return UNSALTED;
+        }
+        int multiplier = 31;
+        int hash = ':';
+        for (int i = 0; i < salt.length(); i++) {
+            hash = 31 * hash + salt.charAt(i);
+            multiplier *= 31;
+        }
+        return ((long) multiplier << 32) | (hash & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Legacy traffic allocation ignored the experiment and hashed the user ID alone.
+     */
+    @Override
+    public long trafficSaltKey(String experimentName) {
+        return UNSALTED;
+    }
+
+    @Override
+    public int hash(int userHash, long saltKey) {
+        int combined = userHash * (int) (saltKey >>> 32) + (int) saltKey;
+        return Math.max(0, Math.abs(combined));
+    }
+
+    @Override
+    public int bucket(int userHash, long saltKey) {
+        return (hash(userHash, saltKey) % 100) * (BUCKETS / 100);
+    }
+
+    @Override
+    public String name() {
+        return "legacy";
+    }
+}
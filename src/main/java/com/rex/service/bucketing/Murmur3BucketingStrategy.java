@@ -0,0 +1,101 @@
+package com.rex.service.bucketing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * MurmurHash3 (x86, 32-bit) bucketing over the full 10,000 buckets.
+ * <p>
+ * User IDs and salts are hashed straight from their UTF-16 code units
+ * (two chars per 32-bit block, the same layout as Guava's
+ * {@code murmur3_32().hashUnencodedChars}), so no intermediate strings or
+ * byte arrays are created. The user hash and salt hash are combined with
+ * the murmur finalizer, and buckets are taken with a multiply-shift range
+ * reduction, which avoids the modulo bias of {@code hash % n}.
+ */
+@Component
+@ConditionalOnProperty(name = "rex.bucketing.strategy", havingValue = "murmur3")
+public class Murmur3BucketingStrategy implements BucketingStrategy {
+
+    private static final int USER_SEED = 0x5EED_0001;
+    private static final int SALT_SEED = 0x5EED_0002;
+    private static final int TRAFFIC_SEED = 0x5EED_0003;
+
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    @Override
+    public int hashUser(String userId) {
+        return murmur3(String.valueOf(userId), USER_SEED);
+    }
+
+    @Override
+    public long saltKey(String salt) {
+        return salt == null ? 0L : murmur3(salt, SALT_SEED) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public long trafficSaltKey(String experimentName) {
+        return experimentName == null ? 0L : murmur3(experimentName, TRAFFIC_SEED) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int hash(int userHash, long saltKey) {
+        return combine(userHash, saltKey) & 0x7FFFFFFF;
+    }
+
+    @Override
+    public int bucket(int userHash, long saltKey) {
+        return (int) (((combine(userHash, saltKey) & 0xFFFFFFFFL) * BUCKETS) >>> 32);
+    }
+
+    @Override
+    public String name() {
+        return "murmur3";
+    }
+
+    private static int combine(int userHash, long saltKey) {
+        return fmix(mixH1(userHash, mixK1((int) saltKey)) ^ 8);
+    }
+
+    /**
+     * MurmurHash3_x86_32 of the string's UTF-16 code units.
+     */
+    static int murmur3(CharSequence input, int seed) {
+        int h1 = seed;
+        int length = input.length();
+
+        for (int i = 1; i < length; i += 2) {
+            int k1 = input.charAt(i - 1) | (input.charAt(i) << 16);
+            h1 = mixH1(h1, mixK1(k1));
+        }
+
+        if ((length & 1) == 1) {
+            h1 ^= mixK1(input.charAt(length - 1));
+        }
+
+        return fmix(h1 ^ (2 * length));
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    private static int fmix(int h1) {
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+}
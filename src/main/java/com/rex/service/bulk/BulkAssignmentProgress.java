@@ -0,0 +1,25 @@
+package com.rex.service.bulk;
+
+import com.rex.model.BulkAssignmentJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of a bulk assignment job.
+ *
+ * @param running       whether the job is executing on this instance right now
+ * @param nextLine      input lines consumed so far; a resumed job continues after them
+ * @param assignedUsers users newly assigned (including excluded ones)
+ * @param skippedUsers  users that already had an assignment, or appeared twice
+ */
+public record BulkAssignmentProgress(String jobId,
+                                     Long experimentId,
+                                     boolean running,
+                                     BulkAssignmentJob.Status status,
+                                     long nextLine,
+                                     long assignedUsers,
+                                     long skippedUsers,
+                                     String errorMessage,
+                                     LocalDateTime startedAt,
+                                     LocalDateTime completedAt) {
+}
@@ -0,0 +1,348 @@
+package com.rex.service.bulk;
+
+import com.rex.model.BulkAssignmentJob;
+import com.rex.model.UserCohort;
+import com.rex.repository.BulkAssignmentJobRepository;
+import com.rex.repository.UserCohortRepository;
+import com.rex.service.ExperimentService;
+import com.rex.service.assignment.SampleSizeCounters;
+import com.rex.service.dictionary.DictionaryService;
+import com.rex.service.sketch.UniqueUserSketchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulk assignment of offline cohorts (email, push, backfills) to a running experiment.
+ * <p>
+ * The input is read as one user ID per line, in chunks of
+ * {@code rex.experiments.bulk-assignment.chunk-size} lines. Each chunk is assigned in
+ * parallel across cores ({@link ExperimentService#computeAssignments}); one query finds
+ * the users already assigned, and the rest are inserted as one JDBC batch in the same
+ * transaction that advances the job's {@link BulkAssignmentJob} checkpoint. New users
+ * are counted into the {@link SampleSizeCounters}, which are flushed to the experiment
+ * row once at the end. A job re-submitted with the same input and job ID skips the
+ * lines already committed.
+ * <p>
+ * In stateless assignment mode ({@code rex.experiments.assignment.stateless=true}) no rows
+ * are written: the users are only counted into the experiment's cohort sketches, as by
+ * stateless assignment, so distributions and sample sizes count each user once. Only
+ * repeated lines within a chunk are reported as skipped there.
+ */
+@Service
+public class BulkAssignmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkAssignmentService.class);
+
+    private static final int MAX_JOB_ID_LENGTH = 100;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO user_cohorts (user_id, experiment_id, cohort_type, variant_name, assignment_method,
+                    assignment_hash, assigned_at, exposure_count, environment, is_active)
+            VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, TRUE)
+            """;
+
+    private final ExperimentService experimentService;
+    private final BulkAssignmentJobRepository jobRepository;
+    private final UserCohortRepository userCohortRepository;
+    private final SampleSizeCounters sampleSizes;
+    private final DictionaryService dictionary;
+    private final UniqueUserSketchService userSketches;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean stateless;
+
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public BulkAssignmentService(ExperimentService experimentService,
+                                 BulkAssignmentJobRepository jobRepository,
+                                 UserCohortRepository userCohortRepository,
+                                 SampleSizeCounters sampleSizes,
+                                 DictionaryService dictionary,
+                                 UniqueUserSketchService userSketches,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${rex.experiments.bulk-assignment.chunk-size:5000}") int chunkSize,
+                                 @Value("${rex.experiments.assignment.stateless:false}") boolean stateless) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Bulk assignment chunk size must be positive: " + chunkSize);
+        }
+        this.experimentService = experimentService;
+        this.jobRepository = jobRepository;
+        this.userCohortRepository = userCohortRepository;
+        this.sampleSizes = sampleSizes;
+        this.dictionary = dictionary;
+        this.userSketches = userSketches;
+        this.jdbcTemplate = jdbcTemplate;
+        // Every chunk commits on its own, even when the caller has a transaction open
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.stateless = stateless;
+    }
+
+    // ============================================
+    // ASSIGNMENT
+    // ============================================
+
+    /**
+     * Assign every user ID read from the input (one per line, blank lines ignored) on the
+     * calling thread. Without a job ID a new job is started; with the ID of an unfinished
+     * job it resumes after the lines that job already committed, so the same input must
+     * be passed again. A new job may be given its own ID to make retries idempotent.
+     * Returns the final progress.
+     */
+    public BulkAssignmentProgress assign(Long experimentId, String jobId, Reader users) {
+        BulkAssignmentJob job = openJob(experimentId, jobId);
+        if (job.isCompleted()) {
+            logger.info("Bulk assignment job '{}' already completed", job.getJobId());
+            return progress(job);
+        }
+        if (!runningJobs.add(job.getJobId())) {
+            throw new IllegalStateException("Bulk assignment job '" + job.getJobId() + "' is already running");
+        }
+        try {
+            job = run(job, users instanceof BufferedReader reader ? reader : new BufferedReader(users));
+        } finally {
+            runningJobs.remove(job.getJobId());
+            sampleSizes.flush();
+        }
+        return progress(job);
+    }
+
+    private BulkAssignmentJob openJob(Long experimentId, String jobId) {
+        if (jobId != null && (jobId.isBlank() || jobId.length() > MAX_JOB_ID_LENGTH)) {
+            throw new IllegalArgumentException("Job ID must be 1 to " + MAX_JOB_ID_LENGTH + " characters");
+        }
+        String id = jobId != null ? jobId : UUID.randomUUID().toString();
+        return transactionTemplate.execute(status -> {
+            BulkAssignmentJob existing = jobRepository.findById(id).orElse(null);
+            if (existing == null) {
+                logger.info("Starting bulk assignment job '{}' for experiment ID: {}", id, experimentId);
+                return jobRepository.save(new BulkAssignmentJob(id, experimentId));
+            }
+            if (!existing.getExperimentId().equals(experimentId)) {
+                throw new IllegalArgumentException("Bulk assignment job '" + id + "' belongs to experiment ID: "
+                        + existing.getExperimentId());
+            }
+            return existing;
+        });
+    }
+
+    private BulkAssignmentJob run(BulkAssignmentJob initial, BufferedReader reader) {
+        BulkAssignmentJob job = initial;
+        try {
+            for (long line = 0; line < job.getNextLine(); line++) {
+                if (reader.readLine() == null) {
+                    throw new IllegalArgumentException("Input ends before line " + job.getNextLine()
+                            + " where bulk assignment job '" + job.getJobId() + "' resumes");
+                }
+            }
+            if (job.getNextLine() > 0) {
+                logger.info("Resuming bulk assignment job '{}' at line {}", job.getJobId(), job.getNextLine());
+            }
+
+            List<String> userIds = new ArrayList<>(chunkSize);
+            int lines = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                String userId = line.strip();
+                if (!userId.isEmpty()) {
+                    userIds.add(userId);
+                }
+                if (lines == chunkSize) {
+                    job = writeChunk(job, userIds, lines);
+                    userIds.clear();
+                    lines = 0;
+                }
+            }
+            if (lines > 0) {
+                job = writeChunk(job, userIds, lines);
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(job, e);
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException("Reading users of bulk assignment job '" + job.getJobId() + "' failed", io);
+            }
+            throw (RuntimeException) e;
+        }
+
+        String jobId = job.getJobId();
+        job = transactionTemplate.execute(status -> {
+            BulkAssignmentJob current = currentJob(jobId);
+            current.complete();
+            return jobRepository.save(current);
+        });
+        logger.info("Bulk assignment job '{}' completed: {} users assigned, {} skipped", jobId,
+                job.getAssignedUsers(), job.getSkippedUsers());
+        return job;
+    }
+
+    private BulkAssignmentJob writeChunk(BulkAssignmentJob job, List<String> userIds, int lines) {
+        Map<String, UserCohort> cohorts = new LinkedHashMap<>();
+        if (!userIds.isEmpty()) {
+            for (UserCohort cohort : experimentService.computeAssignments(userIds, job.getExperimentId())) {
+                cohorts.putIfAbsent(cohort.getUserId(), cohort);
+            }
+        }
+        if (stateless) {
+            return countChunk(job, cohorts.values(), userIds.size(), lines);
+        }
+        Map<String, Long> newUsersByVariant = new HashMap<>();
+
+        BulkAssignmentJob advanced = transactionTemplate.execute(status -> {
+            newUsersByVariant.clear();
+            Map<String, UserCohort> missing = new LinkedHashMap<>(cohorts);
+            if (!missing.isEmpty()) {
+                for (Object[] existing : userCohortRepository.findAssignmentKeys(Set.of(job.getExperimentId()),
+                        missing.keySet())) {
+                    missing.remove((String) existing[1]);
+                }
+            }
+            List<UserCohort> inserts = new ArrayList<>(missing.values());
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, new CohortBatch(inserts));
+            }
+            for (UserCohort cohort : inserts) {
+                if (cohort.getCohortType() != UserCohort.CohortType.EXCLUDED) {
+                    newUsersByVariant.merge(cohort.getVariantName(), 1L, Long::sum);
+                }
+            }
+            BulkAssignmentJob current = currentJob(job.getJobId());
+            current.advance(lines, inserts.size(), userIds.size() - inserts.size());
+            return jobRepository.save(current);
+        });
+
+        // Committed: count the new users; the experiment row is updated when the job ends
+        newUsersByVariant.forEach((variantName, users) -> sampleSizes.add(job.getExperimentId(), variantName, users));
+        logger.debug("Bulk assignment job '{}' at line {}: {} users assigned, {} skipped", advanced.getJobId(),
+                advanced.getNextLine(), advanced.getAssignedUsers(), advanced.getSkippedUsers());
+        return advanced;
+    }
+
+    /**
+     * Stateless mode: count the chunk's users into the cohort sketches instead of inserting
+     * rows. Sketches ignore users counted before, so a chunk replayed after a failure before
+     * its checkpoint committed is not counted twice.
+     */
+    private BulkAssignmentJob countChunk(BulkAssignmentJob job, Collection<UserCohort> cohorts, int users,
+                                         int lines) {
+        for (UserCohort cohort : cohorts) {
+            userSketches.recordExperimentCohort(job.getExperimentId(), cohort.getCohortType(),
+                    cohort.getVariantName(), cohort.getUserId());
+        }
+        BulkAssignmentJob advanced = transactionTemplate.execute(status -> {
+            BulkAssignmentJob current = currentJob(job.getJobId());
+            current.advance(lines, cohorts.size(), users - cohorts.size());
+            return jobRepository.save(current);
+        });
+        logger.debug("Bulk assignment job '{}' at line {}: {} users counted", advanced.getJobId(),
+                advanced.getNextLine(), advanced.getAssignedUsers());
+        return advanced;
+    }
+
+    private void fail(BulkAssignmentJob job, Exception cause) {
+        logger.error("Bulk assignment job '{}' failed at line {}: {}", job.getJobId(), job.getNextLine(),
+                cause.getMessage());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                BulkAssignmentJob current = currentJob(job.getJobId());
+                current.fail(cause.getMessage());
+                jobRepository.save(current);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Recording failure of bulk assignment job '{}' failed: {}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    private BulkAssignmentJob currentJob(String jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalStateException("Bulk assignment job disappeared: " + jobId));
+    }
+
+    /**
+     * Binds one INSERT per cohort.
+     */
+    private final class CohortBatch implements BatchPreparedStatementSetter {
+
+        private final List<UserCohort> cohorts;
+
+        CohortBatch(List<UserCohort> cohorts) {
+            this.cohorts = cohorts;
+        }
+
+        @Override
+        public void setValues(PreparedStatement statement, int i) throws SQLException {
+            UserCohort cohort = cohorts.get(i);
+            statement.setString(1, cohort.getUserId());
+            statement.setLong(2, cohort.getExperiment().getId());
+            statement.setString(3, cohort.getCohortType().name());
+            statement.setInt(4, dictionary.encode(cohort.getVariantName()));
+            statement.setString(5, cohort.getAssignmentMethod().name());
+            if (cohort.getAssignmentHash() != null) {
+                statement.setInt(6, cohort.getAssignmentHash());
+            } else {
+                statement.setNull(6, Types.INTEGER);
+            }
+            statement.setTimestamp(7, Timestamp.valueOf(cohort.getAssignedAt()));
+            Integer environment = dictionary.encode(cohort.getEnvironment());
+            if (environment != null) {
+                statement.setInt(8, environment);
+            } else {
+                statement.setNull(8, Types.INTEGER);
+            }
+        }
+
+        @Override
+        public int getBatchSize() {
+            return cohorts.size();
+        }
+    }
+
+    // ============================================
+    // PROGRESS
+    // ============================================
+
+    /**
+     * Progress of a bulk assignment job.
+     */
+    public BulkAssignmentProgress getProgress(String jobId) {
+        BulkAssignmentJob job = transactionTemplate.execute(status -> jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Bulk assignment job not found: " + jobId)));
+        return progress(job);
+    }
+
+    private BulkAssignmentProgress progress(BulkAssignmentJob job) {
+        return new BulkAssignmentProgress(job.getJobId(), job.getExperimentId(), runningJobs.contains(job.getJobId()),
+                job.getStatus(), job.getNextLine(), job.getAssignedUsers(), job.getSkippedUsers(),
+                job.getErrorMessage(), job.getStartedAt(), job.getCompletedAt());
+    }
+}
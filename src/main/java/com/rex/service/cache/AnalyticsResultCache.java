@@ -0,0 +1,168 @@
+package com.rex.service.cache;
+
+import com.rex.service.metrics.MetricsObserver;
+import com.rex.service.metrics.MetricsRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight result cache for heavy analytics over the metrics table.
+ * <p>
+ * Results are keyed by query name and arguments and stamped with the ingestion
+ * watermark read before they were computed. The watermark advances on every persisted
+ * event (after its transaction commits) and whenever metrics are deleted, so a result
+ * is served from memory until the underlying events actually change. Concurrent
+ * requests for the same key while it is being computed wait for that one computation
+ * instead of running the queries again, even when events arrived since it started
+ * (under live ingestion the watermark moves on every event, so a request would otherwise
+ * never find an in-flight result current); a failed computation is not cached.
+ * <p>
+ * Windows relative to the current time (the last 24 hours) also move while nothing is
+ * ingested, so results are recomputed at least every
+ * {@code rex.metrics.analytics-cache.max-age-ms}. At most {@code max-entries} results
+ * are kept; beyond that, stale entries are dropped and, if none are, results are
+ * computed uncached.
+ */
+@Service
+public class AnalyticsResultCache implements MetricsObserver {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsResultCache.class);
+
+    private record Key(String query, List<Object> arguments) {
+    }
+
+    private record Entry(long watermark, long startNanos, CompletableFuture<Object> result) {
+    }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxAgeNanos;
+
+    private final AtomicLong watermark = new AtomicLong();
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AnalyticsResultCache(@Value("${rex.metrics.analytics-cache.enabled:true}") boolean enabled,
+                                @Value("${rex.metrics.analytics-cache.max-entries:1024}") int maxEntries,
+                                @Value("${rex.metrics.analytics-cache.max-age-ms:60000}") long maxAgeMs) {
+        if (maxEntries < 1 || maxAgeMs < 1) {
+            throw new IllegalArgumentException("Analytics cache max entries and max age must be positive");
+        }
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+    }
+
+    // ============================================
+    // WATERMARK
+    // ============================================
+
+    @Override
+    public void onRecorded(MetricsRow row) {
+        watermark.incrementAndGet();
+    }
+
+    /**
+     * Invalidate every cached result, e.g. after metrics were deleted.
+     */
+    public void advanceWatermark() {
+        watermark.incrementAndGet();
+    }
+
+    public long watermark() {
+        return watermark.get();
+    }
+
+    // ============================================
+    // LOOKUP
+    // ============================================
+
+    /**
+     * Result of the named query for the given arguments: the in-flight result if another
+     * thread is computing it, cached if computed at the current watermark within the maximum
+     * age, else computed by {@code computation} on this thread. Results must be immutable.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String query, Supplier<T> computation, Object... arguments) {
+        if (!enabled) {
+            return computation.get();
+        }
+        Key key = new Key(query, Arrays.asList(arguments));
+        // Read before computing: events arriving meanwhile leave the result stale
+        long current = watermark.get();
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry == null || !isUsable(entry, current, now)) {
+            if (entry == null && entries.size() >= maxEntries && !evictStale(current, now)) {
+                return computation.get();
+            }
+            Entry fresh = new Entry(current, now, new CompletableFuture<>());
+            entry = entries.compute(key, (k, existing) ->
+                    existing != null && isUsable(existing, current, now) ? existing : fresh);
+            if (entry == fresh) {
+                logger.debug("Computing {} {} at watermark {}", query, key.arguments(), current);
+                return (T) compute(key, fresh, computation);
+            }
+        }
+        return (T) await(entry.result());
+    }
+
+    private Object compute(Key key, Entry entry, Supplier<?> computation) {
+        try {
+            Object result = computation.get();
+            entry.result().complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * An entry still computing is joined whatever its watermark; a completed one only while fresh.
+     */
+    private boolean isUsable(Entry entry, long current, long now) {
+        return !entry.result().isDone() || isFresh(entry, current, now);
+    }
+
+    private boolean isFresh(Entry entry, long current, long now) {
+        return entry.watermark() >= current && now - entry.startNanos() < maxAgeNanos;
+    }
+
+    /**
+     * Drop completed entries that are no longer fresh. Returns whether there is room for
+     * another entry.
+     */
+    private boolean evictStale(long current, long now) {
+        entries.values().removeIf(entry -> !isFresh(entry, current, now) && entry.result().isDone());
+        return entries.size() < maxEntries;
+    }
+}
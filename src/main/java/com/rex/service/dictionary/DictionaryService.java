@@ -0,0 +1,169 @@
+package com.rex.service.dictionary;
+
+import com.rex.model.DictionaryCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared string dictionary backing the dictionary-encoded columns.
+ * <p>
+ * Recently used entries are cached in both directions, so encoding and decoding a known
+ * value is usually a map lookup and decoded entity fields share one String instance.
+ * Each cache holds at most {@code rex.dictionary.cache-capacity} entries and is cleared
+ * when full; a miss reads the table on the caller's connection.
+ * <p>
+ * Only {@link #encode} adds entries, and only writes call it: query parameters go through
+ * {@link #lookup}. A new value is inserted in autocommit mode on a dedicated, unpooled
+ * connection, not in the caller's transaction: once a code is handed out it stays valid
+ * even if the transaction that first used it rolls back, and interning never waits for
+ * a pooled connection its callers may be holding. Concurrent inserts of the same value
+ * are resolved through the unique constraint.
+ */
+@Service
+public class DictionaryService implements DictionaryCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionaryService.class);
+
+    private static final String SELECT_BY_VALUE = "SELECT id FROM string_dictionary WHERE string_value = ?";
+    private static final String SELECT_BY_ID = "SELECT string_value FROM string_dictionary WHERE id = ?";
+    private static final String INSERT =
+            "INSERT INTO string_dictionary (id, string_value) VALUES (NEXT VALUE FOR string_dictionary_seq, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource internDataSource;
+    private final int cacheCapacity;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> values = new ConcurrentHashMap<>();
+
+    // Converters are created with the entity manager factory, so this must not depend on it
+    // (as the application's JdbcTemplate does): it uses the raw data sources
+    @Autowired
+    public DictionaryService(DataSource dataSource, DataSourceProperties dataSourceProperties,
+                             @Value("${rex.dictionary.cache-capacity:10000}") int cacheCapacity) {
+        this(dataSource, dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build(), cacheCapacity);
+    }
+
+    DictionaryService(DataSource dataSource, DataSource internDataSource, int cacheCapacity) {
+        if (cacheCapacity < 1) {
+            throw new IllegalArgumentException("Dictionary cache capacity must be positive: " + cacheCapacity);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.internDataSource = internDataSource;
+        this.cacheCapacity = cacheCapacity;
+    }
+
+    // ============================================
+    // ENCODING
+    // ============================================
+
+    @Override
+    public Integer encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer code = lookup(value);
+        return code != null ? code : intern(value);
+    }
+
+    @Override
+    public Integer lookup(String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        List<Integer> found = jdbcTemplate.queryForList(SELECT_BY_VALUE, Integer.class, value);
+        return found.isEmpty() ? null : cache(found.get(0), value).code();
+    }
+
+    @Override
+    public String decode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        String value = values.get(code);
+        if (value != null) {
+            return value;
+        }
+        List<String> found = jdbcTemplate.queryForList(SELECT_BY_ID, String.class, code);
+        if (found.isEmpty()) {
+            throw new IllegalStateException("Unknown dictionary code " + code);
+        }
+        return cache(code, found.get(0)).value();
+    }
+
+    private Integer intern(String value) {
+        Integer code;
+        try (Connection connection = internDataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                insert.setString(1, value);
+                insert.executeUpdate();
+            } catch (SQLIntegrityConstraintViolationException e) {
+                logger.debug("Dictionary value '{}' was inserted concurrently", value);
+            }
+            code = findCode(connection, value);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot intern dictionary value '" + value + "'", e);
+        }
+        if (code == null) {
+            throw new IllegalStateException("Dictionary value '" + value + "' was not stored");
+        }
+        return cache(code, value).code();
+    }
+
+    private static Integer findCode(Connection connection, String value) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(SELECT_BY_VALUE)) {
+            select.setString(1, value);
+            try (ResultSet result = select.executeQuery()) {
+                return result.next() ? result.getInt(1) : null;
+            }
+        }
+    }
+
+    // ============================================
+    // CACHE
+    // ============================================
+
+    private record Cached(Integer code, String value) {
+    }
+
+    private Cached cache(Integer code, String value) {
+        if (values.size() >= cacheCapacity || codes.size() >= cacheCapacity) {
+            // Entries are always reloadable, so a full cache is simply started over
+            logger.debug("Dictionary cache reached {} entries, clearing it", cacheCapacity);
+            values.clear();
+            codes.clear();
+        }
+        String canonical = values.putIfAbsent(code, value);
+        if (canonical == null) {
+            canonical = value;
+        }
+        codes.putIfAbsent(canonical, code);
+        return new Cached(code, canonical);
+    }
+
+    int cachedEntries() {
+        return values.size();
+    }
+}
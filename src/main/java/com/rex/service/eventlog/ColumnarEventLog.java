@@ -0,0 +1,279 @@
+package com.rex.service.eventlog;
+
+import com.rex.dto.FunnelStep;
+import com.rex.dto.VariantRevenue;
+import com.rex.model.Metrics;
+import com.rex.repository.MetricsRepository;
+import com.rex.service.metrics.MetricsObserver;
+import com.rex.service.metrics.MetricsRow;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append-only columnar copy of the raw event stream for analytical scans.
+ * <p>
+ * Every persisted event is appended to memory-mapped {@link EventLogSegment} files
+ * under {@code rex.metrics.event-log.directory}. Event type is stored as its ordinal;
+ * variant, environment, platform and device type are dictionary-encoded through one
+ * shared {@link StringDictionary}. Only the columns analytics aggregate are kept, so
+ * a funnel or revenue scan reads a few bytes per event instead of a wide row, and
+ * segments entirely outside the requested time range are skipped.
+ * <p>
+ * The log keeps its own dictionary rather than the database's {@code string_dictionary}:
+ * its codes are dense array indices written next to the segments, so reopened segments
+ * decode without the database (whose create-drop schema may hold different codes by then)
+ * and appending an event never waits on a database round trip.
+ * <p>
+ * With {@code rex.metrics.event-log.rebuild-on-start} (the default, matching the
+ * create-drop schema) the log is discarded and rebuilt from {@code metrics} at
+ * startup; otherwise existing segments are reopened.
+ */
+@Component
+@ConditionalOnProperty(name = "rex.metrics.event-log.enabled", havingValue = "true")
+public class ColumnarEventLog implements MetricsObserver, SmartInitializingSingleton, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarEventLog.class);
+
+    private static final String DICTIONARY_FILE = "dictionary.dat";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".col";
+
+    private static final byte EXPOSURE = (byte) Metrics.EventType.EXPERIMENT_EXPOSURE.ordinal();
+    private static final byte CLICK = (byte) Metrics.EventType.CLICK.ordinal();
+    private static final byte CONVERSION = (byte) Metrics.EventType.CONVERSION.ordinal();
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final boolean rebuild;
+    private final MetricsRepository metricsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final StringDictionary dictionary;
+    // Sealed segments followed by the open one; replaced copy-on-write by the appender
+    private volatile List<EventLogSegment> segments;
+
+    @Autowired
+    public ColumnarEventLog(MetricsRepository metricsRepository, PlatformTransactionManager transactionManager,
+                            @Value("${rex.metrics.event-log.directory:${java.io.tmpdir}/rex-event-log}") String directory,
+                            @Value("${rex.metrics.event-log.segment-capacity:65536}") int segmentCapacity,
+                            @Value("${rex.metrics.event-log.rebuild-on-start:true}") boolean rebuild) {
+        this(Paths.get(directory), segmentCapacity, rebuild, metricsRepository, transactionManager);
+    }
+
+    ColumnarEventLog(Path directory, int segmentCapacity, boolean rebuild,
+                     MetricsRepository metricsRepository, PlatformTransactionManager transactionManager) {
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        this.rebuild = rebuild;
+        this.metricsRepository = metricsRepository;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+        try {
+            Files.createDirectories(directory);
+            if (rebuild) {
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : files.filter(ColumnarEventLog::isLogFile).toList()) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            this.dictionary = new StringDictionary(directory.resolve(DICTIONARY_FILE));
+            try (Stream<Path> files = Files.list(directory)) {
+                this.segments = files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .sorted()
+                        .map(EventLogSegment::open)
+                        .toList();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open event log in " + directory, e);
+        }
+    }
+
+    private static boolean isLogFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.equals(DICTIONARY_FILE) || name.startsWith(SEGMENT_PREFIX);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!rebuild) {
+            logger.info("Reopened event log with {} events in {} segments", size(), segments.size());
+            return;
+        }
+        long backfilled = transactionTemplate.execute(status -> {
+            try (Stream<Object[]> events = metricsRepository.streamEventLogEvents()) {
+                return events.peek(event -> append((LocalDateTime) event[0], (Metrics.EventType) event[1],
+                                (Long) event[2], (String) event[3], (String) event[4], (String) event[5],
+                                (String) event[6], (Double) event[7], (Double) event[8]))
+                        .count();
+            }
+        });
+        logger.info("Backfilled event log from {} raw events", backfilled);
+    }
+
+    // ============================================
+    // APPEND
+    // ============================================
+
+    @Override
+    public void onRecorded(MetricsRow row) {
+        append(row.timestamp(), row.eventType(), row.experimentId(), row.variantName(), row.environment(),
+                row.platform(), row.deviceType(), row.eventValue(), row.revenue());
+    }
+
+    synchronized void append(LocalDateTime timestamp, Metrics.EventType eventType, Long experimentId,
+                             String variantName, String environment, String platform, String deviceType,
+                             Double eventValue, Double revenue) {
+        long millis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        List<EventLogSegment> current = segments;
+        EventLogSegment open = current.isEmpty() ? null : current.get(current.size() - 1);
+        if (open == null || !open.accepts(millis)) {
+            if (open != null) {
+                open.force();
+            }
+            open = EventLogSegment.create(directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX,
+                    current.size(), SEGMENT_SUFFIX)), segmentCapacity);
+            List<EventLogSegment> next = new ArrayList<>(current);
+            next.add(open);
+            segments = List.copyOf(next);
+        }
+        open.append(millis, (byte) eventType.ordinal(), experimentId != null ? experimentId : 0L,
+                dictionary.encode(variantName), dictionary.encode(environment), dictionary.encode(platform),
+                dictionary.encode(deviceType), eventValue != null ? eventValue : Double.NaN,
+                revenue != null ? revenue : Double.NaN);
+    }
+
+    /**
+     * Number of events in the log.
+     */
+    public long size() {
+        long size = 0;
+        for (EventLogSegment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    // ============================================
+    // SCANS
+    // ============================================
+
+    /**
+     * Conversion funnel of an experiment over events since a point in time, ordered by
+     * variant and funnel step.
+     */
+    public List<FunnelStep> conversionFunnel(Long experimentId, LocalDateTime since) {
+        long experiment = experimentId;
+        long sinceMillis = since.toInstant(ZoneOffset.UTC).toEpochMilli();
+        // variant code -> counts of exposure, click, conversion
+        Map<Integer, long[]> counts = new HashMap<>();
+        for (EventLogSegment segment : segments) {
+            int rows = segment.size();
+            if (rows == 0 || segment.maxMillis() < sinceMillis) {
+                continue;
+            }
+            boolean checkTime = segment.minMillis() < sinceMillis;
+            for (int row = 0; row < rows; row++) {
+                if (segment.experimentId(row) != experiment) {
+                    continue;
+                }
+                byte type = segment.eventType(row);
+                int step = type == EXPOSURE ? 0 : type == CLICK ? 1 : type == CONVERSION ? 2 : -1;
+                if (step < 0 || (checkTime && segment.timestampMillis(row) < sinceMillis)) {
+                    continue;
+                }
+                counts.computeIfAbsent(segment.variant(row), code -> new long[3])[step]++;
+            }
+        }
+
+        List<FunnelStep> result = new ArrayList<>();
+        Metrics.EventType[] steps = {Metrics.EventType.EXPERIMENT_EXPOSURE, Metrics.EventType.CLICK,
+                Metrics.EventType.CONVERSION};
+        counts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(dictionary::decode,
+                        Comparator.nullsFirst(Comparator.naturalOrder()))))
+                .forEach(entry -> {
+                    for (int step = 0; step < steps.length; step++) {
+                        if (entry.getValue()[step] > 0) {
+                            result.add(new FunnelStep(steps[step], dictionary.decode(entry.getKey()),
+                                    entry.getValue()[step]));
+                        }
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Revenue by experiment variant over events since a point in time, highest total first.
+     */
+    public List<VariantRevenue> revenueByVariant(LocalDateTime since) {
+        long sinceMillis = since.toInstant(ZoneOffset.UTC).toEpochMilli();
+        record Group(long experimentId, int variant) {}
+        Map<Group, double[]> totals = new HashMap<>();
+        for (EventLogSegment segment : segments) {
+            int rows = segment.size();
+            if (rows == 0 || segment.maxMillis() < sinceMillis) {
+                continue;
+            }
+            boolean checkTime = segment.minMillis() < sinceMillis;
+            for (int row = 0; row < rows; row++) {
+                double revenue = segment.revenue(row);
+                // NaN (no revenue) fails the comparison too
+                if (!(revenue > 0) || (checkTime && segment.timestampMillis(row) < sinceMillis)) {
+                    continue;
+                }
+                double[] sums = totals.computeIfAbsent(new Group(segment.experimentId(row), segment.variant(row)),
+                        group -> new double[2]);
+                sums[0] += revenue;
+                sums[1]++;
+            }
+        }
+
+        List<VariantRevenue> result = new ArrayList<>(totals.size());
+        totals.forEach((group, sums) -> result.add(new VariantRevenue(
+                group.experimentId() != 0 ? group.experimentId() : null,
+                dictionary.decode(group.variant()),
+                sums[0],
+                sums[0] / sums[1],
+                (long) sums[1])));
+        result.sort(Comparator.comparingDouble(VariantRevenue::totalRevenue).reversed());
+        return result;
+    }
+
+    /**
+     * Flush mapped pages and release the segment files.
+     */
+    @PreDestroy
+    @Override
+    public synchronized void close() {
+        try {
+            for (EventLogSegment segment : segments) {
+                segment.close();
+            }
+            dictionary.close();
+        } catch (IOException e) {
+            logger.warn("Closing event log failed: {}", e.getMessage());
+        }
+    }
+}
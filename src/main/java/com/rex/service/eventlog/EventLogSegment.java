@@ -0,0 +1,240 @@
+package com.rex.service.eventlog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One fixed-capacity, memory-mapped segment file of the columnar event log.
+ * <p>
+ * Each column is a contiguous primitive array at a fixed offset, so a scan touches
+ * only the pages of the columns it reads and decodes values in place from the
+ * mapping. Timestamps are stored as int millisecond deltas from the segment's first
+ * event. Rows are appended by one thread at a time and published through
+ * {@link #size()}; any number of threads may scan concurrently.
+ *
+ * <pre>
+ * header (32 bytes): magic, version, capacity, row count, base epoch millis
+ * long   experiment ID (0 = none)
+ * double event value (NaN = none)
+ * double revenue (NaN = none)
+ * int    timestamp delta
+ * int    variant, environment, platform, device type (dictionary codes)
+ * byte   event type ordinal
+ * </pre>
+ */
+final class EventLogSegment implements AutoCloseable {
+
+    private static final int MAGIC = 0x52455843; // "REXC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ROWS_OFFSET = 12;
+    private static final int BASE_OFFSET = 16;
+
+    static final int ROW_BYTES = 8 + 8 + 8 + 4 + 4 * 4 + 1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private final int experimentColumn;
+    private final int valueColumn;
+    private final int revenueColumn;
+    private final int timestampColumn;
+    private final int variantColumn;
+    private final int environmentColumn;
+    private final int platformColumn;
+    private final int deviceColumn;
+    private final int eventTypeColumn;
+
+    private long baseMillis;
+    private volatile int size;
+    // Timestamp bounds of the rows appended so far, for skipping whole segments
+    private volatile long minMillis = Long.MAX_VALUE;
+    private volatile long maxMillis = Long.MIN_VALUE;
+
+    private EventLogSegment(Path file, int capacity, boolean create) {
+        this.file = file;
+        this.capacity = capacity;
+        experimentColumn = HEADER_BYTES;
+        valueColumn = experimentColumn + 8 * capacity;
+        revenueColumn = valueColumn + 8 * capacity;
+        timestampColumn = revenueColumn + 8 * capacity;
+        variantColumn = timestampColumn + 4 * capacity;
+        environmentColumn = variantColumn + 4 * capacity;
+        platformColumn = environmentColumn + 4 * capacity;
+        deviceColumn = platformColumn + 4 * capacity;
+        eventTypeColumn = deviceColumn + 4 * capacity;
+        long fileBytes = (long) HEADER_BYTES + (long) ROW_BYTES * capacity;
+        try {
+            channel = create
+                    ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map event log segment " + file, e);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Create an empty segment file.
+     */
+    static EventLogSegment create(Path file, int capacity) {
+        if (capacity < 1 || capacity % 8 != 0) {
+            throw new IllegalArgumentException("Segment capacity must be a positive multiple of 8: " + capacity);
+        }
+        EventLogSegment segment = new EventLogSegment(file, capacity, true);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, VERSION);
+        segment.buffer.putInt(8, capacity);
+        segment.buffer.putInt(ROWS_OFFSET, 0);
+        return segment;
+    }
+
+    /**
+     * Map an existing segment file, keeping the rows its header counts as written.
+     */
+    static EventLogSegment open(Path file) {
+        int capacity;
+        try (FileChannel header = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer bytes = header.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            bytes.order(ByteOrder.nativeOrder());
+            if (bytes.getInt(0) != MAGIC || bytes.getInt(4) != VERSION) {
+                throw new IllegalStateException("Not an event log segment: " + file);
+            }
+            capacity = bytes.getInt(8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read event log segment " + file, e);
+        }
+        EventLogSegment segment = new EventLogSegment(file, capacity, false);
+        segment.baseMillis = segment.buffer.getLong(BASE_OFFSET);
+        int rows = segment.buffer.getInt(ROWS_OFFSET);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row = 0; row < rows; row++) {
+            long millis = segment.timestampMillis(row);
+            min = Math.min(min, millis);
+            max = Math.max(max, millis);
+        }
+        segment.minMillis = min;
+        segment.maxMillis = max;
+        segment.size = rows;
+        return segment;
+    }
+
+    // ============================================
+    // APPEND (single writer)
+    // ============================================
+
+    /**
+     * Whether an event at this time fits: there is room and its delta fits an int.
+     */
+    boolean accepts(long epochMillis) {
+        if (size == capacity) {
+            return false;
+        }
+        if (size == 0) {
+            return true;
+        }
+        long delta = epochMillis - baseMillis;
+        return delta >= Integer.MIN_VALUE && delta <= Integer.MAX_VALUE;
+    }
+
+    void append(long epochMillis, byte eventType, long experimentId, int variant, int environment,
+                int platform, int device, double eventValue, double revenue) {
+        int row = size;
+        if (row == 0) {
+            baseMillis = epochMillis;
+            buffer.putLong(BASE_OFFSET, epochMillis);
+        }
+        buffer.putLong(experimentColumn + 8 * row, experimentId);
+        buffer.putDouble(valueColumn + 8 * row, eventValue);
+        buffer.putDouble(revenueColumn + 8 * row, revenue);
+        buffer.putInt(timestampColumn + 4 * row, (int) (epochMillis - baseMillis));
+        buffer.putInt(variantColumn + 4 * row, variant);
+        buffer.putInt(environmentColumn + 4 * row, environment);
+        buffer.putInt(platformColumn + 4 * row, platform);
+        buffer.putInt(deviceColumn + 4 * row, device);
+        buffer.put(eventTypeColumn + row, eventType);
+        // Header row count last: after a crash only fully written rows are counted
+        buffer.putInt(ROWS_OFFSET, row + 1);
+        minMillis = Math.min(minMillis, epochMillis);
+        maxMillis = Math.max(maxMillis, epochMillis);
+        size = row + 1;
+    }
+
+    /**
+     * Write dirty pages to the file.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    // ============================================
+    // COLUMN ACCESS (any thread, rows below size())
+    // ============================================
+
+    int size() {
+        return size;
+    }
+
+    long minMillis() {
+        return minMillis;
+    }
+
+    long maxMillis() {
+        return maxMillis;
+    }
+
+    long experimentId(int row) {
+        return buffer.getLong(experimentColumn + 8 * row);
+    }
+
+    double eventValue(int row) {
+        return buffer.getDouble(valueColumn + 8 * row);
+    }
+
+    double revenue(int row) {
+        return buffer.getDouble(revenueColumn + 8 * row);
+    }
+
+    long timestampMillis(int row) {
+        return baseMillis + buffer.getInt(timestampColumn + 4 * row);
+    }
+
+    int variant(int row) {
+        return buffer.getInt(variantColumn + 4 * row);
+    }
+
+    int environment(int row) {
+        return buffer.getInt(environmentColumn + 4 * row);
+    }
+
+    int platform(int row) {
+        return buffer.getInt(platformColumn + 4 * row);
+    }
+
+    int device(int row) {
+        return buffer.getInt(deviceColumn + 4 * row);
+    }
+
+    byte eventType(int row) {
+        return buffer.get(eventTypeColumn + row);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,110 @@
+package com.rex.service.eventlog;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary mapping low-cardinality strings to dense int codes, shared
+ * by the dictionary-encoded columns of the event log. Code 0 stands for null.
+ * New entries are appended to the dictionary file before their code is handed out.
+ */
+final class StringDictionary implements AutoCloseable {
+
+    static final int NULL_CODE = 0;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final DataOutputStream out;
+
+    // Copy-on-grow decode table; index = code, slot 0 unused
+    private volatile String[] values = new String[64];
+    private int size = 1;
+
+    StringDictionary(Path file) {
+        try {
+            if (Files.exists(file)) {
+                byte[] bytes = Files.readAllBytes(file);
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+                long valid = 0;
+                try {
+                    while (in.available() > 0) {
+                        add(in.readUTF());
+                        valid = bytes.length - in.available();
+                    }
+                } catch (EOFException torn) {
+                    // Entry cut short by a crash: drop it, it is appended again on demand
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(valid);
+                    }
+                }
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open event log dictionary " + file, e);
+        }
+    }
+
+    /**
+     * Code of a value, adding it when it is new.
+     */
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : append(value);
+    }
+
+    /**
+     * Value of a code handed out by {@link #encode}.
+     */
+    String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    int size() {
+        return size - 1;
+    }
+
+    private synchronized int append(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        try {
+            out.writeUTF(value);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to event log dictionary", e);
+        }
+        return add(value);
+    }
+
+    private int add(String value) {
+        int code = size++;
+        String[] table = values;
+        if (code == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[code] = value;
+        values = table;
+        codes.put(value, code);
+        return code;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,152 @@
+package com.rex.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rex.dto.MetricsExportRow;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of {@link MetricsExportRow}s as NDJSON (one JSON object per line) or
+ * CSV (header line, RFC 4180 quoting). Rows are written as they are pulled from the
+ * stream and nothing is buffered besides the writer's own buffer, so memory stays
+ * constant however many rows are exported. The writer is flushed but not closed.
+ */
+@Component
+public class MetricsExporter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    // CSV columns in output order
+    private static final Map<String, Function<MetricsExportRow, Object>> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        COLUMNS.put("id", MetricsExportRow::id);
+        COLUMNS.put("user_id", MetricsExportRow::userId);
+        COLUMNS.put("feature_flag_id", MetricsExportRow::featureFlagId);
+        COLUMNS.put("experiment_id", MetricsExportRow::experimentId);
+        COLUMNS.put("event_type", MetricsExportRow::eventType);
+        COLUMNS.put("event_name", MetricsExportRow::eventName);
+        COLUMNS.put("event_value", MetricsExportRow::eventValue);
+        COLUMNS.put("variant_name", MetricsExportRow::variantName);
+        COLUMNS.put("timestamp", MetricsExportRow::timestamp);
+        COLUMNS.put("session_id", MetricsExportRow::sessionId);
+        COLUMNS.put("user_agent", MetricsExportRow::userAgent);
+        COLUMNS.put("ip_address", MetricsExportRow::ipAddress);
+        COLUMNS.put("page_url", MetricsExportRow::pageUrl);
+        COLUMNS.put("referrer_url", MetricsExportRow::referrerUrl);
+        COLUMNS.put("environment", MetricsExportRow::environment);
+        COLUMNS.put("properties", MetricsExportRow::properties);
+        COLUMNS.put("conversion_value", MetricsExportRow::conversionValue);
+        COLUMNS.put("revenue", MetricsExportRow::revenue);
+        COLUMNS.put("count_value", MetricsExportRow::countValue);
+        COLUMNS.put("duration_ms", MetricsExportRow::durationMs);
+        COLUMNS.put("error_message", MetricsExportRow::errorMessage);
+        COLUMNS.put("device_type", MetricsExportRow::deviceType);
+        COLUMNS.put("platform", MetricsExportRow::platform);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+
+    public MetricsExporter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // One flush at the end instead of one per row
+        this.rowWriter = objectMapper.writerFor(MetricsExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Write every row of the stream to the output. Returns the number of rows written.
+     */
+    public long write(Stream<MetricsExportRow> rows, Format format, Writer out) {
+        try {
+            long written = format == Format.NDJSON ? writeNdjson(rows, out) : writeCsv(rows, out);
+            out.flush();
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing metrics export failed", e);
+        }
+    }
+
+    private long writeNdjson(Stream<MetricsExportRow> rows, Writer out) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            for (Iterator<MetricsExportRow> it = rows.iterator(); it.hasNext(); ) {
+                rowWriter.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private long writeCsv(Stream<MetricsExportRow> rows, Writer out) throws IOException {
+        out.write(String.join(",", COLUMNS.keySet()));
+        out.write("\r\n");
+        long written = 0;
+        for (Iterator<MetricsExportRow> it = rows.iterator(); it.hasNext(); ) {
+            MetricsExportRow row = it.next();
+            boolean first = true;
+            for (Function<MetricsExportRow, Object> column : COLUMNS.values()) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                Object value = column.apply(row);
+                if (value != null) {
+                    writeCsvValue(value.toString(), out);
+                }
+            }
+            out.write("\r\n");
+            written++;
+        }
+        return written;
+    }
+
+    private static void writeCsvValue(String value, Writer out) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
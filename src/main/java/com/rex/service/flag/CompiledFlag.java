@@ -0,0 +1,139 @@
+package com.rex.service.flag;
+
+import com.rex.model.FeatureFlag;
+import com.rex.service.bucketing.BucketingStrategy;
+
+/**
+ * Immutable, evaluation-ready view of a {@link FeatureFlag}.
+ * Everything the hot path needs is resolved once at compile time so that
+ * evaluating a user performs no lookups and allocates nothing.
+ */
+public final class CompiledFlag {
+
+    private final Long id;
+    private final String name;
+    private final String environment;
+    private final boolean enabled;
+    private final FeatureFlag.FlagStatus status;
+    private final boolean active;
+    private final int rolloutPercentage;
+
+    private final BucketingStrategy bucketing;
+    private final long saltKey;
+    private final int rolloutBuckets;
+
+    private CompiledFlag(Long id, String name, String environment, boolean enabled,
+                         FeatureFlag.FlagStatus status, int rolloutPercentage, BucketingStrategy bucketing) {
+        this.id = id;
+        this.name = name;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.status = status;
+        this.active = enabled && status == FeatureFlag.FlagStatus.ACTIVE;
+        this.rolloutPercentage = rolloutPercentage;
+        this.bucketing = bucketing;
+        this.saltKey = bucketing.saltKey(name);
+        this.rolloutBuckets = BucketingStrategy.bucketsForPercentage(Math.max(0, Math.min(100, rolloutPercentage)));
+    }
+
+    /**
+     * Compile a flag entity. The entity is read once and not retained.
+     */
+    public static CompiledFlag from(FeatureFlag flag, BucketingStrategy bucketing) {
+        return new CompiledFlag(
+                flag.getId(),
+                flag.getName(),
+                flag.getEnvironment(),
+                Boolean.TRUE.equals(flag.getEnabled()),
+                flag.getStatus(),
+                flag.getRolloutPercentage() != null ? flag.getRolloutPercentage() : 0,
+                bucketing);
+    }
+
+    /**
+     * Compile a flag from a change event received from the {@link FlagChangeBus}.
+     */
+    public static CompiledFlag from(FlagChangeEvent change, BucketingStrategy bucketing) {
+        return new CompiledFlag(
+                change.flagId(),
+                change.name(),
+                change.environment(),
+                change.enabled(),
+                change.status(),
+                change.rolloutPercentage(),
+                bucketing);
+    }
+
+    /**
+     * Describe this flag's state as a change event at the given version.
+     */
+    public FlagChangeEvent toChangeEvent(long version) {
+        return new FlagChangeEvent(version, id, name, environment, enabled, status, rolloutPercentage, null);
+    }
+
+    /**
+     * Evaluate the flag for a user. Inactive or 0% flags are off, 100% flags
+     * are on, anything in between is decided by the user's stable bucket.
+     */
+    public boolean isEnabledFor(String userId) {
+        return isEnabledForUserHash(bucketing.hashUser(userId));
+    }
+
+    /**
+     * Evaluate the flag for a user whose ID was already hashed with
+     * {@link BucketingStrategy#hashUser}, so batch evaluation hashes each user only once.
+     */
+    public boolean isEnabledForUserHash(int userHash) {
+        if (!active || rolloutPercentage <= 0) {
+            return false;
+        }
+        if (rolloutPercentage >= 100) {
+            return true;
+        }
+        return bucketing.bucket(userHash, saltKey) < rolloutBuckets;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public FeatureFlag.FlagStatus getStatus() {
+        return status;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public int getRolloutPercentage() {
+        return rolloutPercentage;
+    }
+
+    public BucketingStrategy getBucketing() {
+        return bucketing;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledFlag{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", environment='" + environment + '\'' +
+                ", enabled=" + enabled +
+                ", status=" + status +
+                ", rolloutPercentage=" + rolloutPercentage +
+                '}';
+    }
+}
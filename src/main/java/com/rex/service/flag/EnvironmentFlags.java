@@ -0,0 +1,71 @@
+package com.rex.service.flag;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * The active flags of one environment, laid out as a name-sorted array so that
+ * batch evaluation is a single pass and results can be addressed by index.
+ */
+public final class EnvironmentFlags {
+
+    static final EnvironmentFlags EMPTY = new EnvironmentFlags("", new CompiledFlag[0]);
+
+    private final String environment;
+    private final CompiledFlag[] flags;
+    private final String[] names;
+
+    private EnvironmentFlags(String environment, CompiledFlag[] flags) {
+        this.environment = environment;
+        this.flags = flags;
+        this.names = new String[flags.length];
+        for (int i = 0; i < flags.length; i++) {
+            names[i] = flags[i].getName();
+        }
+    }
+
+    static EnvironmentFlags of(String environment, Collection<CompiledFlag> flags) {
+        CompiledFlag[] active = flags.stream()
+                .filter(CompiledFlag::isActive)
+                .sorted(Comparator.comparing(CompiledFlag::getName))
+                .toArray(CompiledFlag[]::new);
+        return new EnvironmentFlags(environment, active);
+    }
+
+    /**
+     * Evaluate every flag for one user, hashing the user ID once.
+     */
+    public FlagEvaluation evaluate(String userId) {
+        long[] bits = new long[(flags.length + 63) >>> 6];
+        if (flags.length == 0) {
+            return new FlagEvaluation(this, bits);
+        }
+        int userHash = flags[0].getBucketing().hashUser(userId);
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i].isEnabledForUserHash(userHash)) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        return new FlagEvaluation(this, bits);
+    }
+
+    /**
+     * Index of a flag in this table, or a negative value when absent.
+     */
+    public int indexOf(String flagName) {
+        return flagName != null ? Arrays.binarySearch(names, flagName) : -1;
+    }
+
+    public CompiledFlag get(int index) {
+        return flags[index];
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public int size() {
+        return flags.length;
+    }
+}
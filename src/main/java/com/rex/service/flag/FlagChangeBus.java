@@ -0,0 +1,43 @@
+package com.rex.service.flag;
+
+import java.util.function.Consumer;
+
+/**
+ * Distributes flag deltas to every node and client that keeps a flag snapshot.
+ * Each published change receives the next global config version.
+ * {@link InMemoryFlagChangeBus} is the in-JVM implementation; a broker-backed
+ * implementation can replace it for multi-instance deployments.
+ */
+public interface FlagChangeBus {
+
+    /**
+     * Assign the next version to a change and deliver it to all subscribers, in version order.
+     */
+    FlagChangeEvent publish(FlagChangeEvent change);
+
+    /**
+     * Version of the most recently published change (0 when none).
+     */
+    long latestVersion();
+
+    /**
+     * Whether every change after {@code version} can still be replayed.
+     * When false, a subscriber must start from a full snapshot instead.
+     */
+    boolean canReplayFrom(long version);
+
+    /**
+     * Subscribe to changes after {@code afterVersion}. Retained changes newer than
+     * that version are replayed to the listener before live changes are delivered.
+     */
+    Subscription subscribe(long afterVersion, Consumer<FlagChangeEvent> listener);
+
+    /**
+     * Handle for cancelling a subscription.
+     */
+    interface Subscription extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
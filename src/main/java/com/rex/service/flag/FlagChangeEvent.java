@@ -0,0 +1,56 @@
+package com.rex.service.flag;
+
+import com.rex.model.FeatureFlag;
+
+/**
+ * Delta describing the new state of one feature flag, stamped with the global
+ * config version assigned by the {@link FlagChangeBus}. Versions are strictly
+ * increasing, so a subscriber that applies events in order and remembers the
+ * last version it saw can resume from that point. When the change moved the flag
+ * to another environment, {@code previousEnvironment} names the one it left
+ * (null otherwise), so subscribers of that environment can drop it.
+ */
+public record FlagChangeEvent(long version,
+                              Long flagId,
+                              String name,
+                              String environment,
+                              boolean enabled,
+                              FeatureFlag.FlagStatus status,
+                              int rolloutPercentage,
+                              String previousEnvironment) {
+
+    /**
+     * Capture the current state of a flag entity; the version is assigned on publish.
+     */
+    public static FlagChangeEvent of(FeatureFlag flag) {
+        return of(flag, null);
+    }
+
+    /**
+     * Capture the current state of a flag entity that was in {@code previousEnvironment}
+     * before this change (null when unknown or unchanged).
+     */
+    public static FlagChangeEvent of(FeatureFlag flag, String previousEnvironment) {
+        return new FlagChangeEvent(0L,
+                flag.getId(),
+                flag.getName(),
+                flag.getEnvironment(),
+                Boolean.TRUE.equals(flag.getEnabled()),
+                flag.getStatus(),
+                flag.getRolloutPercentage() != null ? flag.getRolloutPercentage() : 0,
+                previousEnvironment != null && !previousEnvironment.equals(flag.getEnvironment())
+                        ? previousEnvironment : null);
+    }
+
+    public FlagChangeEvent withVersion(long newVersion) {
+        return new FlagChangeEvent(newVersion, flagId, name, environment, enabled, status, rolloutPercentage,
+                previousEnvironment);
+    }
+
+    /**
+     * Whether this change removes the flag from the given environment.
+     */
+    public boolean leaves(String fromEnvironment) {
+        return previousEnvironment != null && previousEnvironment.equals(fromEnvironment);
+    }
+}
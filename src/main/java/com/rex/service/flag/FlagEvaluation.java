@@ -0,0 +1,79 @@
+package com.rex.service.flag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of evaluating all active flags of an environment for one user.
+ * Stored as a bitset over the environment's {@link EnvironmentFlags} table;
+ * flags not present in the table evaluate to false.
+ */
+public final class FlagEvaluation {
+
+    private final EnvironmentFlags flags;
+    private final long[] bits;
+
+    FlagEvaluation(EnvironmentFlags flags, long[] bits) {
+        this.flags = flags;
+        this.bits = bits;
+    }
+
+    /**
+     * Whether the named flag is enabled for the evaluated user.
+     */
+    public boolean isEnabled(String flagName) {
+        int index = flags.indexOf(flagName);
+        return index >= 0 && isEnabled(index);
+    }
+
+    /**
+     * Whether the flag at the given table index is enabled.
+     */
+    public boolean isEnabled(int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Number of flags that were evaluated.
+     */
+    public int size() {
+        return flags.size();
+    }
+
+    public String flagName(int index) {
+        return flags.get(index).getName();
+    }
+
+    public int enabledCount() {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Names of the enabled flags, in name order.
+     */
+    public List<String> enabledFlagNames() {
+        List<String> names = new ArrayList<>(enabledCount());
+        for (int i = 0; i < flags.size(); i++) {
+            if (isEnabled(i)) {
+                names.add(flagName(i));
+            }
+        }
+        return names;
+    }
+
+    public String getEnvironment() {
+        return flags.getEnvironment();
+    }
+
+    @Override
+    public String toString() {
+        return "FlagEvaluation{" +
+                "environment='" + getEnvironment() + '\'' +
+                ", enabled=" + enabledFlagNames() +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.rex.service.flag;
+
+import com.rex.model.FeatureFlag;
+import com.rex.service.bucketing.BucketingStrategy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable point-in-time view of all feature flags, keyed by (name, environment).
+ * Lookups are two plain map reads with no locking; changes produce a new snapshot
+ * (copy-on-write) that is swapped in atomically by {@link FlagSnapshotHolder}.
+ * Each snapshot carries the global config version of the last change it contains.
+ */
+public final class FlagSnapshot {
+
+    private static final FlagSnapshot EMPTY = new FlagSnapshot(0L, Map.of(), Map.of(), Map.of());
+
+    private final long version;
+    private final Map<String, Map<String, CompiledFlag>> byNameAndEnvironment;
+    private final Map<String, EnvironmentFlags> byEnvironment;
+    private final Map<Long, CompiledFlag> byId;
+
+    private FlagSnapshot(long version,
+                         Map<String, Map<String, CompiledFlag>> byNameAndEnvironment,
+                         Map<String, EnvironmentFlags> byEnvironment,
+                         Map<Long, CompiledFlag> byId) {
+        this.version = version;
+        this.byNameAndEnvironment = byNameAndEnvironment;
+        this.byEnvironment = byEnvironment;
+        this.byId = byId;
+    }
+
+    public static FlagSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build a snapshot from a full set of flag entities.
+     */
+    public static FlagSnapshot of(Collection<FeatureFlag> flags, BucketingStrategy bucketing, long version) {
+        Map<Long, CompiledFlag> byId = new HashMap<>();
+        for (FeatureFlag flag : flags) {
+            CompiledFlag compiled = CompiledFlag.from(flag, bucketing);
+            byId.put(compiled.getId(), compiled);
+        }
+        return build(version, byId);
+    }
+
+    /**
+     * Find a flag by name and environment, or {@code null} when absent.
+     */
+    public CompiledFlag find(String name, String environment) {
+        Map<String, CompiledFlag> environments = byNameAndEnvironment.get(name);
+        return environments != null ? environments.get(environment) : null;
+    }
+
+    /**
+     * Active flags of an environment; empty when the environment has none.
+     */
+    public EnvironmentFlags environment(String environment) {
+        EnvironmentFlags flags = environment != null ? byEnvironment.get(environment) : null;
+        return flags != null ? flags : EnvironmentFlags.EMPTY;
+    }
+
+    public CompiledFlag findById(Long id) {
+        return byId.get(id);
+    }
+
+    public Collection<CompiledFlag> flags() {
+        return byId.values();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Return a new snapshot at the given version with the flag added or replaced
+     * (matched by ID, so renames and environment moves drop the old key).
+     */
+    public FlagSnapshot with(CompiledFlag flag, long newVersion) {
+        Map<Long, CompiledFlag> copy = new HashMap<>(byId);
+        copy.put(flag.getId(), flag);
+        return build(newVersion, copy);
+    }
+
+    private static FlagSnapshot build(long version, Map<Long, CompiledFlag> byId) {
+        Map<String, Map<String, CompiledFlag>> index = new HashMap<>();
+        Map<String, List<CompiledFlag>> environments = new HashMap<>();
+        for (CompiledFlag flag : byId.values()) {
+            index.computeIfAbsent(flag.getName(), k -> new HashMap<>())
+                    .put(flag.getEnvironment(), flag);
+            environments.computeIfAbsent(flag.getEnvironment(), k -> new ArrayList<>()).add(flag);
+        }
+        Map<String, Map<String, CompiledFlag>> frozen = new HashMap<>(index.size() * 2);
+        index.forEach((name, byEnv) -> frozen.put(name, Map.copyOf(byEnv)));
+        Map<String, EnvironmentFlags> tables = new HashMap<>(environments.size() * 2);
+        environments.forEach((environment, flags) -> tables.put(environment, EnvironmentFlags.of(environment, flags)));
+        return new FlagSnapshot(version, Map.copyOf(frozen), Map.copyOf(tables), Map.copyOf(byId));
+    }
+}
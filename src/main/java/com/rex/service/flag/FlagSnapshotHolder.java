@@ -0,0 +1,116 @@
+package com.rex.service.flag;
+
+import com.rex.model.FeatureFlag;
+import com.rex.service.bucketing.BucketingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Holds the current {@link FlagSnapshot}. Readers get the snapshot with a single
+ * volatile read; writers swap in a new snapshot atomically.
+ * <p>
+ * Local mutations are published to the {@link FlagChangeBus}, which stamps them
+ * with a global version; once loaded, this holder subscribes to the bus and applies
+ * only the deltas, never re-reading the flag table after startup.
+ */
+@Component
+public class FlagSnapshotHolder {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlagSnapshotHolder.class);
+
+    private final AtomicReference<FlagSnapshot> current = new AtomicReference<>(FlagSnapshot.empty());
+    private final BucketingStrategy bucketing;
+    private final FlagChangeBus changeBus;
+
+    // Guarded by this
+    private FlagChangeBus.Subscription subscription;
+
+    public FlagSnapshotHolder(BucketingStrategy bucketing, FlagChangeBus changeBus) {
+        this.bucketing = bucketing;
+        this.changeBus = changeBus;
+        logger.info("Feature flag evaluation uses '{}' bucketing", bucketing.name());
+    }
+
+    /**
+     * Current snapshot. Never null.
+     */
+    public FlagSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Evaluate a flag for a user against the current snapshot. Unknown flags, and flags
+     * that exist only in another environment, evaluate to false.
+     * This is the proxy-free entry point for latency-sensitive callers.
+     */
+    public boolean isEnabled(String flagName, String userId, String environment) {
+        CompiledFlag flag = current.get().find(flagName, environment);
+        return flag != null && flag.isEnabledFor(userId);
+    }
+
+    /**
+     * Evaluate every active flag of an environment for one user in a single pass.
+     */
+    public FlagEvaluation evaluateAll(String userId, String environment) {
+        return current.get().environment(environment).evaluate(userId);
+    }
+
+    /**
+     * Replace the snapshot with one built from the loaded flags, then follow the bus.
+     * The snapshot is stamped with the version read before loading, and every change
+     * after it is replayed on top, so a change published while the flags were being
+     * read is never lost (applying it again when it was already read is harmless).
+     */
+    public synchronized void reload(Supplier<? extends Collection<FeatureFlag>> loader) {
+        if (subscription != null) {
+            subscription.close();
+        }
+        long version = changeBus.latestVersion();
+        FlagSnapshot snapshot = FlagSnapshot.of(loader.get(), bucketing, version);
+        current.set(snapshot);
+        subscription = changeBus.subscribe(version, this::apply);
+        if (!changeBus.canReplayFrom(version)) {
+            logger.warn("Flag changes after version {} are no longer retained, snapshot may miss some", version);
+        }
+        logger.info("Loaded feature flag snapshot with {} flags at version {}", snapshot.size(), current().getVersion());
+    }
+
+    /**
+     * Publish a changed flag. When called inside a transaction the new state becomes
+     * visible only after commit, so evaluations never observe rolled-back changes.
+     * The change records the environment the snapshot had for the flag, if it moved.
+     */
+    public void publish(FeatureFlag flag) {
+        CompiledFlag previous = flag.getId() != null ? current.get().findById(flag.getId()) : null;
+        FlagChangeEvent change = FlagChangeEvent.of(flag, previous != null ? previous.getEnvironment() : null);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changeBus.publish(change);
+                }
+            });
+        } else {
+            changeBus.publish(change);
+        }
+    }
+
+    /**
+     * Apply a delta from the bus. Changes already contained in the snapshot are ignored.
+     */
+    private void apply(FlagChangeEvent change) {
+        CompiledFlag compiled = CompiledFlag.from(change, bucketing);
+        current.updateAndGet(snapshot -> change.version() > snapshot.getVersion()
+                ? snapshot.with(compiled, change.version())
+                : snapshot);
+        logger.debug("Applied flag change version {}: {}", change.version(), compiled);
+    }
+}
@@ -0,0 +1,84 @@
+package com.rex.service.flag;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM {@link FlagChangeBus}. Keeps a bounded history of recent changes for
+ * catch-up and delivers changes synchronously in version order. Publishing is
+ * serialized, which is fine for the rate at which flags change.
+ */
+@Component
+public class InMemoryFlagChangeBus implements FlagChangeBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryFlagChangeBus.class);
+
+    private final int historySize;
+    private final ArrayDeque<FlagChangeEvent> history;
+    private final List<Consumer<FlagChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long latestVersion;
+
+    public InMemoryFlagChangeBus(@Value("${rex.flags.change-history-size:1000}") int historySize) {
+        this.historySize = historySize;
+        this.history = new ArrayDeque<>(historySize);
+    }
+
+    @Override
+    public synchronized FlagChangeEvent publish(FlagChangeEvent change) {
+        FlagChangeEvent versioned = change.withVersion(latestVersion + 1);
+        latestVersion = versioned.version();
+
+        if (history.size() == historySize) {
+            history.removeFirst();
+        }
+        history.addLast(versioned);
+
+        for (Consumer<FlagChangeEvent> listener : listeners) {
+            deliver(listener, versioned);
+        }
+        return versioned;
+    }
+
+    @Override
+    public long latestVersion() {
+        return latestVersion;
+    }
+
+    @Override
+    public synchronized boolean canReplayFrom(long version) {
+        if (version > latestVersion || version < 0) {
+            return false;
+        }
+        if (version == latestVersion) {
+            return true;
+        }
+        return !history.isEmpty() && history.peekFirst().version() <= version + 1;
+    }
+
+    @Override
+    public synchronized Subscription subscribe(long afterVersion, Consumer<FlagChangeEvent> listener) {
+        for (FlagChangeEvent change : history) {
+            if (change.version() > afterVersion) {
+                deliver(listener, change);
+            }
+        }
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    private void deliver(Consumer<FlagChangeEvent> listener, FlagChangeEvent change) {
+        try {
+            listener.accept(change);
+        } catch (RuntimeException e) {
+            logger.warn("Flag change listener failed for version {}: {}", change.version(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.rex.service.instrumentation;
+
+import com.rex.service.assignment.AssignmentWriter;
+import com.rex.service.metrics.AsyncMetricsSink;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Gauges and counters over the background write queues: the async metrics ring buffer
+ * (only in async ingestion mode) and the assignment writer. They read the queues'
+ * own statistics when scraped, so the producers do no extra work.
+ */
+@Component
+public class QueueMetricsBinder implements MeterBinder {
+
+    private final AsyncMetricsSink metricsSink;
+    private final AssignmentWriter assignmentWriter;
+
+    public QueueMetricsBinder(ObjectProvider<AsyncMetricsSink> metricsSink, AssignmentWriter assignmentWriter) {
+        this.metricsSink = metricsSink.getIfAvailable();
+        this.assignmentWriter = assignmentWriter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (metricsSink != null) {
+            Gauge.builder("rex.metrics.ingestion.queue.depth", metricsSink, AsyncMetricsSink::getQueueDepth)
+                    .description("Events buffered for the metrics writer")
+                    .register(registry);
+            Gauge.builder("rex.metrics.ingestion.queue.capacity", metricsSink, AsyncMetricsSink::getQueueCapacity)
+                    .description("Capacity of the metrics ring buffer")
+                    .register(registry);
+            eventCounter("written", AsyncMetricsSink::getWrittenCount, registry);
+            eventCounter("dropped", AsyncMetricsSink::getDroppedCount, registry);
+            eventCounter("spilled", AsyncMetricsSink::getSpilledCount, registry);
+            eventCounter("retried", AsyncMetricsSink::getRetriedCount, registry);
+            eventCounter("failed", AsyncMetricsSink::getFailedCount, registry);
+        }
+
+        Gauge.builder("rex.experiment.assignment.queue.depth", assignmentWriter, AssignmentWriter::getQueueDepth)
+                .description("New assignments waiting to be persisted")
+                .register(registry);
+        FunctionCounter.builder("rex.experiment.assignment.writes", assignmentWriter, AssignmentWriter::getWrittenCount)
+                .description("Assignments persisted by the assignment writer")
+                .tag("result", "written")
+                .register(registry);
+        FunctionCounter.builder("rex.experiment.assignment.writes", assignmentWriter, AssignmentWriter::getFailedCount)
+                .description("Assignments persisted by the assignment writer")
+                .tag("result", "failed")
+                .register(registry);
+    }
+
+    private void eventCounter(String result, ToDoubleFunction<AsyncMetricsSink> count,
+                              MeterRegistry registry) {
+        FunctionCounter.builder("rex.metrics.ingestion.events", metricsSink, count)
+                .description("Events handled by the async metrics writer")
+                .tag("result", result)
+                .register(registry);
+    }
+}
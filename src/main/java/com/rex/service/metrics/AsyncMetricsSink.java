@@ -0,0 +1,349 @@
+package com.rex.service.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rex.model.Metrics;
+import com.rex.service.instrumentation.HotPathMetrics;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous sink: track calls validate the event, copy it into a
+ * {@link MetricsRow} and enqueue it into a bounded lock-free {@link RingBuffer};
+ * a single background writer drains the buffer in batches of up to
+ * {@code batch-size} rows (waiting at most {@code max-batch-delay-ms} to fill a
+ * batch) and inserts each batch in one transaction via {@link JdbcMetricsWriter}.
+ * While the writer is not running (before start, after stop) events are written on
+ * the caller's thread.
+ * <p>
+ * Events become visible to queries once their batch commits. When the buffer is
+ * full the configured {@link BackpressurePolicy} applies. Failed batches are
+ * spilled for retry when spilling is enabled and counted as failed otherwise.
+ * <p>
+ * Every accepted event ends up written, failed or retried (spilled after a failed
+ * write). Spilled events, whether from backpressure or a failed write, count as
+ * written once the replay of their spill file has completed.
+ */
+@Component
+@ConditionalOnProperty(name = "rex.metrics.ingestion.mode", havingValue = "async")
+public class AsyncMetricsSink implements MetricsSink, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncMetricsSink.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final RingBuffer<MetricsRow> buffer;
+    private final JdbcMetricsWriter writer;
+    private final MetricsObservers observers;
+    private final HotPathMetrics hotPathMetrics;
+    private final Validator validator;
+    private final BackpressurePolicy backpressure;
+    private final MetricsSpillFile spillFile;
+    private final int batchSize;
+    private final long maxBatchDelayNanos;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean replaying;
+    private Thread writerThread;
+
+    @Autowired
+    public AsyncMetricsSink(JdbcMetricsWriter writer,
+                            ObjectProvider<MetricsObserver> observers,
+                            HotPathMetrics hotPathMetrics,
+                            Validator validator,
+                            ObjectMapper objectMapper,
+                            @Value("${rex.metrics.ingestion.buffer-capacity:65536}") int bufferCapacity,
+                            @Value("${rex.metrics.ingestion.batch-size:500}") int batchSize,
+                            @Value("${rex.metrics.ingestion.max-batch-delay-ms:50}") long maxBatchDelayMs,
+                            @Value("${rex.metrics.ingestion.backpressure:block}") String backpressure,
+                            @Value("${rex.metrics.ingestion.spill-directory:${java.io.tmpdir}/rex-metrics-spill}") String spillDirectory) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Metrics batch size must be positive: " + batchSize);
+        }
+        this.buffer = new RingBuffer<>(bufferCapacity);
+        this.writer = writer;
+        this.observers = new MetricsObservers(observers.orderedStream().toList());
+        this.hotPathMetrics = hotPathMetrics;
+        this.validator = validator;
+        this.backpressure = BackpressurePolicy.fromProperty(backpressure);
+        this.spillFile = this.backpressure == BackpressurePolicy.SPILL
+                ? new MetricsSpillFile(Path.of(spillDirectory), objectMapper)
+                : null;
+        this.batchSize = batchSize;
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMs);
+    }
+
+    // ============================================
+    // PRODUCER SIDE
+    // ============================================
+
+    @Override
+    public Metrics record(Metrics metrics) {
+        Set<ConstraintViolation<Metrics>> violations = validator.validate(metrics);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        if (metrics.getTimestamp() == null) {
+            metrics.setTimestamp(LocalDateTime.now());
+        }
+        enqueue(MetricsRow.from(metrics));
+        return metrics;
+    }
+
+    @Override
+    public List<Metrics> recordAll(List<Metrics> metrics) {
+        for (Metrics event : metrics) {
+            record(event);
+        }
+        return metrics;
+    }
+
+    private void enqueue(MetricsRow row) {
+        if (!running) {
+            // Before start or after stop nothing drains the buffer: write on the caller's thread
+            accepted.increment();
+            writeBatch(List.of(row));
+            return;
+        }
+        if (buffer.offer(row)) {
+            accepted.increment();
+            return;
+        }
+        switch (backpressure) {
+            case BLOCK -> {
+                while (!buffer.offer(row)) {
+                    if (!running) {
+                        // Stopped while waiting: no writer will make room
+                        accepted.increment();
+                        writeBatch(List.of(row));
+                        return;
+                    }
+                    LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+                }
+                accepted.increment();
+            }
+            case DROP -> dropped.increment();
+            case SPILL -> {
+                spillFile.append(row);
+                spilled.increment();
+            }
+        }
+    }
+
+    // ============================================
+    // WRITER SIDE
+    // ============================================
+
+    private void runWriter() {
+        List<MetricsRow> batch = new ArrayList<>(batchSize);
+        while (true) {
+            fillBatch(batch);
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            } else if (spillFile != null && spillFile.hasPending()) {
+                replaySpill();
+            } else if (!running) {
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Drain until the batch is full, the buffer is empty, or the oldest drained
+     * event has waited {@code maxBatchDelayNanos}.
+     */
+    private void fillBatch(List<MetricsRow> batch) {
+        long deadline = 0L;
+        while (batch.size() < batchSize) {
+            if (buffer.drainTo(batch, batchSize - batch.size()) > 0) {
+                if (deadline == 0L) {
+                    deadline = System.nanoTime() + maxBatchDelayNanos;
+                }
+                continue;
+            }
+            if (batch.isEmpty() || !running || System.nanoTime() - deadline >= 0) {
+                return;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void writeBatch(List<MetricsRow> batch) {
+        try {
+            written.addAndGet(writer.write(batch));
+            hotPathMetrics.ingestionLag(Duration.between(batch.get(0).timestamp(), LocalDateTime.now()).toNanos());
+            observers.notifyAll(batch);
+        } catch (RuntimeException e) {
+            if (spillFile != null) {
+                logger.warn("Metrics batch of {} failed, spilling for retry: {}", batch.size(), e.getMessage());
+                batch.forEach(spillFile::append);
+                retried.addAndGet(batch.size());
+            } else {
+                logger.error("Metrics batch of {} failed, events lost: {}", batch.size(), e.getMessage());
+                failed.addAndGet(batch.size());
+            }
+        }
+    }
+
+    private void replaySpill() {
+        // A failed replay is retried from the start of the file, so count only completed replays
+        long[] rowsWritten = {0};
+        replaying = true;
+        try {
+            spillFile.replay(batchSize, rows -> {
+                rowsWritten[0] += writer.write(rows);
+                observers.notifyAll(rows);
+            });
+            replayed.addAndGet(rowsWritten[0]);
+        } catch (Exception e) {
+            logger.warn("Replaying spilled metrics failed, will retry: {}", e.getMessage());
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+        } finally {
+            replaying = false;
+        }
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "metrics-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Async metrics ingestion started (buffer: {}, batch: {}, backpressure: {})",
+                buffer.capacity(), batchSize, backpressure);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            // The buffer has a single consumer: leave the rest to the writer, still finishing
+            logger.warn("Metrics writer did not finish within 30s, {} events still buffered", buffer.size());
+            return;
+        }
+        // Anything enqueued while the writer was finishing
+        List<MetricsRow> remaining = new ArrayList<>(batchSize);
+        while (buffer.drainTo(remaining, batchSize) > 0) {
+            writeBatch(remaining);
+            remaining.clear();
+        }
+        if (spillFile != null) {
+            spillFile.close();
+        }
+        logger.info("Async metrics ingestion stopped (written: {}, dropped: {}, spilled: {}, retried: {}, failed: {})",
+                getWrittenCount(), dropped.sum(), spilled.sum(), retried.get(), failed.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Wait until every event accepted into the buffer so far has been written or failed,
+     * and every spilled event has been replayed. Returns false on timeout.
+     */
+    public boolean awaitDrained(Duration timeout) {
+        long target = accepted.sum();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (written.get() + retried.get() + failed.get() < target || !buffer.isEmpty()
+                || (spillFile != null && (spillFile.hasPending() || replaying))) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return true;
+    }
+
+    // ============================================
+    // STATISTICS
+    // ============================================
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    public int getQueueCapacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Events written from the buffer or from a completed spill replay.
+     */
+    public long getWrittenCount() {
+        return written.get() + replayed.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Events spilled because the buffer was full.
+     */
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    /**
+     * Events spilled for retry after their batch failed to write.
+     */
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public BackpressurePolicy getBackpressure() {
+        return backpressure;
+    }
+}
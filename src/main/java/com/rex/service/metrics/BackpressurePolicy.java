@@ -0,0 +1,29 @@
+package com.rex.service.metrics;
+
+import java.util.Locale;
+
+/**
+ * What a track call does when the ingestion buffer is full.
+ */
+public enum BackpressurePolicy {
+
+    /** Wait until the writer frees space; no event is lost, callers slow down. */
+    BLOCK,
+
+    /** Discard the event and count it; callers never wait. */
+    DROP,
+
+    /** Append the event to a local spill file that the writer replays when it catches up. */
+    SPILL;
+
+    /**
+     * Parse a property value such as {@code block} or {@code SPILL}.
+     */
+    public static BackpressurePolicy fromProperty(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown metrics backpressure policy: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.rex.service.metrics;
+
+import com.rex.model.Metrics;
+import com.rex.service.dictionary.DictionaryService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Writes {@link MetricsRow}s with multi-row {@code INSERT ... VALUES (...), (...)}
+ * statements, one transaction per call. IDs come from {@code metrics_seq} in
+ * pooled blocks, fetched several blocks per round trip, so the ID space is shared
+ * with rows inserted through JPA. Dictionary-encoded columns are bound as their
+ * {@link DictionaryService} codes.
+ */
+@Component
+public class JdbcMetricsWriter {
+
+    /** Rows per INSERT statement; the full-size statement text is built once. */
+    static final int ROWS_PER_STATEMENT = 100;
+
+    private static final String COLUMNS = "id, user_id, feature_flag_id, experiment_id, event_type, event_name, "
+            + "event_value, variant_name, timestamp, session_id, user_agent, ip_address, page_url, referrer_url, "
+            + "environment, properties, conversion_value, revenue, count_value, duration_ms, error_message, "
+            + "device_type, platform";
+    private static final int COLUMN_COUNT = 23;
+
+    private static final String NEXT_ID_BLOCKS_SQL = "SELECT NEXT VALUE FOR metrics_seq FROM SYSTEM_RANGE(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DictionaryService dictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final String fullInsertSql = insertSql(ROWS_PER_STATEMENT);
+
+    // Pooled ID blocks: each sequence value is the highest ID of a block of ID_ALLOCATION_SIZE
+    private final ArrayDeque<Long> idBlocks = new ArrayDeque<>();
+    private long nextId = 1;
+    private long lastId = 0;
+
+    public JdbcMetricsWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             DictionaryService dictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionary = dictionary;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Insert all rows in one transaction. Returns the number of rows written.
+     */
+    public synchronized int write(List<MetricsRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        reserveIds(rows.size());
+        return transactionTemplate.execute(status -> {
+            int written = 0;
+            for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+                List<MetricsRow> chunk = rows.subList(from, Math.min(rows.size(), from + ROWS_PER_STATEMENT));
+                String sql = chunk.size() == ROWS_PER_STATEMENT ? fullInsertSql : insertSql(chunk.size());
+                written += jdbcTemplate.update(sql, statement -> bind(statement, chunk));
+            }
+            return written;
+        });
+    }
+
+    private void bind(PreparedStatement statement, List<MetricsRow> chunk) throws SQLException {
+        int index = 1;
+        for (MetricsRow row : chunk) {
+            statement.setLong(index++, takeId());
+            statement.setString(index++, row.userId());
+            setLong(statement, index++, row.featureFlagId());
+            setLong(statement, index++, row.experimentId());
+            statement.setString(index++, row.eventType().name());
+            statement.setString(index++, row.eventName());
+            setDouble(statement, index++, row.eventValue());
+            setCode(statement, index++, row.variantName());
+            statement.setTimestamp(index++, Timestamp.valueOf(row.timestamp()));
+            statement.setString(index++, row.sessionId());
+            statement.setString(index++, row.userAgent());
+            statement.setString(index++, row.ipAddress());
+            statement.setString(index++, row.pageUrl());
+            statement.setString(index++, row.referrerUrl());
+            setCode(statement, index++, row.environment());
+            statement.setString(index++, row.properties());
+            setDouble(statement, index++, row.conversionValue());
+            setDouble(statement, index++, row.revenue());
+            if (row.countValue() != null) {
+                statement.setInt(index++, row.countValue());
+            } else {
+                statement.setNull(index++, Types.INTEGER);
+            }
+            setLong(statement, index++, row.durationMs());
+            statement.setString(index++, row.errorMessage());
+            setCode(statement, index++, row.deviceType());
+            setCode(statement, index++, row.platform());
+        }
+    }
+
+    private void reserveIds(int count) {
+        while (true) {
+            long available = lastId - nextId + 1;
+            for (long high : idBlocks) {
+                available += Math.min(high, Metrics.ID_ALLOCATION_SIZE);
+            }
+            if (available >= count) {
+                return;
+            }
+            int blocks = (int) ((count - available + Metrics.ID_ALLOCATION_SIZE - 1) / Metrics.ID_ALLOCATION_SIZE);
+            idBlocks.addAll(jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blocks));
+        }
+    }
+
+    private long takeId() {
+        if (nextId > lastId) {
+            Long high = idBlocks.poll();
+            if (high == null) {
+                throw new IllegalStateException("No metrics IDs reserved");
+            }
+            lastId = high;
+            // The sequence starts at 1, so the very first block is just ID 1
+            nextId = Math.max(1, high - Metrics.ID_ALLOCATION_SIZE + 1);
+        }
+        return nextId++;
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value != null) {
+            statement.setLong(index, value);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static void setDouble(PreparedStatement statement, int index, Double value) throws SQLException {
+        if (value != null) {
+            statement.setDouble(index, value);
+        } else {
+            statement.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            row.append(i == 0 ? "?" : ", ?");
+        }
+        row.append(')');
+
+        StringBuilder sql = new StringBuilder("INSERT INTO metrics (").append(COLUMNS).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ", ").append(row);
+        }
+        return sql.toString();
+    }
+
+    private void setCode(PreparedStatement statement, int index, String value) throws SQLException {
+        Integer code = dictionary.encode(value);
+        if (code != null) {
+            statement.setInt(index, code);
+        } else {
+            statement.setNull(index, Types.INTEGER);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.rex.service.metrics;
+
+/**
+ * Receives every event once it is persisted, for incremental aggregates such as rollups.
+ * <p>
+ * The synchronous sink notifies after the inserting transaction commits; the
+ * asynchronous sink notifies from its writer thread after each batch commits.
+ * Implementations must be thread-safe, fast and must not block.
+ */
+public interface MetricsObserver {
+
+    void onRecorded(MetricsRow row);
+}
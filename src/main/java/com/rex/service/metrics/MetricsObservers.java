@@ -0,0 +1,54 @@
+package com.rex.service.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Fans persisted events out to the registered {@link MetricsObserver}s,
+ * isolating the sinks from observer failures.
+ */
+final class MetricsObservers {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsObservers.class);
+
+    private final List<MetricsObserver> observers;
+
+    MetricsObservers(List<MetricsObserver> observers) {
+        this.observers = List.copyOf(observers);
+    }
+
+    void notifyAll(List<MetricsRow> rows) {
+        for (MetricsObserver observer : observers) {
+            for (MetricsRow row : rows) {
+                try {
+                    observer.onRecorded(row);
+                } catch (RuntimeException e) {
+                    logger.warn("Metrics observer {} failed: {}", observer.getClass().getSimpleName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify once the current transaction commits, or immediately when there is none.
+     */
+    void notifyAfterCommit(List<MetricsRow> rows) {
+        if (observers.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    MetricsObservers.this.notifyAll(rows);
+                }
+            });
+        } else {
+            notifyAll(rows);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.rex.service.metrics;
+
+import com.rex.model.Metrics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, immutable copy of a {@link Metrics} event as it is written to the
+ * {@code metrics} table. Associations are reduced to their IDs so rows can be
+ * handed to the background writer (or spilled to disk) without touching the
+ * persistence context of the thread that recorded them.
+ */
+public record MetricsRow(
+        String userId,
+        Long featureFlagId,
+        Long experimentId,
+        Metrics.EventType eventType,
+        String eventName,
+        Double eventValue,
+        String variantName,
+        LocalDateTime timestamp,
+        String sessionId,
+        String userAgent,
+        String ipAddress,
+        String pageUrl,
+        String referrerUrl,
+        String environment,
+        String properties,
+        Double conversionValue,
+        Double revenue,
+        Integer countValue,
+        Long durationMs,
+        String errorMessage,
+        String deviceType,
+        String platform) {
+
+    /**
+     * Copy an event. The event's timestamp must already be set.
+     */
+    public static MetricsRow from(Metrics metrics) {
+        return new MetricsRow(
+                metrics.getUserId(),
+                metrics.getFeatureFlagId(),
+                metrics.getExperimentId(),
+                metrics.getEventType(),
+                metrics.getEventName(),
+                metrics.getEventValue(),
+                metrics.getVariantName(),
+                metrics.getTimestamp(),
+                metrics.getSessionId(),
+                metrics.getUserAgent(),
+                metrics.getIpAddress(),
+                metrics.getPageUrl(),
+                metrics.getReferrerUrl(),
+                metrics.getEnvironment(),
+                metrics.getProperties(),
+                metrics.getConversionValue(),
+                metrics.getRevenue(),
+                metrics.getCountValue(),
+                metrics.getDurationMs(),
+                metrics.getErrorMessage(),
+                metrics.getDeviceType(),
+                metrics.getPlatform());
+    }
+}
@@ -0,0 +1,24 @@
+package com.rex.service.metrics;
+
+import com.rex.model.Metrics;
+
+import java.util.List;
+
+/**
+ * Destination for tracked events. Selected with {@code rex.metrics.ingestion.mode}:
+ * {@code sync} persists on the caller's thread, {@code async} hands events to a
+ * background batch writer.
+ */
+public interface MetricsSink {
+
+    /**
+     * Record one event and return it. Asynchronous sinks return the event before
+     * it is persisted, so its ID is not yet assigned.
+     */
+    Metrics record(Metrics metrics);
+
+    /**
+     * Record several events.
+     */
+    List<Metrics> recordAll(List<Metrics> metrics);
+}
@@ -0,0 +1,123 @@
+package com.rex.service.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Overflow storage for the asynchronous sink: rows that do not fit in the
+ * buffer are appended as JSON lines to {@code metrics.spill}. To replay, the
+ * writer moves the file aside to {@code metrics.replay} and streams it back in
+ * batches; a replay file left behind by a crash is picked up on the next start.
+ * Replay is at-least-once: a failure mid-file retries the whole file later.
+ */
+class MetricsSpillFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsSpillFile.class);
+
+    private final Path spillFile;
+    private final Path replayFile;
+    private final ObjectMapper objectMapper;
+
+    private BufferedWriter writer;
+
+    MetricsSpillFile(Path directory, ObjectMapper objectMapper) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create metrics spill directory " + directory, e);
+        }
+        this.spillFile = directory.resolve("metrics.spill");
+        this.replayFile = directory.resolve("metrics.replay");
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Append one row. Called by producers when the buffer is full.
+     */
+    synchronized void append(MetricsRow row) {
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill metrics event", e);
+        }
+    }
+
+    /**
+     * Whether there are spilled rows waiting to be replayed.
+     */
+    synchronized boolean hasPending() {
+        return writer != null || Files.exists(spillFile) || Files.exists(replayFile);
+    }
+
+    /**
+     * Stream spilled rows back in batches of up to {@code batchSize}. The replay
+     * file is deleted only after every batch was accepted by {@code batchConsumer}.
+     */
+    void replay(int batchSize, Consumer<List<MetricsRow>> batchConsumer) throws IOException {
+        synchronized (this) {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            if (!Files.exists(replayFile) && Files.exists(spillFile)) {
+                Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        if (!Files.exists(replayFile)) {
+            return;
+        }
+
+        long replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            List<MetricsRow> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(objectMapper.readValue(line, MetricsRow.class));
+                if (batch.size() == batchSize) {
+                    batchConsumer.accept(batch);
+                    replayed += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+                replayed += batch.size();
+            }
+        }
+        Files.delete(replayFile);
+        logger.info("Replayed {} spilled metrics events", replayed);
+    }
+
+    synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close metrics spill file: {}", e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.rex.service.metrics;
+
+import com.rex.model.Metrics;
+import com.rex.repository.MetricsRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Synchronous sink: every event is inserted through JPA in the caller's transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "rex.metrics.ingestion.mode", havingValue = "sync", matchIfMissing = true)
+public class RepositoryMetricsSink implements MetricsSink {
+
+    private final MetricsRepository metricsRepository;
+    private final MetricsObservers observers;
+
+    public RepositoryMetricsSink(MetricsRepository metricsRepository, ObjectProvider<MetricsObserver> observers) {
+        this.metricsRepository = metricsRepository;
+        this.observers = new MetricsObservers(observers.orderedStream().toList());
+    }
+
+    @Override
+    public Metrics record(Metrics metrics) {
+        Metrics saved = metricsRepository.save(metrics);
+        observers.notifyAfterCommit(List.of(MetricsRow.from(saved)));
+        return saved;
+    }
+
+    @Override
+    public List<Metrics> recordAll(List<Metrics> metrics) {
+        List<Metrics> saved = metricsRepository.saveAll(metrics);
+        observers.notifyAfterCommit(saved.stream().map(MetricsRow::from).toList());
+        return saved;
+    }
+}
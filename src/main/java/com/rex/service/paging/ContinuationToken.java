@@ -0,0 +1,70 @@
+package com.rex.service.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position of the last row of a page: the row's sort key and its ID as a tie
+ * breaker. Handed to clients as an opaque URL-safe string and decoded back into the
+ * bounds of a seek predicate; a null token means "from the start".
+ */
+public record ContinuationToken(String sortKey, long id) {
+
+    private static final String VERSION = "1";
+    private static final char SEPARATOR = '|';
+
+    /** Seek bound before every row of a newest-first (timestamp, id) ordering. */
+    public static final LocalDateTime MAX_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public static ContinuationToken of(LocalDateTime timestamp, long id) {
+        return new ContinuationToken(timestamp.toString(), id);
+    }
+
+    public static ContinuationToken of(long sortKey, long id) {
+        return new ContinuationToken(Long.toString(sortKey), id);
+    }
+
+    public static ContinuationToken of(long id) {
+        return new ContinuationToken("", id);
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     */
+    public static ContinuationToken decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = value.indexOf(SEPARATOR);
+            int last = value.lastIndexOf(SEPARATOR);
+            if (first < 0 || first == last || !value.substring(0, first).equals(VERSION)) {
+                throw new IllegalArgumentException("Invalid continuation token: " + token);
+            }
+            return new ContinuationToken(value.substring(first + 1, last), Long.parseLong(value.substring(last + 1)));
+        } catch (IllegalArgumentException e) {
+            // Also covers malformed Base64 and a malformed ID (NumberFormatException)
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String value = VERSION + SEPARATOR + sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime timestamp() {
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Continuation token does not hold a timestamp", e);
+        }
+    }
+
+    public long longKey() {
+        try {
+            return Long.parseLong(sortKey);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Continuation token does not hold a numeric key", e);
+        }
+    }
+}
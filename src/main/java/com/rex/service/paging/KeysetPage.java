@@ -0,0 +1,69 @@
+package com.rex.service.paging;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated query and the opaque token of the next page
+ * (null on the last page).
+ */
+public record KeysetPage<T>(List<T> items, String nextToken) {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Build a page from a query that fetched up to {@code pageSize + 1} rows: the extra
+     * row only tells that there is a next page, which continues after the last kept row.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, ContinuationToken> position) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, position.apply(items.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Validate a requested page size.
+     */
+    public static int checkPageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+        return pageSize;
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+    /**
+     * Iterate over the items of every page, fetching the next page (by its token, null
+     * for the first) only when the current one is used up.
+     */
+    public static <T> Iterator<T> iterate(Function<String, KeysetPage<T>> fetchPage) {
+        return new Iterator<>() {
+            private KeysetPage<T> page = fetchPage.apply(null);
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index == page.items().size() && page.hasNext()) {
+                    page = fetchPage.apply(page.nextToken());
+                    index = 0;
+                }
+                return index < page.items().size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.items().get(index++);
+            }
+        };
+    }
+}
@@ -0,0 +1,306 @@
+package com.rex.service.retention;
+
+import com.rex.model.RetentionCheckpoint;
+import com.rex.repository.MetricsRepository;
+import com.rex.repository.RetentionCheckpointRepository;
+import com.rex.service.cache.AnalyticsResultCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Chunked retention purge for raw metrics.
+ * <p>
+ * A purge fixes the ID range of metrics older than the cutoff, then walks it in
+ * key-range chunks of {@code rex.metrics.retention.chunk-size} IDs. Each chunk is one
+ * bulk DELETE in its own short transaction, which also advances a
+ * {@link RetentionCheckpoint}; a purge interrupted by a crash or shutdown therefore
+ * resumes after the last committed chunk (automatically on the next startup).
+ * Deletion is throttled to {@code rex.metrics.retention.max-rows-per-second}.
+ * Age-based retention instead drops whole day partitions ({@code partition_day}), each
+ * in the same throttled key-range chunks. On H2 the partition key is only an indexed
+ * generated column, not a partitioned table: there is no partition pruning and dropping
+ * a partition is a chunked DELETE rather than a metadata operation.
+ * Experiment rollups and unique-user sketches are not affected; cached analytics
+ * ({@link AnalyticsResultCache}) are invalidated after every committed deletion.
+ */
+@Service
+public class MetricsRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRetentionService.class);
+
+    static final String JOB_NAME = "metrics";
+
+    private final MetricsRepository metricsRepository;
+    private final RetentionCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalyticsResultCache analyticsCache;
+    private final int chunkSize;
+    private final long maxRowsPerSecond;
+    private final int maxAgeDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder reclaimedRows = new LongAdder();
+    private volatile boolean stopping;
+    private volatile double rowsPerSecond;
+
+    @Autowired
+    public MetricsRetentionService(MetricsRepository metricsRepository,
+                                   RetentionCheckpointRepository checkpointRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   AnalyticsResultCache analyticsCache,
+                                   @Value("${rex.metrics.retention.chunk-size:5000}") int chunkSize,
+                                   @Value("${rex.metrics.retention.max-rows-per-second:20000}") long maxRowsPerSecond,
+                                   @Value("${rex.metrics.retention.max-age-days:90}") int maxAgeDays) {
+        if (chunkSize < 1 || maxRowsPerSecond < 1) {
+            throw new IllegalArgumentException("Retention chunk size and rows-per-second budget must be positive");
+        }
+        this.metricsRepository = metricsRepository;
+        this.checkpointRepository = checkpointRepository;
+        // Every chunk commits on its own, even when the caller has a transaction open
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.analyticsCache = analyticsCache;
+        this.chunkSize = chunkSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    // ============================================
+    // PURGE
+    // ============================================
+
+    /**
+     * Delete metrics older than the cutoff on the calling thread. An unfinished earlier
+     * purge is completed first. Returns the final progress.
+     */
+    public RetentionProgress purge(LocalDateTime cutoff) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A metrics retention purge is already running");
+        }
+        RetentionCheckpoint checkpoint;
+        try {
+            checkpoint = transactionTemplate.execute(status ->
+                    checkpointRepository.findById(JOB_NAME).orElse(null));
+            if (checkpoint != null && checkpoint.isRunning()) {
+                logger.info("Resuming metrics purge before {} at ID {}", checkpoint.getCutoff(), checkpoint.getNextId());
+                checkpoint = run(checkpoint);
+            }
+            if (!stopping && (checkpoint == null || checkpoint.getCutoff().isBefore(cutoff))) {
+                RetentionCheckpoint started = start(cutoff);
+                if (started != null) {
+                    checkpoint = run(started);
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        return progress(checkpoint);
+    }
+
+    /**
+     * Start a purge on a background thread. Returns immediately.
+     */
+    public void startPurge(LocalDateTime cutoff) {
+        if (running.get()) {
+            throw new IllegalStateException("A metrics retention purge is already running");
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                purge(cutoff);
+            } catch (RuntimeException e) {
+                logger.error("Metrics retention purge failed: {}", e.getMessage(), e);
+            }
+        }, "metrics-retention");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Drop the day partitions older than {@code rex.metrics.retention.max-age-days} on the
+     * configured schedule ({@code rex.metrics.retention.cron}, disabled by default).
+     */
+    @Scheduled(cron = "${rex.metrics.retention.cron:-}")
+    public void purgeExpired() {
+        if (running.get()) {
+            logger.info("Skipping scheduled metrics purge, one is already running");
+            return;
+        }
+        dropPartitionsBefore(LocalDate.now().minusDays(maxAgeDays));
+    }
+
+    /**
+     * Drop every non-empty day partition before the given day, oldest first. Each partition is
+     * deleted in key-range chunks of {@code chunk-size} IDs, one transaction per chunk,
+     * throttled like a purge. Returns the number of rows deleted.
+     */
+    public long dropPartitionsBefore(LocalDate day) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A metrics retention purge is already running");
+        }
+        long dropped = 0;
+        try {
+            List<LocalDate> partitions = transactionTemplate.execute(status ->
+                    metricsRepository.findPartitionDaysBefore(day));
+            long startNanos = System.nanoTime();
+            for (LocalDate partition : partitions) {
+                if (stopping) {
+                    break;
+                }
+                long deleted = dropPartition(partition, dropped, startNanos);
+                if (deleted > 0) {
+                    logger.info("Dropped metrics partition {} ({} rows)", partition, deleted);
+                }
+                dropped += deleted;
+            }
+        } finally {
+            running.set(false);
+        }
+        return dropped;
+    }
+
+    /**
+     * Delete one day partition chunk by chunk. Rows of the day are exactly those older
+     * than the start of the next day, so the purge's chunk delete applies unchanged.
+     */
+    private long dropPartition(LocalDate day, long droppedBefore, long startNanos) {
+        List<Object[]> range = transactionTemplate.execute(status -> metricsRepository.findIdRangeOfPartition(day));
+        Object[] bounds = range.isEmpty() ? null : range.get(0);
+        if (bounds == null || bounds[0] == null) {
+            return 0;
+        }
+        long lastId = (Long) bounds[1];
+        LocalDateTime cutoff = day.plusDays(1).atStartOfDay();
+        long deleted = 0;
+        for (long fromId = (Long) bounds[0]; fromId <= lastId && !stopping; fromId += chunkSize) {
+            long from = fromId;
+            long to = Math.min(fromId + chunkSize, lastId + 1);
+            int chunk = transactionTemplate.execute(status -> metricsRepository.deleteChunkBefore(from, to, cutoff));
+            if (chunk > 0) {
+                analyticsCache.advanceWatermark();
+            }
+            deleted += chunk;
+            reclaimedRows.add(chunk);
+            throttle(droppedBefore + deleted, System.nanoTime() - startNanos);
+        }
+        return deleted;
+    }
+
+    /**
+     * Resume a purge interrupted by a crash or shutdown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedPurge() {
+        RetentionCheckpoint checkpoint = transactionTemplate.execute(status ->
+                checkpointRepository.findById(JOB_NAME).orElse(null));
+        if (checkpoint != null && checkpoint.isRunning()) {
+            startPurge(checkpoint.getCutoff());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    private RetentionCheckpoint start(LocalDateTime cutoff) {
+        return transactionTemplate.execute(status -> {
+            List<Object[]> range = metricsRepository.findIdRangeBefore(cutoff);
+            Object[] bounds = range.isEmpty() ? null : range.get(0);
+            if (bounds == null || bounds[0] == null) {
+                logger.info("No metrics older than {} to purge", cutoff);
+                return null;
+            }
+            RetentionCheckpoint checkpoint = new RetentionCheckpoint(JOB_NAME, cutoff, (Long) bounds[0], (Long) bounds[1]);
+            logger.info("Purging metrics older than {} in ID range [{}, {}]", cutoff, bounds[0], bounds[1]);
+            return checkpointRepository.save(checkpoint);
+        });
+    }
+
+    private RetentionCheckpoint run(RetentionCheckpoint initial) {
+        RetentionCheckpoint checkpoint = initial;
+        long deletedThisRun = 0;
+        long startNanos = System.nanoTime();
+
+        while (checkpoint.isRunning() && !stopping) {
+            long fromId = checkpoint.getNextId();
+            long toId = Math.min(fromId + chunkSize, checkpoint.getLastId() + 1);
+            checkpoint = transactionTemplate.execute(status -> {
+                RetentionCheckpoint current = checkpointRepository.findById(JOB_NAME)
+                        .orElseThrow(() -> new IllegalStateException("Retention checkpoint disappeared"));
+                int deleted = metricsRepository.deleteChunkBefore(fromId, toId, current.getCutoff());
+                current.advance(toId, deleted);
+                return checkpointRepository.save(current);
+            });
+            long deleted = checkpoint.getDeletedRows() - (initial.getDeletedRows() + deletedThisRun);
+            if (deleted > 0) {
+                analyticsCache.advanceWatermark();
+            }
+            deletedThisRun += deleted;
+            reclaimedRows.add(deleted);
+
+            long elapsedNanos = System.nanoTime() - startNanos;
+            rowsPerSecond = elapsedNanos > 0 ? deletedThisRun * 1e9 / elapsedNanos : 0;
+            throttle(deletedThisRun, elapsedNanos);
+        }
+
+        if (checkpoint.isRunning()) {
+            logger.info("Metrics purge paused at ID {} ({} rows deleted), will resume", checkpoint.getNextId(),
+                    checkpoint.getDeletedRows());
+        } else {
+            logger.info("Metrics purge before {} completed: {} rows deleted", checkpoint.getCutoff(),
+                    checkpoint.getDeletedRows());
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Sleep until the rows deleted so far fit the rows-per-second budget.
+     */
+    private void throttle(long deletedRows, long elapsedNanos) {
+        long budgetNanos = deletedRows * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond;
+        long waitNanos = budgetNanos - elapsedNanos;
+        if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    // ============================================
+    // PROGRESS
+    // ============================================
+
+    /**
+     * Current or last purge progress.
+     */
+    public RetentionProgress getProgress() {
+        return progress(transactionTemplate.execute(status -> checkpointRepository.findById(JOB_NAME).orElse(null)));
+    }
+
+    private RetentionProgress progress(RetentionCheckpoint checkpoint) {
+        if (checkpoint == null) {
+            return new RetentionProgress(JOB_NAME, running.get(), null, null, null, null, 0.0, 0L,
+                    reclaimedRows.sum(), rowsPerSecond, null, null);
+        }
+        return new RetentionProgress(JOB_NAME, running.get(), checkpoint.getStatus(), checkpoint.getCutoff(),
+                checkpoint.getNextId(), checkpoint.getLastId(), checkpoint.getProgressPercentage(),
+                checkpoint.getDeletedRows(), reclaimedRows.sum(), rowsPerSecond,
+                checkpoint.getStartedAt(), checkpoint.getCompletedAt());
+    }
+}
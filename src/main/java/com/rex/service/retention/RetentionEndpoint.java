@@ -0,0 +1,43 @@
+package com.rex.service.retention;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Actuator endpoint {@code /actuator/retention}: GET reports purge progress,
+ * POST starts a background purge of metrics older than {@code maxAgeDays}.
+ */
+@Component
+@Endpoint(id = "retention")
+public class RetentionEndpoint {
+
+    private final MetricsRetentionService retentionService;
+    private final int defaultMaxAgeDays;
+
+    public RetentionEndpoint(MetricsRetentionService retentionService,
+                             @Value("${rex.metrics.retention.max-age-days:90}") int defaultMaxAgeDays) {
+        this.retentionService = retentionService;
+        this.defaultMaxAgeDays = defaultMaxAgeDays;
+    }
+
+    @ReadOperation
+    public RetentionProgress progress() {
+        return retentionService.getProgress();
+    }
+
+    @WriteOperation
+    public RetentionProgress purge(@Nullable Integer maxAgeDays) {
+        int days = maxAgeDays != null ? maxAgeDays : defaultMaxAgeDays;
+        if (days < 0) {
+            throw new IllegalArgumentException("maxAgeDays cannot be negative");
+        }
+        retentionService.startPurge(LocalDateTime.now().minusDays(days));
+        return retentionService.getProgress();
+    }
+}
@@ -0,0 +1,28 @@
+package com.rex.service.retention;
+
+import com.rex.model.RetentionCheckpoint;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the retention purge state, as reported through Actuator.
+ *
+ * @param running            whether a purge is executing right now
+ * @param status             status of the latest purge, or null if none ever ran
+ * @param deletedRows        rows deleted by the latest purge
+ * @param reclaimedRowsTotal rows deleted by all purges since startup
+ * @param rowsPerSecond      deletion rate of the latest purge while it was running here
+ */
+public record RetentionProgress(String jobName,
+                                boolean running,
+                                RetentionCheckpoint.Status status,
+                                LocalDateTime cutoff,
+                                Long nextId,
+                                Long lastId,
+                                double progressPercentage,
+                                long deletedRows,
+                                long reclaimedRowsTotal,
+                                double rowsPerSecond,
+                                LocalDateTime startedAt,
+                                LocalDateTime completedAt) {
+}
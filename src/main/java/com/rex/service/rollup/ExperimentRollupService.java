@@ -0,0 +1,371 @@
+package com.rex.service.rollup;
+
+import com.rex.dto.FunnelStep;
+import com.rex.dto.VariantConversion;
+import com.rex.dto.VariantPerformance;
+import com.rex.dto.VariantRevenue;
+import com.rex.model.MetricRollup;
+import com.rex.model.Metrics;
+import com.rex.repository.MetricRollupRepository;
+import com.rex.repository.MetricsRepository;
+import com.rex.service.metrics.MetricsObserver;
+import com.rex.service.metrics.MetricsRow;
+import com.rex.service.sketch.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Incremental experiment rollups.
+ * <p>
+ * Every persisted experiment event updates three cells: its minute, its hour and
+ * the all-time total of (experiment, variant, event type). Cells hold counters,
+ * sums and a HyperLogLog of user IDs, all updated without locks. Totals stay in
+ * memory and answer the experiment summaries in time proportional to the number
+ * of variants, independent of event volume. Minute and hour cells are flushed to
+ * {@code metric_rollups} periodically and evicted once their bucket has closed.
+ * <p>
+ * Distinct users in rollups are always estimates; with
+ * {@code rex.metrics.distinct-mode=exact} MetricsService answers experiment
+ * performance from raw events instead.
+ * <p>
+ * On startup the all-time totals are restored from {@code metric_rollups}; when the
+ * table is empty they are backfilled once from the raw {@code metrics} table.
+ * Rollups are not trimmed by raw-event retention.
+ */
+@Service
+public class ExperimentRollupService implements MetricsObserver, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExperimentRollupService.class);
+
+    /** How long a closed minute/hour bucket stays in memory for late events before eviction. */
+    private static final long EVICTION_GRACE_MINUTES = 2;
+
+    private static final List<Metrics.EventType> FUNNEL = List.of(
+            Metrics.EventType.EXPERIMENT_EXPOSURE, Metrics.EventType.CLICK, Metrics.EventType.CONVERSION);
+
+    private static final Comparator<String> VARIANT_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final MetricRollupRepository rollupRepository;
+    private final MetricsRepository metricsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<RollupKey, RollupCell> openCells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<RollupKey, RollupCell>> totals = new ConcurrentHashMap<>();
+    private List<RollupCell> retiring = new ArrayList<>();
+
+    @Autowired
+    public ExperimentRollupService(MetricRollupRepository rollupRepository,
+                                   MetricsRepository metricsRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.metricsRepository = metricsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ============================================
+    // INGESTION
+    // ============================================
+
+    @Override
+    public void onRecorded(MetricsRow row) {
+        if (row.experimentId() == null) {
+            return;
+        }
+        record(row.experimentId(), row.variantName(), row.eventType(), row.timestamp(),
+                row.userId(), row.eventValue(), row.revenue());
+    }
+
+    private void record(Long experimentId, String variantName, Metrics.EventType eventType,
+                        LocalDateTime timestamp, String userId, Double eventValue, Double revenue) {
+        LocalDateTime at = timestamp != null ? timestamp : LocalDateTime.now();
+        long userHash = HyperLogLog.hash(userId);
+
+        openCell(new RollupKey(experimentId, variantName, eventType,
+                MetricRollup.Granularity.MINUTE, at.truncatedTo(ChronoUnit.MINUTES)))
+                .add(userHash, eventValue, revenue);
+        openCell(new RollupKey(experimentId, variantName, eventType,
+                MetricRollup.Granularity.HOUR, at.truncatedTo(ChronoUnit.HOURS)))
+                .add(userHash, eventValue, revenue);
+        totalCell(new RollupKey(experimentId, variantName, eventType,
+                MetricRollup.Granularity.TOTAL, MetricRollup.ALL_TIME))
+                .add(userHash, eventValue, revenue);
+    }
+
+    private RollupCell openCell(RollupKey key) {
+        RollupCell cell = openCells.get(key);
+        return cell != null ? cell : openCells.computeIfAbsent(key, RollupCell::new);
+    }
+
+    private RollupCell totalCell(RollupKey key) {
+        ConcurrentHashMap<RollupKey, RollupCell> cells = totals.get(key.experimentId());
+        if (cells == null) {
+            cells = totals.computeIfAbsent(key.experimentId(), id -> new ConcurrentHashMap<>());
+        }
+        RollupCell cell = cells.get(key);
+        return cell != null ? cell : cells.computeIfAbsent(key, RollupCell::new);
+    }
+
+    // ============================================
+    // SUMMARIES (same rows as MetricsRepository)
+    // ============================================
+
+    /**
+     * Performance of each variant, in variant order.
+     */
+    public List<VariantPerformance> getExperimentPerformance(Long experimentId) {
+        Map<String, List<RollupCell>> byVariant = new TreeMap<>(VARIANT_ORDER);
+        for (RollupCell cell : totalsOf(experimentId)) {
+            byVariant.computeIfAbsent(cell.key().variantName(), k -> new ArrayList<>()).add(cell);
+        }
+
+        List<VariantPerformance> rows = new ArrayList<>(byVariant.size());
+        byVariant.forEach((variantName, cells) -> {
+            long totalEvents = 0;
+            long conversions = 0;
+            double valueSum = 0;
+            long valueCount = 0;
+            double revenueSum = 0;
+            long revenueCount = 0;
+            List<HyperLogLog> sketches = new ArrayList<>(cells.size());
+            for (RollupCell cell : cells) {
+                long events = cell.eventCount();
+                totalEvents += events;
+                if (cell.key().eventType() == Metrics.EventType.CONVERSION) {
+                    conversions += events;
+                }
+                valueSum += cell.valueSum();
+                valueCount += cell.valueCount();
+                revenueSum += cell.revenueSum();
+                revenueCount += cell.revenueCount();
+                sketches.add(cell.users());
+            }
+            rows.add(new VariantPerformance(
+                    variantName,
+                    totalEvents,
+                    conversions,
+                    HyperLogLog.union(sketches).estimate(),
+                    valueCount > 0 ? valueSum / valueCount : null,
+                    revenueCount > 0 ? revenueSum : null));
+        });
+        return rows;
+    }
+
+    /**
+     * Funnel steps (exposure, click, conversion) per variant, in variant and step order.
+     */
+    public List<FunnelStep> getConversionFunnel(Long experimentId) {
+        List<FunnelStep> rows = new ArrayList<>();
+        for (RollupCell cell : totalsOf(experimentId)) {
+            Metrics.EventType eventType = cell.key().eventType();
+            if (FUNNEL.contains(eventType) && cell.eventCount() > 0) {
+                rows.add(new FunnelStep(eventType, cell.key().variantName(), cell.eventCount()));
+            }
+        }
+        rows.sort(Comparator.comparing(FunnelStep::variantName, VARIANT_ORDER)
+                .thenComparingInt(step -> FUNNEL.indexOf(step.eventType())));
+        return rows;
+    }
+
+    /**
+     * Variants with at least {@code minExposures} exposures, best conversion rate first.
+     */
+    public List<VariantConversion> getTopPerformingVariants(Long minExposures) {
+        List<VariantConversion> rows = new ArrayList<>();
+        totals.forEach((experimentId, cells) -> {
+            Map<String, long[]> byVariant = new LinkedHashMap<>();
+            for (RollupCell cell : cells.values()) {
+                long[] counts = byVariant.computeIfAbsent(cell.key().variantName(), k -> new long[2]);
+                if (cell.key().eventType() == Metrics.EventType.CONVERSION) {
+                    counts[0] += cell.eventCount();
+                } else if (cell.key().eventType() == Metrics.EventType.EXPERIMENT_EXPOSURE) {
+                    counts[1] += cell.eventCount();
+                }
+            }
+            byVariant.forEach((variantName, counts) -> {
+                if (counts[1] >= minExposures) {
+                    double rate = counts[1] > 0 ? (double) counts[0] / counts[1] * 100 : 0.0;
+                    rows.add(new VariantConversion(experimentId, variantName, counts[0], counts[1], rate));
+                }
+            });
+        });
+        rows.sort(Comparator.comparingDouble(VariantConversion::conversionRate).reversed());
+        return rows;
+    }
+
+    /**
+     * Positive revenue per experiment variant, highest total first.
+     */
+    public List<VariantRevenue> getRevenueMetrics() {
+        List<VariantRevenue> rows = new ArrayList<>();
+        totals.forEach((experimentId, cells) -> {
+            Map<String, double[]> byVariant = new LinkedHashMap<>();
+            for (RollupCell cell : cells.values()) {
+                double[] revenue = byVariant.computeIfAbsent(cell.key().variantName(), k -> new double[2]);
+                revenue[0] += cell.positiveRevenueSum();
+                revenue[1] += cell.positiveRevenueCount();
+            }
+            byVariant.forEach((variantName, revenue) -> {
+                if (revenue[1] > 0) {
+                    rows.add(new VariantRevenue(experimentId, variantName, revenue[0], revenue[0] / revenue[1],
+                            (long) revenue[1]));
+                }
+            });
+        });
+        rows.sort(Comparator.comparingDouble(VariantRevenue::totalRevenue).reversed());
+        return rows;
+    }
+
+    /**
+     * Estimated distinct users and value moments of the given event types for each variant
+     * of an experiment that has such events. Events without a variant are left out.
+     */
+    public Map<String, VariantTotals> getVariantTotals(Long experimentId, Set<Metrics.EventType> eventTypes) {
+        Map<String, List<RollupCell>> byVariant = new TreeMap<>(VARIANT_ORDER);
+        for (RollupCell cell : totalsOf(experimentId)) {
+            if (cell.key().variantName() != null && eventTypes.contains(cell.key().eventType())) {
+                byVariant.computeIfAbsent(cell.key().variantName(), k -> new ArrayList<>()).add(cell);
+            }
+        }
+
+        Map<String, VariantTotals> totalsByVariant = new LinkedHashMap<>();
+        byVariant.forEach((variantName, cells) -> {
+            long valueCount = 0;
+            double valueSum = 0;
+            double valueSquareSum = 0;
+            List<HyperLogLog> sketches = new ArrayList<>(cells.size());
+            for (RollupCell cell : cells) {
+                valueCount += cell.valueCount();
+                valueSum += cell.valueSum();
+                valueSquareSum += cell.valueSquareSum();
+                sketches.add(cell.users());
+            }
+            totalsByVariant.put(variantName, new VariantTotals(
+                    HyperLogLog.union(sketches).estimate(), valueCount, valueSum, valueSquareSum));
+        });
+        return totalsByVariant;
+    }
+
+    /**
+     * Persisted minute or hour rollups of an experiment since a point in time.
+     */
+    public List<MetricRollup> getExperimentSeries(Long experimentId, MetricRollup.Granularity granularity,
+                                                  LocalDateTime since) {
+        return transactionTemplate.execute(status -> rollupRepository.findSeries(experimentId, granularity, since));
+    }
+
+    private Iterable<RollupCell> totalsOf(Long experimentId) {
+        Map<RollupKey, RollupCell> cells = totals.get(experimentId);
+        return cells != null ? cells.values() : List.of();
+    }
+
+    // ============================================
+    // PERSISTENCE
+    // ============================================
+
+    /**
+     * Restore totals, or backfill them from raw events when no rollups exist yet.
+     * Runs after all singletons (and the sample data) are initialized, before the
+     * metrics writer or web server start delivering events.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<MetricRollup> persisted = transactionTemplate.execute(status ->
+                rollupRepository.findByGranularity(MetricRollup.Granularity.TOTAL));
+        if (persisted != null && !persisted.isEmpty()) {
+            for (MetricRollup row : persisted) {
+                RollupCell cell = RollupCell.restore(row);
+                totals.computeIfAbsent(row.getExperimentId(), id -> new ConcurrentHashMap<>()).put(cell.key(), cell);
+            }
+            logger.info("Restored {} experiment rollup totals", persisted.size());
+            return;
+        }
+
+        long backfilled = transactionTemplate.execute(status -> {
+            try (Stream<Object[]> events = metricsRepository.streamExperimentEvents()) {
+                return events.peek(event -> record((Long) event[0], (String) event[1], (Metrics.EventType) event[2],
+                                (LocalDateTime) event[3], (String) event[4], (Double) event[5], (Double) event[6]))
+                        .count();
+            }
+        });
+        flush();
+        logger.info("Backfilled experiment rollups from {} raw events", backfilled);
+    }
+
+    /**
+     * Write changed cells to {@code metric_rollups} and evict closed minute/hour buckets.
+     */
+    @Scheduled(fixedDelayString = "${rex.metrics.rollup.flush-interval-ms:5000}",
+            initialDelayString = "${rex.metrics.rollup.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<RollupCell> dirty = new ArrayList<>();
+        openCells.values().stream().filter(RollupCell::isDirty).forEach(dirty::add);
+        totals.values().forEach(cells -> cells.values().stream().filter(RollupCell::isDirty).forEach(dirty::add));
+        // Cells evicted last time get one more flush for updates that raced with their eviction
+        retiring.stream().filter(RollupCell::isDirty).forEach(dirty::add);
+
+        if (!dirty.isEmpty()) {
+            List<RollupCell.Delta> deltas = dirty.stream().map(RollupCell::takeDelta).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::persist));
+                deltas.forEach(delta -> delta.cell().commit(delta));
+            } catch (RuntimeException e) {
+                deltas.forEach(delta -> delta.cell().markDirty());
+                logger.warn("Flushing {} experiment rollup cells failed, will retry: {}", deltas.size(), e.getMessage());
+                return;
+            }
+            logger.debug("Flushed {} experiment rollup cells", deltas.size());
+        }
+
+        LocalDateTime evictBefore = LocalDateTime.now().minusMinutes(EVICTION_GRACE_MINUTES);
+        List<RollupCell> evicted = new ArrayList<>();
+        openCells.forEach((key, cell) -> {
+            if (!cell.isDirty() && key.bucketEnd().isBefore(evictBefore) && openCells.remove(key, cell)) {
+                evicted.add(cell);
+            }
+        });
+        retiring = evicted;
+    }
+
+    private void persist(RollupCell.Delta delta) {
+        RollupKey key = delta.cell().key();
+        MetricRollup row = rollupRepository.findCell(key.experimentId(), key.variantName(), key.eventType(),
+                        key.granularity(), key.bucketStart())
+                .orElseGet(() -> new MetricRollup(key.experimentId(), key.variantName(), key.eventType(),
+                        key.granularity(), key.bucketStart()));
+
+        row.setEventCount(row.getEventCount() + delta.eventCount());
+        row.setValueSum(row.getValueSum() + delta.valueSum());
+        row.setValueCount(row.getValueCount() + delta.valueCount());
+        row.setValueSquareSum(row.getValueSquareSum() + delta.valueSquareSum());
+        row.setRevenueSum(row.getRevenueSum() + delta.revenueSum());
+        row.setRevenueCount(row.getRevenueCount() + delta.revenueCount());
+        row.setPositiveRevenueSum(row.getPositiveRevenueSum() + delta.positiveRevenueSum());
+        row.setPositiveRevenueCount(row.getPositiveRevenueCount() + delta.positiveRevenueCount());
+
+        HyperLogLog users = HyperLogLog.fromBytes(row.getUserSketch());
+        users.merge(delta.cell().users());
+        row.setUserSketch(users.toBytes());
+
+        rollupRepository.save(row);
+    }
+}
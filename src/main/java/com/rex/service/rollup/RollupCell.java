@@ -0,0 +1,178 @@
+package com.rex.service.rollup;
+
+import com.rex.model.MetricRollup;
+import com.rex.service.sketch.HyperLogLog;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory accumulator for one rollup cell. Writers update striped adders and
+ * the user sketch without locking. Values are cumulative; the flusher remembers
+ * what it already persisted and writes only the difference, so an update racing
+ * with a flush is simply picked up by the next one.
+ */
+final class RollupCell {
+
+    private final RollupKey key;
+
+    private final LongAdder eventCount = new LongAdder();
+    private final DoubleAdder valueSum = new DoubleAdder();
+    private final LongAdder valueCount = new LongAdder();
+    private final DoubleAdder valueSquareSum = new DoubleAdder();
+    private final DoubleAdder revenueSum = new DoubleAdder();
+    private final LongAdder revenueCount = new LongAdder();
+    private final DoubleAdder positiveRevenueSum = new DoubleAdder();
+    private final LongAdder positiveRevenueCount = new LongAdder();
+    private final HyperLogLog users;
+
+    private volatile boolean dirty;
+
+    // Persisted so far; only touched by the (single) flusher
+    private long flushedEventCount;
+    private double flushedValueSum;
+    private long flushedValueCount;
+    private double flushedValueSquareSum;
+    private double flushedRevenueSum;
+    private long flushedRevenueCount;
+    private double flushedPositiveRevenueSum;
+    private long flushedPositiveRevenueCount;
+
+    RollupCell(RollupKey key) {
+        this.key = key;
+        this.users = new HyperLogLog();
+    }
+
+    /**
+     * Rebuild a cell from its persisted row; the row counts as already flushed.
+     */
+    static RollupCell restore(MetricRollup row) {
+        RollupCell cell = new RollupCell(RollupKey.of(row));
+        cell.eventCount.add(row.getEventCount());
+        cell.valueSum.add(row.getValueSum());
+        cell.valueCount.add(row.getValueCount());
+        cell.valueSquareSum.add(row.getValueSquareSum());
+        cell.revenueSum.add(row.getRevenueSum());
+        cell.revenueCount.add(row.getRevenueCount());
+        cell.positiveRevenueSum.add(row.getPositiveRevenueSum());
+        cell.positiveRevenueCount.add(row.getPositiveRevenueCount());
+        cell.users.merge(HyperLogLog.fromBytes(row.getUserSketch()));
+        cell.commit(cell.takeDelta());
+        return cell;
+    }
+
+    void add(long userHash, Double eventValue, Double revenue) {
+        eventCount.increment();
+        if (eventValue != null) {
+            valueSum.add(eventValue);
+            valueCount.increment();
+            valueSquareSum.add(eventValue * eventValue);
+        }
+        if (revenue != null) {
+            revenueSum.add(revenue);
+            revenueCount.increment();
+            if (revenue > 0) {
+                positiveRevenueSum.add(revenue);
+                positiveRevenueCount.increment();
+            }
+        }
+        users.addHash(userHash);
+        if (!dirty) {
+            dirty = true;
+        }
+    }
+
+    RollupKey key() {
+        return key;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    long eventCount() {
+        return eventCount.sum();
+    }
+
+    double valueSum() {
+        return valueSum.sum();
+    }
+
+    long valueCount() {
+        return valueCount.sum();
+    }
+
+    double valueSquareSum() {
+        return valueSquareSum.sum();
+    }
+
+    double revenueSum() {
+        return revenueSum.sum();
+    }
+
+    long revenueCount() {
+        return revenueCount.sum();
+    }
+
+    double positiveRevenueSum() {
+        return positiveRevenueSum.sum();
+    }
+
+    long positiveRevenueCount() {
+        return positiveRevenueCount.sum();
+    }
+
+    HyperLogLog users() {
+        return users;
+    }
+
+    /**
+     * Everything recorded since the last committed flush. Clears the dirty flag first,
+     * so an update that lands while the delta is read marks the cell dirty again.
+     */
+    Delta takeDelta() {
+        dirty = false;
+        return new Delta(this,
+                eventCount.sum() - flushedEventCount,
+                valueSum.sum() - flushedValueSum,
+                valueCount.sum() - flushedValueCount,
+                valueSquareSum.sum() - flushedValueSquareSum,
+                revenueSum.sum() - flushedRevenueSum,
+                revenueCount.sum() - flushedRevenueCount,
+                positiveRevenueSum.sum() - flushedPositiveRevenueSum,
+                positiveRevenueCount.sum() - flushedPositiveRevenueCount);
+    }
+
+    /**
+     * Record a delta as persisted.
+     */
+    void commit(Delta delta) {
+        flushedEventCount += delta.eventCount();
+        flushedValueSum += delta.valueSum();
+        flushedValueCount += delta.valueCount();
+        flushedValueSquareSum += delta.valueSquareSum();
+        flushedRevenueSum += delta.revenueSum();
+        flushedRevenueCount += delta.revenueCount();
+        flushedPositiveRevenueSum += delta.positiveRevenueSum();
+        flushedPositiveRevenueCount += delta.positiveRevenueCount();
+    }
+
+    /**
+     * Unpersisted part of a cell. Sketches are not diffed: merging is idempotent,
+     * so the whole sketch is merged into the stored one.
+     */
+    record Delta(RollupCell cell,
+                 long eventCount,
+                 double valueSum,
+                 long valueCount,
+                 double valueSquareSum,
+                 double revenueSum,
+                 long revenueCount,
+                 double positiveRevenueSum,
+                 long positiveRevenueCount) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.rex.service.rollup;
+
+import com.rex.model.MetricRollup;
+import com.rex.model.Metrics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identity of a rollup cell: (experiment, variant, event type, granularity, bucket start).
+ */
+record RollupKey(Long experimentId,
+                 String variantName,
+                 Metrics.EventType eventType,
+                 MetricRollup.Granularity granularity,
+                 LocalDateTime bucketStart) {
+
+    static RollupKey of(MetricRollup row) {
+        return new RollupKey(row.getExperimentId(), row.getVariantName(), row.getEventType(),
+                row.getGranularity(), row.getBucketStart());
+    }
+
+    /**
+     * End of the bucket; {@code null} for all-time totals, which never close.
+     */
+    LocalDateTime bucketEnd() {
+        return switch (granularity) {
+            case MINUTE -> bucketStart.plusMinutes(1);
+            case HOUR -> bucketStart.plusHours(1);
+            case TOTAL -> null;
+        };
+    }
+}
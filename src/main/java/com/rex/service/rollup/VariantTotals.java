@@ -0,0 +1,10 @@
+package com.rex.service.rollup;
+
+/**
+ * All-time rollup totals of one variant over a set of event types: estimated distinct
+ * users, and the count, sum and sum of squares of the event values.
+ */
+public record VariantTotals(long users, long valueCount, double valueSum, double valueSquareSum) {
+
+    public static final VariantTotals EMPTY = new VariantTotals(0, 0, 0.0, 0.0);
+}
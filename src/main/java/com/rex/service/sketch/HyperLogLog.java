@@ -0,0 +1,373 @@
+package com.rex.service.sketch;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * HyperLogLog distinct-count sketch with 2^precision one-byte registers.
+ * <p>
+ * Values are hashed to 64 bits; the top {@code precision} bits pick a register
+ * and the register keeps the longest run of leading zeros seen in the rest.
+ * Sketches merge by taking the per-register maximum, which is idempotent:
+ * merging the same sketch twice changes nothing. The default precision of 12
+ * has a standard error of about 1.6%; small cardinalities fall back to linear
+ * counting and are close to exact.
+ * <p>
+ * A sketch starts sparse, as a sorted list of its non-zero registers, and switches
+ * to the dense register array (4 KiB at the default precision) once more than an
+ * eighth of the registers are set. Most sketches of a dimension see few users, so
+ * they stay at a few bytes per user; both forms hold the same registers and give the
+ * same estimates. Sparse updates take the sketch's lock; dense registers are updated
+ * with a CAS, so concurrent {@link #add}s to a dense sketch need no lock.
+ */
+public final class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    /** Largest serialized size of a sketch at {@link #DEFAULT_PRECISION}. */
+    public static final int MAX_SERIALIZED_BYTES = 2 + (1 << DEFAULT_PRECISION);
+
+    private static final byte DENSE = 1;
+    private static final byte SPARSE = 2;
+
+    private static final int INITIAL_SPARSE_CAPACITY = 4;
+
+    private static final VarHandle REGISTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int precision;
+    private final int sparseLimit;
+
+    // Null while sparse; set once, when the sketch turns dense
+    private volatile byte[] registers;
+
+    // Sparse registers as (index << 8 | value), sorted by index; guarded by this
+    private int[] sparse = new int[INITIAL_SPARSE_CAPACITY];
+    private int sparseCount;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.sparseLimit = (1 << precision) >>> 3;
+    }
+
+    /**
+     * 64-bit hash of a string (FNV-1a over the UTF-16 chars, then the MurmurHash3 finalizer
+     * so that every input bit affects the register index).
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Add a value. Returns true when a register changed.
+     */
+    public boolean add(String value) {
+        return addHash(hash(value));
+    }
+
+    /**
+     * Add a value already hashed with {@link #hash}.
+     */
+    public boolean addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // The OR'ed guard bit caps the rank at 64 - precision + 1 when the remaining bits are all zero
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        return raise(index, rank);
+    }
+
+    /**
+     * Fold another sketch of the same precision into this one.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog sketches of precision "
+                    + other.precision + " into " + precision);
+        }
+        byte[] theirs = other.registers;
+        if (theirs == null) {
+            for (int entry : other.sparseEntries()) {
+                raise(entry >>> 8, (byte) entry);
+            }
+            return;
+        }
+        byte[] ours = densify();
+        for (int i = 0; i < ours.length; i++) {
+            byte value = (byte) REGISTERS.getVolatile(theirs, i);
+            if (value != 0) {
+                raise(ours, i, value);
+            }
+        }
+    }
+
+    /**
+     * Estimated number of distinct values added.
+     */
+    public long estimate() {
+        int m = 1 << precision;
+        double sum = 0;
+        int zeros = 0;
+        byte[] dense = registers;
+        if (dense != null) {
+            for (int i = 0; i < m; i++) {
+                byte value = (byte) REGISTERS.getVolatile(dense, i);
+                sum += Math.scalb(1.0, -value);
+                if (value == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            int[] entries = sparseEntries();
+            for (int entry : entries) {
+                sum += Math.scalb(1.0, -(byte) entry);
+            }
+            zeros = m - entries.length;
+            sum += zeros;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        byte[] dense = registers;
+        if (dense == null) {
+            return sparseEntries().length == 0;
+        }
+        for (int i = 0; i < dense.length; i++) {
+            if ((byte) REGISTERS.getVolatile(dense, i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the sketch still holds its registers sparsely.
+     */
+    public boolean isSparse() {
+        return registers == null;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Union of several sketches as a new sketch; empty input yields an empty sketch.
+     */
+    public static HyperLogLog union(Collection<HyperLogLog> sketches) {
+        HyperLogLog union = null;
+        for (HyperLogLog sketch : sketches) {
+            if (union == null) {
+                union = new HyperLogLog(sketch.precision);
+            }
+            union.merge(sketch);
+        }
+        return union != null ? union : new HyperLogLog();
+    }
+
+    // ============================================
+    // SERIALIZATION
+    // ============================================
+
+    /**
+     * Serialize the sketch. Sparse sketches (few non-zero registers) are written
+     * as (index, value) pairs, dense ones as the raw register array.
+     */
+    public byte[] toBytes() {
+        byte[] dense = registers;
+        if (dense == null) {
+            int[] entries = sparseEntries();
+            ByteBuffer buffer = ByteBuffer.allocate(4 + entries.length * 3);
+            buffer.put(SPARSE).put((byte) precision).putShort((short) entries.length);
+            for (int entry : entries) {
+                buffer.putShort((short) (entry >>> 8)).put((byte) entry);
+            }
+            return buffer.array();
+        }
+        byte[] snapshot = new byte[dense.length];
+        int nonZero = 0;
+        for (int i = 0; i < dense.length; i++) {
+            snapshot[i] = (byte) REGISTERS.getVolatile(dense, i);
+            if (snapshot[i] != 0) {
+                nonZero++;
+            }
+        }
+        if (4 + nonZero * 3 < 2 + snapshot.length) {
+            ByteBuffer buffer = ByteBuffer.allocate(4 + nonZero * 3);
+            buffer.put(SPARSE).put((byte) precision).putShort((short) nonZero);
+            for (int i = 0; i < snapshot.length; i++) {
+                if (snapshot[i] != 0) {
+                    buffer.putShort((short) i).put(snapshot[i]);
+                }
+            }
+            return buffer.array();
+        }
+        byte[] bytes = new byte[2 + snapshot.length];
+        bytes[0] = DENSE;
+        bytes[1] = (byte) precision;
+        System.arraycopy(snapshot, 0, bytes, 2, snapshot.length);
+        return bytes;
+    }
+
+    /**
+     * Read a sketch written by {@link #toBytes}; {@code null} or empty input yields an empty sketch.
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new HyperLogLog();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte encoding = buffer.get();
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        if (encoding == DENSE) {
+            byte[] dense = new byte[1 << sketch.precision];
+            buffer.get(dense);
+            sketch.registers = dense;
+        } else if (encoding == SPARSE) {
+            int count = Short.toUnsignedInt(buffer.getShort());
+            for (int i = 0; i < count; i++) {
+                sketch.raise(Short.toUnsignedInt(buffer.getShort()), buffer.get());
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog encoding: " + encoding);
+        }
+        return sketch;
+    }
+
+    // ============================================
+    // REGISTERS
+    // ============================================
+
+    private boolean raise(int index, byte value) {
+        byte[] dense = registers;
+        return dense != null ? raise(dense, index, value) : raiseSparse(index, value);
+    }
+
+    private static boolean raise(byte[] dense, int index, byte value) {
+        while (true) {
+            byte current = (byte) REGISTERS.getVolatile(dense, index);
+            if (value <= current) {
+                return false;
+            }
+            if (REGISTERS.compareAndSet(dense, index, current, value)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized boolean raiseSparse(int index, byte value) {
+        // The sketch may have turned dense while this thread waited for the lock
+        if (registers != null) {
+            return raise(registers, index, value);
+        }
+        int position = findSparse(index);
+        if (position >= 0) {
+            if (value <= (byte) sparse[position]) {
+                return false;
+            }
+            sparse[position] = index << 8 | value;
+            return true;
+        }
+        if (sparseCount == sparseLimit) {
+            return raise(densify(), index, value);
+        }
+        position = -position - 1;
+        if (sparseCount == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.min(sparse.length * 2, sparseLimit));
+        }
+        System.arraycopy(sparse, position, sparse, position + 1, sparseCount - position);
+        sparse[position] = index << 8 | value;
+        sparseCount++;
+        return true;
+    }
+
+    /**
+     * Binary search for a register in the sparse list: its position, or
+     * {@code -(insertion point) - 1} when it is not set.
+     */
+    private int findSparse(int index) {
+        int low = 0;
+        int high = sparseCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int found = sparse[middle] >>> 8;
+            if (found < index) {
+                low = middle + 1;
+            } else if (found > index) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private synchronized int[] sparseEntries() {
+        return registers == null ? Arrays.copyOf(sparse, sparseCount) : toEntries(registers);
+    }
+
+    private static int[] toEntries(byte[] dense) {
+        int[] entries = new int[dense.length];
+        int count = 0;
+        for (int i = 0; i < dense.length; i++) {
+            byte value = (byte) REGISTERS.getVolatile(dense, i);
+            if (value != 0) {
+                entries[count++] = i << 8 | value;
+            }
+        }
+        return Arrays.copyOf(entries, count);
+    }
+
+    /**
+     * Switch to the dense register array (if not done yet) and return it.
+     */
+    private synchronized byte[] densify() {
+        if (registers == null) {
+            byte[] dense = new byte[1 << precision];
+            for (int i = 0; i < sparseCount; i++) {
+                dense[sparse[i] >>> 8] = (byte) sparse[i];
+            }
+            registers = dense;
+            sparse = null;
+            sparseCount = 0;
+        }
+        return registers;
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+}
@@ -0,0 +1,449 @@
+package com.rex.service.sketch;
+
+import com.rex.model.Metrics;
+import com.rex.model.UserCohort;
+import com.rex.model.UserSketch;
+import com.rex.repository.MetricsRepository;
+import com.rex.repository.UserSketchRepository;
+import com.rex.service.metrics.MetricsObserver;
+import com.rex.service.metrics.MetricsRow;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Approximate distinct-user counts per dimension value and time bucket.
+ * <p>
+ * Every persisted event adds its user to an hourly HyperLogLog for its environment,
+ * event type, feature flag, error (event name and environment) and platform/device.
+ * Feature flags also keep an all-time sketch. Distinct users over any range are the
+ * union of the sketches covering it, so daily, weekly and 24-hour uniques never rescan
+ * raw events. Hourly sketches are compacted into daily ones after
+ * {@code rex.metrics.sketch.hourly-retention-hours}, daily into weekly (Monday-based)
+ * after {@code daily-retention-days}; weekly ones are dropped after {@code weekly-retention-weeks}.
+ * Ranges are widened to the buckets covering them, which only matters at the start of
+ * ranges reaching past the hourly retention. Sketches start sparse (see {@link HyperLogLog}),
+ * so the many dimension values and buckets with few users do not cost 4 KiB each.
+ * <p>
+ * Changed sketches are merged into {@code user_sketches} periodically. On startup they
+ * are restored from there, or backfilled once from the raw {@code metrics} table.
+ */
+@Service
+public class UniqueUserSketchService implements MetricsObserver, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniqueUserSketchService.class);
+
+    /** Separates the parts of composite dimension values (error name + environment, platform + device). */
+    private static final char SEPARATOR = '\u001F';
+    private static final String NULL_PART = "\u0000";
+    private static final int MAX_VALUE_LENGTH = 255;
+
+    private final UserSketchRepository sketchRepository;
+    private final MetricsRepository metricsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long hourlyRetentionHours;
+    private final long dailyRetentionDays;
+    private final long weeklyRetentionWeeks;
+
+    private final ConcurrentHashMap<SketchKey, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    private final Set<SketchKey> dirty = ConcurrentHashMap.newKeySet();
+
+    // Events older than these go straight into the coarser bucket; moved forward on every flush
+    private volatile LocalDateTime hourlyCutoff;
+    private volatile LocalDateTime dailyCutoff;
+    private volatile LocalDateTime weeklyCutoff;
+
+    /**
+     * Identifies one sketch.
+     */
+    public record SketchKey(UserSketch.Dimension dimension, String value,
+                            UserSketch.Granularity granularity, LocalDateTime bucketStart) {
+    }
+
+    @Autowired
+    public UniqueUserSketchService(UserSketchRepository sketchRepository,
+                                   MetricsRepository metricsRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${rex.metrics.sketch.hourly-retention-hours:48}") long hourlyRetentionHours,
+                                   @Value("${rex.metrics.sketch.daily-retention-days:35}") long dailyRetentionDays,
+                                   @Value("${rex.metrics.sketch.weekly-retention-weeks:53}") long weeklyRetentionWeeks) {
+        if (hourlyRetentionHours < 24 || dailyRetentionDays < 7 || weeklyRetentionWeeks < 1) {
+            throw new IllegalArgumentException("Sketch retention must keep at least 24 hourly, 7 daily and 1 weekly buckets");
+        }
+        this.sketchRepository = sketchRepository;
+        this.metricsRepository = metricsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hourlyRetentionHours = hourlyRetentionHours;
+        this.dailyRetentionDays = dailyRetentionDays;
+        this.weeklyRetentionWeeks = weeklyRetentionWeeks;
+        advanceCutoffs(LocalDateTime.now());
+    }
+
+    // ============================================
+    // INGESTION
+    // ============================================
+
+    @Override
+    public void onRecorded(MetricsRow row) {
+        record(row.timestamp(), row.userId(), row.environment(), row.eventType(), row.featureFlagId(),
+                row.eventName(), row.platform(), row.deviceType());
+    }
+
+    private void record(LocalDateTime timestamp, String userId, String environment, Metrics.EventType eventType,
+                        Long featureFlagId, String eventName, String platform, String deviceType) {
+        LocalDateTime at = timestamp != null ? timestamp : LocalDateTime.now();
+        long userHash = HyperLogLog.hash(userId);
+
+        if (environment != null) {
+            add(UserSketch.Dimension.ENVIRONMENT, environment, at, userHash);
+        }
+        if (eventType != null) {
+            add(UserSketch.Dimension.EVENT_TYPE, eventType.name(), at, userHash);
+        }
+        if (featureFlagId != null) {
+            String flag = featureFlagId.toString();
+            add(UserSketch.Dimension.FEATURE_FLAG, flag, at, userHash);
+            add(new SketchKey(UserSketch.Dimension.FEATURE_FLAG, flag, UserSketch.Granularity.TOTAL, UserSketch.ALL_TIME),
+                    userHash);
+        }
+        if (eventType == Metrics.EventType.ERROR) {
+            add(UserSketch.Dimension.ERROR, errorValue(eventName, environment), at, userHash);
+        }
+        add(UserSketch.Dimension.PLATFORM, platformValue(platform, deviceType), at, userHash);
+    }
+
+    private void add(UserSketch.Dimension dimension, String value, LocalDateTime at, long userHash) {
+        UserSketch.Granularity granularity;
+        LocalDateTime bucketStart;
+        if (!at.isBefore(hourlyCutoff)) {
+            granularity = UserSketch.Granularity.HOUR;
+            bucketStart = at.truncatedTo(ChronoUnit.HOURS);
+        } else if (!at.isBefore(dailyCutoff)) {
+            granularity = UserSketch.Granularity.DAY;
+            bucketStart = at.truncatedTo(ChronoUnit.DAYS);
+        } else if (!at.isBefore(weeklyCutoff)) {
+            granularity = UserSketch.Granularity.WEEK;
+            bucketStart = weekStart(at);
+        } else {
+            return;
+        }
+        add(new SketchKey(dimension, value, granularity, bucketStart), userHash);
+    }
+
+    /**
+     * Compaction unmaps a sketch before merging it into the coarser bucket, so an add
+     * that finds its sketch still mapped afterwards is seen by that merge. Otherwise the
+     * sketch was compacted underneath it and the add is repeated on the current one.
+     */
+    private void add(SketchKey key, long userHash) {
+        while (true) {
+            HyperLogLog sketch = sketches.get(key);
+            if (sketch == null) {
+                sketch = sketches.computeIfAbsent(key, k -> new HyperLogLog());
+            }
+            boolean changed = sketch.addHash(userHash);
+            if (sketches.get(key) == sketch) {
+                if (changed) {
+                    dirty.add(key);
+                }
+                return;
+            }
+        }
+    }
+
+    // ============================================
+    // ESTIMATES
+    // ============================================
+
+    /**
+     * Distinct users of a dimension value between two points in time (inclusive).
+     */
+    public long estimate(UserSketch.Dimension dimension, String value, LocalDateTime from, LocalDateTime to) {
+        return union(dimension, value, from, to).estimate();
+    }
+
+    /**
+     * Distinct users of a dimension value since a point in time. Like the SQL queries it
+     * replaces it has no upper bound, so events stamped slightly ahead (up to the next
+     * hour) are counted too.
+     */
+    public long estimateSince(UserSketch.Dimension dimension, String value, LocalDateTime since) {
+        return estimate(dimension, value, since, LocalDateTime.now().plusHours(1));
+    }
+
+    /**
+     * Distinct users of a dimension value in one hour.
+     */
+    public long hourlyUniques(UserSketch.Dimension dimension, String value, LocalDateTime hour) {
+        LocalDateTime start = hour.truncatedTo(ChronoUnit.HOURS);
+        return estimate(dimension, value, start, start.plusHours(1).minusNanos(1));
+    }
+
+    /**
+     * Distinct users of a dimension value on one day.
+     */
+    public long dailyUniques(UserSketch.Dimension dimension, String value, LocalDate day) {
+        return estimate(dimension, value, day.atStartOfDay(), day.plusDays(1).atStartOfDay().minusNanos(1));
+    }
+
+    /**
+     * Distinct users of a dimension value in the (Monday-based) week containing a day.
+     */
+    public long weeklyUniques(UserSketch.Dimension dimension, String value, LocalDate day) {
+        LocalDateTime start = weekStart(day.atStartOfDay());
+        return estimate(dimension, value, start, start.plusWeeks(1).minusNanos(1));
+    }
+
+    /**
+     * All-time distinct users exposed to a feature flag.
+     */
+    public long flagUniques(Long featureFlagId) {
+        HyperLogLog sketch = sketches.get(new SketchKey(UserSketch.Dimension.FEATURE_FLAG, featureFlagId.toString(),
+                UserSketch.Granularity.TOTAL, UserSketch.ALL_TIME));
+        return sketch != null ? sketch.estimate() : 0L;
+    }
+
+    // ============================================
+    // EXPERIMENT COHORTS (stateless assignment)
+    // ============================================
+
+    /**
+     * Count a user into an experiment cohort and variant (all time).
+     */
+    public void recordExperimentCohort(Long experimentId, UserCohort.CohortType cohortType, String variantName,
+                                       String userId) {
+        String value = compositeValue(experimentId.toString(), compositeValue(cohortType.name(), variantName));
+        add(new SketchKey(UserSketch.Dimension.EXPERIMENT_COHORT, value, UserSketch.Granularity.TOTAL,
+                UserSketch.ALL_TIME), HyperLogLog.hash(userId));
+    }
+
+    /**
+     * Distinct users per cohort of an experiment as (cohort type, variant name, users) rows,
+     * most users first.
+     */
+    public List<Object[]> experimentCohortUniques(Long experimentId) {
+        String prefix = experimentId.toString() + SEPARATOR;
+        List<Object[]> rows = new ArrayList<>();
+        sketches.forEach((key, sketch) -> {
+            if (key.dimension() == UserSketch.Dimension.EXPERIMENT_COHORT && key.value().startsWith(prefix)) {
+                String[] parts = key.value().substring(prefix.length()).split(String.valueOf(SEPARATOR), 2);
+                String variantName = parts.length > 1 && !parts[1].equals(NULL_PART) ? parts[1] : null;
+                rows.add(new Object[]{UserCohort.CohortType.valueOf(parts[0]), variantName, sketch.estimate()});
+            }
+        });
+        rows.sort(Comparator.comparing((Object[] row) -> (Long) row[2]).reversed());
+        return rows;
+    }
+
+    /**
+     * Dimension value of an error event.
+     */
+    public static String errorValue(String eventName, String environment) {
+        return compositeValue(eventName, environment);
+    }
+
+    /**
+     * Dimension value of an event's platform and device type.
+     */
+    public static String platformValue(String platform, String deviceType) {
+        return compositeValue(platform, deviceType);
+    }
+
+    private HyperLogLog union(UserSketch.Dimension dimension, String value, LocalDateTime from, LocalDateTime to) {
+        HyperLogLog union = new HyperLogLog();
+        LocalDateTime hourly = hourlyCutoff;
+        LocalDateTime daily = dailyCutoff;
+        LocalDateTime weekly = weeklyCutoff;
+        // Each granularity is only probed where it can exist. A sketch caught mid-compaction
+        // may be seen twice, which HyperLogLog unions absorb.
+        for (LocalDateTime hour = latest(from, hourly).truncatedTo(ChronoUnit.HOURS); !hour.isAfter(to);
+             hour = hour.plusHours(1)) {
+            mergeInto(union, new SketchKey(dimension, value, UserSketch.Granularity.HOUR, hour));
+        }
+        for (LocalDateTime day = latest(from, daily).truncatedTo(ChronoUnit.DAYS);
+             !day.isAfter(to) && day.isBefore(hourly); day = day.plusDays(1)) {
+            mergeInto(union, new SketchKey(dimension, value, UserSketch.Granularity.DAY, day));
+        }
+        for (LocalDateTime week = weekStart(latest(from, weekly)); !week.isAfter(to) && week.isBefore(daily);
+             week = week.plusWeeks(1)) {
+            mergeInto(union, new SketchKey(dimension, value, UserSketch.Granularity.WEEK, week));
+        }
+        return union;
+    }
+
+    private void mergeInto(HyperLogLog union, SketchKey key) {
+        HyperLogLog sketch = sketches.get(key);
+        if (sketch != null) {
+            union.merge(sketch);
+        }
+    }
+
+    private static String compositeValue(String first, String second) {
+        String value = (first != null ? first : NULL_PART) + SEPARATOR + (second != null ? second : NULL_PART);
+        if (value.length() <= MAX_VALUE_LENGTH) {
+            return value;
+        }
+        String suffix = "#" + Long.toHexString(HyperLogLog.hash(value));
+        return value.substring(0, MAX_VALUE_LENGTH - suffix.length()) + suffix;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDateTime weekStart(LocalDateTime at) {
+        return at.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // ============================================
+    // PERSISTENCE AND COMPACTION
+    // ============================================
+
+    /**
+     * Restore sketches, or backfill them from raw events when none exist yet.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<UserSketch> persisted = transactionTemplate.execute(status -> sketchRepository.findAll());
+        if (persisted != null && !persisted.isEmpty()) {
+            for (UserSketch row : persisted) {
+                sketches.put(new SketchKey(row.getDimension(), row.getDimensionValue(), row.getGranularity(),
+                        row.getBucketStart()), HyperLogLog.fromBytes(row.getSketch()));
+            }
+            logger.info("Restored {} unique-user sketches", persisted.size());
+            return;
+        }
+
+        long backfilled = transactionTemplate.execute(status -> {
+            try (Stream<Object[]> events = metricsRepository.streamUserSketchEvents()) {
+                return events.peek(event -> record((LocalDateTime) event[0], (String) event[1], (String) event[2],
+                                (Metrics.EventType) event[3], (Long) event[4], (String) event[5],
+                                (String) event[6], (String) event[7]))
+                        .count();
+            }
+        });
+        flush();
+        logger.info("Backfilled {} unique-user sketches from {} raw events", sketches.size(), backfilled);
+    }
+
+    /**
+     * Compact expired buckets into coarser ones and merge changed sketches into {@code user_sketches}.
+     */
+    @Scheduled(fixedDelayString = "${rex.metrics.rollup.flush-interval-ms:5000}",
+            initialDelayString = "${rex.metrics.rollup.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        advanceCutoffs(LocalDateTime.now());
+        compact();
+
+        List<SketchKey> changed = new ArrayList<>(dirty);
+        if (changed.isEmpty()) {
+            return;
+        }
+        // Clear before copying: an update racing with the flush marks its key dirty again
+        dirty.removeAll(changed);
+        List<UserSketch> rows = new ArrayList<>(changed.size());
+        for (SketchKey key : changed) {
+            HyperLogLog sketch = sketches.get(key);
+            if (sketch != null) {
+                UserSketch row = new UserSketch(key.dimension(), key.value(), key.granularity(), key.bucketStart());
+                row.setSketch(sketch.copy().toBytes());
+                rows.add(row);
+            }
+        }
+        LocalDateTime hourly = hourlyCutoff;
+        LocalDateTime daily = dailyCutoff;
+        LocalDateTime weekly = weeklyCutoff;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rows.forEach(this::persist);
+                sketchRepository.deleteOlderThan(UserSketch.Granularity.HOUR, hourly);
+                sketchRepository.deleteOlderThan(UserSketch.Granularity.DAY, daily);
+                sketchRepository.deleteOlderThan(UserSketch.Granularity.WEEK, weekly);
+            });
+        } catch (RuntimeException e) {
+            dirty.addAll(changed);
+            logger.warn("Flushing {} unique-user sketches failed, will retry: {}", changed.size(), e.getMessage());
+            return;
+        }
+        logger.debug("Flushed {} unique-user sketches", rows.size());
+    }
+
+    private void advanceCutoffs(LocalDateTime now) {
+        LocalDateTime hourly = now.truncatedTo(ChronoUnit.HOURS).minusHours(hourlyRetentionHours)
+                .truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime daily = weekStart(hourly.minusDays(dailyRetentionDays));
+        this.weeklyCutoff = daily.minusWeeks(weeklyRetentionWeeks);
+        this.dailyCutoff = daily;
+        this.hourlyCutoff = hourly;
+    }
+
+    /**
+     * Fold hourly sketches older than the hourly cutoff into their day, and daily ones
+     * older than the daily cutoff into their week; drop weeks past the weekly cutoff.
+     */
+    private void compact() {
+        int compacted = 0;
+        for (SketchKey key : sketches.keySet()) {
+            SketchKey target = switch (key.granularity()) {
+                case HOUR -> key.bucketStart().isBefore(hourlyCutoff)
+                        ? new SketchKey(key.dimension(), key.value(), UserSketch.Granularity.DAY,
+                        key.bucketStart().truncatedTo(ChronoUnit.DAYS))
+                        : null;
+                case DAY -> key.bucketStart().isBefore(dailyCutoff)
+                        ? new SketchKey(key.dimension(), key.value(), UserSketch.Granularity.WEEK,
+                        weekStart(key.bucketStart()))
+                        : null;
+                default -> null;
+            };
+            if (target != null) {
+                // Unmap first: writers still holding the sketch then retry (see add)
+                HyperLogLog sketch = sketches.remove(key);
+                dirty.remove(key);
+                if (sketch != null) {
+                    sketches.computeIfAbsent(target, k -> new HyperLogLog()).merge(sketch);
+                    dirty.add(target);
+                    compacted++;
+                }
+            } else if (key.granularity() == UserSketch.Granularity.WEEK && key.bucketStart().isBefore(weeklyCutoff)) {
+                sketches.remove(key);
+                dirty.remove(key);
+            }
+        }
+        if (compacted > 0) {
+            logger.debug("Compacted {} unique-user sketches into coarser buckets", compacted);
+        }
+    }
+
+    private void persist(UserSketch update) {
+        UserSketch row = sketchRepository.findByDimensionAndDimensionValueAndGranularityAndBucketStart(
+                        update.getDimension(), update.getDimensionValue(), update.getGranularity(), update.getBucketStart())
+                .orElse(update);
+        if (row != update) {
+            // Sketches only grow, so merging keeps whatever another instance or an earlier flush stored
+            HyperLogLog merged = HyperLogLog.fromBytes(row.getSketch());
+            merged.merge(HyperLogLog.fromBytes(update.getSketch()));
+            row.setSketch(merged.toBytes());
+        }
+        sketchRepository.save(row);
+    }
+}
@@ -0,0 +1,188 @@
+package com.rex.service.stats;
+
+import com.rex.dto.ExperimentSignificance;
+import com.rex.dto.SignificanceTest;
+import com.rex.dto.VariantComparison;
+import com.rex.model.Experiment;
+import com.rex.model.Metrics;
+import com.rex.service.rollup.ExperimentRollupService;
+import com.rex.service.rollup.VariantTotals;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Experiment significance from the incremental rollups.
+ * <p>
+ * The sufficient statistics of each variant are read from its all-time rollup totals:
+ * estimated distinct exposed and converted users and the moments of the values of
+ * conversion events ({@code CONVERSION} and {@code PURCHASE}). They take constant memory
+ * per variant, are maintained without locks by the rollup ingestion, and survive restarts
+ * and raw-event retention with the rollups. Significance is computed from them in time
+ * proportional to the number of variants, never by scanning {@code metrics}: a
+ * two-proportion z-test on converted users per exposed user and Welch's t-test on
+ * conversion values, each variant against the experiment's control.
+ * <p>
+ * The conversion z-score is monitored as a group sequential test with Lan-DeMets
+ * O'Brien-Fleming alpha spending. The information fraction is the pair's exposures over
+ * the experiment's minimum sample size; a query takes a new look once the fraction has
+ * grown by {@value #LOOK_SPACING} since the last look (and a final one when it reaches 1),
+ * and each look is held to the boundary computed for the looks taken so far. Results may
+ * therefore be polled continuously: polling more often does not add looks, and the
+ * overall false-positive rate stays at alpha. Once a look crosses its boundary the
+ * verdict is final. Without a minimum sample size there is no planned horizon to spend
+ * alpha over, so no variant is declared significant; the z-test's p-value is still
+ * reported for a fixed-horizon reading.
+ * <p>
+ * Looks are kept in memory; after a restart monitoring starts over with a single look at
+ * the fraction reached.
+ */
+@Service
+public class ExperimentStatisticsService {
+
+    private static final double DEFAULT_CONFIDENCE_LEVEL = 95.0;
+
+    /** Minimum growth of the information fraction between two looks. */
+    static final double LOOK_SPACING = 0.05;
+
+    private static final EnumSet<Metrics.EventType> EXPOSURE_EVENTS =
+            EnumSet.of(Metrics.EventType.EXPERIMENT_EXPOSURE);
+    private static final EnumSet<Metrics.EventType> CONVERSION_EVENTS =
+            EnumSet.of(Metrics.EventType.CONVERSION, Metrics.EventType.PURCHASE);
+
+    private final ExperimentRollupService rollups;
+
+    // experiment ID -> variant name -> sequential monitor of the variant against the control
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<String, SequentialMonitor>> monitors =
+            new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExperimentStatisticsService(ExperimentRollupService rollups) {
+        this.rollups = rollups;
+    }
+
+    // ============================================
+    // SIGNIFICANCE
+    // ============================================
+
+    /**
+     * Compare every variant that has events with the experiment's control variant.
+     */
+    public ExperimentSignificance analyze(Experiment experiment) {
+        double confidenceLevel = experiment.getConfidenceLevel() != null
+                ? experiment.getConfidenceLevel() : DEFAULT_CONFIDENCE_LEVEL;
+        String controlName = experiment.getControlVariantName();
+
+        Map<String, VariantTotals> exposed = rollups.getVariantTotals(experiment.getId(), EXPOSURE_EVENTS);
+        Map<String, VariantTotals> converted = rollups.getVariantTotals(experiment.getId(), CONVERSION_EVENTS);
+        TreeSet<String> names = new TreeSet<>(exposed.keySet());
+        names.addAll(converted.keySet());
+
+        VariantStatistics control = statistics(controlName, exposed, converted);
+        List<VariantComparison> comparisons = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (!name.equals(controlName)) {
+                comparisons.add(compare(experiment.getId(), name, statistics(name, exposed, converted), control,
+                        confidenceLevel, experiment.getMinimumSampleSize()));
+            }
+        }
+        return new ExperimentSignificance(experiment.getId(), controlName, confidenceLevel,
+                control.exposures(), control.conversions(), control.conversionRate(), control.meanValue(),
+                comparisons);
+    }
+
+    private static VariantStatistics statistics(String name, Map<String, VariantTotals> exposed,
+                                                Map<String, VariantTotals> converted) {
+        return VariantStatistics.of(exposed.getOrDefault(name, VariantTotals.EMPTY),
+                converted.getOrDefault(name, VariantTotals.EMPTY));
+    }
+
+    private VariantComparison compare(Long experimentId, String name, VariantStatistics variant,
+                                      VariantStatistics control, double confidenceLevel,
+                                      Integer minimumSampleSize) {
+        SignificanceTest conversion = SignificanceTests.twoProportionZTest(
+                control.conversions(), control.exposures(), variant.conversions(), variant.exposures(),
+                confidenceLevel);
+        SignificanceTest value = SignificanceTests.welchTTest(
+                control.valueCount(), control.meanValue(), control.valueVariance(),
+                variant.valueCount(), variant.meanValue(), variant.valueVariance(), confidenceLevel);
+
+        double informationFraction = Double.NaN;
+        SequentialMonitor.Verdict verdict = SequentialMonitor.Verdict.NONE;
+        if (minimumSampleSize != null && minimumSampleSize > 0) {
+            informationFraction = (double) (control.exposures() + variant.exposures()) / minimumSampleSize;
+            verdict = monitor(experimentId, name, confidenceLevel, minimumSampleSize)
+                    .poll(informationFraction, conversion);
+        }
+
+        return new VariantComparison(name, variant.exposures(), variant.conversions(), variant.conversionRate(),
+                variant.valueCount(), variant.meanValue(), Math.sqrt(variant.valueVariance()),
+                conversion, value, informationFraction, verdict.boundary(),
+                verdict.significant(), verdict.significant() && verdict.fraction() < 1.0);
+    }
+
+    private SequentialMonitor monitor(Long experimentId, String variantName, double confidenceLevel,
+                                      int minimumSampleSize) {
+        ConcurrentHashMap<String, SequentialMonitor> variants =
+                monitors.computeIfAbsent(experimentId, id -> new ConcurrentHashMap<>());
+        // A changed design invalidates the looks taken so far
+        return variants.compute(variantName, (name, monitor) -> monitor != null
+                && monitor.confidenceLevel() == confidenceLevel && monitor.minimumSampleSize() == minimumSampleSize
+                ? monitor : new SequentialMonitor(confidenceLevel, minimumSampleSize));
+    }
+
+    /**
+     * Looks taken for one variant against the control and the verdict they reached.
+     */
+    private static final class SequentialMonitor {
+
+        private final double confidenceLevel;
+        private final int minimumSampleSize;
+        private final SequentialBoundary boundary;
+        private Verdict verdict = Verdict.NONE;
+
+        SequentialMonitor(double confidenceLevel, int minimumSampleSize) {
+            this.confidenceLevel = confidenceLevel;
+            this.minimumSampleSize = minimumSampleSize;
+            this.boundary = new SequentialBoundary(confidenceLevel);
+        }
+
+        double confidenceLevel() {
+            return confidenceLevel;
+        }
+
+        int minimumSampleSize() {
+            return minimumSampleSize;
+        }
+
+        /**
+         * Take a look if the information has grown enough since the last one, and return
+         * the verdict of the looks so far.
+         */
+        synchronized Verdict poll(double informationFraction, SignificanceTest conversion) {
+            double last = boundary.fraction();
+            double at = Math.min(1.0, informationFraction);
+            boolean due = at - last >= LOOK_SPACING || (at >= 1.0 && last < 1.0);
+            if (!verdict.significant() && due) {
+                double limit = boundary.look(at);
+                boolean crossed = conversion.isDefined() && Math.abs(conversion.statistic()) >= limit;
+                verdict = new Verdict(at, limit, crossed);
+            }
+            return verdict;
+        }
+
+        /**
+         * Boundary of the last look and whether a look crossed it.
+         */
+        record Verdict(double fraction, double boundary, boolean significant) {
+
+            static final Verdict NONE = new Verdict(0.0, Double.POSITIVE_INFINITY, false);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.rex.service.stats;
+
+/**
+ * Group sequential boundaries for |z| with Lan-DeMets O'Brien-Fleming alpha spending,
+ * computed for the looks actually taken rather than a fixed schedule.
+ * <p>
+ * A look at information fraction {@code t} spends what the spending function allows by
+ * {@code t} minus what earlier looks spent; its boundary {@code c} is set so that, under
+ * the null hypothesis, the probability of first crossing {@code +-c} at this look equals
+ * that spend. Under the null hypothesis {@code z(t) sqrt(t)} is a Brownian motion, so the
+ * recursion carries the density of the paths that have not crossed yet on a grid,
+ * convolves it with the {@code N(0, t - t_prev)} increment and solves for {@code c} by
+ * bisection. However the looks are spaced, the overall false-positive rate stays at alpha.
+ * <p>
+ * The grid is fine enough for looks at least a thousandth of the information apart.
+ * Not thread-safe; callers synchronize.
+ */
+final class SequentialBoundary {
+
+    private static final int GRID_POINTS = 241;
+    private static final double GRID_WIDTH_SDS = 10.0;
+    private static final double MAX_BOUNDARY = 40.0;
+
+    private final double confidenceLevel;
+
+    private double fraction;
+    private double spent;
+    private int looks;
+
+    // Non-crossed paths at the last look: positions of z*sqrt(t) and their probability mass
+    private double[] positions = {0.0};
+    private double[] weights = {1.0};
+
+    SequentialBoundary(double confidenceLevel) {
+        if (!(confidenceLevel > 0 && confidenceLevel < 100)) {
+            throw new IllegalArgumentException("Confidence level must be in (0, 100) percent: " + confidenceLevel);
+        }
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    /**
+     * Boundaries of the looks at the given increasing information fractions.
+     */
+    static double[] boundaries(double confidenceLevel, double... fractions) {
+        SequentialBoundary boundary = new SequentialBoundary(confidenceLevel);
+        double[] boundaries = new double[fractions.length];
+        for (int i = 0; i < fractions.length; i++) {
+            boundaries[i] = boundary.look(fractions[i]);
+        }
+        return boundaries;
+    }
+
+    /**
+     * Take a look at an information fraction in (last look, 1] and return the boundary
+     * |z| is held to at it ({@code +Infinity} while nothing may be spent yet).
+     */
+    double look(double informationFraction) {
+        if (!(informationFraction > fraction) || informationFraction > 1.0) {
+            throw new IllegalArgumentException("Information fraction must be in (" + fraction + ", 1]: "
+                    + informationFraction);
+        }
+        double sd = Math.sqrt(informationFraction - fraction);
+        double root = Math.sqrt(informationFraction);
+        double spend = SignificanceTests.obrienFlemingSpending(confidenceLevel, informationFraction) - spent;
+
+        double boundary = Double.POSITIVE_INFINITY;
+        if (spend > 0 && crossing(MAX_BOUNDARY * root, sd) < spend) {
+            double low = 0.0;
+            double high = MAX_BOUNDARY;
+            for (int i = 0; i < 100 && high - low > 1e-9; i++) {
+                double mid = (low + high) / 2;
+                if (crossing(mid * root, sd) > spend) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            boundary = (low + high) / 2;
+            spent += crossing(boundary * root, sd);
+        }
+
+        regrid(boundary * root, sd);
+        fraction = informationFraction;
+        looks++;
+        return boundary;
+    }
+
+    double fraction() {
+        return fraction;
+    }
+
+    int looks() {
+        return looks;
+    }
+
+    /**
+     * Probability of being beyond {@code +-limit} (on the Brownian scale) at this look
+     * without having crossed before.
+     */
+    private double crossing(double limit, double sd) {
+        double mass = 0.0;
+        for (int i = 0; i < positions.length; i++) {
+            mass += weights[i] * (SignificanceTests.normalTail((limit - positions[i]) / sd)
+                    + SignificanceTests.normalTail((limit + positions[i]) / sd));
+        }
+        return mass;
+    }
+
+    /**
+     * Replace the grid by the density of the non-crossed paths at this look on
+     * {@code (-limit, limit)}, integrated with Simpson's rule.
+     */
+    private void regrid(double limit, double sd) {
+        double reach = 0.0;
+        for (double position : positions) {
+            reach = Math.max(reach, Math.abs(position));
+        }
+        double width = Math.min(limit, reach + GRID_WIDTH_SDS * sd);
+        double step = 2 * width / (GRID_POINTS - 1);
+        double norm = 1.0 / (sd * Math.sqrt(2 * Math.PI));
+
+        double[] nextPositions = new double[GRID_POINTS];
+        double[] nextWeights = new double[GRID_POINTS];
+        for (int j = 0; j < GRID_POINTS; j++) {
+            double y = -width + j * step;
+            double density = 0.0;
+            for (int i = 0; i < positions.length; i++) {
+                double u = (y - positions[i]) / sd;
+                density += weights[i] * norm * Math.exp(-0.5 * u * u);
+            }
+            double simpson = j == 0 || j == GRID_POINTS - 1 ? 1 : (j % 2 == 1 ? 4 : 2);
+            nextPositions[j] = y;
+            nextWeights[j] = density * simpson * step / 3;
+        }
+        positions = nextPositions;
+        weights = nextWeights;
+    }
+}
@@ -0,0 +1,272 @@
+package com.rex.service.stats;
+
+import com.rex.dto.SignificanceTest;
+
+/**
+ * Closed-form significance tests over sufficient statistics, so answering them costs
+ * the same however many events were observed: the two-proportion z-test, Welch's
+ * t-test, and the O'Brien-Fleming alpha-spending function for sequential (early stopping)
+ * tests.
+ * Distribution functions use standard numerical approximations (erfc to about 1e-7,
+ * Acklam's normal quantile, continued-fraction incomplete beta for Student's t).
+ */
+public final class SignificanceTests {
+
+    // Acklam's coefficients
+    private static final double P_LOW = 0.02425;
+    private static final double[] A = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+            1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+    private static final double[] B = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+            6.680131188771972e+01, -1.328068155288572e+01};
+    private static final double[] C = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+            -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+    private static final double[] D = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+            3.754408661907416e+00};
+
+    // Lanczos coefficients (g = 7)
+    private static final double[] LANCZOS = {0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+            771.32342877765313, -176.61502916214059, 12.507343278686905, -0.13857109526572012,
+            9.9843695780195716e-6, 1.5056327351493116e-7};
+
+    private SignificanceTests() {
+    }
+
+    // ============================================
+    // TESTS
+    // ============================================
+
+    /**
+     * Two-proportion z-test of the variant's rate against the control's, with a pooled
+     * standard error for the test and an unpooled one for the confidence interval of the
+     * difference. Undefined while either side has no trials, both rates are 0 or 1, or a
+     * rate exceeds 1.
+     */
+    public static SignificanceTest twoProportionZTest(long controlSuccesses, long controlTrials,
+                                                      long variantSuccesses, long variantTrials,
+                                                      double confidenceLevel) {
+        if (controlTrials <= 0 || variantTrials <= 0) {
+            return SignificanceTest.UNDEFINED;
+        }
+        double p1 = (double) controlSuccesses / controlTrials;
+        double p2 = (double) variantSuccesses / variantTrials;
+        double pooled = (double) (controlSuccesses + variantSuccesses) / (controlTrials + variantTrials);
+        double pooledError = Math.sqrt(pooled * (1 - pooled) * (1.0 / controlTrials + 1.0 / variantTrials));
+        if (!(pooledError > 0)) {
+            return SignificanceTest.UNDEFINED;
+        }
+        double difference = p2 - p1;
+        double z = difference / pooledError;
+        double error = Math.sqrt(p1 * (1 - p1) / controlTrials + p2 * (1 - p2) / variantTrials);
+        double margin = criticalZ(confidenceLevel) * error;
+        return new SignificanceTest(difference, difference - margin, difference + margin, z,
+                Double.POSITIVE_INFINITY, 2 * normalTail(Math.abs(z)));
+    }
+
+    /**
+     * Welch's t-test of the variant's mean against the control's, from each side's count,
+     * mean and sample variance, with Welch-Satterthwaite degrees of freedom. Undefined
+     * while either side has fewer than two values or both have no variance.
+     */
+    public static SignificanceTest welchTTest(long controlCount, double controlMean, double controlVariance,
+                                              long variantCount, double variantMean, double variantVariance,
+                                              double confidenceLevel) {
+        if (controlCount < 2 || variantCount < 2) {
+            return SignificanceTest.UNDEFINED;
+        }
+        double a = controlVariance / controlCount;
+        double b = variantVariance / variantCount;
+        double error = Math.sqrt(a + b);
+        if (!(error > 0)) {
+            return SignificanceTest.UNDEFINED;
+        }
+        double difference = variantMean - controlMean;
+        double t = difference / error;
+        double df = (a + b) * (a + b) / (a * a / (controlCount - 1) + b * b / (variantCount - 1));
+        double margin = criticalT(confidenceLevel, df) * error;
+        return new SignificanceTest(difference, difference - margin, difference + margin, t, df,
+                studentTwoSided(Math.abs(t), df));
+    }
+
+    /**
+     * Lan-DeMets O'Brien-Fleming spending function of a two-sided test: the part of alpha
+     * that may be spent by information fraction {@code t}, {@code 4 - 4 Phi(z(1 - alpha/4) / sqrt(t))}
+     * (alpha/2 per side). Almost nothing is spent early and all of alpha at {@code t = 1};
+     * see {@link SequentialBoundary} for the boundaries of the looks actually taken.
+     */
+    public static double obrienFlemingSpending(double confidenceLevel, double informationFraction) {
+        if (!(informationFraction > 0)) {
+            return 0.0;
+        }
+        double z = normalQuantile(1 - alpha(confidenceLevel) / 4);
+        return 4 * normalTail(z / Math.sqrt(Math.min(1.0, informationFraction)));
+    }
+
+    // ============================================
+    // DISTRIBUTIONS
+    // ============================================
+
+    /**
+     * Two-sided critical value of the standard normal at a confidence level in percent.
+     */
+    public static double criticalZ(double confidenceLevel) {
+        return normalQuantile(1 - alpha(confidenceLevel) / 2);
+    }
+
+    /**
+     * Two-sided critical value of Student's t at a confidence level in percent.
+     */
+    public static double criticalT(double confidenceLevel, double df) {
+        double z = criticalZ(confidenceLevel);
+        if (df > 1e6) {
+            return z;
+        }
+        double tail = alpha(confidenceLevel);
+        // Two-sided tail is decreasing in t; the t quantile lies above the normal one
+        double low = z;
+        double high = Math.max(2 * z, 1);
+        while (studentTwoSided(high, df) > tail) {
+            high *= 2;
+        }
+        for (int i = 0; i < 100 && high - low > 1e-10 * high; i++) {
+            double mid = (low + high) / 2;
+            if (studentTwoSided(mid, df) > tail) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * P(Z > z) for the standard normal.
+     */
+    public static double normalTail(double z) {
+        return 0.5 * erfc(z / Math.sqrt(2));
+    }
+
+    /**
+     * P(Z <= z) for the standard normal.
+     */
+    public static double normalCdf(double z) {
+        return 1 - normalTail(z);
+    }
+
+    /**
+     * Inverse of the standard normal CDF (Acklam's rational approximation, relative error
+     * below 1.2e-9).
+     */
+    public static double normalQuantile(double p) {
+        if (!(p > 0 && p < 1)) {
+            throw new IllegalArgumentException("Probability must be in (0, 1): " + p);
+        }
+        if (p < P_LOW) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                    / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+        }
+        if (p <= 1 - P_LOW) {
+            double q = p - 0.5;
+            double r = q * q;
+            return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q
+                    / (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1);
+        }
+        double q = Math.sqrt(-2 * Math.log(1 - p));
+        return -(((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+    }
+
+    /**
+     * P(|T| > t) for Student's t with {@code df} degrees of freedom.
+     */
+    public static double studentTwoSided(double t, double df) {
+        if (Double.isInfinite(df)) {
+            return 2 * normalTail(Math.abs(t));
+        }
+        return regularizedBeta(df / (df + t * t), df / 2, 0.5);
+    }
+
+    private static double alpha(double confidenceLevel) {
+        if (!(confidenceLevel > 0 && confidenceLevel < 100)) {
+            throw new IllegalArgumentException("Confidence level must be in (0, 100) percent: " + confidenceLevel);
+        }
+        return 1 - confidenceLevel / 100;
+    }
+
+    /**
+     * Complementary error function (Chebyshev fit, fractional error below 1.2e-7).
+     */
+    private static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+
+    /**
+     * Regularized incomplete beta function I_x(a, b).
+     */
+    private static double regularizedBeta(double x, double a, double b) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b)
+                + a * Math.log(x) + b * Math.log(1 - x));
+        // The continued fraction converges fast on this side; use the symmetry on the other
+        return x < (a + 1) / (a + b + 2)
+                ? front * betaContinuedFraction(x, a, b) / a
+                : 1 - front * betaContinuedFraction(1 - x, b, a) / b;
+    }
+
+    /**
+     * Continued fraction of the incomplete beta function (modified Lentz's method).
+     */
+    private static double betaContinuedFraction(double x, double a, double b) {
+        double tiny = 1e-300;
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs(d) < tiny ? tiny : d);
+        double h = d;
+        for (int m = 1; m <= 300; m++) {
+            int m2 = 2 * m;
+            double even = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+            d = 1 + even * d;
+            c = 1 + even / c;
+            d = 1 / (Math.abs(d) < tiny ? tiny : d);
+            c = Math.abs(c) < tiny ? tiny : c;
+            h *= d * c;
+            double odd = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+            d = 1 + odd * d;
+            c = 1 + odd / c;
+            d = 1 / (Math.abs(d) < tiny ? tiny : d);
+            c = Math.abs(c) < tiny ? tiny : c;
+            double step = d * c;
+            h *= step;
+            if (Math.abs(step - 1) < 1e-14) {
+                break;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Natural log of the gamma function (Lanczos approximation, g = 7).
+     */
+    private static double logGamma(double x) {
+        if (x < 0.5) {
+            return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+        }
+        double y = x - 1;
+        double sum = LANCZOS[0];
+        for (int i = 1; i < LANCZOS.length; i++) {
+            sum += LANCZOS[i] / (y + i);
+        }
+        double t = y + 7.5;
+        return 0.5 * Math.log(2 * Math.PI) + (y + 0.5) * Math.log(t) - t + Math.log(sum);
+    }
+}
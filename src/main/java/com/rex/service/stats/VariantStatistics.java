@@ -0,0 +1,37 @@
+package com.rex.service.stats;
+
+import com.rex.service.rollup.VariantTotals;
+
+/**
+ * Sufficient statistics of one experiment variant: distinct exposed and converted users
+ * and the moments of conversion values. Constant-size, derived from the variant's rollup
+ * totals on each query.
+ * <p>
+ * The unit of analysis is the user: repeated exposures or conversions of one user count
+ * once. User counts are HyperLogLog estimates, and converted users are capped at exposed
+ * users so the conversion rate never exceeds one. The variance comes from the sum of
+ * squares, which loses precision only when the spread of the values is many orders of
+ * magnitude below their mean.
+ */
+record VariantStatistics(long exposures, long conversions, long valueCount, double meanValue,
+                         double valueVariance) {
+
+    static final VariantStatistics EMPTY = of(VariantTotals.EMPTY, VariantTotals.EMPTY);
+
+    /**
+     * Statistics from the totals of the exposure events and of the conversion events.
+     */
+    static VariantStatistics of(VariantTotals exposed, VariantTotals converted) {
+        long count = converted.valueCount();
+        double mean = count > 0 ? converted.valueSum() / count : Double.NaN;
+        double variance = count > 1
+                ? Math.max(0.0, (converted.valueSquareSum() - converted.valueSum() * mean) / (count - 1))
+                : Double.NaN;
+        return new VariantStatistics(exposed.users(), Math.min(converted.users(), exposed.users()),
+                count, mean, variance);
+    }
+
+    double conversionRate() {
+        return exposures > 0 ? (double) conversions / exposures : Double.NaN;
+    }
+}
@@ -45,6 +45,32 @@ INSERT INTO experiments (name, description, hypothesis, control_variant_name, te
                                                                                                                                                                                                                                                       'generic_subject', 'personalized_subject', 40, 'COMPLETED', 99.0, 5000, 'production', 'email_open_rate',
                                                                                                                                                                                                                                                       'marketing@rex.com', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, DATEADD('DAY', -7, CURRENT_TIMESTAMP));
 
+-- ================================
+-- STRING DICTIONARY SAMPLE DATA
+-- ================================
+
+-- Interned values of the dictionary-encoded columns, referenced by ID in the
+-- user cohorts and metrics below (IDs from 1000 on are allocated at runtime)
+INSERT INTO string_dictionary (id, string_value) VALUES
+-- Environments
+(1, 'production'),
+(2, 'staging'),
+-- Platforms
+(3, 'web'),
+(4, 'ios'),
+(5, 'email'),
+(6, 'android'),
+-- Device types
+(7, 'desktop'),
+(8, 'mobile'),
+-- Variants
+(9, 'blue_button'),
+(10, 'red_button'),
+(11, 'generic_subject'),
+(12, 'personalized_subject'),
+(13, 'five_step_onboarding'),
+(14, 'three_step_onboarding');
+
 -- ================================
 -- USER COHORTS SAMPLE DATA
 -- ================================
@@ -52,57 +78,57 @@ INSERT INTO experiments (name, description, hypothesis, control_variant_name, te
 -- Sample User Assignments to Experiments
 INSERT INTO user_cohorts (user_id, experiment_id, variant_name, cohort_type, assignment_method, assigned_at, is_active, assignment_hash, environment, session_id) VALUES
 -- Homepage CTA Test Assignments
-('user_001', 1, 'blue_button', 'CONTROL', 'HASH_BASED', CURRENT_TIMESTAMP, true, 12345, 'production', 'session_001'),
-('user_002', 1, 'red_button', 'TREATMENT', 'HASH_BASED', CURRENT_TIMESTAMP, true, 67890, 'production', 'session_002'),
-('user_003', 1, 'blue_button', 'CONTROL', 'HASH_BASED', CURRENT_TIMESTAMP, true, 11111, 'production', 'session_003'),
-('user_004', 1, 'red_button', 'TREATMENT', 'HASH_BASED', CURRENT_TIMESTAMP, true, 22222, 'production', 'session_004'),
-('user_005', 1, 'blue_button', 'CONTROL', 'HASH_BASED', CURRENT_TIMESTAMP, true, 33333, 'production', 'session_005'),
+('user_001', 1, 9, 'CONTROL', 'HASH_BASED', CURRENT_TIMESTAMP, true, 12345, 1, 'session_001'),
+('user_002', 1, 10, 'TREATMENT', 'HASH_BASED', CURRENT_TIMESTAMP, true, 67890, 1, 'session_002'),
+('user_003', 1, 9, 'CONTROL', 'HASH_BASED', CURRENT_TIMESTAMP, true, 11111, 1, 'session_003'),
+('user_004', 1, 10, 'TREATMENT', 'HASH_BASED', CURRENT_TIMESTAMP, true, 22222, 1, 'session_004'),
+('user_005', 1, 9, 'CONTROL', 'HASH_BASED', CURRENT_TIMESTAMP, true, 33333, 1, 'session_005'),
 
 -- Email Subject Test Assignments (Completed Experiment)
-('user_006', 4, 'generic_subject', 'CONTROL', 'PERCENTAGE_BASED', DATEADD('DAY', -10, CURRENT_TIMESTAMP), false, 44444, 'production', 'session_006'),
-('user_007', 4, 'personalized_subject', 'TREATMENT', 'PERCENTAGE_BASED', DATEADD('DAY', -10, CURRENT_TIMESTAMP), false, 55555, 'production', 'session_007'),
-('user_008', 4, 'generic_subject', 'CONTROL', 'PERCENTAGE_BASED', DATEADD('DAY', -8, CURRENT_TIMESTAMP), false, 66666, 'production', 'session_008'),
+('user_006', 4, 11, 'CONTROL', 'PERCENTAGE_BASED', DATEADD('DAY', -10, CURRENT_TIMESTAMP), false, 44444, 1, 'session_006'),
+('user_007', 4, 12, 'TREATMENT', 'PERCENTAGE_BASED', DATEADD('DAY', -10, CURRENT_TIMESTAMP), false, 55555, 1, 'session_007'),
+('user_008', 4, 11, 'CONTROL', 'PERCENTAGE_BASED', DATEADD('DAY', -8, CURRENT_TIMESTAMP), false, 66666, 1, 'session_008'),
 
 -- Onboarding Flow Test Assignments (Draft - for testing)
-('user_009', 3, 'five_step_onboarding', 'CONTROL', 'RANDOM', CURRENT_TIMESTAMP, true, 77777, 'staging', 'session_009'),
-('user_010', 3, 'three_step_onboarding', 'TREATMENT', 'RANDOM', CURRENT_TIMESTAMP, true, 88888, 'staging', 'session_010');
+('user_009', 3, 13, 'CONTROL', 'RANDOM', CURRENT_TIMESTAMP, true, 77777, 2, 'session_009'),
+('user_010', 3, 14, 'TREATMENT', 'RANDOM', CURRENT_TIMESTAMP, true, 88888, 2, 'session_010');
 
 -- ================================
 -- METRICS SAMPLE DATA
 -- ================================
 
--- Sample Metrics and Events
-INSERT INTO metrics (user_id, event_type, event_name, feature_flag_id, experiment_id, variant_name, timestamp, count_value, event_value, environment, session_id, page_url, user_agent, device_type, platform) VALUES
+-- Sample Metrics and Events (IDs come from metrics_seq, shared with the application)
+INSERT INTO metrics (id, user_id, event_type, event_name, feature_flag_id, experiment_id, variant_name, timestamp, count_value, event_value, environment, session_id, page_url, user_agent, device_type, platform) VALUES
 -- Feature Flag Events
-('user_001', 'FLAG_EXPOSURE', 'dark_mode_shown', 1, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 'production', 'session_001', '/dashboard', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 'desktop', 'web'),
-('user_002', 'FLAG_ENABLED', 'premium_features_accessed', 3, NULL, NULL, CURRENT_TIMESTAMP, 1, 1.0, 'production', 'session_002', '/premium', 'Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X)', 'mobile', 'ios'),
-('user_003', 'FLAG_EXPOSURE', 'beta_dashboard_shown', 4, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 'staging', 'session_003', '/analytics', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64)', 'desktop', 'web'),
+(NEXT VALUE FOR metrics_seq, 'user_001', 'FLAG_EXPOSURE', 'dark_mode_shown', 1, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 1, 'session_001', '/dashboard', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 7, 3),
+(NEXT VALUE FOR metrics_seq, 'user_002', 'FLAG_ENABLED', 'premium_features_accessed', 3, NULL, NULL, CURRENT_TIMESTAMP, 1, 1.0, 1, 'session_002', '/premium', 'Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X)', 8, 4),
+(NEXT VALUE FOR metrics_seq, 'user_003', 'FLAG_EXPOSURE', 'beta_dashboard_shown', 4, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 2, 'session_003', '/analytics', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64)', 7, 3),
 
 -- Experiment Events - Homepage CTA Test
-('user_001', 'EXPERIMENT_EXPOSURE', 'homepage_cta_viewed', NULL, 1, 'blue_button', CURRENT_TIMESTAMP, 1, NULL, 'production', 'session_001', '/home', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 'desktop', 'web'),
-('user_002', 'EXPERIMENT_EXPOSURE', 'homepage_cta_viewed', NULL, 1, 'red_button', CURRENT_TIMESTAMP, 1, NULL, 'production', 'session_002', '/home', 'Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X)', 'mobile', 'ios'),
-('user_001', 'CLICK', 'cta_button_clicked', NULL, 1, 'blue_button', DATEADD('SECOND', 5, CURRENT_TIMESTAMP), 1, 1.0, 'production', 'session_001', '/home', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 'desktop', 'web'),
-('user_002', 'CLICK', 'cta_button_clicked', NULL, 1, 'red_button', DATEADD('SECOND', 3, CURRENT_TIMESTAMP), 1, 1.0, 'production', 'session_002', '/home', 'Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X)', 'mobile', 'ios'),
+(NEXT VALUE FOR metrics_seq, 'user_001', 'EXPERIMENT_EXPOSURE', 'homepage_cta_viewed', NULL, 1, 9, CURRENT_TIMESTAMP, 1, NULL, 1, 'session_001', '/home', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 7, 3),
+(NEXT VALUE FOR metrics_seq, 'user_002', 'EXPERIMENT_EXPOSURE', 'homepage_cta_viewed', NULL, 1, 10, CURRENT_TIMESTAMP, 1, NULL, 1, 'session_002', '/home', 'Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X)', 8, 4),
+(NEXT VALUE FOR metrics_seq, 'user_001', 'CLICK', 'cta_button_clicked', NULL, 1, 9, DATEADD('SECOND', 5, CURRENT_TIMESTAMP), 1, 1.0, 1, 'session_001', '/home', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 7, 3),
+(NEXT VALUE FOR metrics_seq, 'user_002', 'CLICK', 'cta_button_clicked', NULL, 1, 10, DATEADD('SECOND', 3, CURRENT_TIMESTAMP), 1, 1.0, 1, 'session_002', '/home', 'Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X)', 8, 4),
 
 -- Conversion Events
-('user_001', 'CONVERSION', 'signup_completed', NULL, 1, 'blue_button', DATEADD('MINUTE', 2, CURRENT_TIMESTAMP), 1, 29.99, 'production', 'session_001', '/signup/complete', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 'desktop', 'web'),
-('user_004', 'CONVERSION', 'purchase_completed', NULL, 1, 'red_button', DATEADD('MINUTE', 5, CURRENT_TIMESTAMP), 1, 99.99, 'production', 'session_004', '/checkout/success', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64)', 'desktop', 'web'),
+(NEXT VALUE FOR metrics_seq, 'user_001', 'CONVERSION', 'signup_completed', NULL, 1, 9, DATEADD('MINUTE', 2, CURRENT_TIMESTAMP), 1, 29.99, 1, 'session_001', '/signup/complete', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 7, 3),
+(NEXT VALUE FOR metrics_seq, 'user_004', 'CONVERSION', 'purchase_completed', NULL, 1, 10, DATEADD('MINUTE', 5, CURRENT_TIMESTAMP), 1, 99.99, 1, 'session_004', '/checkout/success', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64)', 7, 3),
 
 -- Email Campaign Events (Completed Experiment)
-('user_006', 'EXPERIMENT_EXPOSURE', 'email_opened', NULL, 4, 'generic_subject', DATEADD('DAY', -10, CURRENT_TIMESTAMP), 1, NULL, 'production', 'session_006', '/email/campaign', 'Email Client', 'mobile', 'email'),
-('user_007', 'EXPERIMENT_EXPOSURE', 'email_opened', NULL, 4, 'personalized_subject', DATEADD('DAY', -10, CURRENT_TIMESTAMP), 1, NULL, 'production', 'session_007', '/email/campaign', 'Email Client', 'desktop', 'email'),
-('user_007', 'CLICK', 'email_link_clicked', NULL, 4, 'personalized_subject', DATEADD('DAY', -10, CURRENT_TIMESTAMP), 1, 1.0, 'production', 'session_007', '/landing/email', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 'desktop', 'web'),
+(NEXT VALUE FOR metrics_seq, 'user_006', 'EXPERIMENT_EXPOSURE', 'email_opened', NULL, 4, 11, DATEADD('DAY', -10, CURRENT_TIMESTAMP), 1, NULL, 1, 'session_006', '/email/campaign', 'Email Client', 8, 5),
+(NEXT VALUE FOR metrics_seq, 'user_007', 'EXPERIMENT_EXPOSURE', 'email_opened', NULL, 4, 12, DATEADD('DAY', -10, CURRENT_TIMESTAMP), 1, NULL, 1, 'session_007', '/email/campaign', 'Email Client', 7, 5),
+(NEXT VALUE FOR metrics_seq, 'user_007', 'CLICK', 'email_link_clicked', NULL, 4, 12, DATEADD('DAY', -10, CURRENT_TIMESTAMP), 1, 1.0, 1, 'session_007', '/landing/email', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 7, 3),
 
 -- Page View Events
-('user_003', 'PAGE_VIEW', 'dashboard_visited', NULL, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 'production', 'session_003', '/dashboard', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64)', 'desktop', 'web'),
-('user_005', 'PAGE_VIEW', 'pricing_visited', NULL, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 'production', 'session_005', '/pricing', 'Mozilla/5.0 (Android 11; Mobile)', 'mobile', 'android'),
+(NEXT VALUE FOR metrics_seq, 'user_003', 'PAGE_VIEW', 'dashboard_visited', NULL, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 1, 'session_003', '/dashboard', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64)', 7, 3),
+(NEXT VALUE FOR metrics_seq, 'user_005', 'PAGE_VIEW', 'pricing_visited', NULL, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 1, 'session_005', '/pricing', 'Mozilla/5.0 (Android 11; Mobile)', 8, 6),
 
 -- Error Events
-('user_008', 'ERROR', 'checkout_error', 2, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 'production', 'session_008', '/checkout', 'Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X)', 'mobile', 'ios'),
+(NEXT VALUE FOR metrics_seq, 'user_008', 'ERROR', 'checkout_error', 2, NULL, NULL, CURRENT_TIMESTAMP, 1, NULL, 1, 'session_008', '/checkout', 'Mozilla/5.0 (iPhone; CPU iPhone OS 14_6 like Mac OS X)', 8, 4),
 
 -- Performance Metrics
-('user_009', 'LOAD_TIME', 'page_load_measured', NULL, NULL, NULL, CURRENT_TIMESTAMP, 1, 2.35, 'staging', 'session_009', '/onboarding', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 'desktop', 'web'),
-('user_010', 'API_RESPONSE_TIME', 'api_call_measured', NULL, NULL, NULL, CURRENT_TIMESTAMP, 1, 0.45, 'staging', 'session_010', '/api/user/profile', 'Mobile App', 'mobile', 'ios');
+(NEXT VALUE FOR metrics_seq, 'user_009', 'LOAD_TIME', 'page_load_measured', NULL, NULL, NULL, CURRENT_TIMESTAMP, 1, 2.35, 2, 'session_009', '/onboarding', 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7)', 7, 3),
+(NEXT VALUE FOR metrics_seq, 'user_010', 'API_RESPONSE_TIME', 'api_call_measured', NULL, NULL, NULL, CURRENT_TIMESTAMP, 1, 0.45, 2, 'session_010', '/api/user/profile', 'Mobile App', 8, 4);
 
 -- ================================
 -- UPDATE EXPOSURE TRACKING
@@ -0,0 +1,88 @@
+package com.rex.controller;
+
+import com.rex.model.FeatureFlag;
+import com.rex.service.FeatureFlagService;
+import com.rex.service.flag.FlagChangeBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+class FlagStreamControllerTest {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private FeatureFlagService featureFlagService;
+
+	@Autowired
+	private FlagChangeBus changeBus;
+
+	private MockMvc mockMvc;
+	private FeatureFlag flag;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+	}
+
+	@AfterEach
+	void archiveFlag() {
+		if (flag != null) {
+			featureFlagService.deleteFeatureFlag(flag.getId());
+		}
+	}
+
+	@Test
+	void streamsChangesAndRemovalForItsEnvironment() throws Exception {
+		MvcResult result = mockMvc.perform(get("/api/flags/stream")
+						.param("since", Long.toString(changeBus.latestVersion()))
+						.param("environment", "production"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		flag = featureFlagService.createFeatureFlag("stream_test_flag", "stream test", "production", "test");
+		featureFlagService.updateRolloutPercentage(flag.getId(), 50);
+		awaitContent(result, "event:change");
+		awaitContent(result, "\"rolloutPercentage\":50");
+
+		featureFlagService.updateFeatureFlag(flag.getId(), flag.getName(), flag.getDescription(), "staging");
+		awaitContent(result, "event:remove");
+		awaitContent(result, "\"previousEnvironment\":\"production\"");
+	}
+
+	@Test
+	void sendsSnapshotWhenVersionCannotBeReplayed() throws Exception {
+		MvcResult result = mockMvc.perform(get("/api/flags/stream").param("since", "-1"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		awaitContent(result, "event:snapshot");
+		// The snapshot precedes any change event
+		assertEquals(content(result).indexOf("event:"), content(result).indexOf("event:snapshot"));
+	}
+
+	private static void awaitContent(MvcResult result, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!content(result).contains(expected)) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for " + expected);
+			Thread.sleep(20);
+		}
+	}
+
+	private static String content(MvcResult result) throws Exception {
+		return result.getResponse().getContentAsString();
+	}
+}
@@ -0,0 +1,119 @@
+package com.rex.service;
+
+import com.rex.dto.FlagRealTimeStats;
+import com.rex.dto.FlagUsage;
+import com.rex.dto.FunnelStep;
+import com.rex.dto.MetricsEventRow;
+import com.rex.dto.VariantFunnel;
+import com.rex.dto.VariantPerformance;
+import com.rex.model.Metrics;
+import com.rex.repository.MetricsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional(readOnly = true)
+class MetricsServiceTest {
+
+	private static final Long UNKNOWN_ID = 999_999L;
+
+	@Autowired
+	private MetricsService metricsService;
+
+	@Autowired
+	private MetricsRepository metricsRepository;
+
+	@Test
+	void performanceRowsDeriveConversionRateFromCounts() {
+		List<VariantPerformance> rows = metricsService.getExperimentPerformanceSummary(1L);
+
+		assertFalse(rows.isEmpty());
+		for (VariantPerformance row : rows) {
+			assertTrue(row.totalEvents() > 0, row.variantName());
+			assertEquals((double) row.conversions() / row.totalEvents() * 100, row.conversionRate(), 1e-9);
+		}
+		assertEquals(metricsService.getExperimentPerformance(1L), rows);
+	}
+
+	@Test
+	void performanceOfVariantWithoutEventsHasZeroRate() {
+		VariantPerformance row = new VariantPerformance("control", 0L, 0L, 0L, null, null);
+
+		assertEquals(0.0, row.conversionRate());
+	}
+
+	@Test
+	void flagUsageSummaryIsTheFlagsSingleRow() {
+		List<FlagUsage> usage = metricsService.getFeatureFlagUsage(3L);
+
+		assertEquals(1, usage.size());
+		FlagUsage summary = metricsService.getFeatureFlagUsageSummary(3L);
+		assertEquals(usage.get(0), summary);
+		assertEquals(3L, summary.flagId());
+		assertTrue(summary.enabledEvents() > 0);
+		assertTrue(summary.uniqueUsers() > 0);
+	}
+
+	@Test
+	void flagUsageSummaryIsAllZeroWithoutEvents() {
+		assertTrue(metricsService.getFeatureFlagUsage(UNKNOWN_ID).isEmpty());
+		assertEquals(new FlagUsage(UNKNOWN_ID, 0L, 0L, 0L, 0L), metricsService.getFeatureFlagUsageSummary(UNKNOWN_ID));
+
+		FlagRealTimeStats stats = metricsService.getRealTimeFlagStats(UNKNOWN_ID);
+		assertEquals(0L, stats.totalExposures());
+		assertEquals(FlagUsage.none(UNKNOWN_ID), stats.usage());
+	}
+
+	@Test
+	void funnelSummaryHasOneRowPerVariantWithEveryStep() {
+		List<FunnelStep> steps = metricsService.getConversionFunnel(1L);
+		List<VariantFunnel> funnels = metricsService.getConversionFunnelSummary(1L);
+
+		assertEquals(steps.stream().map(FunnelStep::variantName).distinct().toList(),
+				funnels.stream().map(VariantFunnel::variantName).toList());
+		for (VariantFunnel funnel : funnels) {
+			assertEquals(stepCount(steps, funnel.variantName(), Metrics.EventType.EXPERIMENT_EXPOSURE), funnel.exposures());
+			assertEquals(stepCount(steps, funnel.variantName(), Metrics.EventType.CLICK), funnel.clicks());
+			assertEquals(stepCount(steps, funnel.variantName(), Metrics.EventType.CONVERSION), funnel.conversions());
+		}
+		assertTrue(metricsService.getConversionFunnelSummary(UNKNOWN_ID).isEmpty());
+	}
+
+	@Test
+	void listReadsReturnRowsMatchingTheEntities() {
+		List<MetricsEventRow> rows = metricsService.getAllMetrics();
+
+		assertEquals(metricsRepository.count(), rows.size());
+		for (MetricsEventRow row : rows.subList(0, Math.min(10, rows.size()))) {
+			Metrics entity = metricsService.getMetricsById(row.id()).orElseThrow();
+			assertEquals(entity.getUserId(), row.userId());
+			assertEquals(entity.getEventType(), row.eventType());
+			assertEquals(entity.getEventName(), row.eventName());
+			assertEquals(entity.getEventValue(), row.eventValue());
+			assertEquals(entity.getVariantName(), row.variantName());
+			assertEquals(entity.getEnvironment(), row.environment());
+			assertEquals(entity.getExperiment() != null ? entity.getExperiment().getId() : null, row.experimentId());
+			assertEquals(entity.getFeatureFlag() != null ? entity.getFeatureFlag().getId() : null, row.featureFlagId());
+		}
+
+		List<MetricsEventRow> userRows = metricsService.getMetricsByUserId("user_001");
+		assertFalse(userRows.isEmpty());
+		assertTrue(userRows.stream().allMatch(row -> row.userId().equals("user_001")));
+	}
+
+	private static long stepCount(List<FunnelStep> steps, String variantName, Metrics.EventType eventType) {
+		return steps.stream()
+				.filter(step -> Objects.equals(step.variantName(), variantName) && step.eventType() == eventType)
+				.mapToLong(FunnelStep::eventCount)
+				.sum();
+	}
+}
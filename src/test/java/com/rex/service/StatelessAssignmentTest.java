@@ -0,0 +1,175 @@
+package com.rex.service;
+
+import com.rex.dto.ExperimentSignificance;
+import com.rex.model.Experiment;
+import com.rex.model.UserCohort;
+import com.rex.repository.ExperimentRepository;
+import com.rex.repository.UserCohortRepository;
+import com.rex.service.assignment.AssignmentCache;
+import com.rex.service.assignment.AssignmentWriter;
+import com.rex.service.assignment.ExposureAccumulator;
+import com.rex.service.assignment.RunningExperimentRegistry;
+import com.rex.service.assignment.SampleSizeCounters;
+import com.rex.service.bucketing.BucketingStrategy;
+import com.rex.service.instrumentation.HotPathMetrics;
+import com.rex.service.sketch.UniqueUserSketchService;
+import com.rex.service.stats.ExperimentStatisticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class StatelessAssignmentTest {
+
+	private static final int USERS = 200;
+
+	@Autowired
+	private ExperimentService experimentService;
+
+	@Autowired
+	private ExperimentRepository experimentRepository;
+
+	@Autowired
+	private UserCohortRepository userCohortRepository;
+
+	@Autowired
+	private BucketingStrategy bucketing;
+
+	@Autowired
+	private RunningExperimentRegistry runningExperiments;
+
+	@Autowired
+	private AssignmentCache assignmentCache;
+
+	@Autowired
+	private AssignmentWriter assignmentWriter;
+
+	@Autowired
+	private SampleSizeCounters sampleSizes;
+
+	@Autowired
+	private ExposureAccumulator exposures;
+
+	@Autowired
+	private HotPathMetrics hotPathMetrics;
+
+	@Autowired
+	private UniqueUserSketchService userSketches;
+
+	@Autowired
+	private ExperimentStatisticsService statistics;
+
+	@Autowired
+	private MetricsService metricsService;
+
+	private ExperimentService stateless;
+	private Experiment experiment;
+
+	@BeforeEach
+	void setUp() {
+		// Same beans as the application's service, with assignment rows switched off
+		stateless = new ExperimentService(experimentRepository, userCohortRepository, bucketing,
+				runningExperiments, assignmentCache, assignmentWriter, sampleSizes, exposures, hotPathMetrics,
+				userSketches, statistics, metricsService, true);
+		experiment = experimentService.createExperiment("stateless_" + UUID.randomUUID(), "stateless test",
+				"none", "control", "treatment", 50, "production", "test");
+		experimentService.markExperimentReady(experiment.getId());
+		experimentService.startExperiment(experiment.getId());
+	}
+
+	@AfterEach
+	void tearDown() {
+		experimentService.stopExperiment(experiment.getId());
+	}
+
+	@Test
+	void assignsWithoutStoringCohorts() {
+		List<String> userIds = userIds();
+		List<UserCohort> expected = experimentService.computeAssignments(userIds, experiment.getId());
+
+		for (int i = 0; i < userIds.size(); i++) {
+			UserCohort first = stateless.assignUserToExperiment(userIds.get(i), experiment.getId(), null);
+			UserCohort again = stateless.assignUserToExperiment(userIds.get(i), experiment.getId(), null);
+			assertEquals(expected.get(i).getCohortType(), first.getCohortType());
+			assertEquals(expected.get(i).getVariantName(), first.getVariantName());
+			assertEquals(first.getVariantName(), again.getVariantName());
+		}
+		assertTrue(userCohortRepository.getCohortDistribution(experiment.getId()).isEmpty());
+	}
+
+	@Test
+	void estimatesDistributionAndSampleSizeFromSketches() {
+		Map<String, Integer> included = new HashMap<>();
+		int excluded = 0;
+		for (String userId : userIds()) {
+			UserCohort cohort = stateless.assignUserToExperiment(userId, experiment.getId(), null);
+			if (cohort.getCohortType() == UserCohort.CohortType.EXCLUDED) {
+				excluded++;
+			} else {
+				included.merge(cohort.getVariantName(), 1, Integer::sum);
+			}
+		}
+		int includedTotal = USERS - excluded;
+
+		long distributed = 0;
+		for (Object[] row : stateless.getCohortDistribution(experiment.getId())) {
+			distributed += (Long) row[2];
+		}
+		assertClose(USERS, distributed);
+		assertClose(includedTotal, stateless.getLiveSampleSize(experiment.getId()));
+
+		Map<String, Long> variantSizes = stateless.getVariantSampleSizes(experiment.getId());
+		assertEquals(included.keySet(), variantSizes.keySet());
+		included.forEach((variant, count) -> assertClose(count, variantSizes.get(variant)));
+	}
+
+	@Test
+	void recordsExposureAsEvent() {
+		String userId = null;
+		UserCohort cohort = null;
+		for (String candidate : userIds()) {
+			cohort = stateless.recordUserExposure(candidate, experiment.getId());
+			if (cohort.getCohortType() != UserCohort.CohortType.EXCLUDED) {
+				userId = candidate;
+				break;
+			}
+		}
+		assertNotNull(userId);
+		// Repeated exposures of one user count once
+		stateless.recordUserExposure(userId, experiment.getId());
+
+		ExperimentSignificance significance = statistics.analyze(experiment);
+		long exposed = cohort.getCohortType() == UserCohort.CohortType.CONTROL
+				? significance.controlExposures()
+				: significance.variants().get(0).exposures();
+		assertEquals(1, exposed);
+		assertEquals(1, stateless.getLiveSampleSize(experiment.getId()));
+		assertTrue(userCohortRepository.getCohortDistribution(experiment.getId()).isEmpty());
+	}
+
+	private List<String> userIds() {
+		List<String> userIds = new ArrayList<>(USERS);
+		for (int i = 0; i < USERS; i++) {
+			userIds.add("stateless_user_" + i);
+		}
+		return userIds;
+	}
+
+	private static void assertClose(long expected, long estimate) {
+		// Linear counting is near-exact at this cardinality
+		assertTrue(Math.abs(expected - estimate) <= Math.max(2, expected / 20),
+				"expected about " + expected + " but was " + estimate);
+	}
+}
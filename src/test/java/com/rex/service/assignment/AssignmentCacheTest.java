@@ -0,0 +1,52 @@
+package com.rex.service.assignment;
+
+import com.rex.model.UserCohort;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssignmentCacheTest {
+
+	@Test
+	void putIfAbsentKeepsTheFirstAssignment() {
+		AssignmentCache cache = new AssignmentCache(64);
+		Assignment first = assignment(1L, "user_1", UserCohort.CohortType.CONTROL);
+		Assignment second = assignment(1L, "user_1", UserCohort.CohortType.TREATMENT);
+
+		assertNull(cache.putIfAbsent(first));
+		assertSame(first, cache.putIfAbsent(second));
+		assertSame(first, cache.get(1L, "user_1"));
+		assertNull(cache.get(2L, "user_1"));
+
+		Assignment persisted = first.withCohortId(42L);
+		assertTrue(cache.replace(first, persisted));
+		assertEquals(42L, cache.get(1L, "user_1").cohortId());
+	}
+
+	@Test
+	void evictsInsteadOfGrowing() {
+		AssignmentCache cache = new AssignmentCache(16);
+		for (int i = 0; i < 1_000; i++) {
+			cache.put(assignment(7L, "user_" + i, UserCohort.CohortType.CONTROL));
+		}
+
+		int cached = 0;
+		for (int i = 0; i < 1_000; i++) {
+			if (cache.get(7L, "user_" + i) != null) {
+				cached++;
+			}
+		}
+		assertTrue(cached <= cache.getCapacity(), "cached " + cached + " > capacity " + cache.getCapacity());
+		assertTrue(cache.getEvictionCount() >= 1_000 - cache.getCapacity());
+	}
+
+	private static Assignment assignment(long experimentId, String userId, UserCohort.CohortType cohortType) {
+		return new Assignment(experimentId, userId, null, cohortType, cohortType.name().toLowerCase(),
+				UserCohort.AssignmentMethod.HASH_BASED, 0, "production", LocalDateTime.now(), null);
+	}
+}
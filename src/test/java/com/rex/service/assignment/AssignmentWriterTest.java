@@ -0,0 +1,47 @@
+package com.rex.service.assignment;
+
+import com.rex.model.UserCohort;
+import com.rex.repository.UserCohortRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class AssignmentWriterTest {
+
+	@Autowired
+	private AssignmentWriter writer;
+
+	@Autowired
+	private UserCohortRepository userCohortRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void flushCommitsIndependentlyOfCallerTransaction() {
+		Assignment assignment = new Assignment(1L, "writer_test_user", null, UserCohort.CohortType.EXCLUDED, "excluded",
+				UserCohort.AssignmentMethod.HASH_BASED, 0, null, LocalDateTime.now(), null);
+		long writtenBefore = writer.getWrittenCount();
+
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		readOnly.executeWithoutResult(status -> {
+			writer.enqueue(assignment);
+			writer.flush();
+			// The caller's read-only transaction never commits anything
+			status.setRollbackOnly();
+		});
+
+		assertTrue(writer.getWrittenCount() > writtenBefore);
+		UserCohort cohort = userCohortRepository.findByUserIdAndExperimentId("writer_test_user", 1L).orElseThrow();
+		assertEquals(UserCohort.CohortType.EXCLUDED, cohort.getCohortType());
+	}
+}
@@ -0,0 +1,60 @@
+package com.rex.service.assignment;
+
+import com.rex.model.Experiment;
+import com.rex.service.bucketing.BucketingStrategy;
+import com.rex.service.bucketing.Murmur3BucketingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ExperimentLayerTest {
+
+	private final BucketingStrategy bucketing = new Murmur3BucketingStrategy();
+	private final long layerSaltKey = bucketing.saltKey("layer:checkout");
+
+	@Test
+	void eachBucketResolvesToAtMostOneExperiment() {
+		RunningExperimentRegistry.RunningExperiment first = member(1L, 0, 3_000, LocalDateTime.now().minusDays(2));
+		RunningExperimentRegistry.RunningExperiment second = member(2L, 3_000, 5_000, LocalDateTime.now().minusDays(1));
+		ExperimentLayer layer = ExperimentLayer.of("checkout", layerSaltKey, List.of(second, first));
+
+		assertSame(first, layer.experimentAt(0));
+		assertSame(first, layer.experimentAt(2_999));
+		assertSame(second, layer.experimentAt(3_000));
+		assertNull(layer.experimentAt(5_000));
+
+		for (int user = 0; user < 1_000; user++) {
+			int userHash = bucketing.hashUser("user_" + user);
+			RunningExperimentRegistry.RunningExperiment owner =
+					layer.experimentAt(bucketing.bucket(userHash, layer.saltKey()));
+			assertEquals(owner == first, first.includes(userHash, bucketing));
+			assertEquals(owner == second, second.includes(userHash, bucketing));
+		}
+	}
+
+	@Test
+	void earlierExperimentKeepsOverlappingBuckets() {
+		RunningExperimentRegistry.RunningExperiment first = member(1L, 0, 4_000, LocalDateTime.now().minusDays(2));
+		RunningExperimentRegistry.RunningExperiment late = member(2L, 2_000, 6_000, LocalDateTime.now());
+		ExperimentLayer layer = ExperimentLayer.of("checkout", layerSaltKey, List.of(late, first));
+
+		assertSame(first, layer.experimentAt(3_999));
+		assertSame(late, layer.experimentAt(4_000));
+		assertSame(late, layer.experimentAt(5_999));
+	}
+
+	private RunningExperimentRegistry.RunningExperiment member(Long id, int start, int end, LocalDateTime startDate) {
+		Experiment experiment = new Experiment("layered_" + id, null, "test");
+		experiment.setId(id);
+		experiment.setLayerName("checkout");
+		experiment.setLayerBucketStart(start);
+		experiment.setLayerBucketEnd(end);
+		experiment.setStartDate(startDate);
+		return new RunningExperimentRegistry.RunningExperiment(experiment, 0, 0L, 0L, null, layerSaltKey, start, end);
+	}
+}
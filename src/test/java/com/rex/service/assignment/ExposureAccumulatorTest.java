@@ -0,0 +1,52 @@
+package com.rex.service.assignment;
+
+import com.rex.model.UserCohort;
+import com.rex.repository.UserCohortRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ExposureAccumulatorTest {
+
+	@Autowired
+	private ExposureAccumulator exposures;
+
+	@Autowired
+	private UserCohortRepository userCohortRepository;
+
+	@Test
+	void concurrentExposuresAreCoalescedWithoutLoss() throws InterruptedException {
+		exposures.flush();
+		UserCohort before = userCohortRepository.findByUserIdAndExperimentId("user_001", 1L).orElseThrow();
+		int countBefore = before.getExposureCount() != null ? before.getExposureCount() : 0;
+		LocalDateTime first = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int thread = t;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 2_500; i++) {
+					exposures.record(before.getId(), first.plusSeconds(thread * 2_500L + i));
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		exposures.flush();
+		UserCohort after = userCohortRepository.findById(before.getId()).orElseThrow();
+		assertEquals(countBefore + 10_000, after.getExposureCount());
+		assertEquals(before.getFirstExposureAt() != null ? before.getFirstExposureAt() : first, after.getFirstExposureAt());
+		assertEquals(first.plusSeconds(9_999), after.getLastExposureAt());
+		assertEquals(0, exposures.getPendingCount());
+	}
+}
@@ -0,0 +1,51 @@
+package com.rex.service.assignment;
+
+import com.rex.model.Experiment;
+import com.rex.repository.ExperimentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class SampleSizeCountersTest {
+
+	@Autowired
+	private SampleSizeCounters sampleSizes;
+
+	@Autowired
+	private ExperimentRepository experimentRepository;
+
+	@Test
+	void concurrentIncrementsAreFlushedWithoutLoss() throws InterruptedException {
+		sampleSizes.flush();
+		Experiment before = experimentRepository.findById(2L).orElseThrow();
+		long variantBefore = sampleSizes.variantSampleSizes(2L).getOrDefault("counter_test", 0L);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 2_500; i++) {
+					sampleSizes.increment(2L, "counter_test");
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(before.getCurrentSampleSize() + 10_000L, sampleSizes.liveSampleSize(before));
+		assertEquals(variantBefore + 10_000L, sampleSizes.variantSampleSizes(2L).get("counter_test"));
+
+		sampleSizes.flush();
+		Experiment after = experimentRepository.findById(2L).orElseThrow();
+		assertEquals(before.getCurrentSampleSize() + 10_000, after.getCurrentSampleSize());
+		assertEquals(after.getCurrentSampleSize().longValue(), sampleSizes.liveSampleSize(after));
+	}
+}
@@ -0,0 +1,57 @@
+package com.rex.service.assignment;
+
+import com.rex.model.ExperimentVariant;
+import com.rex.service.bucketing.BucketingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VariantAllocationTest {
+
+	@Test
+	void bucketsAreApportionedByWeightInVariantOrder() {
+		List<ExperimentVariant> variants = List.of(new ExperimentVariant("control", 1),
+				new ExperimentVariant("blue", 1), new ExperimentVariant("green", 1));
+		VariantAllocation allocation = VariantAllocation.of(variants);
+
+		int[] counts = new int[allocation.size()];
+		int previous = 0;
+		for (int bucket = 0; bucket < BucketingStrategy.BUCKETS; bucket++) {
+			int variant = allocation.variantIndex(bucket);
+			assertTrue(variant >= previous, "variants occupy contiguous ranges");
+			previous = variant;
+			counts[variant]++;
+		}
+		// 10,000 / 3: the leftover bucket goes to the first of the equal remainders
+		assertArrayEquals(new int[]{3334, 3333, 3333}, counts);
+		assertEquals("green", allocation.variantName(allocation.variantIndex(BucketingStrategy.BUCKETS - 1)));
+	}
+
+	@Test
+	void unevenWeightsAndReuse() {
+		List<ExperimentVariant> variants = List.of(new ExperimentVariant("control", 80),
+				new ExperimentVariant("treatment", 20));
+		VariantAllocation allocation = VariantAllocation.of(variants);
+
+		assertEquals(0, allocation.variantIndex(7_999));
+		assertEquals(1, allocation.variantIndex(8_000));
+		assertTrue(allocation.hasVariants(List.of(new ExperimentVariant("control", 80),
+				new ExperimentVariant("treatment", 20))));
+		assertFalse(allocation.hasVariants(List.of(new ExperimentVariant("control", 50),
+				new ExperimentVariant("treatment", 50))));
+	}
+
+	@Test
+	void rejectsInvalidVariants() {
+		assertThrows(IllegalArgumentException.class,
+				() -> VariantAllocation.of(List.of(new ExperimentVariant("control", 1))));
+		assertThrows(IllegalArgumentException.class, () -> VariantAllocation.of(List.of(
+				new ExperimentVariant("control", 1), new ExperimentVariant("treatment", 0))));
+	}
+}
@@ -0,0 +1,70 @@
+package com.rex.service.bucketing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BucketingStrategyTest {
+
+	private final LegacyBucketingStrategy legacy = new LegacyBucketingStrategy();
+	private final Murmur3BucketingStrategy murmur3 = new Murmur3BucketingStrategy();
+
+	@Test
+	void legacyReproducesStringHashCodePercentiles() {
+		String[] salts = {"dark_mode", "premium_features", "homepage_cta_test", "global"};
+		for (int i = 0; i < 10_000; i++) {
+			String userId = "user_" + i;
+			for (String salt : salts) {
+				int legacyHash = Math.abs((userId + ":" + salt).hashCode());
+				int legacyPercentile = legacyHash % 100 + 1;
+
+				int bucket = legacy.bucket(legacy.hashUser(userId), legacy.saltKey(salt));
+				for (int rollout = 1; rollout < 100; rollout++) {
+					assertEquals(legacyPercentile <= rollout,
+							bucket < BucketingStrategy.bucketsForPercentage(rollout),
+							userId + ":" + salt + " at " + rollout + "%");
+				}
+				assertEquals(legacyHash, legacy.hash(legacy.hashUser(userId), legacy.saltKey(salt)));
+			}
+
+			int legacyTrafficPercentile = Math.abs(userId.hashCode()) % 100 + 1;
+			int trafficBucket = legacy.bucket(legacy.hashUser(userId), legacy.trafficSaltKey("any_experiment"));
+			assertEquals((legacyTrafficPercentile - 1) * 100, trafficBucket);
+		}
+	}
+
+	@Test
+	void legacyClampsIntegerMinValue() {
+		// "polygenelubricants".hashCode() == Integer.MIN_VALUE
+		assertEquals(Integer.MIN_VALUE, "polygenelubricants".hashCode());
+		assertEquals(0, legacy.bucket(legacy.hashUser("polygenelubricants"), legacy.saltKey(null)));
+	}
+
+	@Test
+	void murmur3BucketsAreStableAndEvenlySpread() {
+		long saltKey = murmur3.saltKey("premium_features");
+		int[] counts = new int[10];
+		int users = 200_000;
+		for (int i = 0; i < users; i++) {
+			int userHash = murmur3.hashUser("user_" + i);
+			int bucket = murmur3.bucket(userHash, saltKey);
+			assertTrue(bucket >= 0 && bucket < BucketingStrategy.BUCKETS);
+			assertTrue(murmur3.hash(userHash, saltKey) >= 0);
+			assertEquals(bucket, murmur3.bucket(murmur3.hashUser("user_" + i), saltKey));
+			counts[bucket / 1_000]++;
+		}
+		for (int count : counts) {
+			assertEquals(users / 10.0, count, users / 10.0 * 0.05);
+		}
+	}
+
+	@Test
+	void murmur3MatchesReferenceImplementation() {
+		// Published MurmurHash3_x86_32 vectors; each char contributes two little-endian bytes
+		assertEquals(0, Murmur3BucketingStrategy.murmur3("", 0));
+		assertEquals(0x514E28B7, Murmur3BucketingStrategy.murmur3("", 1));
+		assertEquals(0xA0F7B07A, Murmur3BucketingStrategy.murmur3("\u4321", 0));
+		assertEquals(0xF55B516B, Murmur3BucketingStrategy.murmur3("\u4321\u8765", 0));
+	}
+}
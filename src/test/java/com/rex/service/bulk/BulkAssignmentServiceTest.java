@@ -0,0 +1,201 @@
+package com.rex.service.bulk;
+
+import com.rex.model.BulkAssignmentJob;
+import com.rex.model.Experiment;
+import com.rex.model.UserCohort;
+import com.rex.repository.BulkAssignmentJobRepository;
+import com.rex.repository.ExperimentRepository;
+import com.rex.repository.UserCohortRepository;
+import com.rex.service.ExperimentService;
+import com.rex.service.assignment.AssignmentWriter;
+import com.rex.service.assignment.SampleSizeCounters;
+import com.rex.service.dictionary.DictionaryService;
+import com.rex.service.sketch.UniqueUserSketchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class BulkAssignmentServiceTest {
+
+	private static final int CHUNK_SIZE = 2;
+
+	@Autowired
+	private ExperimentService experimentService;
+
+	@Autowired
+	private ExperimentRepository experimentRepository;
+
+	@Autowired
+	private BulkAssignmentJobRepository jobRepository;
+
+	@Autowired
+	private UserCohortRepository userCohortRepository;
+
+	@Autowired
+	private AssignmentWriter assignmentWriter;
+
+	@Autowired
+	private DictionaryService dictionary;
+
+	@Autowired
+	private UniqueUserSketchService userSketches;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private CountingSampleSizes sampleSizes;
+	private Experiment experiment;
+
+	@BeforeEach
+	void setUp() {
+		sampleSizes = new CountingSampleSizes(jdbcTemplate, userCohortRepository, transactionManager);
+		experiment = experimentService.createExperiment("bulk_" + UUID.randomUUID(), "bulk test",
+				"none", "control", "treatment", 100, "production", "test");
+		experimentService.markExperimentReady(experiment.getId());
+		experimentService.startExperiment(experiment.getId());
+	}
+
+	@AfterEach
+	void tearDown() {
+		experimentService.stopExperiment(experiment.getId());
+	}
+
+	@Test
+	void resumesAfterFailedChunkWithoutReassigningCommittedLines() {
+		BulkAssignmentService bulk = service(false);
+		String jobId = "bulk-" + UUID.randomUUID();
+
+		// The read fails after two chunks were committed
+		assertThrows(UncheckedIOException.class,
+				() -> bulk.assign(experiment.getId(), jobId, failingAfter(users(0, 4))));
+		BulkAssignmentProgress failed = bulk.getProgress(jobId);
+		assertEquals(BulkAssignmentJob.Status.FAILED, failed.status());
+		assertEquals(4, failed.nextLine());
+
+		BulkAssignmentProgress resumed = bulk.assign(experiment.getId(), jobId, new StringReader(users(0, 6)));
+
+		assertEquals(BulkAssignmentJob.Status.COMPLETED, resumed.status());
+		assertEquals(6, resumed.nextLine());
+		assertEquals(6, resumed.assignedUsers());
+		assertEquals(0, resumed.skippedUsers());
+		assertEquals(6, storedUsers());
+	}
+
+	@Test
+	void skipsUsersAlreadyAssigned() {
+		experimentService.assignUserToExperiment("bulk_user_1", experiment.getId(), null);
+		assignmentWriter.flush();
+
+		BulkAssignmentProgress progress = service(false)
+				.assign(experiment.getId(), null, new StringReader(users(0, 4) + "bulk_user_2\n"));
+
+		assertEquals(3, progress.assignedUsers());
+		assertEquals(2, progress.skippedUsers());
+		assertEquals(4, storedUsers());
+	}
+
+	@Test
+	void flushesSampleSizeOnceAtTheEnd() {
+		BulkAssignmentProgress progress = service(false)
+				.assign(experiment.getId(), null, new StringReader(users(0, 5)));
+
+		assertEquals(5, progress.assignedUsers());
+		assertEquals(1, sampleSizes.flushes);
+		assertEquals(5, experimentRepository.findById(experiment.getId()).orElseThrow().getCurrentSampleSize());
+	}
+
+	@Test
+	void countsUsersIntoSketchesInStatelessMode() {
+		BulkAssignmentService bulk = service(true);
+		bulk.assign(experiment.getId(), null, new StringReader(users(0, 5)));
+		bulk.assign(experiment.getId(), null, new StringReader(users(0, 5)));
+
+		assertEquals(0, storedUsers());
+		long counted = 0;
+		for (Object[] row : userSketches.experimentCohortUniques(experiment.getId())) {
+			counted += (Long) row[2];
+		}
+		assertEquals(5, counted);
+	}
+
+	private BulkAssignmentService service(boolean stateless) {
+		return new BulkAssignmentService(experimentService, jobRepository, userCohortRepository, sampleSizes,
+				dictionary, userSketches, jdbcTemplate, transactionManager, CHUNK_SIZE, stateless);
+	}
+
+	private long storedUsers() {
+		long users = 0;
+		for (Object[] row : userCohortRepository.getCohortDistribution(experiment.getId())) {
+			users += (Long) row[2];
+		}
+		return users;
+	}
+
+	private static String users(int from, int to) {
+		StringBuilder lines = new StringBuilder();
+		for (int i = from; i < to; i++) {
+			lines.append("bulk_user_").append(i).append('\n');
+		}
+		return lines.toString();
+	}
+
+	/**
+	 * Reader over the given lines that fails instead of reporting the end of input.
+	 */
+	private static Reader failingAfter(String lines) {
+		return new Reader() {
+
+			private final StringReader delegate = new StringReader(lines);
+
+			@Override
+			public int read(char[] buffer, int offset, int length) throws IOException {
+				int read = delegate.read(buffer, offset, length);
+				if (read < 0) {
+					throw new IOException("connection reset");
+				}
+				return read;
+			}
+
+			@Override
+			public void close() {
+				delegate.close();
+			}
+		};
+	}
+
+	/**
+	 * Sample-size counters that count their flushes.
+	 */
+	private static final class CountingSampleSizes extends SampleSizeCounters {
+
+		private int flushes;
+
+		CountingSampleSizes(JdbcTemplate jdbcTemplate, UserCohortRepository userCohortRepository,
+							PlatformTransactionManager transactionManager) {
+			super(jdbcTemplate, userCohortRepository, transactionManager);
+		}
+
+		@Override
+		public synchronized void flush() {
+			flushes++;
+			super.flush();
+		}
+	}
+}
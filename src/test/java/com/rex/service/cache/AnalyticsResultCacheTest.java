@@ -0,0 +1,126 @@
+package com.rex.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalyticsResultCacheTest {
+
+	@Test
+	void servesCachedResultUntilWatermarkAdvances() {
+		AnalyticsResultCache cache = new AnalyticsResultCache(true, 16, 60_000);
+		AtomicInteger computations = new AtomicInteger();
+
+		assertEquals(1, (int) cache.get("q", computations::incrementAndGet, "production"));
+		assertEquals(1, (int) cache.get("q", computations::incrementAndGet, "production"));
+		assertEquals(2, (int) cache.get("q", computations::incrementAndGet, "staging"));
+		assertEquals(3, (int) cache.get("q", computations::incrementAndGet, (Object) null));
+
+		cache.onRecorded(null);
+		assertEquals(4, (int) cache.get("q", computations::incrementAndGet, "production"));
+		assertEquals(4, (int) cache.get("q", computations::incrementAndGet, "production"));
+	}
+
+	@Test
+	void recomputesAfterMaxAge() throws InterruptedException {
+		AnalyticsResultCache cache = new AnalyticsResultCache(true, 16, 20);
+		AtomicInteger computations = new AtomicInteger();
+
+		assertEquals(1, (int) cache.get("q", computations::incrementAndGet));
+		Thread.sleep(50);
+		assertEquals(2, (int) cache.get("q", computations::incrementAndGet));
+	}
+
+	@Test
+	void coalescesConcurrentRequests() throws Exception {
+		AnalyticsResultCache cache = new AnalyticsResultCache(true, 16, 60_000);
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		int callers = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				results.add(executor.submit(() -> cache.get("q", () -> {
+					started.countDown();
+					await(release);
+					return computations.incrementAndGet();
+				}, "production")));
+			}
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			// Let the other callers reach the in-flight computation before it completes
+			Thread.sleep(100);
+			release.countDown();
+			for (Future<Integer> result : results) {
+				assertEquals(1, result.get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(1, computations.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void coalescesConcurrentRequestsDuringIngestion() throws Exception {
+		AnalyticsResultCache cache = new AnalyticsResultCache(true, 16, 60_000);
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		int callers = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			results.add(executor.submit(() -> cache.get("q", () -> {
+				started.countDown();
+				await(release);
+				return computations.incrementAndGet();
+			}, "production")));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			// Events keep arriving while the first computation runs, and each caller comes after one
+			for (int i = 1; i < callers; i++) {
+				cache.onRecorded(null);
+				results.add(executor.submit(() -> cache.get("q", computations::incrementAndGet, "production")));
+			}
+			Thread.sleep(100);
+			release.countDown();
+			for (Future<Integer> result : results) {
+				assertEquals(1, result.get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(1, computations.get());
+
+			// Once completed, the result computed before those events is stale
+			assertEquals(2, (int) cache.get("q", computations::incrementAndGet, "production"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void doesNotCacheFailures() {
+		AnalyticsResultCache cache = new AnalyticsResultCache(true, 16, 60_000);
+		assertThrows(IllegalStateException.class, () -> cache.get("q", () -> {
+			throw new IllegalStateException("query failed");
+		}));
+		assertEquals("ok", cache.get("q", () -> "ok"));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.rex.service.dictionary;
+
+import com.rex.model.DictionaryEntry;
+import com.rex.model.Metrics;
+import com.rex.repository.MetricsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class DictionaryServiceTest {
+
+	@Autowired
+	private DictionaryService dictionary;
+
+	@Autowired
+	private MetricsRepository metricsRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void seededValuesKeepTheirIdsAndNewValuesAreInterned() {
+		assertEquals(1, dictionary.encode("production"));
+		assertNull(dictionary.encode(null));
+
+		int code = dictionary.encode("dictionary_test_variant");
+		assertTrue(code >= DictionaryEntry.FIRST_ALLOCATED_ID);
+		assertEquals(code, dictionary.encode(new String("dictionary_test_variant")));
+		assertSame(dictionary.decode(code), dictionary.decode(code));
+	}
+
+	@Test
+	void encodedColumnsStoreCodesAndRoundTrip() {
+		Metrics metrics = new Metrics("dictionary-user", Metrics.EventType.PAGE_VIEW, "dictionary_test_page", null);
+		metrics.setEnvironment("staging");
+		metrics = metricsRepository.save(metrics);
+		// Backdated so it stays out of the dashboards' recent windows
+		jdbcTemplate.update("UPDATE metrics SET timestamp = ? WHERE id = ?", LocalDateTime.of(2002, 1, 1, 0, 0), metrics.getId());
+
+		assertEquals(2, jdbcTemplate.queryForObject("SELECT environment FROM metrics WHERE id = ?", Integer.class, metrics.getId()));
+		// Free-text event names are stored as text
+		assertEquals("dictionary_test_page",
+				jdbcTemplate.queryForObject("SELECT event_name FROM metrics WHERE id = ?", String.class, metrics.getId()));
+		Metrics loaded = metricsRepository.findById(metrics.getId()).orElseThrow();
+		assertEquals("staging", loaded.getEnvironment());
+		assertEquals("dictionary_test_page", loaded.getEventName());
+		assertTrue(metricsRepository.findByEnvironment("staging").stream().anyMatch(m -> m.getId().equals(loaded.getId())));
+	}
+
+	@Test
+	void entitiesInternNewValuesWhenSaved() {
+		Metrics metrics = new Metrics("dictionary-user", Metrics.EventType.PAGE_VIEW, "dictionary_test_page", null);
+		metrics.setEnvironment("dictionary_test_environment");
+		metrics = metricsRepository.save(metrics);
+		jdbcTemplate.update("UPDATE metrics SET timestamp = ? WHERE id = ?", LocalDateTime.of(2002, 1, 1, 0, 0), metrics.getId());
+
+		Integer code = dictionary.lookup("dictionary_test_environment");
+		assertEquals(code, jdbcTemplate.queryForObject("SELECT environment FROM metrics WHERE id = ?", Integer.class, metrics.getId()));
+		assertEquals("dictionary_test_environment", metricsRepository.findById(metrics.getId()).orElseThrow().getEnvironment());
+	}
+
+	@Test
+	void queriesForUnknownValuesMatchNothingAndAddNoEntries() {
+		Integer entries = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM string_dictionary", Integer.class);
+
+		assertTrue(metricsRepository.findByEnvironment("dictionary_never_stored").isEmpty());
+
+		assertNull(dictionary.lookup("dictionary_never_stored"));
+		assertEquals(entries, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM string_dictionary", Integer.class));
+	}
+
+	@Test
+	void cacheStaysWithinCapacity() {
+		DictionaryService small = new DictionaryService(dataSource, dataSource, 2);
+		for (String value : new String[]{"production", "staging", "web", "ios", "email"}) {
+			assertEquals(dictionary.encode(value), small.encode(value));
+			assertTrue(small.cachedEntries() <= 2);
+		}
+		assertEquals("production", small.decode(1));
+		assertThrows(IllegalStateException.class, () -> small.decode(999));
+	}
+}
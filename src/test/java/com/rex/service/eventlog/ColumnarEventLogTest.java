@@ -0,0 +1,62 @@
+package com.rex.service.eventlog;
+
+import com.rex.dto.FunnelStep;
+import com.rex.dto.VariantRevenue;
+import com.rex.model.Metrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnarEventLogTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void scansFunnelAndRevenueAcrossSegmentsAndReopens() {
+		// Capacity 8 rolls over to a new segment several times
+		try (ColumnarEventLog log = new ColumnarEventLog(directory, 8, true, null, null)) {
+			for (int i = 0; i < 30; i++) {
+				String variant = i % 2 == 0 ? "control" : "treatment";
+				log.append(START.plusMinutes(i), Metrics.EventType.EXPERIMENT_EXPOSURE, 7L, variant, "production", "web", "desktop", null, null);
+				if (i % 3 == 0) {
+					log.append(START.plusMinutes(i), Metrics.EventType.CONVERSION, 7L, variant, "production", "web", "desktop", 1.0, 10.0 + i);
+				}
+			}
+			log.append(START, Metrics.EventType.CONVERSION, 8L, "control", "production", "ios", "mobile", 1.0, 99.0);
+			log.append(START, Metrics.EventType.PAGE_VIEW, null, null, "production", null, null, null, null);
+			assertEquals(42, log.size());
+		}
+
+		try (ColumnarEventLog log = new ColumnarEventLog(directory, 8, false, null, null)) {
+			assertEquals(42, log.size());
+
+			List<FunnelStep> funnel = log.conversionFunnel(7L, START);
+			assertEquals(4, funnel.size());
+			assertEquals(new FunnelStep(Metrics.EventType.EXPERIMENT_EXPOSURE, "control", 15L), funnel.get(0));
+			assertEquals(new FunnelStep(Metrics.EventType.CONVERSION, "control", 5L), funnel.get(1));
+			assertEquals(new FunnelStep(Metrics.EventType.EXPERIMENT_EXPOSURE, "treatment", 15L), funnel.get(2));
+			assertEquals(new FunnelStep(Metrics.EventType.CONVERSION, "treatment", 5L), funnel.get(3));
+
+			// Only minutes 20..29: exposures 5 per variant, conversions at 21 (treatment), 24 and 27
+			List<FunnelStep> recent = log.conversionFunnel(7L, START.plusMinutes(20));
+			assertEquals(new FunnelStep(Metrics.EventType.EXPERIMENT_EXPOSURE, "control", 5L), recent.get(0));
+			assertEquals(new FunnelStep(Metrics.EventType.CONVERSION, "control", 1L), recent.get(1));
+			assertEquals(new FunnelStep(Metrics.EventType.CONVERSION, "treatment", 2L), recent.get(3));
+
+			List<VariantRevenue> revenue = log.revenueByVariant(START);
+			assertEquals(3, revenue.size());
+			// treatment: 13 + 19 + 25 + 31 + 37; control: 10 + 16 + 22 + 28 + 34
+			assertEquals(new VariantRevenue(7L, "treatment", 125.0, 25.0, 5L), revenue.get(0));
+			assertEquals(new VariantRevenue(7L, "control", 110.0, 22.0, 5L), revenue.get(1));
+			assertEquals(new VariantRevenue(8L, "control", 99.0, 99.0, 1L), revenue.get(2));
+		}
+	}
+}
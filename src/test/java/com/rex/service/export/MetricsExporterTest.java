@@ -0,0 +1,69 @@
+package com.rex.service.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rex.dto.MetricsExportRow;
+import com.rex.model.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsExporterTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	private final MetricsExporter exporter = new MetricsExporter(objectMapper);
+
+	@Test
+	void quotesCsvValuesOnlyWhenNeeded() {
+		StringWriter out = new StringWriter();
+		long rows = exporter.write(Stream.of(row(1L, "plain"), row(2L, "a,b \"quoted\"\nnext")),
+				MetricsExporter.Format.CSV, out);
+
+		assertEquals(2, rows);
+		String[] lines = out.toString().split("\r\n", -1);
+		assertTrue(lines[0].startsWith("id,user_id,feature_flag_id,experiment_id,event_type,event_name,"));
+		assertTrue(lines[1].startsWith("1,user-1,,7,CLICK,plain,"));
+		// The quoted value keeps its bare newline; records end with CRLF
+		assertTrue(lines[2].startsWith("2,user-2,,7,CLICK,\"a,b \"\"quoted\"\"\nnext\","));
+		assertEquals("", lines[3]);
+		assertEquals(4, lines.length);
+	}
+
+	@Test
+	void writesOneJsonObjectPerLine() throws Exception {
+		StringWriter out = new StringWriter();
+		long rows = exporter.write(Stream.of(row(1L, "line\nbreak"), row(2L, "second")),
+				MetricsExporter.Format.NDJSON, out);
+
+		assertEquals(2, rows);
+		String[] lines = out.toString().split("\n", -1);
+		assertEquals(3, lines.length);
+		assertEquals("", lines[2]);
+		JsonNode first = objectMapper.readTree(lines[0]);
+		assertEquals(1L, first.get("id").asLong());
+		assertEquals("line\nbreak", first.get("eventName").asText());
+		assertEquals("CLICK", first.get("eventType").asText());
+		assertEquals("second", objectMapper.readTree(lines[1]).get("eventName").asText());
+	}
+
+	@Test
+	void writesOnlyHeaderForEmptyStream() {
+		StringWriter out = new StringWriter();
+		assertEquals(0, exporter.write(Stream.empty(), MetricsExporter.Format.CSV, out));
+		assertEquals(1, out.toString().split("\r\n").length);
+		assertEquals(0, exporter.write(Stream.empty(), MetricsExporter.Format.NDJSON, new StringWriter()));
+	}
+
+	private static MetricsExportRow row(long id, String eventName) {
+		return new MetricsExportRow(id, "user-" + id, null, 7L, Metrics.EventType.CLICK, eventName, 1.0,
+				"control", LocalDateTime.of(2024, 1, 2, 3, 4, 5), null, null, null, null, null, "production",
+				null, null, null, null, null, null, null, null);
+	}
+}
@@ -0,0 +1,56 @@
+package com.rex.service.flag;
+
+import com.rex.model.FeatureFlag;
+import com.rex.service.bucketing.Murmur3BucketingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class FlagEvaluationTest {
+
+	@Test
+	void batchEvaluationMatchesSingleFlagEvaluation() {
+		// More than 64 flags, so the result spans several bitset words
+		List<FeatureFlag> flags = new ArrayList<>();
+		for (int i = 0; i < 150; i++) {
+			FeatureFlag flag = FlagSnapshotHolderTest.flag((long) i, "flag_" + i, i % 7 != 0);
+			flag.setRolloutPercentage(i % 101);
+			flag.setEnvironment(i % 10 == 0 ? "staging" : "production");
+			flags.add(flag);
+		}
+		FlagSnapshotHolder holder = new FlagSnapshotHolder(new Murmur3BucketingStrategy(), new InMemoryFlagChangeBus(10));
+		holder.reload(() -> flags);
+
+		long active = flags.stream()
+				.filter(flag -> flag.getEnabled() && "production".equals(flag.getEnvironment()))
+				.count();
+		for (int u = 0; u < 200; u++) {
+			String userId = "user-" + u;
+			FlagEvaluation evaluation = holder.evaluateAll(userId, "production");
+			assertEquals(active, evaluation.size());
+			int enabled = 0;
+			for (FeatureFlag flag : flags) {
+				boolean expected = holder.isEnabled(flag.getName(), userId, "production");
+				assertEquals(expected, evaluation.isEnabled(flag.getName()), flag.getName() + " for " + userId);
+				enabled += expected ? 1 : 0;
+			}
+			assertEquals(enabled, evaluation.enabledCount());
+			assertEquals(enabled, evaluation.enabledFlagNames().size());
+		}
+	}
+
+	@Test
+	void unknownEnvironmentEvaluatesNothing() {
+		FlagSnapshotHolder holder = new FlagSnapshotHolder(new Murmur3BucketingStrategy(), new InMemoryFlagChangeBus(10));
+		holder.reload(() -> List.of(FlagSnapshotHolderTest.flag(1L, "dark_mode", true)));
+
+		FlagEvaluation evaluation = holder.evaluateAll("user-1", "qa");
+		assertEquals(0, evaluation.size());
+		assertFalse(evaluation.isEnabled("dark_mode"));
+		assertEquals(List.of("dark_mode"), holder.evaluateAll("user-1", "production").enabledFlagNames());
+	}
+}
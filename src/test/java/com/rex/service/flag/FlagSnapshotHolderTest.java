@@ -0,0 +1,81 @@
+package com.rex.service.flag;
+
+import com.rex.model.FeatureFlag;
+import com.rex.service.bucketing.LegacyBucketingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlagSnapshotHolderTest {
+
+	private final InMemoryFlagChangeBus bus = new InMemoryFlagChangeBus(1000);
+	private final FlagSnapshotHolder holder = new FlagSnapshotHolder(new LegacyBucketingStrategy(), bus);
+
+	@Test
+	void appliesPublishedChangesAfterReload() {
+		holder.reload(() -> List.of(flag(1L, "dark_mode", false)));
+		assertFalse(holder.isEnabled("dark_mode", "user-1", "production"));
+
+		holder.publish(flag(1L, "dark_mode", true));
+
+		assertTrue(holder.isEnabled("dark_mode", "user-1", "production"));
+		assertEquals(1L, holder.current().getVersion());
+		assertFalse(holder.isEnabled("dark_mode", "user-1", "staging"));
+		assertFalse(holder.isEnabled("unknown", "user-1", "production"));
+	}
+
+	@Test
+	void keepsChangePublishedWhileLoading() {
+		holder.reload(() -> {
+			List<FeatureFlag> stale = List.of(flag(1L, "dark_mode", false));
+			// Committed by another request after the rows were read
+			bus.publish(FlagChangeEvent.of(flag(1L, "dark_mode", true)));
+			return stale;
+		});
+
+		assertTrue(holder.isEnabled("dark_mode", "user-1", "production"));
+		assertEquals(bus.latestVersion(), holder.current().getVersion());
+	}
+
+	@Test
+	void reloadDoesNotDuplicateSubscriptions() {
+		holder.reload(List::of);
+		holder.reload(() -> List.of(flag(1L, "dark_mode", false)));
+		holder.publish(flag(2L, "beta", true));
+
+		assertEquals(2, holder.current().size());
+		assertTrue(holder.isEnabled("beta", "user-1", "production"));
+	}
+
+	@Test
+	void recordsEnvironmentAFlagMovedOutOf() {
+		holder.reload(() -> List.of(flag(1L, "dark_mode", true)));
+		FeatureFlag moved = flag(1L, "dark_mode", true);
+		moved.setEnvironment("staging");
+
+		holder.publish(moved);
+		holder.publish(moved);
+
+		List<FlagChangeEvent> changes = new ArrayList<>();
+		bus.subscribe(0L, changes::add);
+		assertEquals("production", changes.get(0).previousEnvironment());
+		assertTrue(changes.get(0).leaves("production"));
+		assertNull(changes.get(1).previousEnvironment());
+		assertFalse(holder.isEnabled("dark_mode", "user-1", "production"));
+	}
+
+	static FeatureFlag flag(Long id, String name, boolean enabled) {
+		FeatureFlag flag = new FeatureFlag(name, name, enabled,
+				enabled ? FeatureFlag.FlagStatus.ACTIVE : FeatureFlag.FlagStatus.INACTIVE, "test");
+		flag.setId(id);
+		flag.setEnvironment("production");
+		flag.setRolloutPercentage(100);
+		return flag;
+	}
+}
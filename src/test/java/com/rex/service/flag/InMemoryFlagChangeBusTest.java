@@ -0,0 +1,90 @@
+package com.rex.service.flag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rex.service.flag.FlagSnapshotHolderTest.flag;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryFlagChangeBusTest {
+
+	@Test
+	void assignsSequentialVersions() {
+		InMemoryFlagChangeBus bus = new InMemoryFlagChangeBus(10);
+
+		assertEquals(1L, bus.publish(change(1L)).version());
+		assertEquals(2L, bus.publish(change(2L)).version());
+		assertEquals(2L, bus.latestVersion());
+	}
+
+	@Test
+	void subscribeReplaysOnlyNewerChangesThenDeliversLive() {
+		InMemoryFlagChangeBus bus = new InMemoryFlagChangeBus(10);
+		for (long i = 1; i <= 5; i++) {
+			bus.publish(change(i));
+		}
+
+		List<Long> seen = new ArrayList<>();
+		bus.subscribe(3L, event -> seen.add(event.version()));
+		bus.publish(change(6L));
+
+		assertEquals(List.of(4L, 5L, 6L), seen);
+	}
+
+	@Test
+	void cannotReplayPastTheHistory() {
+		InMemoryFlagChangeBus bus = new InMemoryFlagChangeBus(1000);
+		for (long i = 1; i <= 1005; i++) {
+			bus.publish(change(i));
+		}
+
+		// Versions 1..5 were evicted; a client at version 5 still has everything it needs
+		assertFalse(bus.canReplayFrom(0L));
+		assertFalse(bus.canReplayFrom(4L));
+		assertTrue(bus.canReplayFrom(5L));
+		assertTrue(bus.canReplayFrom(1005L));
+		assertFalse(bus.canReplayFrom(1006L));
+		assertFalse(bus.canReplayFrom(-1L));
+
+		List<Long> seen = new ArrayList<>();
+		bus.subscribe(5L, event -> seen.add(event.version()));
+		assertEquals(1000, seen.size());
+		assertEquals(6L, seen.get(0));
+		assertEquals(1005L, seen.get(seen.size() - 1));
+	}
+
+	@Test
+	void closedSubscriptionStopsDelivery() {
+		InMemoryFlagChangeBus bus = new InMemoryFlagChangeBus(10);
+		List<Long> seen = new ArrayList<>();
+		FlagChangeBus.Subscription subscription = bus.subscribe(0L, event -> seen.add(event.version()));
+
+		bus.publish(change(1L));
+		subscription.close();
+		bus.publish(change(2L));
+
+		assertEquals(List.of(1L), seen);
+	}
+
+	@Test
+	void failingListenerDoesNotBlockOthers() {
+		InMemoryFlagChangeBus bus = new InMemoryFlagChangeBus(10);
+		List<Long> seen = new ArrayList<>();
+		bus.subscribe(0L, event -> {
+			throw new IllegalStateException("boom");
+		});
+		bus.subscribe(0L, event -> seen.add(event.version()));
+
+		bus.publish(change(1L));
+
+		assertEquals(List.of(1L), seen);
+	}
+
+	private static FlagChangeEvent change(long flagId) {
+		return FlagChangeEvent.of(flag(flagId, "flag_" + flagId, true));
+	}
+}
@@ -0,0 +1,74 @@
+package com.rex.service.instrumentation;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotPathMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final HotPathMetrics metrics = new HotPathMetrics(registry);
+
+	@Test
+	void registersEveryMeterUpFront() {
+		for (String timer : List.of("rex.flag.evaluation", "rex.flag.evaluation.batch", "rex.experiment.assignment",
+				"rex.metrics.tracking", "rex.metrics.tracking.batch", "rex.metrics.ingestion.lag")) {
+			Timer registered = registry.find(timer).timer();
+			assertNotNull(registered, timer);
+			assertEquals(0, registered.count(), timer);
+		}
+		assertNotNull(registry.find("rex.experiment.assignment.cache").tag("result", "hit").counter());
+		assertNotNull(registry.find("rex.experiment.assignment.cache").tag("result", "miss").counter());
+		assertNotNull(registry.find("rex.experiment.assignment.database.fallbacks").counter());
+		assertNotNull(registry.find("rex.experiment.assignment.excluded").counter());
+	}
+
+	@Test
+	void timersRecordTimeSinceStart() {
+		long startNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+		metrics.flagEvaluated(startNanos);
+		metrics.flagEvaluated(startNanos);
+		metrics.flagsEvaluated(startNanos);
+		metrics.assigned(startNanos);
+		metrics.eventTracked(startNanos);
+		metrics.batchTracked(startNanos);
+
+		Timer flagEvaluation = registry.get("rex.flag.evaluation").timer();
+		assertEquals(2, flagEvaluation.count());
+		assertTrue(flagEvaluation.totalTime(TimeUnit.MILLISECONDS) >= 10);
+		assertEquals(1, registry.get("rex.flag.evaluation.batch").timer().count());
+		assertEquals(1, registry.get("rex.experiment.assignment").timer().count());
+		assertEquals(1, registry.get("rex.metrics.tracking").timer().count());
+		assertEquals(1, registry.get("rex.metrics.tracking.batch").timer().count());
+	}
+
+	@Test
+	void ingestionLagRecordsTheGivenDuration() {
+		metrics.ingestionLag(TimeUnit.SECONDS.toNanos(2));
+
+		Timer lag = registry.get("rex.metrics.ingestion.lag").timer();
+		assertEquals(1, lag.count());
+		assertEquals(2.0, lag.totalTime(TimeUnit.SECONDS), 1e-9);
+	}
+
+	@Test
+	void assignmentCountersAreTaggedByOutcome() {
+		metrics.assignmentCacheHit();
+		metrics.assignmentCacheHit();
+		metrics.assignmentCacheMiss();
+		metrics.assignmentDatabaseFallback();
+		metrics.assignmentExcluded();
+
+		assertEquals(2, registry.get("rex.experiment.assignment.cache").tag("result", "hit").counter().count());
+		assertEquals(1, registry.get("rex.experiment.assignment.cache").tag("result", "miss").counter().count());
+		assertEquals(1, registry.get("rex.experiment.assignment.database.fallbacks").counter().count());
+		assertEquals(1, registry.get("rex.experiment.assignment.excluded").counter().count());
+	}
+}
@@ -0,0 +1,105 @@
+package com.rex.service.instrumentation;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.rex.model.Metrics;
+import com.rex.model.UserCohort;
+import com.rex.service.assignment.Assignment;
+import com.rex.service.assignment.AssignmentWriter;
+import com.rex.service.metrics.AsyncMetricsSink;
+import com.rex.service.metrics.JdbcMetricsWriter;
+import com.rex.service.metrics.MetricsObserver;
+import com.rex.service.metrics.MetricsRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class QueueMetricsBinderTest {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private AssignmentWriter assignmentWriter;
+
+	@TempDir
+	Path spillDirectory;
+
+	@Test
+	void bindsAssignmentWriterMetersOnlyInSyncMode() {
+		assertNotNull(meterRegistry.find("rex.experiment.assignment.queue.depth").gauge());
+		assertNotNull(meterRegistry.find("rex.experiment.assignment.writes").tag("result", "failed").functionCounter());
+		assertNull(meterRegistry.find("rex.metrics.ingestion.queue.depth").gauge());
+		assertNull(meterRegistry.find("rex.metrics.ingestion.events").functionCounter());
+	}
+
+	@Test
+	void assignmentWritesCounterFollowsTheWriter() {
+		double before = writtenAssignments();
+
+		assignmentWriter.enqueue(new Assignment(1L, "queue_metrics_test_user", null, UserCohort.CohortType.EXCLUDED,
+				"excluded", UserCohort.AssignmentMethod.HASH_BASED, 0, null, LocalDateTime.now(), null));
+		assignmentWriter.flush();
+
+		assertEquals(before + 1, writtenAssignments());
+		assertEquals(0.0, meterRegistry.get("rex.experiment.assignment.queue.depth").gauge().value());
+	}
+
+	@Test
+	void bindsAsyncSinkMetersWhenPresent() {
+		DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+		beans.registerSingleton("asyncMetricsSink", countingSink());
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new QueueMetricsBinder(beans.getBeanProvider(AsyncMetricsSink.class), assignmentWriter).bindTo(registry);
+
+		// Not started, so each event is written on the calling thread
+		AsyncMetricsSink sink = beans.getBean(AsyncMetricsSink.class);
+		for (int i = 0; i < 3; i++) {
+			sink.record(new Metrics("queue_metrics_user_" + i, Metrics.EventType.CUSTOM, "queue_metrics_event", 1.0));
+		}
+
+		assertEquals(16.0, registry.get("rex.metrics.ingestion.queue.capacity").gauge().value());
+		assertEquals(0.0, registry.get("rex.metrics.ingestion.queue.depth").gauge().value());
+		assertEquals(3.0, ingestionEvents(registry, "written"));
+		for (String result : List.of("dropped", "spilled", "retried", "failed")) {
+			assertEquals(0.0, ingestionEvents(registry, result), result);
+		}
+		assertNotNull(registry.find("rex.experiment.assignment.queue.depth").gauge());
+	}
+
+	private double writtenAssignments() {
+		return meterRegistry.get("rex.experiment.assignment.writes").tag("result", "written").functionCounter().count();
+	}
+
+	private static double ingestionEvents(MeterRegistry registry, String result) {
+		return registry.get("rex.metrics.ingestion.events").tag("result", result).functionCounter().count();
+	}
+
+	private AsyncMetricsSink countingSink() {
+		JdbcMetricsWriter writer = new JdbcMetricsWriter(null, null, null) {
+			@Override
+			public int write(List<MetricsRow> rows) {
+				return rows.size();
+			}
+		};
+		return new AsyncMetricsSink(writer,
+				new DefaultListableBeanFactory().getBeanProvider(MetricsObserver.class),
+				new HotPathMetrics(new SimpleMeterRegistry()),
+				Validation.buildDefaultValidatorFactory().getValidator(),
+				JsonMapper.builder().findAndAddModules().build(),
+				16, 10, 50, "block", spillDirectory.toString());
+	}
+}
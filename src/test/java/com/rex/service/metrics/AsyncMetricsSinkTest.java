@@ -0,0 +1,232 @@
+package com.rex.service.metrics;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.rex.model.Metrics;
+import com.rex.service.instrumentation.HotPathMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncMetricsSinkTest {
+
+	private static final int CAPACITY = 8;
+	private static final int BATCH_SIZE = 10;
+
+	@TempDir
+	Path spillDirectory;
+
+	private final RecordingWriter writer = new RecordingWriter();
+	private AsyncMetricsSink sink;
+
+	@AfterEach
+	void tearDown() {
+		writer.open();
+		if (sink != null) {
+			sink.stop();
+		}
+	}
+
+	@Test
+	void writesBufferedEventsInBatches() throws InterruptedException {
+		sink = started("block", 64);
+		holdWriter();
+
+		recordEvents(25);
+		writer.open();
+
+		assertTrue(sink.awaitDrained(Duration.ofSeconds(10)));
+		assertEquals(List.of(1, 10, 10, 5), writer.batchSizes());
+		assertEquals(26, sink.getWrittenCount());
+	}
+
+	@Test
+	void blockPolicyWaitsForRoom() throws InterruptedException {
+		sink = started("block", CAPACITY);
+		holdWriter();
+		recordEvents(CAPACITY);
+
+		Thread producer = new Thread(() -> recordEvents(1));
+		producer.start();
+		producer.join(200);
+		assertTrue(producer.isAlive());
+
+		writer.open();
+		producer.join(10_000);
+		assertFalse(producer.isAlive());
+		assertTrue(sink.awaitDrained(Duration.ofSeconds(10)));
+		assertEquals(CAPACITY + 2, sink.getWrittenCount());
+		assertEquals(0, sink.getDroppedCount());
+	}
+
+	@Test
+	void dropPolicyCountsDroppedEvents() throws InterruptedException {
+		sink = started("drop", CAPACITY);
+		holdWriter();
+		recordEvents(CAPACITY + 3);
+		writer.open();
+
+		assertTrue(sink.awaitDrained(Duration.ofSeconds(10)));
+		assertEquals(3, sink.getDroppedCount());
+		assertEquals(CAPACITY + 1, sink.getWrittenCount());
+	}
+
+	@Test
+	void spillPolicyReplaysOverflow() throws InterruptedException {
+		sink = started("spill", CAPACITY);
+		holdWriter();
+		recordEvents(CAPACITY + 3);
+		writer.open();
+
+		assertTrue(sink.awaitDrained(Duration.ofSeconds(10)));
+		assertEquals(3, sink.getSpilledCount());
+		assertEquals(0, sink.getRetriedCount());
+		assertEquals(CAPACITY + 4, sink.getWrittenCount());
+		assertEquals(CAPACITY + 4, writer.rowsWritten());
+	}
+
+	@Test
+	void failedBatchIsSpilledAndCountedOnceReplayed() {
+		sink = started("spill", 64);
+		// The batch fails, then the replay waits until released
+		writer.failNext(1);
+		writer.hold();
+
+		recordEvents(1);
+		assertFalse(sink.awaitDrained(Duration.ofMillis(300)));
+		assertEquals(1, sink.getRetriedCount());
+		assertEquals(0, sink.getWrittenCount());
+		assertEquals(0, sink.getFailedCount());
+
+		writer.open();
+		assertTrue(sink.awaitDrained(Duration.ofSeconds(10)));
+		assertEquals(1, sink.getWrittenCount());
+		assertEquals(1, writer.rowsWritten());
+		assertEquals(0, sink.getSpilledCount());
+	}
+
+	@Test
+	void failedBatchWithoutSpillIsLost() {
+		sink = started("block", 64);
+		writer.failNext(Integer.MAX_VALUE);
+
+		recordEvents(3);
+		assertTrue(sink.awaitDrained(Duration.ofSeconds(10)));
+		assertEquals(3, sink.getFailedCount());
+		assertEquals(0, sink.getWrittenCount());
+	}
+
+	@Test
+	void writesOnCallerThreadAfterStop() {
+		sink = started("block", 64);
+		sink.stop();
+
+		recordEvents(2);
+		assertEquals(2, sink.getWrittenCount());
+		assertEquals(List.of(1, 1), writer.batchSizes());
+		assertTrue(writer.threads().stream().allMatch(Thread.currentThread().getName()::equals));
+		assertTrue(sink.awaitDrained(Duration.ZERO));
+	}
+
+	private AsyncMetricsSink started(String backpressure, int capacity) {
+		AsyncMetricsSink sink = new AsyncMetricsSink(writer,
+				new DefaultListableBeanFactory().getBeanProvider(MetricsObserver.class),
+				new HotPathMetrics(new SimpleMeterRegistry()),
+				Validation.buildDefaultValidatorFactory().getValidator(),
+				JsonMapper.builder().findAndAddModules().build(),
+				capacity, BATCH_SIZE, 50, backpressure, spillDirectory.toString());
+		sink.start();
+		return sink;
+	}
+
+	/**
+	 * Let the writer take one event and hold it inside write(), so later events stay buffered.
+	 */
+	private void holdWriter() throws InterruptedException {
+		writer.hold();
+		recordEvents(1);
+		assertTrue(writer.awaitEntered());
+	}
+
+	private void recordEvents(int count) {
+		for (int i = 0; i < count; i++) {
+			sink.record(new Metrics("user_" + i, Metrics.EventType.CUSTOM, "test_event", (double) i));
+		}
+	}
+
+	/**
+	 * Writer that records batch sizes instead of inserting, and can hold or fail calls.
+	 */
+	private static final class RecordingWriter extends JdbcMetricsWriter {
+
+		private final List<Integer> batchSizes = new ArrayList<>();
+		private final List<String> threads = new ArrayList<>();
+		private final AtomicInteger failures = new AtomicInteger();
+		private volatile CountDownLatch gate = new CountDownLatch(0);
+		private final CountDownLatch entered = new CountDownLatch(1);
+
+		RecordingWriter() {
+			super(null, null, null);
+		}
+
+		void hold() {
+			gate = new CountDownLatch(1);
+		}
+
+		void open() {
+			gate.countDown();
+		}
+
+		void failNext(int calls) {
+			failures.set(calls);
+		}
+
+		boolean awaitEntered() throws InterruptedException {
+			return entered.await(10, TimeUnit.SECONDS);
+		}
+
+		@Override
+		public int write(List<MetricsRow> rows) {
+			if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+				throw new IllegalStateException("Simulated write failure");
+			}
+			entered.countDown();
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized (this) {
+				batchSizes.add(rows.size());
+				threads.add(Thread.currentThread().getName());
+			}
+			return rows.size();
+		}
+
+		synchronized List<Integer> batchSizes() {
+			return new ArrayList<>(batchSizes);
+		}
+
+		synchronized List<String> threads() {
+			return new ArrayList<>(threads);
+		}
+
+		synchronized int rowsWritten() {
+			return batchSizes.stream().mapToInt(Integer::intValue).sum();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.rex.service.metrics;
+
+import com.rex.model.Metrics;
+import com.rex.repository.MetricsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+class JdbcMetricsWriterTest {
+
+	private static final String WRITER_EVENT = "jdbc_writer_test";
+	private static final String JPA_EVENT = "jdbc_writer_test_jpa";
+
+	@Autowired
+	private JdbcMetricsWriter writer;
+
+	@Autowired
+	private MetricsRepository metricsRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void tearDown() {
+		// These rows bypass the observers, so they must not be left for the sketch and rollup tests
+		jdbcTemplate.update("DELETE FROM metrics WHERE event_name LIKE 'jdbc_writer_test%'");
+	}
+
+	@Test
+	void writesMultiRowInsertsLargerThanOneStatement() {
+		int rows = JdbcMetricsWriter.ROWS_PER_STATEMENT * 2 + 7;
+		assertEquals(rows, writer.write(rows("jdbc_writer_test_batch", rows)));
+		assertEquals(rows, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM metrics WHERE event_name = ?", Integer.class, "jdbc_writer_test_batch"));
+	}
+
+	@Test
+	void pooledIdsDoNotCollideWithJpaIds() {
+		Set<Long> jpaIds = new HashSet<>();
+		int perRound = Metrics.ID_ALLOCATION_SIZE + 10;
+		for (int round = 0; round < 5; round++) {
+			// Each round takes more than one ID block on the JDBC side and a block on the JPA side
+			writer.write(rows(WRITER_EVENT, perRound));
+			for (int i = 0; i < 3; i++) {
+				jpaIds.add(metricsRepository.save(event(JPA_EVENT, i)).getId());
+			}
+		}
+
+		List<Long> writerIds = jdbcTemplate.queryForList(
+				"SELECT id FROM metrics WHERE event_name = ?", Long.class, WRITER_EVENT);
+		assertEquals(5 * perRound, writerIds.size());
+		assertEquals(writerIds.size(), new HashSet<>(writerIds).size());
+		assertEquals(15, jpaIds.size());
+		for (Long id : writerIds) {
+			assertFalse(jpaIds.contains(id), "ID " + id + " assigned twice");
+		}
+	}
+
+	private static List<MetricsRow> rows(String eventName, int count) {
+		List<MetricsRow> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			rows.add(MetricsRow.from(event(eventName, i)));
+		}
+		return rows;
+	}
+
+	private static Metrics event(String eventName, int i) {
+		Metrics metrics = new Metrics("user_" + i, Metrics.EventType.CUSTOM, eventName, (double) i);
+		metrics.setTimestamp(LocalDateTime.now());
+		return metrics;
+	}
+}
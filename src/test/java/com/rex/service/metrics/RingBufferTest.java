@@ -0,0 +1,82 @@
+package com.rex.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+
+	@Test
+	void rejectsWhenFullAndReusesSlotsAfterDrain() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(3);
+		assertEquals(4, buffer.capacity());
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(2, buffer.drainTo(drained, 2));
+		assertEquals(List.of(0, 1), drained);
+
+		assertTrue(buffer.offer(4));
+		assertTrue(buffer.offer(5));
+		assertEquals(4, buffer.drainTo(drained, 10));
+		assertEquals(List.of(0, 1, 2, 3, 4, 5), drained);
+		assertTrue(buffer.isEmpty());
+	}
+
+	@Test
+	void concurrentProducersLoseNothingAndKeepPerProducerOrder() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 100_000;
+		RingBuffer<long[]> buffer = new RingBuffer<>(1024);
+		CountDownLatch start = new CountDownLatch(1);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			long producer = p;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (long i = 0; i < perProducer; i++) {
+					long[] element = {producer, i};
+					while (!buffer.offer(element)) {
+						Thread.onSpinWait();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+
+		long[] nextExpected = new long[producers];
+		List<long[]> batch = new ArrayList<>();
+		int received = 0;
+		while (received < producers * perProducer) {
+			batch.clear();
+			received += buffer.drainTo(batch, 256);
+			for (long[] element : batch) {
+				assertEquals(nextExpected[(int) element[0]]++, element[1]);
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (long count : nextExpected) {
+			assertEquals(perProducer, count);
+		}
+		assertTrue(buffer.isEmpty());
+	}
+}
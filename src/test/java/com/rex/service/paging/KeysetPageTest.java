@@ -0,0 +1,51 @@
+package com.rex.service.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetPageTest {
+
+	@Test
+	void tokenRoundTripsAndRejectsGarbage() {
+		LocalDateTime timestamp = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000);
+		ContinuationToken token = ContinuationToken.decode(ContinuationToken.of(timestamp, 42L).encode());
+		assertEquals(timestamp, token.timestamp());
+		assertEquals(42L, token.id());
+		assertEquals(7L, ContinuationToken.decode(ContinuationToken.of(7L, 9L).encode()).longKey());
+
+		assertThrows(IllegalArgumentException.class, () -> ContinuationToken.decode("not a token"));
+		assertThrows(IllegalArgumentException.class, () -> ContinuationToken.decode(""));
+	}
+
+	@Test
+	void iteratesEveryRowOncePageByPage() {
+		// Seek over the ascending IDs 1..25, as a repository query with "id > afterId" would
+		List<Long> table = IntStream.rangeClosed(1, 25).mapToObj(i -> (long) i).toList();
+		int pageSize = 10;
+		List<Integer> fetchedPages = new ArrayList<>();
+
+		Iterator<Long> it = KeysetPage.iterate(token -> {
+			long afterId = token != null ? ContinuationToken.decode(token).id() : 0L;
+			List<Long> rows = table.stream().filter(id -> id > afterId).limit(pageSize + 1).toList();
+			KeysetPage<Long> page = KeysetPage.of(rows, pageSize, ContinuationToken::of);
+			fetchedPages.add(page.items().size());
+			return page;
+		});
+
+		List<Long> seen = new ArrayList<>();
+		it.forEachRemaining(seen::add);
+		assertEquals(table, seen);
+		assertEquals(List.of(10, 10, 5), fetchedPages);
+		assertNull(KeysetPage.of(List.of(1L), pageSize, ContinuationToken::of).nextToken());
+		assertThrows(IllegalArgumentException.class, () -> KeysetPage.checkPageSize(KeysetPage.MAX_PAGE_SIZE + 1));
+	}
+}
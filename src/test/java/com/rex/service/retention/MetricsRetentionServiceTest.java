@@ -0,0 +1,115 @@
+package com.rex.service.retention;
+
+import com.rex.model.Metrics;
+import com.rex.model.RetentionCheckpoint;
+import com.rex.repository.MetricsRepository;
+import com.rex.repository.RetentionCheckpointRepository;
+import com.rex.service.cache.AnalyticsResultCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class MetricsRetentionServiceTest {
+
+	private static final LocalDateTime CUTOFF = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+	@Autowired
+	private MetricsRepository metricsRepository;
+
+	@Autowired
+	private RetentionCheckpointRepository checkpointRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AnalyticsResultCache analyticsCache;
+
+	@Test
+	void purgesOnlyExpiredRowsInChunks() {
+		List<Long> expired = new ArrayList<>();
+		List<Long> kept = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			Metrics metrics = metricsRepository.save(new Metrics("retention-user-" + i, Metrics.EventType.PAGE_VIEW, "page", null));
+			// Kept rows are still backdated so they stay out of the dashboards' recent windows
+			boolean keep = i % 4 == 3;
+			LocalDateTime timestamp = keep ? CUTOFF.plusDays(i) : CUTOFF.minusDays(i + 1);
+			jdbcTemplate.update("UPDATE metrics SET timestamp = ? WHERE id = ?", timestamp, metrics.getId());
+			(keep ? kept : expired).add(metrics.getId());
+		}
+
+		long watermark = analyticsCache.watermark();
+		RetentionProgress progress = retentionService().purge(CUTOFF);
+
+		assertEquals(RetentionCheckpoint.Status.COMPLETED, progress.status());
+		assertEquals(expired.size(), progress.deletedRows());
+		assertEquals(100.0, progress.progressPercentage());
+		assertFalse(progress.running());
+		expired.forEach(id -> assertFalse(metricsRepository.existsById(id)));
+		kept.forEach(id -> assertTrue(metricsRepository.existsById(id)));
+		assertTrue(analyticsCache.watermark() > watermark, "cached analytics invalidated");
+	}
+
+	@Test
+	void dropsWholeDayPartitionsBeforeDay() {
+		LocalDate firstDay = LocalDate.of(2001, 6, 1);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Metrics metrics = metricsRepository.save(new Metrics("partition-user-" + i, Metrics.EventType.PAGE_VIEW, "page", null));
+			jdbcTemplate.update("UPDATE metrics SET timestamp = ? WHERE id = ?", firstDay.plusDays(i).atTime(23, 59), metrics.getId());
+			ids.add(metrics.getId());
+		}
+		assertEquals(firstDay.plusDays(2), metricsRepository.findById(ids.get(2)).orElseThrow().getPartitionDay());
+		// More rows in the first day than one chunk holds
+		List<Long> firstDayIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Metrics metrics = metricsRepository.save(new Metrics("partition-user-x" + i, Metrics.EventType.PAGE_VIEW, "page", null));
+			jdbcTemplate.update("UPDATE metrics SET timestamp = ? WHERE id = ?", firstDay.atTime(12, i), metrics.getId());
+			firstDayIds.add(metrics.getId());
+		}
+
+		long dropped = retentionService().dropPartitionsBefore(firstDay.plusDays(2));
+
+		assertTrue(dropped >= 7);
+		assertFalse(metricsRepository.existsById(ids.get(0)));
+		assertFalse(metricsRepository.existsById(ids.get(1)));
+		assertTrue(metricsRepository.existsById(ids.get(2)));
+		firstDayIds.forEach(id -> assertFalse(metricsRepository.existsById(id)));
+	}
+
+	@Test
+	void visitsOnlyDaysThatHoldMetrics() {
+		// Decades apart: only the two days with rows are listed, not every day between them
+		List<LocalDate> days = List.of(LocalDate.of(1975, 3, 1), LocalDate.of(1999, 9, 9));
+		List<Long> ids = new ArrayList<>();
+		for (LocalDate day : days) {
+			Metrics metrics = metricsRepository.save(new Metrics("sparse-partition-user", Metrics.EventType.PAGE_VIEW, "page", null));
+			jdbcTemplate.update("UPDATE metrics SET timestamp = ? WHERE id = ?", day.atTime(8, 0), metrics.getId());
+			ids.add(metrics.getId());
+		}
+
+		assertEquals(days, metricsRepository.findPartitionDaysBefore(LocalDate.of(2000, 1, 1)));
+		assertEquals(2, retentionService().dropPartitionsBefore(LocalDate.of(2000, 1, 1)));
+		ids.forEach(id -> assertFalse(metricsRepository.existsById(id)));
+	}
+
+	private MetricsRetentionService retentionService() {
+		// Small chunks so a purge spans several transactions
+		return new MetricsRetentionService(metricsRepository, checkpointRepository, transactionManager, analyticsCache, 3, 1_000_000, 90);
+	}
+}
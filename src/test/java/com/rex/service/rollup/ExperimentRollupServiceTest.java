@@ -0,0 +1,74 @@
+package com.rex.service.rollup;
+
+import com.rex.repository.MetricsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Transactional(readOnly = true)
+class ExperimentRollupServiceTest {
+
+	@Autowired
+	private ExperimentRollupService experimentRollups;
+
+	@Autowired
+	private MetricsRepository metricsRepository;
+
+	@Test
+	void backfilledRollupsMatchRawQueriesOnSampleData() {
+		for (long experimentId = 1; experimentId <= 4; experimentId++) {
+			assertRows(metricsRepository.getExperimentPerformance(experimentId),
+					experimentRollups.getExperimentPerformance(experimentId));
+			assertRows(metricsRepository.getConversionFunnel(experimentId),
+					experimentRollups.getConversionFunnel(experimentId));
+		}
+		// Ties in the ranking have no defined order, so compare these by key
+		assertRows(byKey(metricsRepository.getTopPerformingVariants(0L)),
+				byKey(experimentRollups.getTopPerformingVariants(0L)));
+		assertRows(byKey(metricsRepository.getRevenueMetrics()), byKey(experimentRollups.getRevenueMetrics()));
+	}
+
+	private static <R extends Record> List<R> byKey(List<R> rows) {
+		return rows.stream()
+				.sorted(Comparator.comparing((R row) -> values(row)[0] + "/" + values(row)[1]))
+				.toList();
+	}
+
+	private static Object[] values(Record row) {
+		RecordComponent[] components = row.getClass().getRecordComponents();
+		Object[] values = new Object[components.length];
+		for (int i = 0; i < components.length; i++) {
+			try {
+				values[i] = components[i].getAccessor().invoke(row);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return values;
+	}
+
+	private static void assertRows(List<? extends Record> expected, List<? extends Record> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Object[] expectedRow = values(expected.get(i));
+			Object[] actualRow = values(actual.get(i));
+			for (int c = 0; c < expectedRow.length; c++) {
+				// Averages summed in a different order may differ in the last bits
+				if (expectedRow[c] instanceof Double n && actualRow[c] instanceof Double m) {
+					assertEquals(n.doubleValue(), m.doubleValue(), 1e-9);
+					expectedRow[c] = actualRow[c];
+				}
+			}
+			assertArrayEquals(expectedRow, actualRow);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.rex.service.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+	@Test
+	void estimatesWithinErrorBound() {
+		HyperLogLog sketch = new HyperLogLog();
+		for (int i = 0; i < 100_000; i++) {
+			sketch.add("user-" + i);
+		}
+		// Standard error is about 1.6% at precision 12; allow three of them
+		assertEquals(100_000, sketch.estimate(), 100_000 * 0.05);
+
+		HyperLogLog small = new HyperLogLog();
+		for (int i = 0; i < 50; i++) {
+			small.add("user-" + i);
+			small.add("user-" + i);
+		}
+		assertEquals(50, small.estimate());
+	}
+
+	@Test
+	void mergeIsUnionAndIdempotent() {
+		HyperLogLog a = new HyperLogLog();
+		HyperLogLog b = new HyperLogLog();
+		HyperLogLog both = new HyperLogLog();
+		for (int i = 0; i < 20_000; i++) {
+			(i % 2 == 0 ? a : b).add("user-" + i);
+			both.add("user-" + i);
+		}
+		// Overlap: b also sees some of a's values
+		for (int i = 0; i < 5_000; i += 2) {
+			b.add("user-" + i);
+		}
+
+		HyperLogLog union = HyperLogLog.union(List.of(a, b));
+		assertArrayEquals(both.toBytes(), union.toBytes());
+		union.merge(a);
+		assertArrayEquals(both.toBytes(), union.toBytes());
+
+		assertThrows(IllegalArgumentException.class, () -> a.merge(new HyperLogLog(10)));
+	}
+
+	@Test
+	void serializationRoundTripsSparseAndDense() {
+		HyperLogLog sparse = new HyperLogLog();
+		for (int i = 0; i < 10; i++) {
+			sparse.add("user-" + i);
+		}
+		HyperLogLog dense = new HyperLogLog();
+		for (int i = 0; i < 50_000; i++) {
+			dense.add("user-" + i);
+		}
+		assertTrue(sparse.toBytes().length < dense.toBytes().length);
+		assertEquals(HyperLogLog.MAX_SERIALIZED_BYTES, dense.toBytes().length);
+
+		for (HyperLogLog sketch : List.of(sparse, dense)) {
+			HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+			assertArrayEquals(sketch.toBytes(), restored.toBytes());
+			assertEquals(sketch.estimate(), restored.estimate());
+		}
+		assertTrue(HyperLogLog.fromBytes(null).isEmpty());
+		assertFalse(sparse.isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] {9, 12}));
+	}
+
+	@Test
+	void startsSparseAndTurnsDenseWithSameRegisters() {
+		HyperLogLog sketch = new HyperLogLog();
+		HyperLogLog dense = emptyDense();
+		assertTrue(sketch.isSparse());
+		assertFalse(dense.isSparse());
+
+		int sparseUntil = -1;
+		for (int i = 0; i < 5_000; i++) {
+			sketch.add("user-" + i);
+			dense.add("user-" + i);
+			if (sketch.isSparse()) {
+				sparseUntil = i;
+			}
+			if (i % 100 == 0) {
+				assertEquals(dense.estimate(), sketch.estimate(), "after " + i);
+				assertArrayEquals(dense.toBytes(), sketch.toBytes(), "after " + i);
+			}
+		}
+		// Dense after an eighth of the 4096 registers are set
+		assertTrue(sparseUntil >= 400 && sparseUntil < 1_000, "sparse until " + sparseUntil);
+		assertFalse(sketch.isSparse());
+		assertArrayEquals(dense.toBytes(), sketch.toBytes());
+	}
+
+	@Test
+	void mergeKeepsSparseSketchesSparse() {
+		HyperLogLog a = new HyperLogLog();
+		HyperLogLog b = new HyperLogLog();
+		HyperLogLog both = emptyDense();
+		for (int i = 0; i < 100; i++) {
+			(i % 2 == 0 ? a : b).add("user-" + i);
+			both.add("user-" + i);
+		}
+
+		HyperLogLog union = HyperLogLog.union(List.of(a, b));
+		assertTrue(union.isSparse());
+		assertArrayEquals(both.toBytes(), union.toBytes());
+		assertTrue(HyperLogLog.fromBytes(union.toBytes()).isSparse());
+
+		HyperLogLog dense = emptyDense();
+		dense.add("user-dense");
+		both.add("user-dense");
+		union.merge(dense);
+		assertFalse(union.isSparse());
+		assertArrayEquals(both.toBytes(), union.toBytes());
+	}
+
+	@Test
+	void concurrentAddsAcrossTheSwitchLoseNothing() throws InterruptedException {
+		HyperLogLog sketch = new HyperLogLog();
+		HyperLogLog expected = new HyperLogLog();
+		for (int i = 0; i < 20_000; i++) {
+			expected.add("user-" + i);
+		}
+
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			int offset = t;
+			threads[t] = new Thread(() -> {
+				for (int i = offset; i < 20_000; i += threads.length) {
+					sketch.add("user-" + i);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertArrayEquals(expected.toBytes(), sketch.toBytes());
+	}
+
+	private static HyperLogLog emptyDense() {
+		byte[] bytes = new byte[HyperLogLog.MAX_SERIALIZED_BYTES];
+		bytes[0] = 1;
+		bytes[1] = HyperLogLog.DEFAULT_PRECISION;
+		return HyperLogLog.fromBytes(bytes);
+	}
+}
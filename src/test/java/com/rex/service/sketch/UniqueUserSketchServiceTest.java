@@ -0,0 +1,59 @@
+package com.rex.service.sketch;
+
+import com.rex.dto.ErrorSummary;
+import com.rex.dto.PlatformUsage;
+import com.rex.repository.MetricsRepository;
+import com.rex.service.MetricsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Transactional(readOnly = true)
+class UniqueUserSketchServiceTest {
+
+	@Autowired
+	private MetricsService metricsService;
+
+	@Autowired
+	private MetricsRepository metricsRepository;
+
+	@Test
+	void approximateDistinctMatchesExactQueriesOnSampleData() {
+		// At sample-data cardinalities the sketches are in their exact linear-counting range
+		LocalDateTime lastDay = LocalDateTime.now().minusDays(1);
+		LocalDateTime twoWeeks = LocalDateTime.now().minusDays(14).truncatedTo(ChronoUnit.DAYS);
+
+		assertEquals(metricsRepository.getHourlyMetrics(lastDay, "production"),
+				metricsService.getHourlyMetrics(lastDay, "production"));
+		assertEquals(metricsRepository.getDailyMetrics(twoWeeks), metricsService.getDailyMetrics(twoWeeks));
+		Comparator<ErrorSummary> byError = Comparator.comparing(row -> row.eventName() + "/" + row.environment());
+		assertEquals(sorted(metricsRepository.getErrorMetrics(twoWeeks), byError),
+				sorted(metricsService.getErrorMetrics(twoWeeks), byError));
+		Comparator<PlatformUsage> byPlatform = Comparator.comparing(row -> row.platform() + "/" + row.deviceType());
+		assertEquals(sorted(metricsRepository.getPlatformDistribution(twoWeeks), byPlatform),
+				sorted(metricsService.getPlatformDistribution(twoWeeks), byPlatform));
+		for (long flagId = 1; flagId <= 5; flagId++) {
+			assertEquals(metricsRepository.getFeatureFlagUsage(flagId), metricsService.getFeatureFlagUsage(flagId));
+		}
+	}
+
+	@Test
+	void dashboardCountsUsersActiveInSeveralHoursOnce() {
+		LocalDateTime lastDay = LocalDateTime.now().minusDays(1);
+		assertEquals(metricsRepository.countDistinctUsersSince(lastDay, "production"),
+				metricsService.getDashboardOverview("production").uniqueUsers24h());
+	}
+
+	private static <T> List<T> sorted(List<T> rows, Comparator<T> order) {
+		return rows.stream().sorted(order).toList();
+	}
+}
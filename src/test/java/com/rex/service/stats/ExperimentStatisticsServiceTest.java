@@ -0,0 +1,113 @@
+package com.rex.service.stats;
+
+import com.rex.dto.ExperimentSignificance;
+import com.rex.dto.VariantComparison;
+import com.rex.model.Experiment;
+import com.rex.model.Metrics;
+import com.rex.service.metrics.MetricsRow;
+import com.rex.service.rollup.ExperimentRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExperimentStatisticsServiceTest {
+
+	private static final long EXPERIMENT_ID = 42L;
+
+	private ExperimentRollupService rollups;
+	private ExperimentStatisticsService statistics;
+	private Experiment experiment;
+
+	@BeforeEach
+	void setUp() {
+		// Only the in-memory totals are used; nothing is flushed
+		rollups = new ExperimentRollupService(null, null, null);
+		statistics = new ExperimentStatisticsService(rollups);
+		experiment = new Experiment();
+		experiment.setId(EXPERIMENT_ID);
+		experiment.setControlVariantName("control");
+		experiment.setConfidenceLevel(95.0);
+	}
+
+	@Test
+	void countsDistinctUsersFromRollups() {
+		record("control", Metrics.EventType.EXPERIMENT_EXPOSURE, "u1", null);
+		record("control", Metrics.EventType.EXPERIMENT_EXPOSURE, "u1", null);
+		record("control", Metrics.EventType.EXPERIMENT_EXPOSURE, "u2", null);
+		record("control", Metrics.EventType.PURCHASE, "u1", 10.0);
+		record("control", Metrics.EventType.CONVERSION, "u1", 20.0);
+		record("variant_a", Metrics.EventType.EXPERIMENT_EXPOSURE, "u3", null);
+
+		ExperimentSignificance significance = statistics.analyze(experiment);
+		assertEquals(2, significance.controlExposures());
+		assertEquals(1, significance.controlConversions());
+		assertEquals(15.0, significance.controlMeanValue(), 1e-12);
+		assertEquals(1, significance.variants().size());
+		assertEquals(1, significance.variants().get(0).exposures());
+	}
+
+	@Test
+	void withoutMinimumSampleSizeNothingIsSignificant() {
+		recordCohort("control", 0, 400, 20);
+		recordCohort("variant_a", 400, 400, 200);
+
+		VariantComparison comparison = statistics.analyze(experiment).variants().get(0);
+		assertTrue(comparison.conversion().pValue() < 1e-6);
+		assertTrue(Double.isNaN(comparison.informationFraction()));
+		assertFalse(comparison.significant());
+	}
+
+	@Test
+	void pollingDoesNotAddLooks() {
+		experiment.setMinimumSampleSize(2000);
+		recordCohort("control", 0, 100, 10);
+		recordCohort("variant_a", 100, 100, 14);
+
+		VariantComparison first = statistics.analyze(experiment).variants().get(0);
+		for (int i = 0; i < 50; i++) {
+			assertEquals(first.boundary(), statistics.analyze(experiment).variants().get(0).boundary());
+		}
+		// About 10% of the information: a single look
+		double t1 = first.informationFraction();
+		assertEquals(SequentialBoundary.boundaries(95, t1)[0], first.boundary(), 1e-12);
+
+		recordCohort("control", 200, 100, 10);
+		recordCohort("variant_a", 300, 100, 10);
+		VariantComparison second = statistics.analyze(experiment).variants().get(0);
+		assertEquals(SequentialBoundary.boundaries(95, t1, second.informationFraction())[1],
+				second.boundary(), 1e-12);
+	}
+
+	@Test
+	void strongEffectStopsEarly() {
+		experiment.setMinimumSampleSize(2000);
+		recordCohort("control", 0, 400, 20);
+		recordCohort("variant_a", 400, 400, 200);
+
+		VariantComparison comparison = statistics.analyze(experiment).variants().get(0);
+		assertEquals(0.4, comparison.informationFraction(), 0.02);
+		assertTrue(comparison.significant());
+		assertTrue(comparison.stopEarly());
+	}
+
+	private void recordCohort(String variant, int firstUser, int users, int converters) {
+		for (int i = 0; i < users; i++) {
+			String userId = "user_" + (firstUser + i);
+			record(variant, Metrics.EventType.EXPERIMENT_EXPOSURE, userId, null);
+			if (i < converters) {
+				record(variant, Metrics.EventType.CONVERSION, userId, 1.0);
+			}
+		}
+	}
+
+	private void record(String variant, Metrics.EventType eventType, String userId, Double eventValue) {
+		rollups.onRecorded(new MetricsRow(userId, null, EXPERIMENT_ID, eventType, null, eventValue, variant,
+				LocalDateTime.now(), null, null, null, null, null, null, null, null, null, null, null, null,
+				null, null));
+	}
+}
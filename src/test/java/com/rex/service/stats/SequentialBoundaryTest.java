@@ -0,0 +1,81 @@
+package com.rex.service.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequentialBoundaryTest {
+
+	@Test
+	void equallySpacedLooksMatchPublishedBoundaries() {
+		// Lan-DeMets O'Brien-Fleming, five equally spaced looks, two-sided alpha 0.05
+		double[] boundaries = SequentialBoundary.boundaries(95, 0.2, 0.4, 0.6, 0.8, 1.0);
+		double[] published = {4.877, 3.357, 2.680, 2.290, 2.031};
+		for (int i = 0; i < published.length; i++) {
+			assertEquals(published[i], boundaries[i], 0.005, "look " + (i + 1));
+		}
+	}
+
+	@Test
+	void singleLookIsFixedHorizonTest() {
+		assertEquals(SignificanceTests.criticalZ(95), SequentialBoundary.boundaries(95, 1.0)[0], 1e-4);
+	}
+
+	@Test
+	void boundariesDependOnlyOnLooksTaken() {
+		// Skipping looks leaves more alpha for the later ones
+		double[] every = SequentialBoundary.boundaries(95, 0.2, 0.4, 0.6, 0.8, 1.0);
+		double[] two = SequentialBoundary.boundaries(95, 0.6, 1.0);
+		assertTrue(two[0] < every[2]);
+		assertTrue(two[1] < every[4]);
+		assertTrue(two[1] > SignificanceTests.criticalZ(95));
+	}
+
+	@Test
+	void repeatedLooksUnderNullKeepFalsePositiveRate() {
+		double[] fractions = new double[20];
+		for (int i = 0; i < fractions.length; i++) {
+			fractions[i] = (i + 1) / 20.0;
+		}
+		double[] boundaries = SequentialBoundary.boundaries(95, fractions);
+		double fixed = SignificanceTests.criticalZ(95);
+
+		Random random = new Random(42);
+		int trials = 20000;
+		int sequentialRejections = 0;
+		int naiveRejections = 0;
+		for (int trial = 0; trial < trials; trial++) {
+			double brownian = 0.0;
+			double previous = 0.0;
+			boolean sequential = false;
+			boolean naive = false;
+			for (int look = 0; look < fractions.length; look++) {
+				brownian += random.nextGaussian() * Math.sqrt(fractions[look] - previous);
+				previous = fractions[look];
+				double z = Math.abs(brownian / Math.sqrt(fractions[look]));
+				sequential |= z >= boundaries[look];
+				naive |= z >= fixed;
+			}
+			sequentialRejections += sequential ? 1 : 0;
+			naiveRejections += naive ? 1 : 0;
+		}
+
+		// Standard error of the rate is about 0.0015
+		assertEquals(0.05, (double) sequentialRejections / trials, 0.006);
+		// Testing every look at the fixed-horizon value rejects far more often
+		assertTrue((double) naiveRejections / trials > 0.15);
+	}
+
+	@Test
+	void looksMustAdvance() {
+		SequentialBoundary boundary = new SequentialBoundary(95);
+		boundary.look(0.5);
+		assertThrows(IllegalArgumentException.class, () -> boundary.look(0.5));
+		assertThrows(IllegalArgumentException.class, () -> boundary.look(1.1));
+		assertEquals(1, boundary.looks());
+	}
+}
@@ -0,0 +1,74 @@
+package com.rex.service.stats;
+
+import com.rex.dto.SignificanceTest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignificanceTestsTest {
+
+	@Test
+	void distributionsMatchTables() {
+		assertEquals(1.959964, SignificanceTests.criticalZ(95), 1e-6);
+		assertEquals(2.575829, SignificanceTests.criticalZ(99), 1e-6);
+		assertEquals(0.0734, SignificanceTests.studentTwoSided(2.0, 10), 1e-4);
+		assertEquals(2.228139, SignificanceTests.criticalT(95, 10), 1e-5);
+		assertEquals(0.05, 2 * SignificanceTests.normalTail(1.959964), 1e-6);
+		assertThrows(IllegalArgumentException.class, () -> SignificanceTests.criticalZ(100));
+	}
+
+	@Test
+	void twoProportionZTest() {
+		// 100/1000 vs 130/1000: pooled rate 0.115, z = 0.03 / sqrt(0.115 * 0.885 * 0.002)
+		SignificanceTest test = SignificanceTests.twoProportionZTest(100, 1000, 130, 1000, 95);
+		assertEquals(0.03, test.difference(), 1e-12);
+		assertEquals(2.1027, test.statistic(), 1e-4);
+		assertEquals(0.0355, test.pValue(), 1e-4);
+		assertTrue(test.lower() > 0 && test.upper() > test.lower());
+
+		assertFalse(SignificanceTests.twoProportionZTest(0, 0, 5, 10, 95).isDefined());
+		assertFalse(SignificanceTests.twoProportionZTest(0, 10, 0, 10, 95).isDefined());
+	}
+
+	@Test
+	void welchTTest() {
+		double[] control = {3.1, 2.7, 3.5, 2.9, 3.3, 3.0};
+		double[] variant = {3.6, 3.9, 3.2, 4.1, 3.8};
+
+		SignificanceTest test = SignificanceTests.welchTTest(
+				control.length, mean(control), twoPassVariance(control),
+				variant.length, mean(variant), twoPassVariance(variant), 95);
+		assertEquals(mean(variant) - mean(control), test.difference(), 1e-12);
+		assertEquals(7.8751, test.degreesOfFreedom(), 1e-4);
+		assertTrue(test.pValue() > 0.01 && test.pValue() < 0.02);
+	}
+
+	@Test
+	void obrienFlemingSpendingReachesAlphaAtFullInformation() {
+		assertEquals(0.05, SignificanceTests.obrienFlemingSpending(95, 1.0), 1e-7);
+		assertEquals(0.05, SignificanceTests.obrienFlemingSpending(95, 1.5), 1e-7);
+		// 4 - 4 Phi(2.2414 / sqrt(0.5)) = 4 * P(Z > 3.1698)
+		assertEquals(0.00305, SignificanceTests.obrienFlemingSpending(95, 0.5), 1e-5);
+		assertEquals(0.0, SignificanceTests.obrienFlemingSpending(95, 0));
+	}
+
+	static double mean(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+		return sum / values.length;
+	}
+
+	static double twoPassVariance(double[] values) {
+		double mean = mean(values);
+		double squares = 0;
+		for (double value : values) {
+			squares += (value - mean) * (value - mean);
+		}
+		return squares / (values.length - 1);
+	}
+}
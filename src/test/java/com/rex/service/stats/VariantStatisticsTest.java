@@ -0,0 +1,44 @@
+package com.rex.service.stats;
+
+import com.rex.service.rollup.VariantTotals;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VariantStatisticsTest {
+
+	@Test
+	void momentsFromSums() {
+		double[] values = {1003.1, 1002.7, 1003.5, 1002.9, 1003.3, 1003.0};
+		double sum = 0;
+		double squares = 0;
+		for (double value : values) {
+			sum += value;
+			squares += value * value;
+		}
+
+		VariantStatistics variant = VariantStatistics.of(new VariantTotals(10, 0, 0.0, 0.0),
+				new VariantTotals(4, values.length, sum, squares));
+		assertEquals(values.length, variant.valueCount());
+		assertEquals(SignificanceTestsTest.mean(values), variant.meanValue(), 1e-9);
+		assertEquals(SignificanceTestsTest.twoPassVariance(values), variant.valueVariance(), 1e-6);
+		assertEquals(0.4, variant.conversionRate(), 1e-12);
+	}
+
+	@Test
+	void conversionsNeverExceedExposures() {
+		VariantStatistics variant = VariantStatistics.of(new VariantTotals(3, 0, 0.0, 0.0),
+				new VariantTotals(5, 0, 0.0, 0.0));
+		assertEquals(3, variant.conversions());
+		assertEquals(1.0, variant.conversionRate(), 1e-12);
+	}
+
+	@Test
+	void emptyVariantHasNoRates() {
+		assertEquals(0, VariantStatistics.EMPTY.exposures());
+		assertTrue(Double.isNaN(VariantStatistics.EMPTY.conversionRate()));
+		assertTrue(Double.isNaN(VariantStatistics.EMPTY.meanValue()));
+		assertTrue(Double.isNaN(VariantStatistics.EMPTY.valueVariance()));
+	}
+}